@@ -1,8 +1,8 @@
 from ollama import chat
 from ollama import ChatResponse
 
-def ChatResponse(prompt, number):
-    response: ChatResponse = chat(model='qwen3:8b', messages=[
+def Messages(prompt, number):
+    return [
       {
         'role': 'user',
         'content': ("Придумай " + str(number) + " вопросов и для каждого придумай 4 варианта ответа, из которых 1 верный и 3 неверных"
@@ -17,5 +17,13 @@ def ChatResponse(prompt, number):
                     "*объяснение*\n"
                     "*Следующий вопрос* и т.д."),
       },
-    ])
+    ]
+
+def ChatResponse(prompt, number):
+    response: ChatResponse = chat(model='qwen3:8b', messages=Messages(prompt, number))
     return response['message']['content']
+
+# Ответ отдается частями по мере генерации, клиент разбирает вопросы, не дожидаясь конца
+def ChatResponseStream(prompt, number):
+    for chunk in chat(model='qwen3:8b', messages=Messages(prompt, number), stream=True):
+        yield chunk['message']['content']
@@ -1,13 +1,29 @@
 from fastapi import FastAPI
+from fastapi.responses import StreamingResponse
+from pydantic import BaseModel
 
 import LLM_functions
 
 app = FastAPI()
 
+
+class QuestionsRequest(BaseModel):
+    prompt: str
+    number: int
+
+
 @app.get("/question/{prompt}/{number}")
 async def root(prompt : str, number : int):
     return LLM_functions.ChatResponse(prompt, number)
 
+
+# Тема передается в теле запроса: в пути URL она ограничена по длине и попадает в логи прокси.
+# Ответ передается по частям (chunked) по мере генерации
+@app.post("/questions")
+def questions(request: QuestionsRequest):
+    return StreamingResponse(LLM_functions.ChatResponseStream(request.prompt, request.number),
+                             media_type="text/plain; charset=utf-8")
+
 '''
 fastapi dev main.py
 '''
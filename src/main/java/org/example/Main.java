@@ -1,12 +1,15 @@
 package org.example;
 
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import org.example.service.DatabaseService;
 
 public class Main {
     public static void main(String[] args) {
         System.out.println("QuizArena - Starting database connection test...");
         
-        DatabaseService dbService = new DatabaseService();
+        HikariDataSource dataSource = createDataSource();
+        DatabaseService dbService = new DatabaseService(dataSource);
         
         // Test connection
         if (dbService.testConnection()) {
@@ -27,7 +30,17 @@ public class Main {
             System.err.println("❌ Database connection failed!");
         }
         
-        dbService.close();
+        dataSource.close();
         System.out.println("\nDatabase connection closed.");
     }
+
+    static HikariDataSource createDataSource() {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl("jdbc:postgresql://localhost:5432/quizarena");
+        config.setUsername("quizuser");
+        config.setPassword("quizpass");
+        config.setMaximumPoolSize(10);
+        config.setMinimumIdle(5);
+        return new HikariDataSource(config);
+    }
 }
\ No newline at end of file
@@ -126,6 +126,18 @@ public interface ApiController {
    */
   QuizDetailsDTO getQuiz(Long quizId, Long userId);
 
+  /**
+   * Возвращает готовность квиза к прохождению, пока его вопросы генерируются.
+   * Квиз можно проходить после сохранения первой пачки вопросов, остальные догружаются в фоне
+   * и попадают в уже идущие попытки.
+   *
+   * @param quizId уникальный идентификатор квиза
+   * @return статус генерации и число сохраненных вопросов
+   * @throws EntityNotFoundException если квиз не найден
+   * @see QuizReadinessDTO
+   */
+  QuizReadinessDTO getQuizReadiness(Long quizId);
+
   /**
    * Удаляет квиз, созданный пользователем.
    * При удалении сбрасывается рейтинг квиза.
@@ -308,18 +320,30 @@ public interface ApiController {
   boolean cancelMultiplayerSession(CancelMultiplayerRequest request);
 
   /**
-   * Генерирует вопросы для квиза с использованием ИИ.
-   * Включает валидацию и удаление дубликатов.
+   * Ставит генерацию вопросов для квиза с использованием ИИ в очередь.
+   * Генерация включает валидацию и удаление дубликатов и выполняется в фоне;
+   * ее ход отслеживается через {@link #getGenerationStatus(Long)}.
    *
    * @param request параметры генерации вопросов
-   * @return DTO с результатами генерации и идентификатором набора вопросов
+   * @return DTO с идентификатором набора вопросов в статусе QUEUED
    * @throws EntityNotFoundException если квиз не найден
-   * @throws AIServiceException если ошибка при обращении к сервису ИИ
+   * @throws java.util.concurrent.RejectedExecutionException если очередь генерации заполнена
    * @see QuestionGenerationRequest
    * @see QuestionGenerationResponse
    */
   QuestionGenerationResponse generateQuizQuestions(QuestionGenerationRequest request);
 
+  /**
+   * Получает статус генерации набора вопросов и счетчики
+   * сгенерированных, валидных и повторяющихся вопросов.
+   *
+   * @param questionSetId идентификатор набора вопросов
+   * @return DTO со статусом (QUEUED, RUNNING, COMPLETED, FAILED) и счетчиками
+   * @throws EntityNotFoundException если набор вопросов не найден
+   * @see QuestionGenerationResponse
+   */
+  QuestionGenerationResponse getGenerationStatus(Long questionSetId);
+
   /**
    * Валидирует сгенерированные вопросы на соответствие требованиям.
    * Проверяет длину текста, количество вариантов ответов и наличие пояснений.
@@ -38,7 +38,12 @@ public class AttemptController {
     public ResponseEntity<QuestionDTO> getNextQuestion(@PathVariable Long attemptId) {
         try {
             QuestionDTO question = attemptService.getNextQuestion(attemptId);
-            return question != null ? ResponseEntity.ok(question) : ResponseEntity.noContent().build();
+            if (question != null) {
+                return ResponseEntity.ok(question);
+            }
+            // 202 — следующий вопрос еще генерируется, 204 — вопросов больше нет
+            return attemptService.isWaitingForQuestions(attemptId)
+                    ? ResponseEntity.accepted().build() : ResponseEntity.noContent().build();
         } catch (IllegalArgumentException | IllegalStateException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -4,11 +4,16 @@ import org.example.dto.request.multiplayer.*;
 import org.example.dto.response.multiplayer.MultiplayerResultsDTO;
 import org.example.dto.response.multiplayer.MultiplayerSessionDTO;
 import org.example.dto.response.multiplayer.ParticipantsDTO;
+import org.example.dto.response.multiplayer.ScoreboardDTO;
 import org.example.service.MultiplayerService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/multiplayer")
@@ -28,6 +33,8 @@ public class MultiplayerController {
             return ResponseEntity.ok(session);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         }
     }
 
@@ -51,6 +58,30 @@ public class MultiplayerController {
         }
     }
 
+    @PostMapping("/sessions/leave")
+    public ResponseEntity<Boolean> leaveSession(@RequestBody LeaveMultiplayerRequest request) {
+        try {
+            boolean left = multiplayerService.leaveMultiplayerSession(request);
+            return ResponseEntity.ok(left);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Поток событий сессии (Server-Sent Events): session с текущим состоянием при подключении,
+     * затем join, leave, start, cancel и finish.
+     */
+    @GetMapping(value = "/sessions/{sessionId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> sessionEvents(@PathVariable String sessionId) {
+        try {
+            SseEmitter emitter = multiplayerService.subscribeToSession(sessionId);
+            return ResponseEntity.ok(emitter);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/sessions/{sessionId}/participants")
     public ResponseEntity<ParticipantsDTO> getParticipants(@PathVariable String sessionId) {
         try {
@@ -73,6 +104,37 @@ public class MultiplayerController {
         }
     }
 
+    @PostMapping("/sessions/answer")
+    public ResponseEntity<Boolean> submitRoundAnswer(@RequestBody RoundAnswerRequest request) {
+        try {
+            boolean accepted = multiplayerService.submitRoundAnswer(request);
+            return ResponseEntity.ok(accepted);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/sessions/{sessionId}/attempts/{userId}")
+    public ResponseEntity<Long> getSessionAttempt(@PathVariable String sessionId, @PathVariable Long userId) {
+        try {
+            return ResponseEntity.ok(multiplayerService.getSessionAttempt(sessionId, userId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    @GetMapping("/sessions/{sessionId}/scoreboard")
+    public ResponseEntity<ScoreboardDTO> getScoreboard(@PathVariable String sessionId) {
+        try {
+            ScoreboardDTO scoreboard = multiplayerService.getScoreboard(sessionId);
+            return ResponseEntity.ok(scoreboard);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/sessions/{sessionId}/results")
     public ResponseEntity<MultiplayerResultsDTO> getResults(@PathVariable String sessionId) {
         try {
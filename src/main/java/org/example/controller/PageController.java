@@ -43,7 +43,7 @@ public class PageController {
 
     @GetMapping("/home")
     public String home(Model model) {
-        QuizSearchRequest request = new QuizSearchRequest("", "popularity", true, 0, 20);
+        QuizSearchRequest request = new QuizSearchRequest("", "popularity", true, 0, 20, null, true);
         QuizSearchResponse response = apiService.searchPublicQuizzes(request);
         model.addAttribute("quizzes", response.content());
         model.addAttribute("totalPages", response.totalPages());
@@ -65,7 +65,7 @@ public class PageController {
 
     @GetMapping("/quiz")
     public String quizList(@RequestParam(required = false, defaultValue = "") String search, Model model) {
-        QuizSearchRequest request = new QuizSearchRequest(search, "name", true, 0, 20);
+        QuizSearchRequest request = new QuizSearchRequest(search, "name", true, 0, 20, null, false);
         QuizSearchResponse response = apiService.searchPublicQuizzes(request);
         model.addAttribute("quizzes", response.content());
         model.addAttribute("search", search);
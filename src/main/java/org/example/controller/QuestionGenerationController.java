@@ -8,6 +8,8 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @RestController
 @RequestMapping("/api/generation")
 public class QuestionGenerationController {
@@ -19,18 +21,34 @@ public class QuestionGenerationController {
         this.questionGenerationService = questionGenerationService;
     }
 
+    /**
+     * Ставит генерацию в очередь и сразу отвечает 202 с идентификатором набора;
+     * ход генерации отдает GET /{questionSetId}/status.
+     */
     @PostMapping("/generate")
     public ResponseEntity<QuestionGenerationResponse> generateQuestions(@RequestBody QuestionGenerationRequest request) {
         try {
             QuestionGenerationResponse response = questionGenerationService.generateQuizQuestions(request);
-            return ResponseEntity.ok(response);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build();
         } catch (Exception e) {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
 
+    @GetMapping("/{questionSetId}/status")
+    public ResponseEntity<QuestionGenerationResponse> getGenerationStatus(@PathVariable Long questionSetId) {
+        try {
+            QuestionGenerationResponse response = questionGenerationService.getGenerationStatus(questionSetId);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{questionSetId}/validate")
     public ResponseEntity<ValidationResponse> validateQuestions(@PathVariable Long questionSetId) {
         try {
@@ -38,6 +56,8 @@ public class QuestionGenerationController {
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
@@ -48,6 +68,8 @@ public class QuestionGenerationController {
             return ResponseEntity.ok(response);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         }
     }
 
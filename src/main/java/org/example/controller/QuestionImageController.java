@@ -0,0 +1,106 @@
+package org.example.controller;
+
+import org.example.dao.QuestionImageDao.ImageInfo;
+import org.example.service.QuestionImageService;
+import org.example.util.TokenUtil;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Раздача и загрузка изображений вопросов.
+ * Файл отдается потоком из хранилища; Spring MVC обрабатывает заголовки Range (ответ 206)
+ * и условные запросы If-None-Match / If-Modified-Since (ответ 304) по ETag и Last-Modified.
+ */
+@RestController
+@RequestMapping("/api/questions")
+public class QuestionImageController {
+
+    private final QuestionImageService questionImageService;
+
+    @Autowired
+    public QuestionImageController(QuestionImageService questionImageService) {
+        this.questionImageService = questionImageService;
+    }
+
+    @GetMapping("/{questionId}/image")
+    public ResponseEntity<?> getImage(@PathVariable Long questionId, HttpServletRequest request) {
+        try {
+            Long userId = TokenUtil.extractUserIdFromRequest(request);
+            ImageInfo image = questionImageService.getImage(questionId, userId);
+            if (image == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            Path path = questionImageService.resolve(image.sha256());
+            if (!Files.exists(path)) {
+                return ResponseEntity.notFound().build();
+            }
+
+            // ETag — хеш содержимого, поэтому он меняется только вместе с изображением
+            return ResponseEntity.ok()
+                    .eTag(image.sha256())
+                    .lastModified(image.createdAt())
+                    .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePrivate())
+                    .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                    .contentType(MediaType.parseMediaType(image.contentType()))
+                    .body(new FileSystemResource(path));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Внутренняя ошибка сервера");
+        }
+    }
+
+    @PostMapping("/{questionId}/image")
+    public ResponseEntity<?> uploadImage(@PathVariable Long questionId,
+                                         @RequestParam("file") MultipartFile file,
+                                         HttpServletRequest request) {
+        try {
+            Long userId = TokenUtil.extractUserIdFromRequest(request);
+            ImageInfo image = questionImageService.saveImage(questionId, userId, file);
+            return ResponseEntity.ok(image);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (IOException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Ошибка при сохранении изображения: " + e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Внутренняя ошибка сервера");
+        }
+    }
+
+    @DeleteMapping("/{questionId}/image")
+    public ResponseEntity<?> deleteImage(@PathVariable Long questionId, HttpServletRequest request) {
+        try {
+            Long userId = TokenUtil.extractUserIdFromRequest(request);
+            questionImageService.deleteImage(questionId, userId);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body("Внутренняя ошибка сервера");
+        }
+    }
+}
@@ -173,6 +173,15 @@ public class QuizController {
         }
     }
 
+    @GetMapping("/{quizId}/readiness")
+    public ResponseEntity<QuizReadinessDTO> getQuizReadiness(@PathVariable Long quizId) {
+        try {
+            return ResponseEntity.ok(quizService.getQuizReadiness(quizId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+
     @GetMapping("/{quizId}/leaderboard")
     public ResponseEntity<LeaderboardDTO> getQuizLeaderboard(
             @PathVariable Long quizId,
@@ -3,14 +3,12 @@ package org.example.controller;
 import org.example.dto.request.auth.UpdateProfileRequest;
 import org.example.dto.response.auth.UserProfileDTO;
 import org.example.dto.response.history.UserHistoryDTO;
-import org.example.dto.response.quiz.QuizDTO;
+import org.example.dto.response.quiz.CreatedQuizzesDTO;
 import org.example.service.UserService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/users")
 public class UserController {
@@ -58,13 +56,15 @@ public class UserController {
     }
 
     @GetMapping("/{userId}/history")
-    public ResponseEntity<?> getUserHistory(@PathVariable Long userId) {
+    public ResponseEntity<?> getUserHistory(@PathVariable Long userId,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
         try {
             if (userId == null || userId <= 0) {
                 return ResponseEntity.badRequest().body("Некорректный ID пользователя");
             }
             
-            UserHistoryDTO history = userService.getUserHistory(userId);
+            UserHistoryDTO history = userService.getUserHistory(userId, cursor, limit);
             return ResponseEntity.ok(history);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
@@ -75,13 +75,16 @@ public class UserController {
     }
 
     @GetMapping("/{userId}/quizzes")
-    public ResponseEntity<?> getCreatedQuizzes(@PathVariable Long userId) {
+    public ResponseEntity<?> getCreatedQuizzes(@PathVariable Long userId,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit,
+                                               @RequestParam(defaultValue = "false") boolean includeTotal) {
         try {
             if (userId == null || userId <= 0) {
                 return ResponseEntity.badRequest().body("Некорректный ID пользователя");
             }
             
-            List<QuizDTO> quizzes = userService.getCreatedQuizzes(userId);
+            CreatedQuizzesDTO quizzes = userService.getCreatedQuizzes(userId, cursor, limit, includeTotal);
             return ResponseEntity.ok(quizzes);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.notFound().build();
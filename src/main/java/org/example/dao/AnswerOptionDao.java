@@ -0,0 +1,58 @@
+package org.example.dao;
+
+import org.example.model.AnswerOption;
+import org.example.model.Question;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Доступ к таблице answer_options через общий пул соединений.
+ */
+@Repository
+public class AnswerOptionDao {
+  private static final RowMapper<AnswerOption> OPTION_MAPPER = (rs, rowNum) -> {
+    AnswerOption option = new AnswerOption();
+    option.setId(rs.getLong("id"));
+    Question question = new Question();
+    question.setId(rs.getLong("question_id"));
+    option.setQuestion(question);
+    option.setText(rs.getString("text"));
+    option.setCorrect(rs.getBoolean("is_correct"));
+    option.setNaOption(rs.getBoolean("is_na_option"));
+    return option;
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AnswerOptionDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<AnswerOption> findByQuestionId(Long questionId) {
+    String sql = "SELECT id, question_id, text, is_correct, is_na_option FROM answer_options WHERE question_id = ?";
+    return jdbcTemplate.query(sql, OPTION_MAPPER, questionId);
+  }
+
+  /**
+   * Загружает варианты ответов всех вопросов квиза одним запросом.
+   */
+  public List<AnswerOption> findByQuizId(Long quizId) {
+    String sql = "SELECT o.id, o.question_id, o.text, o.is_correct, o.is_na_option " +
+      "FROM answer_options o " +
+      "JOIN questions q ON o.question_id = q.id " +
+      "WHERE q.quiz_id = ? " +
+      "ORDER BY o.question_id, o.id";
+    return jdbcTemplate.query(sql, OPTION_MAPPER, quizId);
+  }
+
+  public org.example.dto.common.AnswerOption findCorrectByQuestionId(Long questionId) {
+    String sql = "SELECT id, text FROM answer_options WHERE question_id = ? AND is_correct = true LIMIT 1";
+    List<org.example.dto.common.AnswerOption> options = jdbcTemplate.query(sql,
+      (rs, rowNum) -> new org.example.dto.common.AnswerOption(rs.getLong("id"), rs.getString("text")),
+      questionId);
+    return options.isEmpty() ? null : options.get(0);
+  }
+}
@@ -0,0 +1,67 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Доступ к таблице attempt_answers: ответы на отдельные вопросы попытки.
+ */
+@Repository
+public class AttemptAnswerDao {
+  private static final String INSERT_SQL =
+    "INSERT INTO attempt_answers (attempt_id, question_id, answer_option_id, is_correct, answered_at) " +
+    "VALUES (?, ?, ?, ?, ?) ON CONFLICT (attempt_id, question_id) DO NOTHING";
+
+  private static final RowMapper<AnswerRecord> ANSWER_MAPPER = (rs, rowNum) -> new AnswerRecord(
+    rs.getLong("attempt_id"),
+    rs.getLong("question_id"),
+    rs.getObject("answer_option_id", Long.class),
+    rs.getBoolean("is_correct"),
+    rs.getTimestamp("answered_at").toInstant()
+  );
+
+  /**
+   * Ответ пользователя на вопрос попытки.
+   */
+  public record AnswerRecord(Long attemptId, Long questionId, Long answerOptionId, boolean correct, Instant answeredAt) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AttemptAnswerDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Вставляет ответы одним JDBC-пакетом. Повторная вставка того же ответа игнорируется,
+   * поэтому пакет можно безопасно повторить после ошибки.
+   */
+  public void insertBatch(List<AnswerRecord> answers) {
+    jdbcTemplate.batchUpdate(INSERT_SQL, answers, answers.size(), (ps, answer) -> {
+      ps.setLong(1, answer.attemptId());
+      ps.setLong(2, answer.questionId());
+      if (answer.answerOptionId() != null) {
+        ps.setLong(3, answer.answerOptionId());
+      } else {
+        ps.setNull(3, Types.BIGINT);
+      }
+      ps.setBoolean(4, answer.correct());
+      ps.setTimestamp(5, Timestamp.from(answer.answeredAt()));
+    });
+  }
+
+  public void insert(AnswerRecord answer) {
+    insertBatch(List.of(answer));
+  }
+
+  public List<AnswerRecord> findByAttemptId(Long attemptId) {
+    String sql = "SELECT attempt_id, question_id, answer_option_id, is_correct, answered_at " +
+      "FROM attempt_answers WHERE attempt_id = ? ORDER BY answered_at";
+    return jdbcTemplate.query(sql, ANSWER_MAPPER, attemptId);
+  }
+}
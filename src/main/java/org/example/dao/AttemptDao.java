@@ -0,0 +1,207 @@
+package org.example.dao;
+
+import org.example.dto.common.Statistics;
+import org.example.model.Quiz;
+import org.example.model.User;
+import org.example.model.UserQuizAttempt;
+import org.example.util.PageCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Доступ к таблице user_quiz_attempts через общий пул соединений.
+ */
+@Repository
+public class AttemptDao {
+  private static final RowMapper<UserQuizAttempt> ATTEMPT_MAPPER = (rs, rowNum) -> {
+    UserQuizAttempt attempt = new UserQuizAttempt();
+    attempt.setId(rs.getLong("id"));
+    User user = new User();
+    user.setId(rs.getLong("user_id"));
+    attempt.setUser(user);
+    Quiz quiz = new Quiz();
+    quiz.setId(rs.getLong("quiz_id"));
+    attempt.setQuiz(quiz);
+    attempt.setStartTime(rs.getTimestamp("start_time").toInstant());
+    Timestamp finishTime = rs.getTimestamp("finish_time");
+    attempt.setFinishTime(finishTime != null ? finishTime.toInstant() : null);
+    attempt.setScore(rs.getLong("score"));
+    attempt.setCompleted(rs.getBoolean("is_completed"));
+    return attempt;
+  };
+
+  private static final RowMapper<HistoryEntry> HISTORY_MAPPER = (rs, rowNum) -> new HistoryEntry(
+    rs.getLong("id"),
+    rs.getString("name"),
+    rs.getLong("score"),
+    rs.getTimestamp("start_time").toInstant(),
+    rs.getTimestamp("finish_time").toInstant()
+  );
+
+  /**
+   * Завершенная попытка в истории пользователя.
+   */
+  public record HistoryEntry(Long attemptId, String quizName, long score, Instant startTime, Instant finishTime) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public AttemptDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public Long create(Long userId, Long quizId, Instant startTime) {
+    String sql = "INSERT INTO user_quiz_attempts (user_id, quiz_id, start_time, finish_time, score, is_completed) " +
+      "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+    return jdbcTemplate.queryForObject(sql, Long.class,
+      userId, quizId, Timestamp.from(startTime), Timestamp.from(startTime), 0L, false);
+  }
+
+  /**
+   * Создает попытки для всех пользователей одним INSERT ... SELECT FROM unnest(...) RETURNING.
+   * Вставка одним оператором выполняется целиком или не выполняется вовсе.
+   *
+   * @return ID созданных попыток по ID пользователей
+   */
+  public Map<Long, Long> createForUsers(List<Long> userIds, Long quizId, Instant startTime) {
+    if (userIds.isEmpty()) {
+      return Map.of();
+    }
+    String sql = "INSERT INTO user_quiz_attempts (user_id, quiz_id, start_time, finish_time, score, is_completed) " +
+      "SELECT u, ?, ?, ?, 0, false FROM unnest(?::bigint[]) AS t(u) " +
+      "RETURNING id, user_id";
+    Timestamp start = Timestamp.from(startTime);
+    Map<Long, Long> attemptIds = new HashMap<>();
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setLong(1, quizId);
+      statement.setTimestamp(2, start);
+      statement.setTimestamp(3, start);
+      statement.setArray(4, connection.createArrayOf("bigint", userIds.toArray()));
+      return statement;
+    }, rs -> {
+      attemptIds.put(rs.getLong("user_id"), rs.getLong("id"));
+    });
+    return attemptIds;
+  }
+
+  public void update(Long attemptId, Instant finishTime, Long score, boolean isCompleted) {
+    String sql = "UPDATE user_quiz_attempts SET finish_time = ?, score = ?, is_completed = ? WHERE id = ?";
+    jdbcTemplate.update(sql, Timestamp.from(finishTime), score, isCompleted, attemptId);
+  }
+
+  /**
+   * Фиксирует брошенную попытку с набранным счетом, оставляя ее незавершенной.
+   * Попытка, которую пользователь уже завершил, не меняется.
+   *
+   * @return false, если попытка уже завершена или удалена
+   */
+  public boolean updateIfIncomplete(Long attemptId, Instant finishTime, Long score) {
+    String sql = "UPDATE user_quiz_attempts SET finish_time = ?, score = ? WHERE id = ? AND NOT is_completed";
+    return jdbcTemplate.update(sql, Timestamp.from(finishTime), score, attemptId) > 0;
+  }
+
+  /**
+   * @return число незавершенных попыток среди attemptIds
+   */
+  public int countIncomplete(Collection<Long> attemptIds) {
+    if (attemptIds.isEmpty()) {
+      return 0;
+    }
+    String sql = "SELECT COUNT(*) FROM user_quiz_attempts WHERE id = ANY(?::bigint[]) AND NOT is_completed";
+    Integer count = jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setArray(1, connection.createArrayOf("bigint", attemptIds.toArray()));
+      return statement;
+    }, rs -> rs.next() ? rs.getInt(1) : 0);
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Завершает попытки одним JDBC-пакетом.
+   *
+   * @param scores счет по ID попыток
+   */
+  public void finishAll(Map<Long, Long> scores, Instant finishTime) {
+    if (scores.isEmpty()) {
+      return;
+    }
+    String sql = "UPDATE user_quiz_attempts SET finish_time = ?, score = ?, is_completed = true WHERE id = ?";
+    Timestamp finish = Timestamp.from(finishTime);
+    List<Map.Entry<Long, Long>> entries = new ArrayList<>(scores.entrySet());
+    jdbcTemplate.batchUpdate(sql, entries, entries.size(), (ps, entry) -> {
+      ps.setTimestamp(1, finish);
+      ps.setLong(2, entry.getValue());
+      ps.setLong(3, entry.getKey());
+    });
+  }
+
+  public UserQuizAttempt findById(Long attemptId) {
+    String sql = "SELECT id, user_id, quiz_id, start_time, finish_time, score, is_completed " +
+      "FROM user_quiz_attempts WHERE id = ?";
+    List<UserQuizAttempt> attempts = jdbcTemplate.query(sql, ATTEMPT_MAPPER, attemptId);
+    return attempts.isEmpty() ? null : attempts.get(0);
+  }
+
+  /**
+   * Попытки с указанными ID одним запросом; отсутствующие в таблице пропускаются.
+   */
+  public List<UserQuizAttempt> findByIds(Collection<Long> attemptIds) {
+    if (attemptIds.isEmpty()) {
+      return List.of();
+    }
+    String sql = "SELECT id, user_id, quiz_id, start_time, finish_time, score, is_completed " +
+      "FROM user_quiz_attempts WHERE id = ANY(?::bigint[])";
+    return jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setArray(1, connection.createArrayOf("bigint", attemptIds.toArray()));
+      return statement;
+    }, ATTEMPT_MAPPER);
+  }
+
+  /**
+   * Завершенные попытки пользователя от новых к старым, постранично по (start_time, id).
+   * Ключ курсора — время начала попытки.
+   */
+  public List<HistoryEntry> findCompletedByUserId(Long userId, PageCursor after, int limit) {
+    List<Object> args = new ArrayList<>(List.of(userId));
+    String keyset = "";
+    if (after != null) {
+      keyset = "AND (a.start_time, a.id) < (?, ?) ";
+      args.add(Timestamp.from(after.instantKey()));
+      args.add(after.id());
+    }
+    String sql = "SELECT a.id, q.name, a.score, a.start_time, a.finish_time " +
+      "FROM user_quiz_attempts a JOIN quizzes q ON a.quiz_id = q.id " +
+      "WHERE a.user_id = ? AND a.is_completed = true AND a.finish_time IS NOT NULL " +
+      keyset +
+      "ORDER BY a.start_time DESC, a.id DESC LIMIT ?";
+    args.add(limit);
+    return jdbcTemplate.query(sql, HISTORY_MAPPER, args.toArray());
+  }
+
+  /**
+   * Сводная статистика пользователя одним агрегирующим запросом:
+   * все попытки, средний и лучший счет завершенных.
+   */
+  public Statistics findStatistics(Long userId) {
+    String sql = "SELECT COUNT(*) AS total, " +
+      "AVG(score) FILTER (WHERE is_completed AND score IS NOT NULL) AS average, " +
+      "MAX(score) FILTER (WHERE is_completed AND score IS NOT NULL) AS best " +
+      "FROM user_quiz_attempts WHERE user_id = ?";
+    return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new Statistics(
+      rs.getInt("total"),
+      rs.getDouble("average"),
+      rs.getInt("best")
+    ), userId);
+  }
+}
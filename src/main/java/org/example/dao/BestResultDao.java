@@ -0,0 +1,123 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Доступ к таблице quiz_best_results: лучший результат каждого пользователя по каждому квизу.
+ * Таблица поддерживается инкрементально при завершении попыток, поэтому рейтинг
+ * не пересчитывается по всей истории user_quiz_attempts.
+ * Порядок в рейтинге: счет по убыванию, при равенстве — более раннее время завершения.
+ */
+@Repository
+public class BestResultDao {
+  private static final RowMapper<BestResult> BEST_RESULT_MAPPER = (rs, rowNum) -> new BestResult(
+    rs.getLong("user_id"),
+    rs.getString("login"),
+    rs.getLong("attempt_id"),
+    rs.getLong("score"),
+    rs.getLong("time_spent_seconds"),
+    rs.getTimestamp("finish_time").toInstant()
+  );
+
+  /**
+   * Лучший результат пользователя по квизу.
+   */
+  public record BestResult(Long userId, String login, Long attemptId, long score,
+                           long timeSpentSeconds, Instant finishTime) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public BestResultDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Сохраняет результат попытки, если он лучше текущего лучшего результата пользователя.
+   *
+   * @return true если лучший результат пользователя изменился
+   */
+  public boolean upsert(Long quizId, Long userId, Long attemptId, long score,
+                        long timeSpentSeconds, Instant finishTime) {
+    String sql = "INSERT INTO quiz_best_results (quiz_id, user_id, attempt_id, score, time_spent_seconds, finish_time) " +
+      "VALUES (?, ?, ?, ?, ?, ?) " +
+      "ON CONFLICT (quiz_id, user_id) DO UPDATE SET " +
+      "attempt_id = EXCLUDED.attempt_id, score = EXCLUDED.score, " +
+      "time_spent_seconds = EXCLUDED.time_spent_seconds, finish_time = EXCLUDED.finish_time " +
+      "WHERE EXCLUDED.score > quiz_best_results.score";
+    return jdbcTemplate.update(sql, quizId, userId, attemptId, score, timeSpentSeconds, Timestamp.from(finishTime)) > 0;
+  }
+
+  /**
+   * Возвращает позицию пользователя в рейтинге квиза (с 1) или null, если у него нет результата.
+   */
+  public Integer findPosition(Long quizId, Long userId) {
+    String sql = "SELECT (SELECT COUNT(*) FROM quiz_best_results b " +
+      "WHERE b.quiz_id = me.quiz_id AND (b.score > me.score " +
+      "OR (b.score = me.score AND b.finish_time < me.finish_time))) + 1 " +
+      "FROM quiz_best_results me WHERE me.quiz_id = ? AND me.user_id = ?";
+    List<Integer> positions = jdbcTemplate.queryForList(sql, Integer.class, quizId, userId);
+    return positions.isEmpty() ? null : positions.get(0);
+  }
+
+  public BestResult findByQuizIdAndUserId(Long quizId, Long userId) {
+    String sql = "SELECT b.user_id, u.login, b.attempt_id, b.score, b.time_spent_seconds, b.finish_time " +
+      "FROM quiz_best_results b JOIN users u ON b.user_id = u.id " +
+      "WHERE b.quiz_id = ? AND b.user_id = ?";
+    List<BestResult> results = jdbcTemplate.query(sql, BEST_RESULT_MAPPER, quizId, userId);
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  /**
+   * Возвращает все лучшие результаты по квизу (для загрузки рейтинга в память).
+   */
+  public List<BestResult> findAllByQuizId(Long quizId) {
+    String sql = "SELECT b.user_id, u.login, b.attempt_id, b.score, b.time_spent_seconds, b.finish_time " +
+      "FROM quiz_best_results b JOIN users u ON b.user_id = u.id " +
+      "WHERE b.quiz_id = ?";
+    return jdbcTemplate.query(sql, BEST_RESULT_MAPPER, quizId);
+  }
+
+  /**
+   * Возвращает первые limit мест рейтинга квиза.
+   */
+  public List<BestResult> findTop(Long quizId, int limit) {
+    String sql = "SELECT b.user_id, u.login, b.attempt_id, b.score, b.time_spent_seconds, b.finish_time " +
+      "FROM quiz_best_results b JOIN users u ON b.user_id = u.id " +
+      "WHERE b.quiz_id = ? " +
+      "ORDER BY b.score DESC, b.finish_time ASC " +
+      "LIMIT ?";
+    return jdbcTemplate.query(sql, BEST_RESULT_MAPPER, quizId, limit);
+  }
+
+  public boolean isEmpty() {
+    Boolean exists = jdbcTemplate.queryForObject("SELECT EXISTS (SELECT 1 FROM quiz_best_results)", Boolean.class);
+    return exists == null || !exists;
+  }
+
+  /**
+   * Заполняет таблицу лучших результатов по всем завершенным попыткам.
+   * Операция идемпотентна: существующие строки заменяются только более сильными результатами.
+   *
+   * @return количество вставленных или обновленных строк
+   */
+  public int rebuild() {
+    String sql = "INSERT INTO quiz_best_results (quiz_id, user_id, attempt_id, score, time_spent_seconds, finish_time) " +
+      "SELECT DISTINCT ON (a.quiz_id, a.user_id) a.quiz_id, a.user_id, a.id, a.score, " +
+      "GREATEST(EXTRACT(EPOCH FROM a.finish_time - a.start_time), 0)::BIGINT, a.finish_time " +
+      "FROM user_quiz_attempts a " +
+      "WHERE a.is_completed = true AND a.score IS NOT NULL AND a.finish_time IS NOT NULL AND a.user_id IS NOT NULL " +
+      "ORDER BY a.quiz_id, a.user_id, a.score DESC, a.finish_time ASC " +
+      "ON CONFLICT (quiz_id, user_id) DO UPDATE SET " +
+      "attempt_id = EXCLUDED.attempt_id, score = EXCLUDED.score, " +
+      "time_spent_seconds = EXCLUDED.time_spent_seconds, finish_time = EXCLUDED.finish_time " +
+      "WHERE EXCLUDED.score > quiz_best_results.score " +
+      "OR (EXCLUDED.score = quiz_best_results.score AND EXCLUDED.finish_time < quiz_best_results.finish_time)";
+    return jdbcTemplate.update(sql);
+  }
+}
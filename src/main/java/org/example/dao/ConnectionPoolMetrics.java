@@ -0,0 +1,57 @@
+package org.example.dao;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jakarta.annotation.PostConstruct;
+import org.example.service.MetricsService;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.ToIntFunction;
+
+/**
+ * Публикует метрики заполненности пула соединений Hikari.
+ */
+@Component
+public class ConnectionPoolMetrics {
+  private final DataSource dataSource;
+  private final MetricsService metricsService;
+
+  public ConnectionPoolMetrics(DataSource dataSource, MetricsService metricsService) {
+    this.dataSource = dataSource;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void registerGauges() {
+    HikariDataSource hikari = unwrap();
+    if (hikari == null) {
+      return;
+    }
+    metricsService.registerGauge("db.pool.active", () -> poolValue(hikari, HikariPoolMXBean::getActiveConnections));
+    metricsService.registerGauge("db.pool.idle", () -> poolValue(hikari, HikariPoolMXBean::getIdleConnections));
+    metricsService.registerGauge("db.pool.total", () -> poolValue(hikari, HikariPoolMXBean::getTotalConnections));
+    metricsService.registerGauge("db.pool.pending", () -> poolValue(hikari, HikariPoolMXBean::getThreadsAwaitingConnection));
+    metricsService.registerGauge("db.pool.max", hikari::getMaximumPoolSize);
+    metricsService.registerGauge("db.pool.saturation", () -> {
+      int max = hikari.getMaximumPoolSize();
+      return max > 0 ? (double) poolValue(hikari, HikariPoolMXBean::getActiveConnections) / max : 0.0;
+    });
+  }
+
+  private HikariDataSource unwrap() {
+    try {
+      return dataSource.isWrapperFor(HikariDataSource.class) ? dataSource.unwrap(HikariDataSource.class) : null;
+    } catch (SQLException e) {
+      System.err.println("Error unwrapping data source: " + e.getMessage());
+      return null;
+    }
+  }
+
+  private int poolValue(HikariDataSource hikari, ToIntFunction<HikariPoolMXBean> metric) {
+    // Пул создается лениво при первом запросе соединения
+    HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+    return pool != null ? metric.applyAsInt(pool) : 0;
+  }
+}
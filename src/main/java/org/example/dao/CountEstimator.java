@@ -0,0 +1,31 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Приблизительное количество строк запроса по оценке планировщика Postgres.
+ * В отличие от COUNT(*) не читает данные, поэтому стоимость не зависит от размера выборки.
+ */
+final class CountEstimator {
+  private static final Pattern PLAN_ROWS = Pattern.compile("\"Plan Rows\":\\s*(\\d+)");
+
+  private CountEstimator() {
+  }
+
+  /**
+   * Возвращает оценку числа строк, которые вернет запрос sql с параметрами args.
+   */
+  static long estimate(JdbcTemplate jdbcTemplate, String sql, Object... args) {
+    List<String> plan = jdbcTemplate.queryForList("EXPLAIN (FORMAT JSON) " + sql, String.class, args);
+    if (plan.isEmpty()) {
+      return 0;
+    }
+    // Первое вхождение относится к корневому узлу плана
+    Matcher matcher = PLAN_ROWS.matcher(plan.get(0));
+    return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+  }
+}
@@ -0,0 +1,78 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Доступ к таблице generation_cache: сохраненные результаты генерации вопросов,
+ * общие для всех экземпляров и переживающие перезапуск. Ключ — SHA-256 параметров генерации.
+ */
+@Repository
+public class GenerationCacheDao {
+  private final JdbcTemplate jdbcTemplate;
+
+  public GenerationCacheDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Отмечает использование записи и возвращает ее содержимое одним запросом.
+   *
+   * @return содержимое или null, если записи нет или она старше maxAge
+   */
+  public byte[] touch(String key, Duration maxAge) {
+    String sql = "UPDATE generation_cache SET used_at = now() " +
+      "WHERE cache_key = ? AND created_at > now() - make_interval(secs => ?) RETURNING payload";
+    List<byte[]> payloads = jdbcTemplate.query(sql, (rs, rowNum) -> rs.getBytes("payload"), key, maxAge.toSeconds());
+    return payloads.isEmpty() ? null : payloads.get(0);
+  }
+
+  /**
+   * Отмечает использование записей, выданных из памяти экземпляра, одним запросом.
+   */
+  public void touchAll(Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    String sql = "UPDATE generation_cache SET used_at = now() WHERE cache_key = ANY(?::text[])";
+    jdbcTemplate.update(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setArray(1, connection.createArrayOf("text", keys.toArray()));
+      return statement;
+    });
+  }
+
+  public void upsert(String key, byte[] payload) {
+    jdbcTemplate.update("INSERT INTO generation_cache (cache_key, payload) VALUES (?, ?) " +
+      "ON CONFLICT (cache_key) DO UPDATE SET payload = EXCLUDED.payload, created_at = now(), used_at = now()",
+      key, payload);
+  }
+
+  /**
+   * @return число удаленных записей старше maxAge
+   */
+  public int deleteExpired(Duration maxAge) {
+    return jdbcTemplate.update("DELETE FROM generation_cache WHERE created_at < now() - make_interval(secs => ?)",
+      maxAge.toSeconds());
+  }
+
+  /**
+   * Удаляет давно не использованные записи сверх keep.
+   *
+   * @return число удаленных записей
+   */
+  public int deleteOldest(int keep) {
+    return jdbcTemplate.update("DELETE FROM generation_cache WHERE cache_key IN (" +
+      "SELECT cache_key FROM generation_cache ORDER BY used_at DESC OFFSET ?)", keep);
+  }
+
+  public int count() {
+    Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM generation_cache", Integer.class);
+    return count != null ? count : 0;
+  }
+}
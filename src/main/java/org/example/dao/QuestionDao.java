@@ -0,0 +1,46 @@
+package org.example.dao;
+
+import org.example.model.Question;
+import org.example.model.QuestionType;
+import org.example.model.Quiz;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Доступ к таблице questions через общий пул соединений.
+ * Изображения вопросов хранятся отдельно (см. QuestionImageDao) и здесь не читаются.
+ */
+@Repository
+public class QuestionDao {
+  private static final RowMapper<Question> QUESTION_MAPPER = (rs, rowNum) -> {
+    Question question = new Question();
+    question.setId(rs.getLong("id"));
+    Quiz quiz = new Quiz();
+    quiz.setId(rs.getLong("quiz_id"));
+    question.setQuiz(quiz);
+    question.setText(rs.getString("text"));
+    question.setType(QuestionType.valueOf(rs.getString("type")));
+    question.setExplanation(rs.getString("explanation"));
+    return question;
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public QuestionDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public List<Question> findByQuizId(Long quizId) {
+    String sql = "SELECT id, quiz_id, text, type, explanation FROM questions WHERE quiz_id = ? ORDER BY id";
+    return jdbcTemplate.query(sql, QUESTION_MAPPER, quizId);
+  }
+
+  public Question findById(Long questionId) {
+    String sql = "SELECT id, quiz_id, text, type, explanation FROM questions WHERE id = ?";
+    List<Question> questions = jdbcTemplate.query(sql, QUESTION_MAPPER, questionId);
+    return questions.isEmpty() ? null : questions.get(0);
+  }
+}
@@ -0,0 +1,107 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Доступ к таблице question_images: метаданные изображений вопросов.
+ * Сами байты лежат в файловом хранилище, адресуемом по SHA-256 содержимого.
+ */
+@Repository
+public class QuestionImageDao {
+  private static final RowMapper<ImageInfo> IMAGE_MAPPER = (rs, rowNum) -> new ImageInfo(
+    rs.getLong("question_id"),
+    rs.getString("sha256"),
+    rs.getString("content_type"),
+    rs.getLong("size_bytes"),
+    rs.getTimestamp("created_at").toInstant()
+  );
+
+  /**
+   * Метаданные изображения вопроса.
+   */
+  public record ImageInfo(Long questionId, String sha256, String contentType, long sizeBytes, Instant createdAt) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public QuestionImageDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public ImageInfo findByQuestionId(Long questionId) {
+    String sql = "SELECT question_id, sha256, content_type, size_bytes, created_at " +
+      "FROM question_images WHERE question_id = ?";
+    List<ImageInfo> images = jdbcTemplate.query(sql, IMAGE_MAPPER, questionId);
+    return images.isEmpty() ? null : images.get(0);
+  }
+
+  /**
+   * Привязывает изображение к вопросу, заменяя предыдущее.
+   */
+  public void save(Long questionId, String sha256, String contentType, long sizeBytes, Instant createdAt) {
+    String sql = "INSERT INTO question_images (question_id, sha256, content_type, size_bytes, created_at) " +
+      "VALUES (?, ?, ?, ?, ?) " +
+      "ON CONFLICT (question_id) DO UPDATE SET sha256 = EXCLUDED.sha256, " +
+      "content_type = EXCLUDED.content_type, size_bytes = EXCLUDED.size_bytes, created_at = EXCLUDED.created_at";
+    jdbcTemplate.update(sql, questionId, sha256, contentType, sizeBytes, Timestamp.from(createdAt));
+  }
+
+  public void delete(Long questionId) {
+    jdbcTemplate.update("DELETE FROM question_images WHERE question_id = ?", questionId);
+  }
+
+  /**
+   * Хеши из sha256s, на которые ссылается хотя бы один вопрос.
+   */
+  public Set<String> findReferenced(Collection<String> sha256s) {
+    if (sha256s.isEmpty()) {
+      return Set.of();
+    }
+    String sql = "SELECT DISTINCT sha256 FROM question_images WHERE sha256 = ANY(?::text[])";
+    Set<String> referenced = new HashSet<>();
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setArray(1, connection.createArrayOf("text", sha256s.toArray()));
+      return statement;
+    }, rs -> {
+      referenced.add(rs.getString("sha256"));
+    });
+    return referenced;
+  }
+
+  // Перенос изображений из старого столбца questions.image
+
+  public boolean hasLegacyColumn() {
+    Boolean exists = jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+      "WHERE table_name = 'questions' AND column_name = 'image')", Boolean.class);
+    return exists != null && exists;
+  }
+
+  public List<Long> findQuestionIdsWithLegacyImage() {
+    return jdbcTemplate.queryForList("SELECT id FROM questions WHERE image IS NOT NULL ORDER BY id", Long.class);
+  }
+
+  public byte[] findLegacyImage(Long questionId) {
+    List<byte[]> images = jdbcTemplate.query("SELECT image FROM questions WHERE id = ?",
+      (rs, rowNum) -> rs.getBytes("image"), questionId);
+    return images.isEmpty() ? null : images.get(0);
+  }
+
+  public void clearLegacyImage(Long questionId) {
+    jdbcTemplate.update("UPDATE questions SET image = NULL WHERE id = ?", questionId);
+  }
+
+  public void dropLegacyColumn() {
+    jdbcTemplate.execute("ALTER TABLE questions DROP COLUMN image");
+  }
+}
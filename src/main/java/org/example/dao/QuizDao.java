@@ -0,0 +1,283 @@
+package org.example.dao;
+
+import org.example.model.Quiz;
+import org.example.model.User;
+import org.example.util.PageCursor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Доступ к таблице quizzes через общий пул соединений.
+ * Поиск публичных квизов использует полнотекстовый индекс по названию (словарь russian)
+ * и триграммные индексы pg_trgm по названию и логину создателя.
+ */
+@Repository
+public class QuizDao {
+  private static final RowMapper<Quiz> QUIZ_MAPPER = (rs, rowNum) -> {
+    Quiz quiz = new Quiz();
+    quiz.setId(rs.getLong("id"));
+    quiz.setName(rs.getString("name"));
+    quiz.setPrompt(rs.getString("prompt"));
+    User creator = new User();
+    creator.setId(rs.getLong("user_id"));
+    creator.setLogin(rs.getString("login"));
+    quiz.setCreatedBy(creator);
+    quiz.setHasMaterial(rs.getBoolean("has_material"));
+    quiz.setMaterialUrl(rs.getString("material_url"));
+    quiz.setQuestionNumber(rs.getObject("question_number", Integer.class));
+    quiz.setGenerating(rs.getBoolean("is_generating"));
+
+    Integer seconds = rs.getObject("time_per_question_seconds", Integer.class);
+    if (seconds != null) {
+      quiz.setTimePerQuestion(Duration.ofSeconds(seconds));
+    }
+
+    quiz.setPrivate(rs.getBoolean("is_private"));
+    quiz.setStatic(rs.getBoolean("is_static"));
+
+    OffsetDateTime odt = rs.getObject("created_at", OffsetDateTime.class);
+    quiz.setCreatedAt(odt != null ? odt.toInstant() : null);
+    return quiz;
+  };
+
+  private static final String QUIZ_COLUMNS = "q.id, q.name, q.prompt, q.created_by, q.has_material, q.material_url, " +
+    "q.question_number, q.is_generating, q.time_per_question_seconds, q.is_private, q.is_static, q.created_at, " +
+    "u.id as user_id, u.login ";
+
+  /**
+   * Публичные квизы, подходящие под запрос: совпадение по словоформам названия,
+   * подстрока или похожее слово (опечатка) в названии либо в логине создателя.
+   * Каждая ветка UNION обслуживается своим индексом. Параметры: запрос, шаблон LIKE,
+   * запрос в нижнем регистре (дважды для названия и логина).
+   */
+  private static final String MATCHES =
+    "SELECT q.id FROM quizzes q WHERE NOT q.is_private AND (" +
+    "q.search_vector @@ websearch_to_tsquery('russian', ?) " +
+    "OR lower(q.name) LIKE ? OR ? <% lower(q.name)) " +
+    "UNION " +
+    "SELECT q.id FROM quizzes q JOIN users u ON q.created_by = u.id WHERE NOT q.is_private AND (" +
+    "lower(u.login) LIKE ? OR ? <% lower(u.login))";
+
+  /**
+   * Порядок выдачи результатов поиска. Каждый порядок дополняется ID записи,
+   * поэтому пара (ключ, id) однозначно задает позицию для курсора.
+   */
+  public enum SearchSort {
+    RELEVANCE("relevance"),
+    NAME("name"),
+    CREATED_AT("created_at");
+
+    private final String column;
+
+    SearchSort(String column) {
+      this.column = column;
+    }
+
+    /**
+     * Значение ключа сортировки записи в виде строки для курсора.
+     */
+    public String keyOf(Quiz quiz, double relevance) {
+      return switch (this) {
+        case RELEVANCE -> Double.toString(relevance);
+        case NAME -> quiz.getName();
+        case CREATED_AT -> quiz.getCreatedAt().toString();
+      };
+    }
+
+    private Object parseKey(PageCursor cursor) {
+      return switch (this) {
+        case RELEVANCE -> Double.valueOf(cursor.key());
+        case NAME -> cursor.key();
+        case CREATED_AT -> Timestamp.from(cursor.instantKey());
+      };
+    }
+  }
+
+  /**
+   * Найденный квиз вместе с его релевантностью запросу.
+   */
+  public record SearchHit(Quiz quiz, double relevance) {}
+
+  private static final RowMapper<SearchHit> SEARCH_HIT_MAPPER =
+    (rs, rowNum) -> new SearchHit(QUIZ_MAPPER.mapRow(rs, rowNum), rs.getDouble("relevance"));
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public QuizDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public Quiz findById(Long quizId) {
+    String sql = "SELECT " + QUIZ_COLUMNS +
+      "FROM quizzes q " +
+      "LEFT JOIN users u ON q.created_by = u.id " +
+      "WHERE q.id = ?";
+    List<Quiz> quizzes = jdbcTemplate.query(sql, QUIZ_MAPPER, quizId);
+    return quizzes.isEmpty() ? null : quizzes.get(0);
+  }
+
+  /**
+   * Отмечает, что вопросы квиза генерируются и их число еще может вырасти.
+   */
+  public void markGenerating(Long quizId) {
+    jdbcTemplate.update("UPDATE quizzes SET is_generating = TRUE WHERE id = ?", quizId);
+  }
+
+  /**
+   * Снимает отметку генерации. Если сохранено меньше вопросов, чем запланировано,
+   * число вопросов квиза приводится к сохраненному.
+   */
+  public void finishGenerating(Long quizId, int persistedCount) {
+    jdbcTemplate.update("UPDATE quizzes SET is_generating = FALSE, " +
+      "question_number = LEAST(COALESCE(question_number, ?), ?) WHERE id = ?",
+      persistedCount, persistedCount, quizId);
+  }
+
+  /**
+   * Снимает отметки генерации, оставшиеся после остановки приложения: генерация
+   * выполняется в памяти экземпляра и после перезапуска не продолжается.
+   *
+   * @return идентификаторы квизов, с которых снята отметка
+   */
+  public List<Long> finishAbandonedGenerations() {
+    return jdbcTemplate.queryForList("UPDATE quizzes SET is_generating = FALSE, " +
+      "question_number = (SELECT COUNT(*) FROM questions WHERE quiz_id = quizzes.id) " +
+      "WHERE is_generating RETURNING id", Long.class);
+  }
+
+  public boolean hasGeneratingColumn() {
+    Boolean exists = jdbcTemplate.queryForObject(
+      "SELECT EXISTS (SELECT 1 FROM information_schema.columns " +
+      "WHERE table_name = 'quizzes' AND column_name = 'is_generating')", Boolean.class);
+    return exists != null && exists;
+  }
+
+  public void addGeneratingColumn() {
+    jdbcTemplate.execute("ALTER TABLE quizzes ADD COLUMN IF NOT EXISTS is_generating BOOLEAN NOT NULL DEFAULT FALSE");
+  }
+
+  /**
+   * Ищет публичные квизы. При сортировке по релевантности выше идут совпадения
+   * по словоформам названия, затем по сходству названия и логина создателя с запросом.
+   * Следующая страница выбирается условием по ключу после курсора, а не OFFSET,
+   * поэтому ее стоимость не зависит от номера страницы.
+   *
+   * @param term поисковый запрос (непустой)
+   * @param sort порядок выдачи
+   * @param ascending направление для сортировки по названию или дате
+   * @param after курсор последней записи предыдущей страницы или null
+   * @param offset смещение для клиентов, передающих номер страницы без курсора
+   */
+  public List<SearchHit> searchPublic(String term, SearchSort sort, boolean ascending,
+                                      PageCursor after, int limit, long offset) {
+    String query = term.toLowerCase();
+    String pattern = likePattern(query);
+    List<Object> args = new ArrayList<>(List.of(term, query, query, term, pattern, query, pattern, query));
+
+    String sql = "SELECT r.* FROM (" +
+      "SELECT " + QUIZ_COLUMNS + ", " +
+      "ts_rank(q.search_vector, websearch_to_tsquery('russian', ?)) " +
+      "+ word_similarity(?, lower(q.name)) + 0.5 * word_similarity(?, lower(u.login)) AS relevance " +
+      "FROM (" + MATCHES + ") m " +
+      "JOIN quizzes q ON q.id = m.id " +
+      "LEFT JOIN users u ON q.created_by = u.id) r " +
+      keysetWhere("r", sort, ascending, after, args) +
+      orderBy("r", sort, ascending) + " LIMIT ? OFFSET ?";
+    args.add(limit);
+    args.add(offset);
+    return jdbcTemplate.query(sql, SEARCH_HIT_MAPPER, args.toArray());
+  }
+
+  /**
+   * Оценка количества публичных квизов, подходящих под запрос, без полного подсчета.
+   */
+  public long estimatePublicMatches(String term) {
+    String query = term.toLowerCase();
+    String pattern = likePattern(query);
+    return CountEstimator.estimate(jdbcTemplate, MATCHES, term, pattern, query, pattern, query);
+  }
+
+  /**
+   * Точное количество публичных квизов, подходящих под запрос.
+   */
+  public long countPublicMatches(String term) {
+    String query = term.toLowerCase();
+    String pattern = likePattern(query);
+    Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (" + MATCHES + ") m", Long.class,
+      term, pattern, query, pattern, query);
+    return count != null ? count : 0;
+  }
+
+  /**
+   * Все публичные квизы постранично по ключу сортировки (без поискового запроса).
+   */
+  public List<Quiz> listPublic(SearchSort sort, boolean ascending, PageCursor after, int limit, long offset) {
+    List<Object> args = new ArrayList<>();
+    String sql = "SELECT " + QUIZ_COLUMNS +
+      "FROM quizzes q " +
+      "LEFT JOIN users u ON q.created_by = u.id " +
+      "WHERE NOT q.is_private " +
+      keysetAnd("q", sort, ascending, after, args) +
+      orderBy("q", sort, ascending) + " LIMIT ? OFFSET ?";
+    args.add(limit);
+    args.add(offset);
+    return jdbcTemplate.query(sql, QUIZ_MAPPER, args.toArray());
+  }
+
+  public long estimatePublic() {
+    return CountEstimator.estimate(jdbcTemplate, "SELECT 1 FROM quizzes q WHERE NOT q.is_private");
+  }
+
+  /**
+   * Квизы пользователя от новых к старым, постранично по (created_at, id).
+   */
+  public List<Quiz> findByCreator(Long userId, PageCursor after, int limit) {
+    List<Object> args = new ArrayList<>(List.of(userId));
+    String sql = "SELECT " + QUIZ_COLUMNS +
+      "FROM quizzes q " +
+      "LEFT JOIN users u ON q.created_by = u.id " +
+      "WHERE q.created_by = ? " +
+      keysetAnd("q", SearchSort.CREATED_AT, false, after, args) +
+      orderBy("q", SearchSort.CREATED_AT, false) + " LIMIT ?";
+    args.add(limit);
+    return jdbcTemplate.query(sql, QUIZ_MAPPER, args.toArray());
+  }
+
+  public long estimateByCreator(Long userId) {
+    return CountEstimator.estimate(jdbcTemplate, "SELECT 1 FROM quizzes q WHERE q.created_by = ?", userId);
+  }
+
+  private static String keysetWhere(String alias, SearchSort sort, boolean ascending,
+                                    PageCursor after, List<Object> args) {
+    return after == null ? "" : "WHERE " + keyset(alias, sort, ascending, after, args) + " ";
+  }
+
+  private static String keysetAnd(String alias, SearchSort sort, boolean ascending,
+                                  PageCursor after, List<Object> args) {
+    return after == null ? "" : "AND " + keyset(alias, sort, ascending, after, args) + " ";
+  }
+
+  private static String keyset(String alias, SearchSort sort, boolean ascending,
+                               PageCursor after, List<Object> args) {
+    args.add(sort.parseKey(after));
+    args.add(after.id());
+    return "(" + alias + "." + sort.column + ", " + alias + ".id) " + (ascending ? ">" : "<") + " (?, ?)";
+  }
+
+  private static String orderBy(String alias, SearchSort sort, boolean ascending) {
+    String direction = ascending ? "ASC" : "DESC";
+    return "ORDER BY " + alias + "." + sort.column + " " + direction + ", " + alias + ".id " + direction;
+  }
+
+  private static String likePattern(String query) {
+    String escaped = query.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    return "%" + escaped + "%";
+  }
+}
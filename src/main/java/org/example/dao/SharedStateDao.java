@@ -0,0 +1,174 @@
+package org.example.dao;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Доступ к таблице shared_state: общее для всех экземпляров приложения состояние
+ * попыток и сессий. Каждая запись имеет версию, которая увеличивается при каждом изменении,
+ * поэтому изменения выполняются как compare-and-set по версии без удержания блокировок.
+ * Начальная версия записи — время вставки в микросекундах, поэтому пересозданная
+ * под тем же ключом запись не совпадет по версии с удаленной.
+ */
+@Repository
+public class SharedStateDao {
+  private static final RowMapper<StateRow> STATE_MAPPER =
+    (rs, rowNum) -> new StateRow(rs.getLong("version"), rs.getBytes("payload"));
+
+  /**
+   * Версия записи и ее содержимое. payload равен null, если запрошена уже известная версия.
+   */
+  public record StateRow(long version, byte[] payload) {}
+
+  public record KeyedStateRow(String key, long version, byte[] payload) {}
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public SharedStateDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  /**
+   * Возвращает версию записи без блокировки строки.
+   * Содержимое возвращается только если версия отличается от knownVersion.
+   *
+   * @return запись или null, если ее нет
+   */
+  public StateRow read(String namespace, String key, long knownVersion) {
+    String sql = "SELECT version, CASE WHEN version <> ? THEN payload END AS payload " +
+      "FROM shared_state WHERE namespace = ? AND state_key = ?";
+    List<StateRow> rows = jdbcTemplate.query(sql, STATE_MAPPER, knownVersion, namespace, key);
+    return rows.isEmpty() ? null : rows.get(0);
+  }
+
+  /**
+   * Отмечает обращение к записям одним запросом. Записи, заблокированные изменяющей
+   * транзакцией, пропускаются: изменение само обновит время обращения.
+   */
+  public void touchAll(String namespace, Collection<String> keys) {
+    if (keys.isEmpty()) {
+      return;
+    }
+    String sql = "UPDATE shared_state SET touched_at = now() WHERE namespace = ? AND state_key IN (" +
+      "SELECT state_key FROM shared_state WHERE namespace = ? AND state_key = ANY(?::varchar[]) " +
+      "FOR UPDATE SKIP LOCKED)";
+    jdbcTemplate.update(connection -> {
+      PreparedStatement statement = connection.prepareStatement(sql);
+      statement.setString(1, namespace);
+      statement.setString(2, namespace);
+      statement.setArray(3, connection.createArrayOf("varchar", keys.toArray()));
+      return statement;
+    });
+  }
+
+  /**
+   * Записывает значение, заменяя существующее.
+   *
+   * @return новая версия записи
+   */
+  public long upsert(String namespace, String key, byte[] payload) {
+    String sql = "INSERT INTO shared_state (namespace, state_key, payload) VALUES (?, ?, ?) " +
+      "ON CONFLICT (namespace, state_key) DO UPDATE SET payload = EXCLUDED.payload, " +
+      "version = shared_state.version + 1, created_at = now(), touched_at = now() " +
+      "RETURNING version";
+    Long version = jdbcTemplate.queryForObject(sql, Long.class, namespace, key, payload);
+    return version != null ? version : 0;
+  }
+
+  /**
+   * @return версия новой записи или -1, если ключ уже занят
+   */
+  public long insertIfAbsent(String namespace, String key, byte[] payload) {
+    String sql = "INSERT INTO shared_state (namespace, state_key, payload) VALUES (?, ?, ?) " +
+      "ON CONFLICT (namespace, state_key) DO NOTHING RETURNING version";
+    List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, namespace, key, payload);
+    return versions.isEmpty() ? -1 : versions.get(0);
+  }
+
+  /**
+   * Заменяет значение, только если версия записи равна expectedVersion.
+   *
+   * @return новая версия или -1, если запись изменена другим экземпляром или удалена
+   */
+  public long compareAndSet(String namespace, String key, long expectedVersion, byte[] payload) {
+    String sql = "UPDATE shared_state SET payload = ?, version = version + 1, touched_at = now() " +
+      "WHERE namespace = ? AND state_key = ? AND version = ? RETURNING version";
+    List<Long> versions = jdbcTemplate.queryForList(sql, Long.class, payload, namespace, key, expectedVersion);
+    return versions.isEmpty() ? -1 : versions.get(0);
+  }
+
+  /**
+   * Все записи области с ключами и версиями. Используется фоновой очисткой небольших областей.
+   */
+  public List<KeyedStateRow> findAll(String namespace) {
+    return jdbcTemplate.query(
+      "SELECT state_key, version, payload FROM shared_state WHERE namespace = ?",
+      (rs, rowNum) -> new KeyedStateRow(rs.getString("state_key"), rs.getLong("version"), rs.getBytes("payload")),
+      namespace);
+  }
+
+  /**
+   * Удаляет запись, только если ее версия равна expectedVersion.
+   */
+  public boolean deleteVersion(String namespace, String key, long expectedVersion) {
+    return jdbcTemplate.update("DELETE FROM shared_state WHERE namespace = ? AND state_key = ? AND version = ?",
+      namespace, key, expectedVersion) > 0;
+  }
+
+  public boolean delete(String namespace, String key) {
+    return jdbcTemplate.update("DELETE FROM shared_state WHERE namespace = ? AND state_key = ?", namespace, key) > 0;
+  }
+
+  /**
+   * Удаляет истекшие записи и возвращает их содержимое.
+   * DELETE ... RETURNING гарантирует, что одну запись получит только один из экземпляров.
+   */
+  public List<byte[]> deleteExpired(String namespace, Duration idleTtl, Duration absoluteTtl) {
+    List<Object> args = new ArrayList<>(List.of(namespace));
+    List<String> conditions = new ArrayList<>();
+    if (idleTtl != null) {
+      conditions.add("touched_at < now() - make_interval(secs => ?)");
+      args.add(idleTtl.toSeconds());
+    }
+    if (absoluteTtl != null) {
+      conditions.add("created_at < now() - make_interval(secs => ?)");
+      args.add(absoluteTtl.toSeconds());
+    }
+    if (conditions.isEmpty()) {
+      return List.of();
+    }
+    String sql = "DELETE FROM shared_state WHERE namespace = ? AND (" + String.join(" OR ", conditions) + ") " +
+      "RETURNING payload";
+    return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getBytes("payload"), args.toArray());
+  }
+
+  /**
+   * Удаляет давно не использованные записи сверх keep и возвращает их содержимое.
+   */
+  public List<byte[]> deleteOldest(String namespace, int keep) {
+    String sql = "DELETE FROM shared_state WHERE namespace = ? AND state_key IN (" +
+      "SELECT state_key FROM shared_state WHERE namespace = ? " +
+      "ORDER BY touched_at DESC OFFSET ? FOR UPDATE SKIP LOCKED) " +
+      "RETURNING payload";
+    return jdbcTemplate.query(sql, (rs, rowNum) -> rs.getBytes("payload"), namespace, namespace, keep);
+  }
+
+  public int count(String namespace) {
+    Integer count = jdbcTemplate.queryForObject(
+      "SELECT COUNT(*) FROM shared_state WHERE namespace = ?", Integer.class, namespace);
+    return count != null ? count : 0;
+  }
+
+  public long totalBytes(String namespace) {
+    Long bytes = jdbcTemplate.queryForObject(
+      "SELECT COALESCE(SUM(octet_length(payload)), 0) FROM shared_state WHERE namespace = ?", Long.class, namespace);
+    return bytes != null ? bytes : 0;
+  }
+}
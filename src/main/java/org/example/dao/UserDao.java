@@ -0,0 +1,34 @@
+package org.example.dao;
+
+import org.example.model.User;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Доступ к таблице users через общий пул соединений.
+ */
+@Repository
+public class UserDao {
+  private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> {
+    User user = new User();
+    user.setId(rs.getLong("id"));
+    user.setLogin(rs.getString("login"));
+    user.setPassword(rs.getString("password"));
+    return user;
+  };
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public UserDao(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+  }
+
+  public User findById(Long userId) {
+    String sql = "SELECT id, login, password FROM users WHERE id = ?";
+    List<User> users = jdbcTemplate.query(sql, USER_MAPPER, userId);
+    return users.isEmpty() ? null : users.get(0);
+  }
+}
@@ -9,5 +9,7 @@ public record QuestionGenerationRequest(
   String prompt,
   List<QuizMaterial> materials,
   Integer questionNumber,
-  Integer questionCount
+  Integer questionCount,
+  // false — не брать результат из кеша генерации; null равносилен true
+  Boolean useCache
 ) {}
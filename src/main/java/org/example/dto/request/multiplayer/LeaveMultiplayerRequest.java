@@ -0,0 +1,3 @@
+package org.example.dto.request.multiplayer;
+
+public record LeaveMultiplayerRequest(Long userId, String sessionId) {}
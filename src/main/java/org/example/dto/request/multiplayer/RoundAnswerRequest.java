@@ -0,0 +1,3 @@
+package org.example.dto.request.multiplayer;
+
+public record RoundAnswerRequest(String sessionId, Long userId, Long questionId, Long answerOptionId) {}
@@ -1,3 +1,7 @@
 package org.example.dto.request.multiplayer;
 
-public record StartMultiplayerRequest(String sessionId, Long hostUserId) {}
+/**
+ * @param timedRounds вопросы открываются всем участникам одновременно и закрываются по таймеру;
+ *                    null означает false
+ */
+public record StartMultiplayerRequest(String sessionId, Long hostUserId, Boolean timedRounds) {}
@@ -5,5 +5,7 @@ public record QuizSearchRequest(
   String sortBy,
   Boolean ascending,
   Integer page,
-  Integer size
+  Integer size,
+  String cursor,
+  Boolean includeTotal
 ) {}
@@ -7,5 +7,7 @@ public record AnswerResponse(
   String explanation,
   Long correctAnswerId,
   Integer scoreEarned,
-  QuestionDTO nextQuestion
+  QuestionDTO nextQuestion,
+  // Вопросы квиза еще генерируются: если nextQuestion нет, следующий вопрос нужно подождать
+  Boolean questionsPending
 ) {}
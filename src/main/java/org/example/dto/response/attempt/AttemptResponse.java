@@ -8,5 +8,7 @@ public record AttemptResponse(
   String quizName,
   QuestionDTO currentQuestion,
   Integer questionsRemaining,
-  Integer timeRemaining
+  Integer timeRemaining,
+  // Вопросы квиза еще генерируются: questionsRemaining вырастет по мере их сохранения
+  Boolean questionsPending
 ) {}
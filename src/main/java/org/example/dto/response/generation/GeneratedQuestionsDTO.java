@@ -7,6 +7,7 @@ import java.util.List;
 
 public record GeneratedQuestionsDTO(
   Long questionSetId,
+  String status, // QUEUED, RUNNING, COMPLETED, FAILED
   List<QuestionDTO> questions,
   GenerationMetadata metadata
 ) {}
@@ -5,7 +5,12 @@ import org.example.dto.common.Statistics;
 
 import java.util.List;
 
+/**
+ * Страница истории попыток. statistics заполняется только на первой странице,
+ * nextCursor равен null на последней.
+ */
 public record UserHistoryDTO(
   List<AttemptSummary> attempts,
-  Statistics statistics
+  Statistics statistics,
+  String nextCursor
 ) {}
@@ -11,6 +11,6 @@ public record MultiplayerSessionDTO(
   Long hostUserId,
   String joinLink,
   List<ParticipantDTO> participants,
-  String status, // WAITING, STARTED, FINISHED, CANCELLED
+  String status, // WAITING, STARTING, STARTED, FINISHED, CANCELLED
   LocalDateTime createdAt
 ) {}
@@ -4,8 +4,12 @@ import org.example.dto.common.ParticipantDTO;
 
 import java.util.List;
 
+/**
+ * Участники сессии в порядке подключения. version увеличивается при каждом изменении состава.
+ */
 public record ParticipantsDTO(
   String sessionId,
   List<ParticipantDTO> participants,
-  Integer totalCount
+  Integer totalCount,
+  Long version
 ) {}
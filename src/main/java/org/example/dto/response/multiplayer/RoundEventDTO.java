@@ -0,0 +1,18 @@
+package org.example.dto.response.multiplayer;
+
+import org.example.dto.response.quiz.QuestionDTO;
+
+/**
+ * Событие раунда: question открывает вопрос для всех участников до deadlineMillis,
+ * round-end закрывает его и раскрывает правильный ответ.
+ */
+public record RoundEventDTO(
+  String type,
+  String sessionId,
+  int round,
+  int totalRounds,
+  QuestionDTO question,
+  Long deadlineMillis,
+  Long correctAnswerId,
+  String explanation
+) {}
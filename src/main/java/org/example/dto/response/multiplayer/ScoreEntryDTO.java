@@ -0,0 +1,9 @@
+package org.example.dto.response.multiplayer;
+
+public record ScoreEntryDTO(
+  Long userId,
+  String username,
+  Integer position,
+  Integer score,
+  Long timeSpentMillis
+) {}
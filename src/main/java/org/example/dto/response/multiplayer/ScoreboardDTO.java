@@ -0,0 +1,14 @@
+package org.example.dto.response.multiplayer;
+
+import java.util.List;
+
+/**
+ * Таблица счета сессии после раунда round. В событии scoreboard (delta = true)
+ * передаются только участники, у которых изменились место или счет.
+ */
+public record ScoreboardDTO(
+  String sessionId,
+  Integer round,
+  List<ScoreEntryDTO> entries,
+  Boolean delta
+) {}
@@ -0,0 +1,16 @@
+package org.example.dto.response.multiplayer;
+
+import org.example.dto.common.ParticipantDTO;
+
+/**
+ * Событие сессии для подписчиков. participant заполняется для join,
+ * userId — для leave; status и participantCount отражают состояние после события.
+ */
+public record SessionEventDTO(
+  String type,
+  String sessionId,
+  String status,
+  ParticipantDTO participant,
+  Long userId,
+  int participantCount
+) {}
@@ -0,0 +1,13 @@
+package org.example.dto.response.quiz;
+
+import java.util.List;
+
+/**
+ * Страница квизов, созданных пользователем. estimatedTotal — оценка планировщика
+ * или null, если она не запрашивалась; nextCursor равен null на последней странице.
+ */
+public record CreatedQuizzesDTO(
+  List<QuizDTO> content,
+  String nextCursor,
+  Long estimatedTotal
+) {}
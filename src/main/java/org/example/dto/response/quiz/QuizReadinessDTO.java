@@ -0,0 +1,15 @@
+package org.example.dto.response.quiz;
+
+/**
+ * Готовность квиза к прохождению, пока его вопросы генерируются.
+ * status: QUEUED, GENERATING, PLAYABLE (первые вопросы сохранены, остальные догружаются),
+ * COMPLETED, FAILED или IDLE (генерация этим экземпляром не выполняется).
+ */
+public record QuizReadinessDTO(
+  Long quizId,
+  String status,
+  Integer plannedCount,
+  Integer generatedCount,
+  Integer persistedCount,
+  Boolean playable
+) {}
@@ -2,9 +2,15 @@ package org.example.dto.response.quiz;
 
 import java.util.List;
 
+/**
+ * Страница результатов поиска. totalElements и totalPages — оценка планировщика,
+ * а не точный подсчет; null, если оценка не запрашивалась.
+ * nextCursor передается в следующий запрос, null на последней странице.
+ */
 public record QuizSearchResponse(
   List<QuizDTO> content,
   Integer currentPage,
   Integer totalPages,
-  Long totalElements
+  Long totalElements,
+  String nextCursor
 ) {}
@@ -29,23 +29,20 @@ public class Question {
   @Column(columnDefinition = "TEXT")
   private String explanation;
 
-  @Lob
-  private byte[] image;
-
   @OneToMany(mappedBy = "question", cascade = CascadeType.ALL, orphanRemoval = true)
+  @OrderBy("id ASC")
   private List<AnswerOption> answerOptions = new ArrayList<>();
 
   public Question() {
     this.answerOptions = new ArrayList<>();
   }
 
-  public Question(Long id, Quiz quiz, String text, QuestionType type, String explanation, byte[] image) {
+  public Question(Long id, Quiz quiz, String text, QuestionType type, String explanation) {
     this.id = id;
     this.quiz = quiz;
     this.text = text;
     this.type = type;
     this.explanation = explanation;
-    this.image = image;
     this.answerOptions = new ArrayList<>();
   }
 }
@@ -37,6 +37,10 @@ public class Quiz {
   @Column(name = "question_number")
   private Integer questionNumber;
 
+  // Флагом управляет генерация вопросов через QuizDao, сущность его только читает
+  @Column(name = "is_generating", insertable = false, updatable = false)
+  private boolean generating;
+
   @Column(name = "time_per_question_seconds")
   @Convert(converter = DurationSecondsConverter.class)
   private Duration timePerQuestion;
@@ -3,9 +3,14 @@ package org.example.repository;
 import org.example.model.Question;
 import org.example.model.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Repository
@@ -15,4 +20,40 @@ public interface QuestionRepository extends JpaRepository<Question, Long> {
     Optional<Question> findByIdAndQuizId(Long id, Long quizId);
     void deleteByQuizId(Long quizId);
     long countByQuizId(Long quizId);
+
+    /**
+     * Загружает вопросы квиза вместе с вариантами ответов одним запросом.
+     *
+     * @param quizId ID квиза
+     * @return вопросы, упорядоченные по ID
+     */
+    @Query("SELECT DISTINCT q FROM Question q LEFT JOIN FETCH q.answerOptions " +
+           "WHERE q.quiz.id = :quizId ORDER BY q.id")
+    List<Question> findWithAnswerOptionsByQuizId(@Param("quizId") Long quizId);
+
+    /**
+     * Считает количество вопросов сразу для нескольких квизов одним GROUP BY запросом.
+     */
+    @Query("SELECT q.quiz.id AS quizId, COUNT(q) AS questionCount FROM Question q " +
+           "WHERE q.quiz.id IN :quizIds GROUP BY q.quiz.id")
+    List<QuizQuestionCount> countGroupedByQuizIds(@Param("quizIds") Collection<Long> quizIds);
+
+    /**
+     * Возвращает количество вопросов по каждому из квизов. Квизы без вопросов в результат не попадают.
+     */
+    default Map<Long, Long> countByQuizIds(Collection<Long> quizIds) {
+        Map<Long, Long> counts = new HashMap<>();
+        if (quizIds.isEmpty()) {
+            return counts;
+        }
+        for (QuizQuestionCount count : countGroupedByQuizIds(quizIds)) {
+            counts.put(count.getQuizId(), count.getQuestionCount());
+        }
+        return counts;
+    }
+
+    interface QuizQuestionCount {
+        Long getQuizId();
+        Long getQuestionCount();
+    }
 }
@@ -1,8 +1,7 @@
 package org.example.repository;
 
 import org.example.model.Quiz;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -13,23 +12,17 @@ import java.util.Optional;
 
 @Repository
 public interface QuizRepository extends JpaRepository<Quiz, Long> {
-    Page<Quiz> findByIsPrivateFalse(Pageable pageable);
+    @EntityGraph(attributePaths = "createdBy")
     List<Quiz> findByCreatedById(Long userId);
 
-    @Query("SELECT q FROM Quiz q WHERE q.id = :id AND q.isPrivate = false")
-    Optional<Quiz> findPublicById(@Param("id") Long id);
-
     /**
-     * Ищет публичные квизы по названию или логину создателя.
-     *
-     * @param searchTerm поисковый запрос
-     * @param pageable параметры пагинации
-     * @return страница с найденными квизами
+     * Загружает квиз вместе с создателем одним запросом.
      */
-    @Query("SELECT q FROM Quiz q WHERE q.isPrivate = false AND " +
-           "(LOWER(q.name) LIKE LOWER(CONCAT('%', :searchTerm, '%')) OR " +
-           "LOWER(q.createdBy.login) LIKE LOWER(CONCAT('%', :searchTerm, '%')))")
-    Page<Quiz> searchPublicQuizzes(@Param("searchTerm") String searchTerm, Pageable pageable);
+    @Query("SELECT q FROM Quiz q JOIN FETCH q.createdBy WHERE q.id = :id")
+    Optional<Quiz> findWithCreatorById(@Param("id") Long id);
+
+    @Query("SELECT q FROM Quiz q WHERE q.id = :id AND q.isPrivate = false")
+    Optional<Quiz> findPublicById(@Param("id") Long id);
 
     /**
      * Проверяет, является ли пользователь создателем квиза.
@@ -3,6 +3,7 @@ package org.example.repository;
 import org.example.model.UserQuizAttempt;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,7 @@ import java.util.List;
 
 @Repository
 public interface UserQuizAttemptRepository extends JpaRepository<UserQuizAttempt, Long> {
+    @EntityGraph(attributePaths = "quiz")
     Page<UserQuizAttempt> findByUserId(Long userId, Pageable pageable);
     List<UserQuizAttempt> findByQuizId(Long quizId);
     
@@ -26,15 +28,6 @@ public interface UserQuizAttemptRepository extends JpaRepository<UserQuizAttempt
            "ORDER BY u.score DESC NULLS LAST, u.finishTime ASC")
     Page<UserQuizAttempt> findCompletedByQuizIdOrderByScoreDesc(@Param("quizId") Long quizId, Pageable pageable);
 
-    /**
-     * Находит лучший результат каждого пользователя по квизу (только лучший результат для каждого пользователя).
-     */
-    @Query("SELECT u FROM UserQuizAttempt u WHERE u.quiz.id = :quizId AND u.isCompleted = true " +
-           "AND u.score = (SELECT MAX(u2.score) FROM UserQuizAttempt u2 WHERE u2.quiz.id = :quizId " +
-           "AND u2.user.id = u.user.id AND u2.isCompleted = true) " +
-           "ORDER BY u.score DESC NULLS LAST, u.finishTime ASC")
-    Page<UserQuizAttempt> findBestAttemptsByQuizId(@Param("quizId") Long quizId, Pageable pageable);
-
     long countByUserId(Long userId);
 }
 
@@ -0,0 +1,272 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.dao.AttemptAnswerDao;
+import org.example.dao.AttemptAnswerDao.AnswerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Отложенная (write-behind) запись ответов попыток.
+ * submitAnswer только кладет ответ в ограниченную очередь, а отдельный поток пишет ответы
+ * в БД JDBC-пакетами: по достижении attempt.answers.batch-size или через
+ * attempt.answers.flush-interval-ms после первого ответа в пакете.
+ * Если очередь заполнена, вызывающий поток ждет до attempt.answers.enqueue-timeout-ms
+ * (обратное давление), после чего записывает ответ синхронно, чтобы не потерять его.
+ * Неудачный пакет повторяется с нарастающей задержкой, затем пишется по одному ответу.
+ */
+@Service
+public class AnswerWriteBehind {
+  private static final int MAX_BATCH_ATTEMPTS = 3;
+  private static final long BATCH_RETRY_BACKOFF_MILLIS = 100;
+  private static final long POLL_SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+  private final AttemptAnswerDao attemptAnswerDao;
+  private final MetricsService metricsService;
+
+  @Value("${attempt.answers.queue-capacity:10000}")
+  private int queueCapacity;
+
+  @Value("${attempt.answers.batch-size:500}")
+  private int batchSize;
+
+  @Value("${attempt.answers.flush-interval-ms:200}")
+  private long flushIntervalMs;
+
+  @Value("${attempt.answers.enqueue-timeout-ms:100}")
+  private long enqueueTimeoutMs;
+
+  @Value("${attempt.answers.flush-timeout-ms:5000}")
+  private long flushTimeoutMs;
+
+  private BlockingQueue<AnswerRecord> queue;
+  private Thread writer;
+  private volatile boolean running;
+
+  // Число ответов попытки, еще не обработанных потоком записи; flush() ждет обнуления
+  private final Map<Long, AtomicInteger> pendingByAttempt = new ConcurrentHashMap<>();
+  private final AtomicInteger flushWaiters = new AtomicInteger();
+  private final AtomicLong written = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong overflow = new AtomicLong();
+  private final AtomicLong batches = new AtomicLong();
+  private final Object progress = new Object();
+
+  public AnswerWriteBehind(AttemptAnswerDao attemptAnswerDao, MetricsService metricsService) {
+    this.attemptAnswerDao = attemptAnswerDao;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    queue = new ArrayBlockingQueue<>(queueCapacity);
+    running = true;
+    writer = new Thread(this::runWriter, "answer-writer");
+    writer.setDaemon(true);
+    writer.start();
+
+    metricsService.registerGauge("attempt.answers.queue.size", () -> queue.size());
+    metricsService.registerGauge("attempt.answers.written", written::get);
+    metricsService.registerGauge("attempt.answers.failed", failed::get);
+    metricsService.registerGauge("attempt.answers.overflow", overflow::get);
+    metricsService.registerGauge("attempt.answers.batches", batches::get);
+  }
+
+  /**
+   * Останавливает поток записи, дописав все ответы из очереди.
+   */
+  @PreDestroy
+  void stop() throws InterruptedException {
+    running = false;
+    writer.interrupt();
+    writer.join(flushTimeoutMs);
+  }
+
+  /**
+   * Ставит ответ в очередь на запись.
+   */
+  public void enqueue(AnswerRecord answer) {
+    // Ответ учитывается до постановки в очередь, чтобы поток записи не обработал его раньше
+    pendingByAttempt.computeIfAbsent(answer.attemptId(), id -> new AtomicInteger()).incrementAndGet();
+    boolean accepted;
+    try {
+      accepted = queue.offer(answer, enqueueTimeoutMs, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      accepted = false;
+    }
+
+    if (accepted) {
+      return;
+    }
+    markProcessed(answer.attemptId());
+
+    // Очередь переполнена: пишем синхронно, замедляя вызывающего вместо потери данных
+    overflow.incrementAndGet();
+    try {
+      attemptAnswerDao.insert(answer);
+      written.incrementAndGet();
+    } catch (RuntimeException e) {
+      failed.incrementAndGet();
+      System.err.println("Error writing answer of attempt " + answer.attemptId() + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Дожидается записи ответов указанных попыток, поставленных в очередь до вызова.
+   * Ответы других попыток не ждет. Вызывать вне транзакции: ожидание не должно
+   * занимать соединение из пула.
+   *
+   * @return false если ответы не успели записаться за attempt.answers.flush-timeout-ms
+   */
+  public boolean flush(Collection<Long> attemptIds) {
+    if (!hasPending(attemptIds)) {
+      return true;
+    }
+
+    flushWaiters.incrementAndGet();
+    try {
+      synchronized (progress) {
+        long deadline = System.currentTimeMillis() + flushTimeoutMs;
+        while (hasPending(attemptIds)) {
+          long remaining = deadline - System.currentTimeMillis();
+          if (remaining <= 0) {
+            return false;
+          }
+          try {
+            progress.wait(remaining);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+          }
+        }
+      }
+      return true;
+    } finally {
+      flushWaiters.decrementAndGet();
+    }
+  }
+
+  private boolean hasPending(Collection<Long> attemptIds) {
+    for (Long attemptId : attemptIds) {
+      if (pendingByAttempt.containsKey(attemptId)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void markProcessed(Long attemptId) {
+    pendingByAttempt.computeIfPresent(attemptId, (id, count) -> count.decrementAndGet() > 0 ? count : null);
+  }
+
+  private void runWriter() {
+    List<AnswerRecord> batch = new ArrayList<>(batchSize);
+    while (running || !queue.isEmpty()) {
+      try {
+        AnswerRecord first = queue.poll(flushIntervalMs, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        collect(batch);
+      } catch (InterruptedException e) {
+        // Остановка: дописываем остаток очереди без ожидания
+        queue.drainTo(batch);
+      }
+
+      if (!batch.isEmpty()) {
+        write(batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Добирает пакет до batch-size, пока не истечет интервал с момента первого ответа.
+   * Если кто-то ждет flush(), пакет отправляется сразу с тем, что уже есть в очереди.
+   */
+  private void collect(List<AnswerRecord> batch) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+    while (batch.size() < batchSize) {
+      queue.drainTo(batch, batchSize - batch.size());
+      if (batch.size() >= batchSize || !running || flushWaiters.get() > 0) {
+        return;
+      }
+      long remaining = deadline - System.nanoTime();
+      if (remaining <= 0) {
+        return;
+      }
+      // Ждем короткими интервалами, чтобы быстро заметить запрос flush()
+      AnswerRecord next = queue.poll(Math.min(remaining, POLL_SLICE_NANOS), TimeUnit.NANOSECONDS);
+      if (next != null) {
+        batch.add(next);
+      }
+    }
+  }
+
+  private void write(List<AnswerRecord> batch) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        attemptAnswerDao.insertBatch(batch);
+        written.addAndGet(batch.size());
+        break;
+      } catch (RuntimeException e) {
+        if (attempt < MAX_BATCH_ATTEMPTS && backoff(attempt)) {
+          continue;
+        }
+        // Пакет не прошел целиком: пишем по одному, чтобы одна плохая запись не теряла остальные
+        writeIndividually(batch, e);
+        break;
+      }
+    }
+
+    batches.incrementAndGet();
+    synchronized (progress) {
+      for (AnswerRecord answer : batch) {
+        markProcessed(answer.attemptId());
+      }
+      progress.notifyAll();
+    }
+  }
+
+  /**
+   * Пауза перед повтором пакета: кратковременный сбой БД успевает пройти.
+   *
+   * @return false, если поток записи останавливают и ждать больше нельзя
+   */
+  private boolean backoff(int attempt) {
+    try {
+      Thread.sleep(BATCH_RETRY_BACKOFF_MILLIS << (attempt - 1));
+      return true;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return false;
+    }
+  }
+
+  private void writeIndividually(List<AnswerRecord> batch, RuntimeException batchError) {
+    System.err.println("Error writing answers batch, retrying one by one: " + batchError.getMessage());
+    for (AnswerRecord answer : batch) {
+      try {
+        attemptAnswerDao.insert(answer);
+        written.incrementAndGet();
+      } catch (RuntimeException e) {
+        failed.incrementAndGet();
+        System.err.println("Error writing answer of attempt " + answer.attemptId() + ": " + e.getMessage());
+      }
+    }
+  }
+}
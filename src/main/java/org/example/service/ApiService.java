@@ -14,14 +14,12 @@ import org.example.dto.response.history.*;
 import org.example.dto.response.generation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutionException;
 
 @Service
 @Transactional
@@ -33,9 +31,7 @@ public class ApiService implements ApiController {
     private final AttemptService attemptService;
     private final MultiplayerService multiplayerService;
     private final QuestionGenerationService questionGenerationService;
-    
-    private static final String BASE_URL = "http://127.0.0.1:8000/question/";
-    private final HttpClient httpClient;
+    private final LlmClient llmClient;
 
     @Autowired
     public ApiService(AuthService authService,
@@ -43,14 +39,15 @@ public class ApiService implements ApiController {
                      QuizService quizService,
                      AttemptService attemptService,
                      MultiplayerService multiplayerService,
-                     QuestionGenerationService questionGenerationService) {
+                     QuestionGenerationService questionGenerationService,
+                     LlmClient llmClient) {
         this.authService = authService;
         this.userService = userService;
         this.quizService = quizService;
         this.attemptService = attemptService;
         this.multiplayerService = multiplayerService;
         this.questionGenerationService = questionGenerationService;
-        this.httpClient = HttpClient.newHttpClient();
+        this.llmClient = llmClient;
     }
 
     // ========== Аутентификация ==========
@@ -104,6 +101,11 @@ public class ApiService implements ApiController {
         return quizService.getQuiz(quizId, userId);
     }
 
+    @Override
+    public QuizReadinessDTO getQuizReadiness(Long quizId) {
+        return quizService.getQuizReadiness(quizId);
+    }
+
     @Override
     public boolean deleteQuiz(DeleteQuizRequest request) {
         return quizService.deleteQuiz(request);
@@ -142,6 +144,7 @@ public class ApiService implements ApiController {
     }
 
     @Override
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public QuizResultDTO finishQuizAttempt(Long attemptId) {
         return attemptService.finishQuizAttempt(attemptId);
     }
@@ -190,6 +193,11 @@ public class ApiService implements ApiController {
         return questionGenerationService.generateQuizQuestions(request);
     }
 
+    @Override
+    public QuestionGenerationResponse getGenerationStatus(Long questionSetId) {
+        return questionGenerationService.getGenerationStatus(questionSetId);
+    }
+
     @Override
     public ValidationResponse validateGeneratedQuestions(Long questionSetId) {
         return questionGenerationService.validateGeneratedQuestions(questionSetId);
@@ -205,14 +213,17 @@ public class ApiService implements ApiController {
         return questionGenerationService.getGeneratedQuestions(questionSetId);
     }
   
+    /**
+     * Запрашивает вопросы у сервиса генерации и ждет ответа не дольше общего срока запроса LlmClient.
+     */
     public String getQuestionsByPrompt(String prompt, int numberOfQuestions) throws IOException, InterruptedException {
-        String url = BASE_URL + prompt + "/" + numberOfQuestions;
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .GET()
-                .build();
-
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-        return response.body();
+        try {
+            return llmClient.generateQuestions(prompt, numberOfQuestions).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) {
+                throw io;
+            }
+            throw new IOException("Error requesting questions: " + e.getCause().getMessage(), e.getCause());
+        }
     }
 }
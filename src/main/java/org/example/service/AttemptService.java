@@ -1,5 +1,6 @@
 package org.example.service;
 
+import org.example.dao.*;
 import org.example.dto.common.AnswerOption;
 import org.example.dto.request.attempt.StartAttemptRequest;
 import org.example.dto.request.attempt.SubmitAnswerRequest;
@@ -9,16 +10,19 @@ import org.example.dto.response.attempt.QuizResultDTO;
 import org.example.dto.response.quiz.QuestionDTO;
 import org.example.model.*;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.sql.*;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Сервис для управления попытками прохождения квизов.
@@ -27,36 +31,42 @@ import java.util.concurrent.ConcurrentHashMap;
 @Service
 @Transactional
 public class AttemptService {
-  private final Map<Long, AttemptState> attemptStates = new ConcurrentHashMap<>();
-
-  public AttemptService() {
-  }
+  private final UserDao userDao;
+  private final AttemptDao attemptDao;
+  private final BestResultDao bestResultDao;
+  private final QuizSnapshotCache quizSnapshotCache;
+  private final LeaderboardCache leaderboardCache;
+  private final AnswerWriteBehind answerWriteBehind;
+  private final AttemptStateStore attemptStates;
+  private final TransactionTemplate transactionTemplate;
+  private volatile SessionAnswerListener sessionAnswerListener;
 
   /**
-   * Внутренний класс для отслеживания состояния попыток в памяти
+   * Получает ответы попыток, относящихся к сессиям совместной игры без раундов.
    */
-  private static class AttemptState {
-    Long attemptId;
-    Long userId;
-    Long quizId;
-    List<Long> questionIds;
-    int currentQuestionIndex;
-    Map<Long, Long> answers;
-    Map<Long, Boolean> answerResults;
-    Instant startTime;
-    int score;
-
-    AttemptState(Long attemptId, Long userId, Long quizId, List<Long> questionIds, Instant startTime) {
-      this.attemptId = attemptId;
-      this.userId = userId;
-      this.quizId = quizId;
-      this.questionIds = new ArrayList<>(questionIds);
-      this.currentQuestionIndex = 0;
-      this.answers = new HashMap<>();
-      this.answerResults = new HashMap<>();
-      this.startTime = startTime;
-      this.score = 0;
-    }
+  @FunctionalInterface
+  public interface SessionAnswerListener {
+    void onAnswer(String sessionId, long userId, boolean correct, long answeredAtMillis);
+  }
+
+  private record Answered(AnswerResponse response, String sessionId, long userId) {}
+
+  public AttemptService(UserDao userDao,
+                        AttemptDao attemptDao,
+                        BestResultDao bestResultDao,
+                        QuizSnapshotCache quizSnapshotCache,
+                        LeaderboardCache leaderboardCache,
+                        AnswerWriteBehind answerWriteBehind,
+                        AttemptStateStore attemptStates,
+                        PlatformTransactionManager transactionManager) {
+    this.userDao = userDao;
+    this.attemptDao = attemptDao;
+    this.bestResultDao = bestResultDao;
+    this.quizSnapshotCache = quizSnapshotCache;
+    this.leaderboardCache = leaderboardCache;
+    this.answerWriteBehind = answerWriteBehind;
+    this.attemptStates = attemptStates;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
   }
 
   /**
@@ -67,12 +77,12 @@ public class AttemptService {
     Long userId = request.userId();
     Long quizId = request.quizId();
 
-    User user = getUserById(userId);
+    User user = userDao.findById(userId);
     if (user == null) {
       throw new RuntimeException("User not found: " + userId);
     }
 
-    Quiz quiz = getQuizById(quizId);
+    QuizSnapshot quiz = quizSnapshotCache.get(quizId);
     if (quiz == null) {
       throw new RuntimeException("Quiz not found: " + quizId);
     }
@@ -81,69 +91,85 @@ public class AttemptService {
       throw new RuntimeException("Quiz is private and not accessible");
     }
 
-    List<Question> questions = getQuestionsByQuizId(quizId);
-    if (questions.isEmpty()) {
-      throw new RuntimeException("Quiz has no questions");
-    }
-
-    List<Long> questionIds = new ArrayList<>();
-    for (Question question : questions) {
-      questionIds.add(question.getId());
-    }
-
-    if (!quiz.isStatic()) {
-      Collections.shuffle(questionIds);
+    // Квиз становится доступен, когда сохранена первая пачка сгенерированных вопросов
+    if (quiz.getQuestions().isEmpty()) {
+      throw new RuntimeException(quiz.isGenerating()
+        ? "Quiz questions are still being generated" : "Quiz has no questions");
     }
 
     Instant startTime = Instant.now();
-    Long attemptId = createAttempt(userId, quizId, startTime);
+    Long attemptId = attemptDao.create(userId, quizId, startTime);
 
-    AttemptState state = new AttemptState(attemptId, userId, quizId, questionIds, startTime);
-    attemptStates.put(attemptId, state);
+    // Для нестатичных квизов порядок вопросов задается seed, а не перемешанным списком
+    AttemptState state = new AttemptState(attemptId, userId, user.getLogin(), quiz,
+      ThreadLocalRandom.current().nextLong(), startTime.toEpochMilli());
+    attemptStates.put(state);
 
-    Question firstQuestion = getQuestionById(questionIds.get(0));
-    QuestionDTO firstQuestionDTO = convertToQuestionDTO(firstQuestion, quiz);
+    QuestionDTO firstQuestionDTO = state.questionAt(0).dto();
 
-    Integer timeRemaining = null;
-    if (quiz.getTimePerQuestion() != null) {
-      timeRemaining = (int) quiz.getTimePerQuestion().getSeconds();
-    }
+    Integer timeRemaining = quiz.getTimeLimitSeconds();
 
     return new AttemptResponse(
       attemptId,
       quizId,
       quiz.getName(),
       firstQuestionDTO,
-      questionIds.size() - 1,
-      timeRemaining
+      state.questionCount() - 1,
+      timeRemaining,
+      state.mayGrow()
     );
   }
 
   /**
-   * Получает следующий вопрос в текущей попытке.
+   * Заводит состояния попыток участников игры без раундов: каждый проходит квиз в своем темпе,
+   * а ответы передаются слушателю сессии для таблицы счета.
+   *
+   * @param userAttempts ID попыток по ID пользователей
+   * @param logins логины участников по ID пользователей
    */
-  public QuestionDTO getNextQuestion(Long attemptId) {
-    AttemptState state = attemptStates.get(attemptId);
-    if (state == null) {
-      throw new RuntimeException("Attempt not found: " + attemptId);
-    }
-
-    UserQuizAttempt attempt = getAttemptById(attemptId);
-    if (attempt != null && attempt.isCompleted()) {
-      throw new IllegalStateException("Attempt is already completed");
+  public void startSessionAttempts(String sessionId, QuizSnapshot quiz, Map<Long, Long> userAttempts,
+                                   Map<Long, String> logins, Instant startTime) {
+    for (Map.Entry<Long, Long> entry : userAttempts.entrySet()) {
+      AttemptState state = new AttemptState(entry.getValue(), entry.getKey(), logins.get(entry.getKey()), quiz,
+        ThreadLocalRandom.current().nextLong(), startTime.toEpochMilli());
+      state.sessionId = sessionId;
+      attemptStates.put(state);
     }
+  }
 
-    state.currentQuestionIndex++;
+  public void setSessionAnswerListener(SessionAnswerListener listener) {
+    this.sessionAnswerListener = listener;
+  }
 
-    if (state.currentQuestionIndex >= state.questionIds.size()) {
-      return null;
+  /**
+   * Получает следующий вопрос в текущей попытке.
+   * Если следующий вопрос квиза еще генерируется, возвращает null, не сдвигая позицию:
+   * клиент повторяет запрос, пока isWaitingForQuestions возвращает true.
+   */
+  public QuestionDTO getNextQuestion(Long attemptId) {
+    Optional<QuestionDTO> next = attemptStates.update(attemptId, state -> {
+      refreshQuestions(state);
+      if (state.currentQuestionIndex + 1 >= state.questionCount() && state.mayGrow()) {
+        return Optional.empty();
+      }
+      state.currentQuestionIndex++;
+      if (state.currentQuestionIndex >= state.questionCount()) {
+        return Optional.empty();
+      }
+      return Optional.of(state.questionAt(state.currentQuestionIndex).dto());
+    });
+    if (next == null) {
+      throw new RuntimeException("Attempt not found: " + attemptId);
     }
+    return next.orElse(null);
+  }
 
-    Long nextQuestionId = state.questionIds.get(state.currentQuestionIndex);
-    Question nextQuestion = getQuestionById(nextQuestionId);
-    Quiz quiz = getQuizById(state.quizId);
-
-    return convertToQuestionDTO(nextQuestion, quiz);
+  /**
+   * Попытка дошла до последнего сохраненного вопроса, а квиз еще догенерируется.
+   */
+  public boolean isWaitingForQuestions(Long attemptId) {
+    AttemptState state = attemptStates.get(attemptId);
+    return state != null && state.currentQuestionIndex + 1 >= state.questionCount() && state.mayGrow();
   }
 
   /**
@@ -154,89 +180,123 @@ public class AttemptService {
     Long questionId = request.questionId();
     Long selectedAnswerId = request.selectedAnswerId();
 
-    AttemptState state = attemptStates.get(attemptId);
-    if (state == null) {
-      throw new RuntimeException("Attempt not found: " + attemptId);
-    }
+    Answered answered = attemptStates.update(attemptId, state -> {
+      if (state.currentQuestionIndex >= state.questionCount()) {
+        throw new IllegalStateException("No current question in attempt");
+      }
 
-    if (state.currentQuestionIndex >= state.questionIds.size()) {
-      throw new IllegalStateException("No current question in attempt");
-    }
+      QuizSnapshot.QuestionSnapshot question = state.questionAt(state.currentQuestionIndex);
+      if (!question.id().equals(questionId)) {
+        throw new IllegalStateException("Question ID does not match current question");
+      }
 
-    Long currentQuestionId = state.questionIds.get(state.currentQuestionIndex);
-    if (!currentQuestionId.equals(questionId)) {
-      throw new IllegalStateException("Question ID does not match current question");
-    }
+      AnswerOption correctAnswer = question.correctOption();
 
-    Question question = getQuestionById(questionId);
-    AnswerOption correctAnswer = getCorrectAnswer(questionId);
+      boolean isCorrect = correctAnswer != null && correctAnswer.id().equals(selectedAnswerId);
 
-    boolean isCorrect = correctAnswer != null && correctAnswer.id().equals(selectedAnswerId);
+      state.recordAnswer(state.currentQuestionIndex, selectedAnswerId, isCorrect);
 
-    state.answers.put(questionId, selectedAnswerId);
-    state.answerResults.put(questionId, isCorrect);
+      if (isCorrect) {
+        state.score++;
+      }
 
-    if (isCorrect) {
-      state.score++;
-    }
+      refreshQuestions(state);
+      QuestionDTO nextQuestion = null;
+      int questionsRemaining = state.questionCount() - state.currentQuestionIndex - 1;
 
-    QuestionDTO nextQuestion = null;
-    int questionsRemaining = state.questionIds.size() - state.currentQuestionIndex - 1;
+      if (questionsRemaining > 0) {
+        state.currentQuestionIndex++;
+        nextQuestion = state.questionAt(state.currentQuestionIndex).dto();
+      }
 
-    if (questionsRemaining > 0) {
-      state.currentQuestionIndex++;
-      Long nextQuestionId = state.questionIds.get(state.currentQuestionIndex);
-      Question nextQuestionEntity = getQuestionById(nextQuestionId);
-      Quiz quiz = getQuizById(state.quizId);
-      nextQuestion = convertToQuestionDTO(nextQuestionEntity, quiz);
+      return new Answered(new AnswerResponse(
+        isCorrect,
+        question.explanation(),
+        correctAnswer != null ? correctAnswer.id() : null,
+        isCorrect ? 1 : 0,
+        nextQuestion,
+        state.mayGrow()
+      ), state.sessionId, state.userId);
+    });
+    if (answered == null) {
+      throw new RuntimeException("Attempt not found: " + attemptId);
+    }
+    AnswerResponse response = answered.response();
+    Instant answeredAt = Instant.now();
+
+    // Ответ пишется в БД асинхронно пакетами, без задержки для пользователя.
+    // Запись ставится в очередь после изменения состояния: при конфликте в общем хранилище
+    // изменение может примениться повторно
+    answerWriteBehind.enqueue(new AttemptAnswerDao.AnswerRecord(
+      attemptId, questionId, selectedAnswerId, response.isCorrect(), answeredAt));
+
+    SessionAnswerListener listener = sessionAnswerListener;
+    if (answered.sessionId() != null && listener != null) {
+      // Ответ уже принят: сбой таблицы счета не должен его отменять
+      try {
+        listener.onAnswer(answered.sessionId(), answered.userId(), response.isCorrect(), answeredAt.toEpochMilli());
+      } catch (RuntimeException e) {
+        System.err.println("Error updating scoreboard of session " + answered.sessionId() + ": " + e.getMessage());
+      }
     }
 
-    return new AnswerResponse(
-      isCorrect,
-      question.getExplanation(),
-      correctAnswer != null ? correctAnswer.id() : null,
-      isCorrect ? 1 : 0,
-      nextQuestion
-    );
+    return response;
+  }
+
+  /**
+   * Если квиз еще догенерируется, добавляет в попытку вопросы, сохраненные после ее начала.
+   * Снимок берется из кеша, который сбрасывается после сохранения каждой пачки вопросов.
+   */
+  private void refreshQuestions(AttemptState state) {
+    if (!state.mayGrow()) {
+      return;
+    }
+    QuizSnapshot latest = quizSnapshotCache.get(state.quizId());
+    if (latest != null) {
+      state.extendTo(latest);
+    }
   }
 
   /**
    * Завершает попытку прохождения квиза и рассчитывает итоговые результаты.
    * Если пользователь проходил квиз ранее, обновляет результат только если новый лучше.
+   * Запись ответов попытки ожидается вне транзакции, не занимая соединение из пула;
+   * само завершение выполняется в отдельной транзакции.
    */
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
   public QuizResultDTO finishQuizAttempt(Long attemptId) {
     AttemptState state = attemptStates.get(attemptId);
     if (state == null) {
       throw new RuntimeException("Attempt not found: " + attemptId);
     }
 
-    Instant finishTime = Instant.now();
-    
-    // Проверяем, есть ли уже лучший результат пользователя по этому квизу
-    Long bestScore = getBestScoreForUser(state.quizId, state.userId);
-    
-    // Обновляем результат только если это первый проход или новый результат лучше
-    boolean shouldUpdate = bestScore == null || state.score > bestScore;
-    
-    if (shouldUpdate) {
-      // Если есть старый результат, помечаем его как не лучший (или удаляем)
-      markOldAttemptsAsNotBest(state.quizId, state.userId);
-      updateAttempt(attemptId, finishTime, (long) state.score, true);
-    } else {
-      // Просто сохраняем попытку, но не обновляем рейтинг
-      updateAttempt(attemptId, finishTime, (long) state.score, true);
+    // Все ответы попытки должны быть записаны до ее завершения
+    if (!answerWriteBehind.flush(List.of(attemptId))) {
+      System.err.println("Answers of attempt " + attemptId + " are still pending after flush timeout");
     }
 
-    int correctAnswers = (int) state.answerResults.values().stream()
-      .filter(Boolean::booleanValue)
-      .count();
-    int totalQuestions = state.questionIds.size();
+    return transactionTemplate.execute(status -> finish(state));
+  }
 
-    long timeSpent = Duration.between(state.startTime, finishTime).getSeconds();
+  private QuizResultDTO finish(AttemptState state) {
+    Long attemptId = state.attemptId;
+    Instant finishTime = Instant.now();
+    long timeSpent = Duration.between(Instant.ofEpochMilli(state.startTimeMillis), finishTime).getSeconds();
 
-    // Позиция рассчитывается на основе лучшего результата
-    long scoreForPosition = shouldUpdate ? state.score : (bestScore != null ? bestScore : state.score);
-    int position = getLeaderboardPosition(state.quizId, state.userId, (int) scoreForPosition);
+    // Позиция считается по рейтингу в памяти до записи, с учетом нового результата
+    QuizLeaderboard leaderboard = leaderboardCache.get(state.quizId());
+    int position = leaderboard.positionWith(state.userId, state.score, finishTime);
+
+    attemptDao.update(attemptId, finishTime, (long) state.score, true);
+
+    // Лучший результат пользователя обновляется только если новый результат лучше
+    if (bestResultDao.upsert(state.quizId(), state.userId, attemptId, state.score, timeSpent, finishTime)) {
+      leaderboardCache.record(state.quizId(), new BestResultDao.BestResult(
+        state.userId, state.login, attemptId, state.score, timeSpent, finishTime));
+    }
+
+    int correctAnswers = state.correctCount();
+    int totalQuestions = state.questionCount();
 
     attemptStates.remove(attemptId);
 
@@ -250,317 +310,4 @@ public class AttemptService {
       LocalDateTime.ofInstant(finishTime, ZoneOffset.UTC)
     );
   }
-
-  // Операции с базой данных
-
-  private User getUserById(Long userId) {
-    String sql = "SELECT id, login, password FROM users WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, userId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          User user = new User();
-          user.setId(rs.getLong("id"));
-          user.setLogin(rs.getString("login"));
-          user.setPassword(rs.getString("password"));
-          return user;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching user: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private Quiz getQuizById(Long quizId) {
-    String sql = "SELECT q.id, q.name, q.prompt, q.created_by, q.has_material, q.material_url, " +
-      "q.question_number, q.time_per_question_seconds, q.is_private, q.is_static, q.created_at, " +
-      "u.id as user_id, u.login " +
-      "FROM quizzes q " +
-      "LEFT JOIN users u ON q.created_by = u.id " +
-      "WHERE q.id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("id"));
-          quiz.setName(rs.getString("name"));
-          quiz.setPrompt(rs.getString("prompt"));
-          User creator = new User();
-          creator.setId(rs.getLong("user_id"));
-          creator.setLogin(rs.getString("login"));
-          quiz.setCreatedBy(creator);
-          quiz.setHasMaterial(rs.getBoolean("has_material"));
-          quiz.setMaterialUrl(rs.getString("material_url"));
-          quiz.setQuestionNumber(rs.getObject("question_number", Integer.class));
-
-          Integer seconds = rs.getObject("time_per_question_seconds", Integer.class);
-          if (seconds != null) {
-            quiz.setTimePerQuestion(Duration.ofSeconds(seconds));
-          }
-
-          quiz.setPrivate(rs.getBoolean("is_private"));
-          quiz.setStatic(rs.getBoolean("is_static"));
-
-          OffsetDateTime odt = rs.getObject("created_at", OffsetDateTime.class);
-          quiz.setCreatedAt(odt != null ? odt.toInstant() : null);
-
-          return quiz;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching quiz: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private List<Question> getQuestionsByQuizId(Long quizId) {
-    List<Question> questions = new ArrayList<>();
-    String sql = "SELECT id, quiz_id, text, type, explanation, image FROM questions WHERE quiz_id = ? ORDER BY id";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      try (ResultSet rs = statement.executeQuery()) {
-        while (rs.next()) {
-          Question question = new Question();
-          question.setId(rs.getLong("id"));
-          Quiz quiz = new Quiz();
-          quiz.setId(quizId);
-          question.setQuiz(quiz);
-          question.setText(rs.getString("text"));
-          question.setType(QuestionType.valueOf(rs.getString("type")));
-          question.setExplanation(rs.getString("explanation"));
-          question.setImage(rs.getBytes("image"));
-          questions.add(question);
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching questions: " + e.getMessage());
-    }
-    return questions;
-  }
-
-  private Question getQuestionById(Long questionId) {
-    String sql = "SELECT id, quiz_id, text, type, explanation, image FROM questions WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, questionId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          Question question = new Question();
-          question.setId(rs.getLong("id"));
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("quiz_id"));
-          question.setQuiz(quiz);
-          question.setText(rs.getString("text"));
-          question.setType(QuestionType.valueOf(rs.getString("type")));
-          question.setExplanation(rs.getString("explanation"));
-          question.setImage(rs.getBytes("image"));
-          return question;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching question: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private List<org.example.model.AnswerOption> getAnswerOptionsByQuestionId(Long questionId) {
-    List<org.example.model.AnswerOption> options = new ArrayList<>();
-    String sql = "SELECT id, question_id, text, is_correct, is_na_option FROM answer_options WHERE question_id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, questionId);
-      try (ResultSet rs = statement.executeQuery()) {
-        while (rs.next()) {
-          org.example.model.AnswerOption option = new org.example.model.AnswerOption();
-          option.setId(rs.getLong("id"));
-          Question question = new Question();
-          question.setId(rs.getLong("question_id"));
-          option.setQuestion(question);
-          option.setText(rs.getString("text"));
-          option.setCorrect(rs.getBoolean("is_correct"));
-          option.setNaOption(rs.getBoolean("is_na_option"));
-          options.add(option);
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching answer options: " + e.getMessage());
-    }
-    return options;
-  }
-
-  private org.example.dto.common.AnswerOption getCorrectAnswer(Long questionId) {
-    String sql = "SELECT id, text FROM answer_options WHERE question_id = ? AND is_correct = true LIMIT 1";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, questionId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          return new org.example.dto.common.AnswerOption(
-            rs.getLong("id"),
-            rs.getString("text")
-          );
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching correct answer: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private Long createAttempt(Long userId, Long quizId, Instant startTime) {
-    String sql = "INSERT INTO user_quiz_attempts (user_id, quiz_id, start_time, finish_time, score, is_completed) " +
-      "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, userId);
-      statement.setLong(2, quizId);
-      statement.setTimestamp(3, Timestamp.from(startTime));
-      statement.setTimestamp(4, Timestamp.from(startTime));
-      statement.setLong(5, 0L);
-      statement.setBoolean(6, false);
-
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          return rs.getLong("id");
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error creating attempt: " + e.getMessage());
-      throw new RuntimeException("Failed to create attempt", e);
-    }
-    return null;
-  }
-
-  private void updateAttempt(Long attemptId, Instant finishTime, Long score, boolean isCompleted) {
-    String sql = "UPDATE user_quiz_attempts SET finish_time = ?, score = ?, is_completed = ? WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setTimestamp(1, Timestamp.from(finishTime));
-      statement.setLong(2, score);
-      statement.setBoolean(3, isCompleted);
-      statement.setLong(4, attemptId);
-      statement.executeUpdate();
-    } catch (SQLException e) {
-      System.err.println("Error updating attempt: " + e.getMessage());
-      throw new RuntimeException("Failed to update attempt", e);
-    }
-  }
-
-  private UserQuizAttempt getAttemptById(Long attemptId) {
-    String sql = "SELECT id, user_id, quiz_id, start_time, finish_time, score, is_completed " +
-      "FROM user_quiz_attempts WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, attemptId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          UserQuizAttempt attempt = new UserQuizAttempt();
-          attempt.setId(rs.getLong("id"));
-          User user = new User();
-          user.setId(rs.getLong("user_id"));
-          attempt.setUser(user);
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("quiz_id"));
-          attempt.setQuiz(quiz);
-          attempt.setStartTime(rs.getTimestamp("start_time").toInstant());
-          Timestamp finishTime = rs.getTimestamp("finish_time");
-          attempt.setFinishTime(finishTime != null ? finishTime.toInstant() : null);
-          attempt.setScore(rs.getLong("score"));
-          attempt.setCompleted(rs.getBoolean("is_completed"));
-          return attempt;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching attempt: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private int getLeaderboardPosition(Long quizId, Long userId, int score) {
-    String sql = "SELECT COUNT(*) as position FROM user_quiz_attempts " +
-      "WHERE quiz_id = ? AND is_completed = true AND score > ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      statement.setLong(2, (long) score);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          return rs.getInt("position") + 1;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error calculating leaderboard position: " + e.getMessage());
-    }
-    return 1;
-  }
-
-  /**
-   * Получает лучший результат пользователя по квизу.
-   */
-  private Long getBestScoreForUser(Long quizId, Long userId) {
-    String sql = "SELECT MAX(score) as best_score FROM user_quiz_attempts " +
-      "WHERE quiz_id = ? AND user_id = ? AND is_completed = true";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      statement.setLong(2, userId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          return rs.getObject("best_score", Long.class);
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching best score: " + e.getMessage());
-    }
-    return null;
-  }
-
-  /**
-   * Помечает старые попытки как не лучшие (для упрощения можно удалить старые результаты из рейтинга).
-   * В текущей реализации просто оставляем все попытки, но в рейтинге учитываем только лучший результат.
-   */
-  private void markOldAttemptsAsNotBest(Long quizId, Long userId) {
-    // В текущей реализации не удаляем старые попытки, так как они нужны для истории
-    // Рейтинг будет рассчитываться на основе лучшего результата при запросе
-  }
-
-  // Вспомогательные методы
-
-  private QuestionDTO convertToQuestionDTO(Question question, Quiz quiz) {
-    List<org.example.model.AnswerOption> options = getAnswerOptionsByQuestionId(question.getId());
-    List<org.example.dto.common.AnswerOption> optionDTOs = options.stream()
-      .map(opt -> new org.example.dto.common.AnswerOption(opt.getId(), opt.getText()))
-      .toList();
-
-    Integer timeLimit = null;
-    if (quiz.getTimePerQuestion() != null) {
-      timeLimit = (int) quiz.getTimePerQuestion().getSeconds();
-    }
-
-    return new QuestionDTO(
-      question.getId(),
-      question.getText(),
-      optionDTOs,
-      timeLimit,
-      quiz.getMaterialUrl(),
-      question.getExplanation(),
-      null,
-      null,
-      null,
-      question.getQuiz().getCreatedAt() != null ?
-        LocalDateTime.ofInstant(question.getQuiz().getCreatedAt(), ZoneOffset.UTC) : null
-    );
-  }
-
-  private Connection getConnection() throws SQLException {
-    String url = "jdbc:postgresql://localhost:5432/quizarena";
-    String username = "quizuser";
-    String password = "quizpass";
-    return DriverManager.getConnection(url, username, password);
-  }
 }
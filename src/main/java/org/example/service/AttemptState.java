@@ -0,0 +1,226 @@
+package org.example.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.function.LongFunction;
+
+/**
+ * Состояние попытки в памяти в компактном виде.
+ * Попытка закрепляет снимок квиза, с которым она началась, и проходит его до конца.
+ * Если квиз еще догенерируется, попытка может быть расширена вопросами, сохраненными позже.
+ * Порядок вопросов не хранится списком: для нестатичных квизов позиция переводится
+ * в индекс вопроса снимка перестановкой, заданной seed. Ответы хранятся массивом
+ * long по позициям, правильность — битами в BitSet.
+ * Время последнего обращения отслеживает хранилище состояний.
+ */
+public final class AttemptState {
+  /** Ответ на позицию еще не дан. */
+  static final long NO_ANSWER = 0;
+  /** Вопрос пропущен (ответ отправлен без выбранного варианта). */
+  static final long SKIPPED = -1;
+
+  private static final int FORMAT_VERSION = 3;
+
+  // Приблизительные размеры для оценки памяти (64-битная JVM со сжатыми ссылками)
+  private static final int OBJECT_BYTES = 72;
+  private static final int ARRAY_HEADER_BYTES = 16;
+  private static final int BITSET_BYTES = 24 + ARRAY_HEADER_BYTES;
+
+  final long attemptId;
+  final long userId;
+  final String login;
+  QuizSnapshot snapshot;
+  final long startTimeMillis;
+  int currentQuestionIndex;
+  int score;
+  /** Сессия совместной игры без раундов, к которой относится попытка, или null. */
+  String sessionId;
+
+  private final boolean shuffled;
+  private final long shuffleSeed;
+  // Перестановка действует только на вопросы, бывшие в квизе при старте попытки
+  private final int shuffledCount;
+  private long[] answers;
+  private final BitSet correct;
+  // Берется из последнего просмотренного снимка, даже если попытка не смогла на него перейти
+  private boolean growing;
+
+  /**
+   * @param shuffleSeed seed перестановки вопросов; игнорируется для статичных квизов
+   */
+  public AttemptState(long attemptId, long userId, String login, QuizSnapshot snapshot,
+                      long shuffleSeed, long startTimeMillis) {
+    int count = snapshot.getQuestions().size();
+    this.attemptId = attemptId;
+    this.userId = userId;
+    this.login = login;
+    this.snapshot = snapshot;
+    this.shuffled = !snapshot.isStatic();
+    this.shuffleSeed = shuffleSeed;
+    this.shuffledCount = count;
+    this.startTimeMillis = startTimeMillis;
+    this.answers = new long[count];
+    this.correct = new BitSet(count);
+    this.growing = snapshot.isGenerating();
+  }
+
+  private AttemptState(long attemptId, long userId, String login, QuizSnapshot snapshot, long shuffleSeed,
+                       int shuffledCount, long startTimeMillis, long[] answers, BitSet correct) {
+    this.attemptId = attemptId;
+    this.userId = userId;
+    this.login = login;
+    this.snapshot = snapshot;
+    this.shuffled = !snapshot.isStatic();
+    this.shuffleSeed = shuffleSeed;
+    this.shuffledCount = shuffledCount;
+    this.startTimeMillis = startTimeMillis;
+    this.answers = answers;
+    this.correct = correct;
+    this.growing = snapshot.isGenerating();
+  }
+
+  Long quizId() {
+    return snapshot.getQuizId();
+  }
+
+  int questionCount() {
+    return answers.length;
+  }
+
+  /**
+   * Вопрос на позиции position в порядке прохождения этой попытки.
+   */
+  QuizSnapshot.QuestionSnapshot questionAt(int position) {
+    int index = shuffled && position < shuffledCount
+      ? SeededPermutation.apply(shuffleSeed, shuffledCount, position) : position;
+    return snapshot.getQuestions().get(index);
+  }
+
+  /**
+   * Квиз еще догенерируется: генерация отмечена в квизе и снимается, когда заканчивается.
+   * Увидев снимок без отметки, попытка перестает ждать вопросов.
+   */
+  boolean mayGrow() {
+    return growing;
+  }
+
+  /**
+   * Переводит попытку на более новый снимок квиза. Вопросы, сохраненные после начала попытки,
+   * идут в конце снимка (вопросы упорядочены по ID) и задаются после уже имевшихся.
+   *
+   * @return true, если вопросов стало больше
+   */
+  boolean extendTo(QuizSnapshot latest) {
+    growing = latest.isGenerating();
+    int count = latest.getQuestions().size();
+    if (count < answers.length) {
+      return false;
+    }
+    snapshot = latest;
+    if (count == answers.length) {
+      return false;
+    }
+    answers = Arrays.copyOf(answers, count);
+    return true;
+  }
+
+  /**
+   * Записывает ответ на позицию.
+   *
+   * @throws IllegalStateException если на эту позицию уже ответили
+   */
+  void recordAnswer(int position, Long answerOptionId, boolean isCorrect) {
+    if (answers[position] != NO_ANSWER) {
+      throw new IllegalStateException("Question already answered");
+    }
+    answers[position] = answerOptionId != null ? answerOptionId : SKIPPED;
+    correct.set(position, isCorrect);
+  }
+
+  int correctCount() {
+    return correct.cardinality();
+  }
+
+  /**
+   * Приблизительный объем памяти, занимаемый состоянием (без разделяемого снимка квиза и логина).
+   */
+  public long estimateBytes() {
+    return OBJECT_BYTES
+      + ARRAY_HEADER_BYTES + 8L * answers.length
+      + BITSET_BYTES + 8L * ((answers.length + 63) / 64);
+  }
+
+  /**
+   * Двоичное представление для общего хранилища. Снимок квиза не сериализуется:
+   * при чтении он берется из кеша снимков по ID квиза.
+   */
+  static StateCodec<AttemptState> codec(LongFunction<QuizSnapshot> snapshots) {
+    return new StateCodec<>() {
+      @Override
+      public void write(AttemptState state, DataOutputStream out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(state.attemptId);
+        out.writeLong(state.userId);
+        out.writeUTF(state.login != null ? state.login : "");
+        out.writeLong(state.quizId());
+        out.writeLong(state.shuffleSeed);
+        out.writeInt(state.shuffledCount);
+        out.writeLong(state.startTimeMillis);
+        out.writeInt(state.currentQuestionIndex);
+        out.writeInt(state.score);
+        out.writeUTF(state.sessionId != null ? state.sessionId : "");
+        out.writeInt(state.answers.length);
+        for (long answer : state.answers) {
+          out.writeLong(answer);
+        }
+        long[] bits = state.correct.toLongArray();
+        out.writeInt(bits.length);
+        for (long word : bits) {
+          out.writeLong(word);
+        }
+      }
+
+      @Override
+      public AttemptState read(DataInputStream in) throws IOException {
+        int format = in.readByte();
+        if (format != FORMAT_VERSION) {
+          throw new IOException("Unsupported attempt state format: " + format);
+        }
+        long attemptId = in.readLong();
+        long userId = in.readLong();
+        String login = in.readUTF();
+        long quizId = in.readLong();
+        long shuffleSeed = in.readLong();
+        int shuffledCount = in.readInt();
+        long startTimeMillis = in.readLong();
+        int currentQuestionIndex = in.readInt();
+        int score = in.readInt();
+        String sessionId = in.readUTF();
+        long[] answers = new long[in.readInt()];
+        for (int i = 0; i < answers.length; i++) {
+          answers[i] = in.readLong();
+        }
+        long[] bits = new long[in.readInt()];
+        for (int i = 0; i < bits.length; i++) {
+          bits[i] = in.readLong();
+        }
+
+        // Попытку нельзя продолжить, если квиз удален или из него удалены вопросы;
+        // добавленные после начала попытки вопросы ей не мешают
+        QuizSnapshot snapshot = snapshots.apply(quizId);
+        if (snapshot == null || snapshot.getQuestions().size() < answers.length) {
+          return null;
+        }
+        AttemptState state = new AttemptState(attemptId, userId, login.isEmpty() ? null : login, snapshot,
+          shuffleSeed, shuffledCount, startTimeMillis, answers, BitSet.valueOf(bits));
+        state.currentQuestionIndex = currentQuestionIndex;
+        state.score = score;
+        state.sessionId = sessionId.isEmpty() ? null : sessionId;
+        return state;
+      }
+    };
+  }
+}
@@ -0,0 +1,161 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.dao.AttemptDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Хранилище состояний незавершенных попыток.
+ * Попытка вытесняется, если к ней не обращались дольше attempt.state.idle-ttl-minutes,
+ * если она длится дольше attempt.state.absolute-ttl-minutes, или если число попыток
+ * превысило attempt.state.max-entries (вытесняется давно не использованная).
+ * Вытесненная попытка фиксируется в БД как незавершенная с набранным на момент вытеснения счетом.
+ * Сами состояния лежат в StateStore: в памяти экземпляра или в общем хранилище (state.store.type).
+ */
+@Component
+public class AttemptStateStore {
+  private final AttemptDao attemptDao;
+  private final MetricsService metricsService;
+  private final StateStore<Long, AttemptState> states;
+
+  @Value("${attempt.state.idle-ttl-minutes:30}")
+  private long idleTtlMinutes;
+
+  @Value("${attempt.state.absolute-ttl-minutes:180}")
+  private long absoluteTtlMinutes;
+
+  @Value("${attempt.state.max-entries:100000}")
+  private int maxEntries;
+
+  @Value("${attempt.state.sweep-interval-seconds:30}")
+  private long sweepIntervalSeconds;
+
+  private final AtomicLong evictedIdle = new AtomicLong();
+  private final AtomicLong evictedAbsolute = new AtomicLong();
+  private final AtomicLong evictedCapacity = new AtomicLong();
+
+  private ScheduledExecutorService sweeper;
+
+  public AttemptStateStore(AttemptDao attemptDao,
+                           MetricsService metricsService,
+                           QuizSnapshotCache quizSnapshotCache,
+                           StateStoreFactory stateStoreFactory) {
+    this.attemptDao = attemptDao;
+    this.metricsService = metricsService;
+    this.states = stateStoreFactory.create("attempt.state",
+      AttemptState.codec(quizSnapshotCache::get), AttemptState::estimateBytes);
+  }
+
+  @PostConstruct
+  void start() {
+    metricsService.registerGauge("attempt.state.live", this::size);
+    metricsService.registerGauge("attempt.state.estimated-bytes", this::estimatedBytes);
+    metricsService.registerGauge("attempt.state.evicted.idle", evictedIdle::get);
+    metricsService.registerGauge("attempt.state.evicted.absolute", evictedAbsolute::get);
+    metricsService.registerGauge("attempt.state.evicted.capacity", evictedCapacity::get);
+
+    sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "attempt-state-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalSeconds, sweepIntervalSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    sweeper.shutdownNow();
+  }
+
+  /**
+   * Возвращает состояние попытки для чтения и отмечает обращение к ней.
+   * Простаивающие попытки вытесняются фоновой очисткой.
+   *
+   * @return состояние или null, если попытки нет или она длится дольше допустимого
+   */
+  public AttemptState get(Long attemptId) {
+    AttemptState state = states.get(attemptId);
+    return state != null && !isTooOld(state, System.currentTimeMillis()) ? state : null;
+  }
+
+  /**
+   * Атомарно изменяет состояние попытки.
+   *
+   * @return результат mutation или null, если попытки нет или она длится дольше допустимого
+   */
+  public <R> R update(Long attemptId, Function<AttemptState, R> mutation) {
+    return states.update(attemptId, state -> isTooOld(state, System.currentTimeMillis()) ? null : mutation.apply(state));
+  }
+
+  public void put(AttemptState state) {
+    states.put(state.attemptId, state);
+    for (AttemptState evicted : states.trimTo(maxEntries)) {
+      evictedCapacity.incrementAndGet();
+      finalizeIncomplete(evicted);
+    }
+  }
+
+  public void remove(Long attemptId) {
+    states.remove(attemptId);
+  }
+
+  public int size() {
+    return states.size();
+  }
+
+  public long estimatedBytes() {
+    return states.estimatedBytes();
+  }
+
+  /**
+   * Вытесняет все истекшие попытки.
+   */
+  void sweep() {
+    try {
+      long now = System.currentTimeMillis();
+      List<AttemptState> expired = states.removeExpired(
+        Duration.ofMinutes(idleTtlMinutes), Duration.ofMinutes(absoluteTtlMinutes));
+      for (AttemptState state : expired) {
+        if (isTooOld(state, now)) {
+          evictedAbsolute.incrementAndGet();
+        } else {
+          evictedIdle.incrementAndGet();
+        }
+        finalizeIncomplete(state);
+      }
+      for (AttemptState state : states.trimTo(maxEntries)) {
+        evictedCapacity.incrementAndGet();
+        finalizeIncomplete(state);
+      }
+    } catch (RuntimeException e) {
+      System.err.println("Error sweeping attempt states: " + e.getMessage());
+    }
+  }
+
+  private boolean isTooOld(AttemptState state, long now) {
+    return now - state.startTimeMillis > TimeUnit.MINUTES.toMillis(absoluteTtlMinutes);
+  }
+
+  /**
+   * Фиксирует брошенную попытку в БД: время окончания и набранный счет, is_completed = false.
+   * Попытка, завершенная параллельно через finishQuizAttempt, не меняется.
+   */
+  private void finalizeIncomplete(AttemptState state) {
+    try {
+      attemptDao.updateIfIncomplete(state.attemptId, Instant.now(), (long) state.score);
+    } catch (RuntimeException e) {
+      System.err.println("Error finalizing abandoned attempt " + state.attemptId + ": " + e.getMessage());
+    }
+  }
+}
@@ -1,35 +1,33 @@
 package org.example.service;
 
-import com.zaxxer.hikari.HikariConfig;
-import com.zaxxer.hikari.HikariDataSource;
 import org.example.model.User;
 import org.example.model.Quiz;
 import org.example.model.Question;
 import org.example.model.AnswerOption;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
 
+import javax.sql.DataSource;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.time.LocalDateTime;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * Низкоуровневые операции с БД поверх общего пула соединений.
+ */
+@Service
 public class DatabaseService {
-    private HikariDataSource dataSource;
+    private final DataSource dataSource;
 
-    public DatabaseService() {
-        HikariConfig config = new HikariConfig();
-        config.setJdbcUrl("jdbc:postgresql://localhost:5432/quizarena");
-        config.setUsername("quizuser");
-        config.setPassword("quizpass");
-        config.setMaximumPoolSize(10);
-        config.setMinimumIdle(5);
-
-        
-        this.dataSource = new HikariDataSource(config);
+    public DatabaseService(DataSource dataSource) {
+        this.dataSource = dataSource;
     }
 
     public boolean testConnection() {
@@ -106,164 +104,188 @@ public class DatabaseService {
         return quizzes;
     }
 
-    public Long saveQuestion(Question question) throws SQLException {
-        Long nextId = getNextQuestionId();
-        String sql = "INSERT INTO \"Question\" (id, quiz_id, text, type, explanation, image_url) VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
+    public Long createUser(String login, String password) throws SQLException {
+        String sql = "INSERT INTO users (login, password) VALUES (?, ?) RETURNING id";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, nextId);
-            statement.setLong(2, question.getQuizId());
-            statement.setString(3, question.getText());
-            statement.setString(4, question.getType());
-            statement.setString(5, question.getExplanation());
-            statement.setString(6, question.getImageUrl());
-            
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getLong(1);
+            statement.setString(1, login);
+            statement.setString(2, password);
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
             }
         }
         return null;
     }
 
-    private Long getNextQuestionId() throws SQLException {
-        String sql = "SELECT COALESCE(MAX(id), 0) + 1 FROM \"Question\"";
+    public Long createQuiz(String name, String prompt, Long createdBy, int questionNumber) throws SQLException {
+        String sql = "INSERT INTO quizzes (name, prompt, created_by, has_material, question_number, " +
+                    "is_private, is_static, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
         try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet rs = statement.executeQuery()) {
-            if (rs.next()) {
-                return rs.getLong(1);
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, name);
+            statement.setString(2, prompt);
+            statement.setLong(3, createdBy);
+            statement.setBoolean(4, false);
+            statement.setInt(5, questionNumber);
+            statement.setBoolean(6, false);
+            statement.setBoolean(7, true);
+            statement.setTimestamp(8, Timestamp.from(Instant.now()));
+            try (ResultSet rs = statement.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getLong(1);
+                }
             }
         }
-        return 1L;
+        return null;
     }
 
-    public void saveAnswerOption(AnswerOption option) throws SQLException {
-        Long nextId = getNextAnswerOptionId();
-        String sql = "INSERT INTO \"AnswerOption\" (id, question_id, text, is_correct, is_na_option) VALUES (?, ?, ?, ?, ?)";
+    public void deleteQuiz(Long quizId) throws SQLException {
+        String sql = "DELETE FROM quizzes WHERE id = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, nextId);
-            statement.setLong(2, option.getQuestionId());
-            statement.setString(3, option.getText());
-            statement.setBoolean(4, option.getIsCorrect());
-            statement.setBoolean(5, option.getIsNaOption());
+            statement.setLong(1, quizId);
             statement.executeUpdate();
         }
     }
 
-    private Long getNextAnswerOptionId() throws SQLException {
-        String sql = "SELECT COALESCE(MAX(id), 0) + 1 FROM \"AnswerOption\"";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql);
-             ResultSet rs = statement.executeQuery()) {
-            if (rs.next()) {
-                return rs.getLong(1);
-            }
-        }
-        return 1L;
-    }
-
-    public boolean userExists(Long userId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM \"User\" WHERE id = ?";
+    public void deleteUser(Long userId) throws SQLException {
+        String sql = "DELETE FROM users WHERE id = ?";
         try (Connection connection = dataSource.getConnection();
              PreparedStatement statement = connection.prepareStatement(sql)) {
             statement.setLong(1, userId);
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
-            }
+            statement.executeUpdate();
         }
-        return false;
     }
 
-    public Long createUser(Long userId, String login, String password) throws SQLException {
-        String sql = "INSERT INTO \"User\" (id, login, password) VALUES (?, ?, ?) RETURNING id";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, userId);
-            statement.setString(2, login);
-            statement.setString(3, password);
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getLong(1);
+    /**
+     * Сохраняет набор сгенерированных вопросов вместе со всеми вариантами ответов
+     * за постоянное число обращений к БД, независимо от размера набора:
+     * <ol>
+     *   <li>резервирует идентификаторы вопросов одним запросом к последовательности questions_id_seq;</li>
+     *   <li>вставляет все вопросы одним INSERT ... SELECT FROM unnest(...) с массивами-параметрами;</li>
+     *   <li>так же одним запросом вставляет все варианты ответов.</li>
+     * </ol>
+     * Все шаги выполняются в одной транзакции. Если метод вызван внутри транзакции Spring,
+     * используется её соединение, иначе транзакция открывается и фиксируется здесь же.
+     *
+     * @param parsedQuestions вопросы с вариантами ответов
+     * @param quizId ID квиза, к которому относятся вопросы
+     * @return идентификаторы сохраненных вопросов в порядке входного списка
+     */
+    public List<Long> saveQuestionsWithAnswers(List<QuestionParser.ParsedQuestion> parsedQuestions, Long quizId) throws SQLException {
+        List<QuestionParser.ParsedQuestion> questions = new ArrayList<>();
+        for (QuestionParser.ParsedQuestion pq : parsedQuestions) {
+            if (pq.question != null) {
+                questions.add(pq);
             }
         }
-        return null;
-    }
-
-    public Long getOrCreateUser(Long userId) throws SQLException {
-        if (userExists(userId)) {
-            return userId;
+        if (questions.isEmpty()) {
+            return new ArrayList<>();
         }
-        return createUser(userId, "user" + userId, "password");
-    }
 
-    public boolean quizExists(Long quizId) throws SQLException {
-        String sql = "SELECT COUNT(*) FROM \"Quiz\" WHERE id = ?";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, quizId);
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        boolean managed = DataSourceUtils.isConnectionTransactional(connection, dataSource);
+        boolean autoCommit = connection.getAutoCommit();
+        try {
+            if (!managed && autoCommit) {
+                connection.setAutoCommit(false);
+            }
+
+            List<Long> questionIds = reserveQuestionIds(connection, questions.size());
+            insertQuestions(connection, questions, questionIds, quizId);
+            insertAnswerOptions(connection, questions, questionIds);
+
+            if (!managed) {
+                connection.commit();
+            }
+            return questionIds;
+        } catch (SQLException | RuntimeException e) {
+            if (!managed) {
+                connection.rollback();
             }
+            throw e;
+        } finally {
+            if (!managed && autoCommit) {
+                connection.setAutoCommit(true);
+            }
+            DataSourceUtils.releaseConnection(connection, dataSource);
         }
-        return false;
     }
 
-    public Long createQuiz(Long quizId, String name, String prompt, Long createBy, int questionNumber) throws SQLException {
-        String sql = "INSERT INTO \"Quiz\" (id, name, prompt, create_by, has_material, material_url, question_number, " +
-                    "time, is_private, is_static, private_code, created_at) " +
-                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) RETURNING id";
-        try (Connection connection = dataSource.getConnection();
-             PreparedStatement statement = connection.prepareStatement(sql)) {
-            statement.setLong(1, quizId);
-            statement.setString(2, name);
-            statement.setString(3, prompt);
-            statement.setLong(4, createBy);
-            statement.setBoolean(5, false);
-            statement.setString(6, "");
-            statement.setLong(7, questionNumber);
-            statement.setLong(8, 0L);
-            statement.setBoolean(9, false);
-            statement.setBoolean(10, false);
-            statement.setString(11, "");
-            statement.setTimestamp(12, java.sql.Timestamp.valueOf(LocalDateTime.now()));
-            
-            ResultSet rs = statement.executeQuery();
-            if (rs.next()) {
-                return rs.getLong(1);
+    private List<Long> reserveQuestionIds(Connection connection, int count) throws SQLException {
+        String sql = "SELECT nextval(pg_get_serial_sequence('questions', 'id')) FROM generate_series(1, ?)";
+        List<Long> ids = new ArrayList<>(count);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, count);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    ids.add(rs.getLong(1));
+                }
             }
         }
-        return null;
+        return ids;
     }
 
-    public Long getOrCreateQuiz(Long quizId, String name, String prompt, Long createBy, int questionNumber) throws SQLException {
-        getOrCreateUser(createBy);
-        if (quizExists(quizId)) {
-            return quizId;
+    private void insertQuestions(Connection connection, List<QuestionParser.ParsedQuestion> questions,
+                                 List<Long> questionIds, Long quizId) throws SQLException {
+        String sql = "INSERT INTO questions (id, quiz_id, text, type, explanation) " +
+                    "SELECT id, ?, text, type, explanation " +
+                    "FROM unnest(?::bigint[], ?::text[], ?::text[], ?::text[]) AS t(id, text, type, explanation)";
+        int size = questions.size();
+        Long[] ids = questionIds.toArray(new Long[0]);
+        String[] texts = new String[size];
+        String[] types = new String[size];
+        String[] explanations = new String[size];
+        for (int i = 0; i < size; i++) {
+            Question question = questions.get(i).question;
+            texts[i] = question.getText();
+            types[i] = question.getType() != null ? question.getType().name() : null;
+            explanations[i] = question.getExplanation() != null ? question.getExplanation() : "";
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, quizId);
+            statement.setArray(2, connection.createArrayOf("bigint", ids));
+            statement.setArray(3, connection.createArrayOf("text", texts));
+            statement.setArray(4, connection.createArrayOf("text", types));
+            statement.setArray(5, connection.createArrayOf("text", explanations));
+            statement.executeUpdate();
         }
-        return createQuiz(quizId, name, prompt, createBy, questionNumber);
     }
 
-    public void saveQuestionsWithAnswers(List<QuestionParser.ParsedQuestion> parsedQuestions, Long quizId) throws SQLException {
-        for (QuestionParser.ParsedQuestion pq : parsedQuestions) {
-            pq.question.setQuizId(quizId);
-            Long questionId = saveQuestion(pq.question);
-            if (questionId != null) {
-                for (AnswerOption option : pq.answerOptions) {
-                    option.setQuestionId(questionId);
-                    saveAnswerOption(option);
-                }
+    private void insertAnswerOptions(Connection connection, List<QuestionParser.ParsedQuestion> questions,
+                                     List<Long> questionIds) throws SQLException {
+        List<Long> optionQuestionIds = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        List<Boolean> correctFlags = new ArrayList<>();
+        List<Boolean> naFlags = new ArrayList<>();
+        for (int i = 0; i < questions.size(); i++) {
+            List<AnswerOption> options = questions.get(i).answerOptions;
+            if (options == null) {
+                continue;
+            }
+            for (AnswerOption option : options) {
+                optionQuestionIds.add(questionIds.get(i));
+                texts.add(option.getText());
+                correctFlags.add(option.isCorrect());
+                naFlags.add(option.isNaOption());
             }
         }
-    }
+        if (texts.isEmpty()) {
+            return;
+        }
 
-    public void close() {
-        if (dataSource != null) {
-            dataSource.close();
+        String sql = "INSERT INTO answer_options (question_id, text, is_correct, is_na_option) " +
+                    "SELECT * FROM unnest(?::bigint[], ?::text[], ?::boolean[], ?::boolean[])";
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setArray(1, connection.createArrayOf("bigint", optionQuestionIds.toArray()));
+            statement.setArray(2, connection.createArrayOf("text", texts.toArray()));
+            statement.setArray(3, connection.createArrayOf("boolean", correctFlags.toArray()));
+            statement.setArray(4, connection.createArrayOf("boolean", naFlags.toArray()));
+            statement.executeUpdate();
         }
     }
 }
-
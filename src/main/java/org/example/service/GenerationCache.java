@@ -0,0 +1,320 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.dao.GenerationCacheDao;
+import org.example.dto.common.QuizMaterial;
+import org.example.model.AnswerOption;
+import org.example.model.Question;
+import org.example.model.QuestionType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кеш результатов генерации вопросов сервисом ИИ.
+ * Ключ — SHA-256 от темы (без учета регистра и лишних пробелов), числа вопросов
+ * и описаний материалов (имя, URL, тип, размер; порядок материалов не важен).
+ * Два уровня: в памяти экземпляра (LRU на generation.cache.memory-max-entries записей)
+ * и таблица generation_cache, общая для экземпляров и переживающая перезапуск
+ * (не больше generation.cache.max-entries записей, вытесняются давно не использованные).
+ * Записи старше generation.cache.ttl-hours не выдаются и удаляются фоновой очисткой.
+ * На обоих уровнях хранится двоичное представление, поэтому каждый вызов get
+ * получает собственные объекты вопросов. Попадания в память отмечаются в таблице
+ * пакетом при фоновой очистке, чтобы часто используемые записи не вытеснялись из таблицы.
+ */
+@Component
+public class GenerationCache {
+  private static final int FORMAT_VERSION = 2;
+  private static final int KEY_VERSION = 1;
+
+  private final GenerationCacheDao generationCacheDao;
+  private final MetricsService metricsService;
+
+  @Value("${generation.cache.enabled:true}")
+  private boolean enabled;
+
+  @Value("${generation.cache.ttl-hours:24}")
+  private long ttlHours;
+
+  @Value("${generation.cache.memory-max-entries:500}")
+  private int memoryMaxEntries;
+
+  @Value("${generation.cache.max-entries:10000}")
+  private int maxEntries;
+
+  @Value("${generation.cache.sweep-interval-minutes:10}")
+  private long sweepIntervalMinutes;
+
+  private final InMemoryStateStore<String, byte[]> memory = new InMemoryStateStore<>(payload -> payload.length);
+  private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+  private final AtomicLong memoryHits = new AtomicLong();
+  private final AtomicLong persistentHits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong stores = new AtomicLong();
+  private final AtomicLong errors = new AtomicLong();
+
+  private ScheduledExecutorService sweeper;
+
+  public GenerationCache(GenerationCacheDao generationCacheDao, MetricsService metricsService) {
+    this.generationCacheDao = generationCacheDao;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    metricsService.registerGauge("generation.cache.hits.memory", memoryHits::get);
+    metricsService.registerGauge("generation.cache.hits.persistent", persistentHits::get);
+    metricsService.registerGauge("generation.cache.misses", misses::get);
+    metricsService.registerGauge("generation.cache.stores", stores::get);
+    metricsService.registerGauge("generation.cache.errors", errors::get);
+    metricsService.registerGauge("generation.cache.memory.size", memory::size);
+    metricsService.registerGauge("generation.cache.memory.bytes", memory::estimatedBytes);
+
+    sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "generation-cache-sweeper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMinutes, sweepIntervalMinutes, TimeUnit.MINUTES);
+  }
+
+  @PreDestroy
+  void stop() {
+    sweeper.shutdownNow();
+  }
+
+  /**
+   * Ключ кеша для параметров генерации.
+   */
+  public static String key(String prompt, int count, List<QuizMaterial> materials) {
+    String normalizedPrompt = prompt == null ? "" : prompt.strip().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    List<String> materialLines = new ArrayList<>();
+    if (materials != null) {
+      for (QuizMaterial material : materials) {
+        materialLines.add(material.fileName() + "\t" + material.fileUrl() + "\t"
+          + material.fileType() + "\t" + material.fileSize());
+      }
+    }
+    materialLines.sort(null);
+
+    StringBuilder source = new StringBuilder()
+      .append(KEY_VERSION).append('\n')
+      .append(normalizedPrompt).append('\n')
+      .append(count).append('\n');
+    materialLines.forEach(line -> source.append(line).append('\n'));
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      return HexFormat.of().formatHex(digest.digest(source.toString().getBytes(StandardCharsets.UTF_8)));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  /**
+   * @return вопросы из кеша или null, если записи нет, она устарела или кеш выключен
+   */
+  public List<QuestionParser.ParsedQuestion> get(String key) {
+    if (!enabled) {
+      return null;
+    }
+    byte[] payload = memory.get(key);
+    if (payload != null && !isExpired(payload)) {
+      List<QuestionParser.ParsedQuestion> questions = decode(payload);
+      if (questions != null) {
+        memoryHits.incrementAndGet();
+        touched.add(key);
+        return questions;
+      }
+    }
+
+    try {
+      payload = generationCacheDao.touch(key, ttl());
+    } catch (DataAccessException e) {
+      // Недоступность таблицы кеша не должна мешать генерации
+      errors.incrementAndGet();
+      System.err.println("Error reading generation cache: " + e.getMessage());
+      payload = null;
+    }
+    List<QuestionParser.ParsedQuestion> questions = payload != null ? decode(payload) : null;
+    if (questions == null) {
+      misses.incrementAndGet();
+      return null;
+    }
+    persistentHits.incrementAndGet();
+    remember(key, payload);
+    return questions;
+  }
+
+  /**
+   * Сохраняет результат генерации на обоих уровнях, заменяя прежнюю запись.
+   */
+  public void put(String key, List<QuestionParser.ParsedQuestion> questions) {
+    if (!enabled) {
+      return;
+    }
+    byte[] payload;
+    try {
+      payload = encode(questions);
+    } catch (RuntimeException e) {
+      // Вопросы уже сохранены в квиз: ошибка кеша не должна проваливать генерацию
+      errors.incrementAndGet();
+      System.err.println("Error encoding generation cache entry: " + e.getMessage());
+      return;
+    }
+    remember(key, payload);
+    stores.incrementAndGet();
+    try {
+      generationCacheDao.upsert(key, payload);
+    } catch (DataAccessException e) {
+      errors.incrementAndGet();
+      System.err.println("Error writing generation cache: " + e.getMessage());
+    }
+  }
+
+  private void remember(String key, byte[] payload) {
+    memory.put(key, payload);
+    memory.trimTo(memoryMaxEntries);
+  }
+
+  private void sweep() {
+    try {
+      flushTouches();
+      memory.removeExpired(null, ttl());
+      generationCacheDao.deleteExpired(ttl());
+      generationCacheDao.deleteOldest(maxEntries);
+    } catch (RuntimeException e) {
+      errors.incrementAndGet();
+      System.err.println("Error sweeping generation cache: " + e.getMessage());
+    }
+  }
+
+  private void flushTouches() {
+    if (touched.isEmpty()) {
+      return;
+    }
+    List<String> keys = new ArrayList<>(touched);
+    touched.removeAll(keys);
+    generationCacheDao.touchAll(keys);
+  }
+
+  private Duration ttl() {
+    return Duration.ofHours(ttlHours);
+  }
+
+  /**
+   * Время создания записи хранится в ее заголовке: запись, загруженная из таблицы,
+   * устаревает в памяти тогда же, когда и в таблице.
+   */
+  private boolean isExpired(byte[] payload) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+      in.readByte();
+      return System.currentTimeMillis() - in.readLong() > ttl().toMillis();
+    } catch (IOException e) {
+      return true;
+    }
+  }
+
+  private byte[] encode(List<QuestionParser.ParsedQuestion> questions) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(256 * Math.max(questions.size(), 1));
+      DataOutputStream out = new DataOutputStream(bytes);
+      out.writeByte(FORMAT_VERSION);
+      out.writeLong(System.currentTimeMillis());
+      out.writeInt(questions.size());
+      for (QuestionParser.ParsedQuestion pq : questions) {
+        writeString(out, pq.question.getText());
+        writeString(out, pq.question.getType() != null ? pq.question.getType().name() : "");
+        out.writeBoolean(pq.question.getExplanation() != null);
+        if (pq.question.getExplanation() != null) {
+          writeString(out, pq.question.getExplanation());
+        }
+        out.writeInt(pq.answerOptions.size());
+        for (AnswerOption option : pq.answerOptions) {
+          writeString(out, option.getText());
+          out.writeBoolean(option.isCorrect());
+          out.writeBoolean(option.isNaOption());
+        }
+      }
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error encoding generation cache entry", e);
+    }
+  }
+
+  /**
+   * Строка пишется длиной в байтах и UTF-8: writeUTF не принимает строки длиннее 64 КБ.
+   */
+  private static void writeString(DataOutputStream out, String value) throws IOException {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    int length = in.readInt();
+    if (length < 0 || length > in.available()) {
+      throw new EOFException("Invalid string length: " + length);
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * @return вопросы или null, если запись в неизвестном формате
+   */
+  private List<QuestionParser.ParsedQuestion> decode(byte[] payload) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+      if (in.readByte() != FORMAT_VERSION) {
+        return null;
+      }
+      in.readLong();
+      int count = in.readInt();
+      List<QuestionParser.ParsedQuestion> questions = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        QuestionParser.ParsedQuestion pq = new QuestionParser.ParsedQuestion();
+        pq.question = new Question();
+        pq.question.setText(readString(in));
+        String type = readString(in);
+        pq.question.setType(type.isEmpty() ? null : QuestionType.valueOf(type));
+        if (in.readBoolean()) {
+          pq.question.setExplanation(readString(in));
+        }
+        int optionCount = in.readInt();
+        pq.answerOptions = new ArrayList<>(optionCount);
+        for (int j = 0; j < optionCount; j++) {
+          AnswerOption option = new AnswerOption();
+          option.setText(readString(in));
+          option.setCorrect(in.readBoolean());
+          option.setNaOption(in.readBoolean());
+          pq.answerOptions.add(option);
+        }
+        questions.add(pq);
+      }
+      return questions;
+    } catch (IOException | IllegalArgumentException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пул фоновых задач генерации вопросов. Генерация занимает десятки секунд,
+ * поэтому выполняется не в потоке запроса, а в generation.jobs.worker-threads потоках.
+ * Очередь ожидающих задач ограничена generation.jobs.queue-capacity: при заполненной
+ * очереди новая задача сразу отклоняется, а не копится без предела.
+ */
+@Component
+public class GenerationJobExecutor {
+  private final MetricsService metricsService;
+
+  @Value("${generation.jobs.worker-threads:4}")
+  private int workerThreads;
+
+  @Value("${generation.jobs.queue-capacity:100}")
+  private int queueCapacity;
+
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong failed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+
+  private ThreadPoolExecutor workers;
+
+  public GenerationJobExecutor(MetricsService metricsService) {
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    workers = new ThreadPoolExecutor(workerThreads, workerThreads, 0, TimeUnit.MILLISECONDS,
+      new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+        Thread thread = new Thread(runnable, "generation-job-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      }, new ThreadPoolExecutor.AbortPolicy());
+
+    metricsService.registerGauge("generation.jobs.queued", () -> workers.getQueue().size());
+    metricsService.registerGauge("generation.jobs.active", workers::getActiveCount);
+    metricsService.registerGauge("generation.jobs.completed", completed::get);
+    metricsService.registerGauge("generation.jobs.failed", failed::get);
+    metricsService.registerGauge("generation.jobs.rejected", rejected::get);
+  }
+
+  @PreDestroy
+  void stop() {
+    workers.shutdownNow();
+  }
+
+  /**
+   * Ставит задачу в очередь. Ошибка задачи только логируется: о результате задача
+   * сообщает сама через состояние своего набора вопросов.
+   *
+   * @throws RejectedExecutionException если очередь заполнена
+   */
+  public void submit(String description, Runnable job) {
+    try {
+      workers.execute(() -> {
+        try {
+          job.run();
+          completed.incrementAndGet();
+        } catch (RuntimeException e) {
+          failed.incrementAndGet();
+          System.err.println("Error " + description + ": " + e.getMessage());
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.incrementAndGet();
+      throw new RejectedExecutionException("Generation queue is full: " + queueCapacity + " jobs", e);
+    }
+  }
+}
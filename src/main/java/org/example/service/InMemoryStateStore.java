@@ -0,0 +1,163 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Хранилище состояния в памяти одного экземпляра приложения.
+ * Значения хранятся как есть, изменения применяются под блокировкой записи.
+ */
+public class InMemoryStateStore<K, V> implements StateStore<K, V> {
+
+  private static final class Entry<V> {
+    final V value;
+    final long createdAtMillis;
+    volatile long touchedAtMillis;
+
+    Entry(V value, long now) {
+      this.value = value;
+      this.createdAtMillis = now;
+      this.touchedAtMillis = now;
+    }
+  }
+
+  private final ToLongFunction<V> sizer;
+
+  // Порядок доступа: первыми идут давно не использованные записи
+  private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * @param sizer оценка размера одного значения в байтах
+   */
+  public InMemoryStateStore(ToLongFunction<V> sizer) {
+    this.sizer = sizer;
+  }
+
+  @Override
+  public V get(K key) {
+    Entry<V> entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry == null) {
+      return null;
+    }
+    entry.touchedAtMillis = System.currentTimeMillis();
+    return entry.value;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    synchronized (entries) {
+      entries.put(key, new Entry<>(value, System.currentTimeMillis()));
+    }
+  }
+
+  @Override
+  public boolean putIfAbsent(K key, V value) {
+    synchronized (entries) {
+      return entries.putIfAbsent(key, new Entry<>(value, System.currentTimeMillis())) == null;
+    }
+  }
+
+  @Override
+  public <R> R update(K key, Function<V, R> mutation) {
+    Entry<V> entry;
+    synchronized (entries) {
+      entry = entries.get(key);
+    }
+    if (entry == null) {
+      return null;
+    }
+    entry.touchedAtMillis = System.currentTimeMillis();
+    synchronized (entry) {
+      return mutation.apply(entry.value);
+    }
+  }
+
+  @Override
+  public boolean remove(K key) {
+    synchronized (entries) {
+      return entries.remove(key) != null;
+    }
+  }
+
+  @Override
+  public List<V> removeExpired(Duration idleTtl, Duration absoluteTtl) {
+    long now = System.currentTimeMillis();
+    List<V> expired = new ArrayList<>();
+    synchronized (entries) {
+      Iterator<Entry<V>> iterator = entries.values().iterator();
+      while (iterator.hasNext()) {
+        Entry<V> entry = iterator.next();
+        boolean idle = idleTtl != null && now - entry.touchedAtMillis > idleTtl.toMillis();
+        boolean tooOld = absoluteTtl != null && now - entry.createdAtMillis > absoluteTtl.toMillis();
+        if (idle || tooOld) {
+          expired.add(entry.value);
+          iterator.remove();
+        }
+      }
+    }
+    return expired;
+  }
+
+  @Override
+  public List<V> removeIf(Predicate<V> condition) {
+    List<Map.Entry<K, Entry<V>>> snapshot;
+    synchronized (entries) {
+      snapshot = new ArrayList<>(entries.entrySet());
+    }
+    // Условие проверяется под блокировкой записи, как в update, чтобы изменение
+    // не вклинилось между проверкой и удалением; запись удаляется, только если ее не заменили
+    List<V> removed = new ArrayList<>();
+    for (Map.Entry<K, Entry<V>> entry : snapshot) {
+      Entry<V> value = entry.getValue();
+      synchronized (value) {
+        if (condition.test(value.value)) {
+          synchronized (entries) {
+            if (entries.remove(entry.getKey(), value)) {
+              removed.add(value.value);
+            }
+          }
+        }
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public List<V> trimTo(int maxEntries) {
+    List<V> overflow = new ArrayList<>();
+    synchronized (entries) {
+      Iterator<Entry<V>> eldest = entries.values().iterator();
+      while (entries.size() > maxEntries && eldest.hasNext()) {
+        overflow.add(eldest.next().value);
+        eldest.remove();
+      }
+    }
+    return overflow;
+  }
+
+  @Override
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  @Override
+  public long estimatedBytes() {
+    List<Entry<V>> snapshot;
+    synchronized (entries) {
+      snapshot = new ArrayList<>(entries.values());
+    }
+    long total = 0;
+    for (Entry<V> entry : snapshot) {
+      total += sizer.applyAsLong(entry.value);
+    }
+    return total;
+  }
+}
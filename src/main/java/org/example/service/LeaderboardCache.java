@@ -0,0 +1,170 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.dao.BestResultDao;
+import org.example.dao.BestResultDao.BestResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LRU-кеш рейтингов квизов в памяти. Рейтинг загружается из quiz_best_results при
+ * первом обращении (single-flight), затем обновляется на каждой завершенной попытке.
+ * Холодные квизы вытесняются при превышении leaderboard.cache.max-quizzes и
+ * при следующем обращении загружаются заново.
+ */
+@Service
+public class LeaderboardCache {
+  private final BestResultDao bestResultDao;
+  private final MetricsService metricsService;
+
+  @Value("${leaderboard.cache.max-quizzes:500}")
+  private int maxQuizzes;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+
+  private final LinkedHashMap<Long, CompletableFuture<QuizLeaderboard>> entries =
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<QuizLeaderboard>> eldest) {
+        if (size() > maxQuizzes) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+
+  public LeaderboardCache(BestResultDao bestResultDao, MetricsService metricsService) {
+    this.bestResultDao = bestResultDao;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void registerGauges() {
+    metricsService.registerGauge("leaderboard.cache.quizzes", this::size);
+    metricsService.registerGauge("leaderboard.cache.entries", this::totalEntries);
+    metricsService.registerGauge("leaderboard.cache.hits", hits::get);
+    metricsService.registerGauge("leaderboard.cache.misses", misses::get);
+    metricsService.registerGauge("leaderboard.cache.evictions", evictions::get);
+  }
+
+  /**
+   * Возвращает рейтинг квиза, загружая его из БД при отсутствии в кеше.
+   */
+  public QuizLeaderboard get(Long quizId) {
+    CompletableFuture<QuizLeaderboard> future;
+    boolean loader = false;
+    synchronized (entries) {
+      future = entries.get(quizId);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        entries.put(quizId, future);
+        loader = true;
+      }
+    }
+
+    if (!loader) {
+      hits.incrementAndGet();
+      return await(future);
+    }
+
+    misses.incrementAndGet();
+    try {
+      QuizLeaderboard leaderboard = new QuizLeaderboard(bestResultDao.findAllByQuizId(quizId));
+      future.complete(leaderboard);
+      return leaderboard;
+    } catch (RuntimeException e) {
+      synchronized (entries) {
+        entries.remove(quizId, future);
+      }
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Учитывает новый результат в рейтинге, если он загружен в память.
+   * Внутри транзакции результат применяется после коммита, чтобы в кеш не попали
+   * данные откаченной транзакции. Загрузка, идущая параллельно, дожидается завершения:
+   * повторное применение того же результата ничего не меняет.
+   */
+  public void record(Long quizId, BestResult result) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          apply(quizId, result);
+        }
+      });
+    } else {
+      apply(quizId, result);
+    }
+  }
+
+  public void invalidate(Long quizId) {
+    synchronized (entries) {
+      entries.remove(quizId);
+    }
+  }
+
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private void apply(Long quizId, BestResult result) {
+    CompletableFuture<QuizLeaderboard> future;
+    synchronized (entries) {
+      future = entries.get(quizId);
+    }
+    if (future == null) {
+      return;
+    }
+    try {
+      future.join().offer(result);
+    } catch (CompletionException e) {
+      // Загрузка не удалась, следующий get() прочитает актуальные данные из БД
+    }
+  }
+
+  private long totalEntries() {
+    List<CompletableFuture<QuizLeaderboard>> futures;
+    synchronized (entries) {
+      futures = new ArrayList<>(entries.values());
+    }
+    long total = 0;
+    for (CompletableFuture<QuizLeaderboard> future : futures) {
+      if (future.isDone() && !future.isCompletedExceptionally()) {
+        total += future.join().size();
+      }
+    }
+    return total;
+  }
+
+  private QuizLeaderboard await(CompletableFuture<QuizLeaderboard> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+}
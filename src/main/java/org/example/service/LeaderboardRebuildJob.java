@@ -0,0 +1,50 @@
+package org.example.service;
+
+import org.example.dao.BestResultDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Заполняет таблицу лучших результатов quiz_best_results по истории user_quiz_attempts.
+ * Выполняется при старте приложения, если таблица пуста (первый запуск после миграции),
+ * либо всегда при leaderboard.rebuild-on-startup=true.
+ */
+@Component
+public class LeaderboardRebuildJob implements ApplicationRunner {
+  private final BestResultDao bestResultDao;
+  private final LeaderboardCache leaderboardCache;
+
+  @Value("${leaderboard.rebuild-on-startup:false}")
+  private boolean rebuildOnStartup;
+
+  public LeaderboardRebuildJob(BestResultDao bestResultDao, LeaderboardCache leaderboardCache) {
+    this.bestResultDao = bestResultDao;
+    this.leaderboardCache = leaderboardCache;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      if (rebuildOnStartup || bestResultDao.isEmpty()) {
+        rebuild();
+      }
+    } catch (RuntimeException e) {
+      System.err.println("Error rebuilding leaderboard: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Пересчитывает лучшие результаты по всем завершенным попыткам.
+   *
+   * @return количество вставленных или обновленных строк
+   */
+  public int rebuild() {
+    long start = System.currentTimeMillis();
+    int rows = bestResultDao.rebuild();
+    leaderboardCache.clear();
+    System.out.println("Leaderboard rebuilt: " + rows + " rows in " + (System.currentTimeMillis() - start) + " ms");
+    return rows;
+  }
+}
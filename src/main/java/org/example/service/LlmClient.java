@@ -0,0 +1,352 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.example.util.CircuitBreaker;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+/**
+ * Клиент сервиса генерации вопросов (python/main.py поверх Ollama).
+ * Запросы отправляются асинхронно через один HttpClient с переиспользованием соединений;
+ * тема передается в теле POST-запроса, а не в пути URL.
+ * Ограничения: не больше llm.max-in-flight одновременных запросов (лишние интерактивные
+ * запросы сразу отклоняются, фоновые ждут свободного места не дольше llm.permit-wait-seconds),
+ * таймаут каждой попытки и общий срок запроса, повторы при сетевых ошибках и ответах 5xx
+ * со случайной экспоненциальной задержкой и автомат защиты, который перестает обращаться
+ * к сервису после серии ошибок. Ответ можно читать потоково, получая вопросы по мере генерации.
+ */
+@Component
+public class LlmClient {
+  private final ObjectMapper objectMapper;
+  private final MetricsService metricsService;
+
+  @Value("${llm.base-url:http://127.0.0.1:8000}")
+  private String baseUrl;
+
+  @Value("${llm.connect-timeout-ms:2000}")
+  private long connectTimeoutMs;
+
+  @Value("${llm.attempt-timeout-seconds:120}")
+  private long attemptTimeoutSeconds;
+
+  @Value("${llm.deadline-seconds:300}")
+  private long deadlineSeconds;
+
+  @Value("${llm.max-in-flight:4}")
+  private int maxInFlight;
+
+  @Value("${llm.permit-wait-seconds:60}")
+  private long permitWaitSeconds;
+
+  @Value("${llm.max-retries:2}")
+  private int maxRetries;
+
+  @Value("${llm.retry-backoff-ms:500}")
+  private long retryBackoffMs;
+
+  @Value("${llm.breaker.failure-threshold:5}")
+  private int breakerFailureThreshold;
+
+  @Value("${llm.breaker.open-seconds:30}")
+  private long breakerOpenSeconds;
+
+  private HttpClient httpClient;
+  private Semaphore inFlight;
+  private CircuitBreaker breaker;
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong failures = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong totalLatencyMillis = new AtomicLong();
+  private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+  public LlmClient(ObjectMapper objectMapper, MetricsService metricsService) {
+    this.objectMapper = objectMapper;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    httpClient = HttpClient.newBuilder()
+      .version(HttpClient.Version.HTTP_1_1)
+      .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+      .build();
+    inFlight = new Semaphore(maxInFlight);
+    breaker = new CircuitBreaker(breakerFailureThreshold, TimeUnit.SECONDS.toMillis(breakerOpenSeconds));
+
+    metricsService.registerGauge("llm.requests", requests::get);
+    metricsService.registerGauge("llm.failures", failures::get);
+    metricsService.registerGauge("llm.retries", retries::get);
+    metricsService.registerGauge("llm.rejected", rejected::get);
+    metricsService.registerGauge("llm.in-flight", () -> maxInFlight - inFlight.availablePermits());
+    metricsService.registerGauge("llm.breaker.open", () -> breaker.state() == CircuitBreaker.State.CLOSED ? 0 : 1);
+    metricsService.registerGauge("llm.breaker.opened", breaker::openedCount);
+    metricsService.registerGauge("llm.latency.avg-ms", () -> {
+      long count = completed.get();
+      return count > 0 ? totalLatencyMillis.get() / count : 0;
+    });
+    metricsService.registerGauge("llm.latency.max-ms", maxLatencyMillis::get);
+  }
+
+  /**
+   * Запрашивает у сервиса count вопросов на тему prompt.
+   * Future завершается текстом ответа или ошибкой: RejectedExecutionException, если
+   * достигнут предел одновременных запросов или разомкнут автомат защиты,
+   * HttpTimeoutException или TimeoutException по истечении срока, IOException при ошибке сервиса.
+   */
+  public CompletableFuture<String> generateQuestions(String prompt, int count) {
+    return call(prompt, count, HttpResponse.BodyHandlers.ofString(), () -> true, 0);
+  }
+
+  /**
+   * Запрашивает вопросы и разбирает ответ по мере поступления строк: каждый вопрос
+   * передается в sink, как только получен целиком, не дожидаясь конца ответа.
+   * sink вызывается последовательно из потока HttpClient.
+   * Повтор выполняется, только если ни один вопрос еще не передан, иначе вопросы продублировались бы.
+   * Вызывается из фоновых задач генерации: при достигнутом пределе одновременных запросов
+   * вызывающий поток ждет свободного места не дольше llm.permit-wait-seconds.
+   *
+   * @return future с числом переданных вопросов; ошибки те же, что у generateQuestions
+   */
+  public CompletableFuture<Integer> streamQuestions(String prompt, int count,
+                                                    Consumer<QuestionParser.ParsedQuestion> sink) {
+    AtomicInteger emitted = new AtomicInteger();
+    CompletableFuture<Integer> result = new CompletableFuture<>();
+    Consumer<QuestionParser.ParsedQuestion> counting = question -> {
+      emitted.incrementAndGet();
+      sink.accept(question);
+    };
+    // Парсер создается на каждый ответ: незавершенный вопрос упавшей попытки не переносится в повтор
+    HttpResponse.BodyHandler<Integer> handler = responseInfo -> responseInfo.statusCode() == 200
+      ? HttpResponse.BodySubscribers.fromLineSubscriber(new QuestionLines(counting, result),
+          QuestionLines::parsedCount, StandardCharsets.UTF_8, "\n")
+      : HttpResponse.BodySubscribers.replacing(null);
+    long permitWaitMillis = TimeUnit.SECONDS.toMillis(permitWaitSeconds);
+    call(prompt, count, handler, () -> emitted.get() == 0, permitWaitMillis).whenComplete((parsed, error) -> {
+      if (error != null) {
+        result.completeExceptionally(error instanceof CompletionException && error.getCause() != null
+          ? error.getCause() : error);
+      } else {
+        result.complete(parsed);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * @param permitWaitMillis сколько ждать свободного места среди одновременных запросов; 0 — не ждать
+   */
+  private <T> CompletableFuture<T> call(String prompt, int count, HttpResponse.BodyHandler<T> handler,
+                                        BooleanSupplier canRetry, long permitWaitMillis) {
+    requests.incrementAndGet();
+    boolean acquired;
+    try {
+      acquired = permitWaitMillis > 0
+        ? inFlight.tryAcquire(permitWaitMillis, TimeUnit.MILLISECONDS)
+        : inFlight.tryAcquire();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+    if (!acquired) {
+      rejected.incrementAndGet();
+      return CompletableFuture.failedFuture(
+        new RejectedExecutionException("Too many LLM requests in flight: " + maxInFlight));
+    }
+
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(Map.of("prompt", prompt, "number", count));
+    } catch (JsonProcessingException e) {
+      inFlight.release();
+      return CompletableFuture.failedFuture(e);
+    }
+
+    long startNanos = System.nanoTime();
+    long deadlineNanos = startNanos + TimeUnit.SECONDS.toNanos(deadlineSeconds);
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attempt(body, handler, canRetry, 0, deadlineNanos, result);
+    // Таймаут запроса HttpClient ограничивает только ожидание заголовков ответа,
+    // поэтому общий срок, включая чтение тела, ограничивается отдельно
+    result.orTimeout(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+    return result.whenComplete((value, error) -> {
+      inFlight.release();
+      if (error != null) {
+        failures.incrementAndGet();
+        return;
+      }
+      long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+      completed.incrementAndGet();
+      totalLatencyMillis.addAndGet(latencyMillis);
+      maxLatencyMillis.accumulateAndGet(latencyMillis, Math::max);
+    });
+  }
+
+  private <T> void attempt(byte[] body, HttpResponse.BodyHandler<T> handler, BooleanSupplier canRetry,
+                           int attempt, long deadlineNanos, CompletableFuture<T> result) {
+    long remainingNanos = deadlineNanos - System.nanoTime();
+    if (remainingNanos <= 0) {
+      result.completeExceptionally(new HttpTimeoutException("LLM request deadline exceeded"));
+      return;
+    }
+    if (!breaker.tryAcquire()) {
+      result.completeExceptionally(new RejectedExecutionException("LLM service circuit breaker is open"));
+      return;
+    }
+
+    HttpRequest request = HttpRequest.newBuilder()
+      .uri(URI.create(baseUrl + "/questions"))
+      .timeout(Duration.ofNanos(Math.min(TimeUnit.SECONDS.toNanos(attemptTimeoutSeconds), remainingNanos)))
+      .header("Content-Type", "application/json")
+      .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+      .build();
+
+    // Исход попытки сообщается автомату защиты один раз: либо по ответу, либо по истечении срока
+    AtomicBoolean reported = new AtomicBoolean();
+    CompletableFuture<HttpResponse<T>> exchange = httpClient.sendAsync(request, handler);
+    result.whenComplete((value, error) -> {
+      if (error == null) {
+        return;
+      }
+      // Срок истек или запрос завершился ошибкой: обмен прерывается вместе с чтением тела,
+      // а зависший пробный вызов не оставляет автомат полуоткрытым
+      exchange.cancel(true);
+      if (reported.compareAndSet(false, true)) {
+        breaker.onFailure();
+      }
+    });
+    exchange.whenComplete((response, error) -> {
+      if (!reported.compareAndSet(false, true)) {
+        return;
+      }
+      if (error == null && response.statusCode() == 200) {
+        breaker.onSuccess();
+        result.complete(response.body());
+        return;
+      }
+
+      Throwable failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+      boolean retryable;
+      if (failure != null) {
+        retryable = failure instanceof IOException;
+      } else {
+        int status = response.statusCode();
+        retryable = status >= 500 || status == 429;
+        failure = new IOException("LLM service responded with status " + status);
+      }
+      // Ответ 4xx означает ошибку запроса, а не недоступность сервиса
+      if (retryable) {
+        breaker.onFailure();
+      } else {
+        breaker.onSuccess();
+      }
+
+      long backoffMillis = backoffMillis(attempt);
+      if (!retryable || attempt >= maxRetries || result.isDone() || !canRetry.getAsBoolean()
+        || System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(backoffMillis) >= deadlineNanos) {
+        result.completeExceptionally(failure);
+        return;
+      }
+      retries.incrementAndGet();
+      CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS)
+        .execute(() -> attempt(body, handler, canRetry, attempt + 1, deadlineNanos, result));
+    });
+  }
+
+  /**
+   * Экспоненциальная задержка со случайным разбросом в ее вторую половину:
+   * одновременно упавшие запросы не повторяются одной волной.
+   */
+  private long backoffMillis(int attempt) {
+    long ceiling = retryBackoffMs << Math.min(attempt, 10);
+    return ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1);
+  }
+
+  /**
+   * Подписчик на строки ответа: передает их парсеру вопросов.
+   * Ошибка получателя вопросов запоминается и возвращается при завершении тела ответа.
+   */
+  private static final class QuestionLines implements Flow.Subscriber<String> {
+    private final QuestionParser parser;
+    private final CompletableFuture<?> result;
+    private Flow.Subscription subscription;
+    private RuntimeException failure;
+
+    QuestionLines(Consumer<QuestionParser.ParsedQuestion> sink, CompletableFuture<?> result) {
+      this.parser = new QuestionParser(sink);
+      this.result = result;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+      this.subscription = subscription;
+      // По истечении срока чтение тела прекращается сразу, не дожидаясь следующей строки
+      result.whenComplete((value, error) -> {
+        if (error != null) {
+          subscription.cancel();
+        }
+      });
+      subscription.request(Long.MAX_VALUE);
+    }
+
+    @Override
+    public void onNext(String line) {
+      if (result.isDone()) {
+        // Срок запроса истек: остаток ответа не нужен
+        subscription.cancel();
+        return;
+      }
+      if (failure != null) {
+        return;
+      }
+      try {
+        parser.feed(line);
+        parser.feed("\n");
+      } catch (RuntimeException e) {
+        failure = e;
+      }
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+    }
+
+    @Override
+    public void onComplete() {
+      if (failure == null && !result.isDone()) {
+        try {
+          parser.finish();
+        } catch (RuntimeException e) {
+          failure = e;
+        }
+      }
+    }
+
+    int parsedCount() {
+      if (failure != null) {
+        throw failure;
+      }
+      return parser.parsedCount();
+    }
+  }
+}
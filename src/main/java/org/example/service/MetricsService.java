@@ -0,0 +1,41 @@
+package org.example.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Реестр метрик приложения.
+ * Компоненты регистрируют в нем gauge-функции, значения которых вычисляются при каждом запросе снимка.
+ */
+@Service
+public class MetricsService {
+  private final Map<String, Supplier<? extends Number>> gauges = new ConcurrentHashMap<>();
+
+  /**
+   * Регистрирует gauge под указанным именем. Повторная регистрация заменяет предыдущую функцию.
+   */
+  public void registerGauge(String name, Supplier<? extends Number> gauge) {
+    gauges.put(name, gauge);
+  }
+
+  /**
+   * Возвращает текущие значения всех метрик, отсортированные по имени.
+   */
+  public SortedMap<String, Number> snapshot() {
+    SortedMap<String, Number> values = new TreeMap<>();
+    for (Map.Entry<String, Supplier<? extends Number>> entry : gauges.entrySet()) {
+      try {
+        Number value = entry.getValue().get();
+        values.put(entry.getKey(), value != null ? value : 0);
+      } catch (RuntimeException e) {
+        System.err.println("Error reading metric " + entry.getKey() + ": " + e.getMessage());
+      }
+    }
+    return values;
+  }
+}
@@ -0,0 +1,324 @@
+package org.example.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Рассылка событий многопользовательских сессий подписчикам по Server-Sent Events.
+ * Событие сериализуется один раз и один и тот же кадр отправляется всем подписчикам сессии.
+ * У каждого подписчика своя ограниченная очередь кадров, которую разбирает общий пул потоков
+ * (не больше одного потока на подписчика, поэтому порядок событий сохраняется). Медленный
+ * клиент не задерживает ни запрос, вызвавший событие, ни других подписчиков; клиент,
+ * у которого очередь переполнилась, отключается и при переподключении получает состояние заново.
+ * Подписчики получают только события своего экземпляра приложения.
+ */
+@Component
+public class MultiplayerEventHub {
+  // Признак в очереди подписчика: после отправленных до него кадров подписка завершается
+  private static final Set<ResponseBodyEmitter.DataWithMediaType> COMPLETE = Set.of();
+
+  private final ObjectMapper objectMapper;
+  private final MetricsService metricsService;
+
+  @Value("${multiplayer.events.emitter-timeout-minutes:60}")
+  private long emitterTimeoutMinutes;
+
+  @Value("${multiplayer.events.heartbeat-seconds:15}")
+  private long heartbeatSeconds;
+
+  @Value("${multiplayer.events.sender-threads:4}")
+  private int senderThreads;
+
+  @Value("${multiplayer.events.outbox-capacity:256}")
+  private int outboxCapacity;
+
+  private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+  private final AtomicLong published = new AtomicLong();
+  private final AtomicLong sendFailures = new AtomicLong();
+  private final AtomicLong dropped = new AtomicLong();
+  private final AtomicLong eventIds = new AtomicLong();
+
+  private ScheduledExecutorService heartbeats;
+  private ExecutorService senders;
+
+  public MultiplayerEventHub(ObjectMapper objectMapper, MetricsService metricsService) {
+    this.objectMapper = objectMapper;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    metricsService.registerGauge("multiplayer.events.subscribers", this::subscriberCount);
+    metricsService.registerGauge("multiplayer.events.published", published::get);
+    metricsService.registerGauge("multiplayer.events.send-failures", sendFailures::get);
+    metricsService.registerGauge("multiplayer.events.dropped-subscribers", dropped::get);
+
+    AtomicLong senderIds = new AtomicLong();
+    senders = Executors.newFixedThreadPool(senderThreads, runnable -> {
+      Thread thread = new Thread(runnable, "multiplayer-events-" + senderIds.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "multiplayer-events-heartbeat");
+      thread.setDaemon(true);
+      return thread;
+    });
+    heartbeats.scheduleWithFixedDelay(this::heartbeat, heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  void stop() {
+    heartbeats.shutdownNow();
+    senders.shutdownNow();
+    for (List<Subscriber> list : subscribers.values()) {
+      list.forEach(subscriber -> subscriber.emitter.complete());
+    }
+  }
+
+  /**
+   * Подписывает клиента на события сессии. Первым событием клиенту отправляется initial
+   * под именем initialEvent, чтобы он получил текущее состояние без отдельного запроса.
+   * Состояние берется уже после регистрации подписчика: события, опубликованные в это время,
+   * придут после него и не потеряются.
+   */
+  public SseEmitter subscribe(String sessionId, String initialEvent, Supplier<?> initial) {
+    SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(emitterTimeoutMinutes));
+    Subscriber subscriber = new Subscriber(sessionId, emitter);
+    subscribers.compute(sessionId, (id, list) -> {
+      List<Subscriber> result = list != null ? list : new CopyOnWriteArrayList<>();
+      result.add(subscriber);
+      return result;
+    });
+    emitter.onCompletion(() -> unsubscribe(subscriber));
+    emitter.onTimeout(() -> unsubscribe(subscriber));
+    emitter.onError(error -> unsubscribe(subscriber));
+
+    try {
+      subscriber.start(frame(initialEvent, initial.get()));
+    } catch (RuntimeException e) {
+      unsubscribe(subscriber);
+      throw e;
+    }
+    return emitter;
+  }
+
+  /**
+   * Публикует событие сессии. Внутри транзакции событие отправляется после коммита,
+   * чтобы подписчики не увидели изменения откаченной транзакции.
+   */
+  public void publish(String sessionId, String event, Object payload) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          dispatch(sessionId, event, payload);
+        }
+      });
+    } else {
+      dispatch(sessionId, event, payload);
+    }
+  }
+
+  /**
+   * Завершает все подписки сессии (после отмены или окончания игры).
+   * Подписка завершается после отправки уже опубликованных событий.
+   */
+  public void close(String sessionId) {
+    List<Subscriber> list = subscribers.remove(sessionId);
+    if (list != null) {
+      list.forEach(Subscriber::close);
+    }
+  }
+
+  public int subscriberCount() {
+    int count = 0;
+    for (List<Subscriber> list : subscribers.values()) {
+      count += list.size();
+    }
+    return count;
+  }
+
+  private void dispatch(String sessionId, String event, Object payload) {
+    List<Subscriber> list = subscribers.get(sessionId);
+    if (list == null || list.isEmpty()) {
+      return;
+    }
+    published.incrementAndGet();
+    Set<ResponseBodyEmitter.DataWithMediaType> frame = frame(event, payload);
+    for (Subscriber subscriber : list) {
+      subscriber.offer(frame);
+    }
+  }
+
+  /**
+   * Кадр события, сериализованный один раз. JSON передается как text/plain,
+   * чтобы конвертер сообщений записал его как есть, без повторной сериализации.
+   */
+  private Set<ResponseBodyEmitter.DataWithMediaType> frame(String event, Object payload) {
+    try {
+      String json = objectMapper.writeValueAsString(payload);
+      return SseEmitter.event()
+        .id(Long.toString(eventIds.incrementAndGet()))
+        .name(event)
+        .data(json, MediaType.TEXT_PLAIN)
+        .build();
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Error serializing multiplayer event " + event, e);
+    }
+  }
+
+  /**
+   * Ping отправляется только простаивающим подписчикам: у остальных соединение и так занято.
+   */
+  private void heartbeat() {
+    Set<ResponseBodyEmitter.DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+    for (List<Subscriber> list : subscribers.values()) {
+      for (Subscriber subscriber : list) {
+        subscriber.offerIfIdle(ping);
+      }
+    }
+  }
+
+  private void unsubscribe(Subscriber subscriber) {
+    subscriber.discard();
+    remove(subscriber);
+  }
+
+  private void remove(Subscriber subscriber) {
+    subscribers.computeIfPresent(subscriber.sessionId, (id, list) -> {
+      list.remove(subscriber);
+      return list.isEmpty() ? null : list;
+    });
+  }
+
+  /**
+   * Подписчик с очередью неотправленных кадров. Кадры до начального состояния копятся
+   * и отправляются после него.
+   */
+  private final class Subscriber {
+    final String sessionId;
+    final SseEmitter emitter;
+    private final ArrayDeque<Set<ResponseBodyEmitter.DataWithMediaType>> outbox = new ArrayDeque<>();
+    private boolean started;
+    private boolean draining;
+    private boolean closed;
+
+    Subscriber(String sessionId, SseEmitter emitter) {
+      this.sessionId = sessionId;
+      this.emitter = emitter;
+    }
+
+    synchronized void start(Set<ResponseBodyEmitter.DataWithMediaType> initial) {
+      if (closed) {
+        return;
+      }
+      outbox.addFirst(initial);
+      started = true;
+      scheduleDrain();
+    }
+
+    void offer(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+      synchronized (this) {
+        if (closed) {
+          return;
+        }
+        if (outbox.size() < outboxCapacity) {
+          outbox.add(frame);
+          scheduleDrain();
+          return;
+        }
+        // Клиент не успевает читать: неотправленные кадры отбрасываются, подписка завершается
+        // сразу после кадра, который отправляется сейчас
+        outbox.clear();
+        close();
+      }
+      dropped.incrementAndGet();
+      remove(this);
+    }
+
+    synchronized void offerIfIdle(Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+      if (!closed && started && !draining && outbox.isEmpty()) {
+        outbox.add(frame);
+        scheduleDrain();
+      }
+    }
+
+    /**
+     * Завершает подписку после кадров, уже стоящих в очереди.
+     */
+    synchronized void close() {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      outbox.add(COMPLETE);
+      started = true;
+      scheduleDrain();
+    }
+
+    /**
+     * Соединение уже закрыто: неотправленные кадры больше не нужны.
+     */
+    synchronized void discard() {
+      closed = true;
+      outbox.clear();
+    }
+
+    private void scheduleDrain() {
+      if (started && !draining && !outbox.isEmpty()) {
+        draining = true;
+        try {
+          senders.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+          // Приложение останавливается
+          draining = false;
+          outbox.clear();
+        }
+      }
+    }
+
+    private void drain() {
+      while (true) {
+        Set<ResponseBodyEmitter.DataWithMediaType> frame;
+        synchronized (this) {
+          frame = outbox.poll();
+          if (frame == null) {
+            draining = false;
+            return;
+          }
+        }
+        if (frame == COMPLETE) {
+          discard();
+          emitter.complete();
+          continue;
+        }
+        try {
+          emitter.send(frame);
+        } catch (IOException | IllegalStateException e) {
+          // Клиент отключился; подписка удаляется сразу, не дожидаясь таймаута
+          sendFailures.incrementAndGet();
+          unsubscribe(this);
+        }
+      }
+    }
+  }
+}
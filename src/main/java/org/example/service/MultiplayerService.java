@@ -1,61 +1,523 @@
 package org.example.service;
 
+import org.example.dao.AttemptAnswerDao;
+import org.example.dao.AttemptDao;
+import org.example.dao.QuizDao;
+import org.example.dao.UserDao;
 import org.example.dto.request.multiplayer.*;
 import org.example.dto.response.multiplayer.*;
 import org.example.dto.common.ParticipantDTO;
 import org.example.dto.common.PlayerResult;
 import org.example.model.*;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
-
-import java.sql.*;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.stream.Collectors;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Сервис для управления многопользовательскими сессиями квизов.
  * Позволяет создавать сессии, подключать участников, запускать и завершать игры.
+ * В режиме раундов сервер открывает каждый вопрос всем участникам одновременно,
+ * закрывает его по истечении времени на вопрос и сам завершает сессию после последнего раунда.
+ * Фоновая очистка удаляет сессии, пробывшие в одном состоянии дольше заданного для него срока;
+ * число сессий, сессий одного хоста и участников одной сессии ограничено.
  */
 @Service
 @Transactional
 public class MultiplayerService {
   private final AttemptService attemptService;
+  private final UserDao userDao;
+  private final QuizDao quizDao;
+  private final AttemptDao attemptDao;
+
+  private final MultiplayerEventHub eventHub;
+  private final QuizSnapshotCache quizSnapshotCache;
+  private final AnswerWriteBehind answerWriteBehind;
+  private final RoundTimer roundTimer;
+  private final MetricsService metricsService;
+  private final StateStore<String, SessionState> sessions;
+  // Задачи таймера и очистки выполняются вне прокси сервиса, поэтому транзакцию открывают сами
+  private final TransactionTemplate transactionTemplate;
+
+  @Value("${multiplayer.rounds.default-seconds:30}")
+  private long defaultRoundSeconds;
+
+  @Value("${multiplayer.rounds.pause-seconds:3}")
+  private long roundPauseSeconds;
+
+  @Value("${multiplayer.sessions.max-sessions:10000}")
+  private int maxSessions;
+
+  @Value("${multiplayer.sessions.max-per-host:5}")
+  private int maxSessionsPerHost;
+
+  @Value("${multiplayer.sessions.max-participants:500}")
+  private int maxParticipants;
+
+  @Value("${multiplayer.sessions.waiting-ttl-minutes:60}")
+  private long waitingTtlMinutes;
+
+  @Value("${multiplayer.sessions.started-ttl-minutes:180}")
+  private long startedTtlMinutes;
+
+  @Value("${multiplayer.sessions.finished-ttl-minutes:30}")
+  private long finishedTtlMinutes;
+
+  @Value("${multiplayer.sessions.cancelled-ttl-minutes:5}")
+  private long cancelledTtlMinutes;
+
+  @Value("${multiplayer.sessions.reap-interval-seconds:60}")
+  private long reapIntervalSeconds;
+
+  // Число сессий по состояниям и незавершенных сессий по хостам на момент последней очистки;
+  // между очистками счетчики хостов меняются при создании, отмене и завершении сессий
+  private volatile Map<Status, Integer> statusCounts = new EnumMap<>(Status.class);
+  private volatile Map<Long, Integer> activeByHost = new ConcurrentHashMap<>();
+  // Число сессий в хранилище: пересчитывается очисткой, между очистками растет при создании.
+  // Место под сессию занимается атомарно до ее добавления, без COUNT(*) на каждое создание
+  private final AtomicInteger liveSessions = new AtomicInteger();
+
+  private final AtomicLong reaped = new AtomicLong();
+  private final AtomicLong rejectedCapacity = new AtomicLong();
+  private final AtomicLong rejectedHostLimit = new AtomicLong();
+  private final AtomicLong rejectedFull = new AtomicLong();
+
+  private ScheduledExecutorService reaper;
+
+  public MultiplayerService(AttemptService attemptService,
+                            UserDao userDao,
+                            QuizDao quizDao,
+                            AttemptDao attemptDao,
+                            StateStoreFactory stateStoreFactory,
+                            MultiplayerEventHub eventHub,
+                            QuizSnapshotCache quizSnapshotCache,
+                            AnswerWriteBehind answerWriteBehind,
+                            RoundTimer roundTimer,
+                            MetricsService metricsService,
+                            PlatformTransactionManager transactionManager) {
+    this.attemptService = attemptService;
+    this.userDao = userDao;
+    this.quizDao = quizDao;
+    this.attemptDao = attemptDao;
+    this.eventHub = eventHub;
+    this.quizSnapshotCache = quizSnapshotCache;
+    this.answerWriteBehind = answerWriteBehind;
+    this.roundTimer = roundTimer;
+    this.metricsService = metricsService;
+    this.sessions = stateStoreFactory.create("multiplayer.session", SessionState.CODEC, SessionState::estimateBytes);
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+  }
+
+  @PostConstruct
+  void start() {
+    for (Status status : Status.values()) {
+      metricsService.registerGauge("multiplayer.sessions." + status.name().toLowerCase(),
+        () -> statusCounts.getOrDefault(status, 0));
+    }
+    metricsService.registerGauge("multiplayer.sessions.live", liveSessions::get);
+    metricsService.registerGauge("multiplayer.sessions.reaped", reaped::get);
+    metricsService.registerGauge("multiplayer.sessions.rejected.capacity", rejectedCapacity::get);
+    metricsService.registerGauge("multiplayer.sessions.rejected.host-limit", rejectedHostLimit::get);
+    metricsService.registerGauge("multiplayer.sessions.rejected.full", rejectedFull::get);
+
+    reaper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "multiplayer-session-reaper");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reaper.scheduleWithFixedDelay(this::reap, reapIntervalSeconds, reapIntervalSeconds, TimeUnit.SECONDS);
 
-  private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    attemptService.setSessionAnswerListener(this::recordUntimedAnswer);
+  }
 
-  public MultiplayerService(AttemptService attemptService) {
-    this.attemptService = attemptService;
+  @PreDestroy
+  void stop() {
+    reaper.shutdownNow();
   }
 
   /**
-   * Внутренний класс для отслеживания состояния сессии в памяти
+   * Состояния сессии и допустимые переходы между ними. В STARTING создаются попытки
+   * участников: состав уже зафиксирован и новые подключения не принимаются.
+   */
+  private enum Status {
+    WAITING, STARTING, STARTED, FINISHED, CANCELLED;
+
+    boolean canMoveTo(Status next) {
+      return switch (this) {
+        case WAITING -> next == STARTING || next == CANCELLED;
+        case STARTING -> next == WAITING || next == STARTED || next == CANCELLED;
+        case STARTED -> next == FINISHED || next == CANCELLED;
+        case FINISHED, CANCELLED -> false;
+      };
+    }
+  }
+
+  /**
+   * Внутренний класс для отслеживания состояния сессии.
+   * Полученное из хранилища состояние только читается, изменения выполняются через sessions.update.
+   * Хранилище в памяти отдает читателям тот же объект, который меняет update, поэтому
+   * статус переключается через compare-and-set, а поля, читаемые вне update, — volatile
+   * или конкурентные коллекции: читатель не видит разорванного состояния и не получает
+   * ConcurrentModificationException.
+   * Участники хранятся вместе с логином и порядком подключения;
+   * готовый список участников перестраивается только при изменении состава.
    */
   private static class SessionState {
+    private static final int FORMAT_VERSION = 5;
+
     String sessionId;
     Long quizId;
     String quizName;
     Long hostUserId;
-    String status;
+    final AtomicReference<Status> status = new AtomicReference<>(Status.WAITING);
+    volatile long statusChangedMillis;
     Instant createdAt;
-    Map<Long, ParticipantInfo> participants;
-    Map<Long, Long> userAttempts;
-    Instant startedAt;
-    Instant finishedAt;
-
-    SessionState(String sessionId, Long quizId, String quizName, Long hostUserId) {
+    final Map<Long, ParticipantInfo> participants = new ConcurrentHashMap<>();
+    final Map<Long, Long> userAttempts = new ConcurrentHashMap<>();
+    volatile Instant startedAt;
+    volatile Instant finishedAt;
+    long rosterVersion;
+    long joinSequence;
+    volatile ParticipantsDTO roster;
+
+    // Режим раундов: текущий вопрос открыт, если roundOpenedMillis != 0
+    volatile boolean timedRounds;
+    volatile int round;
+    volatile int roundCount;
+    volatile long roundOpenedMillis;
+    volatile long roundDeadlineMillis;
+    final Map<Long, Integer> scores = new ConcurrentHashMap<>();
+    final Set<Long> answeredThisRound = ConcurrentHashMap.newKeySet();
+
+    // Таблица счета: суммарное время ответов, места на момент последней публикации
+    // и порядок мест, который поддерживается при каждом ответе (не сериализуется)
+    final Map<Long, Long> answerMillis = new ConcurrentHashMap<>();
+    Map<Long, ScoreEntryDTO> published = new HashMap<>();
+    List<Long> ranking = new ArrayList<>();
+    volatile List<ScoreEntryDTO> scoreboard = List.of();
+
+    // Больше очков выше, при равенстве выше тот, кто отвечал быстрее
+    private final Comparator<Long> rankOrder = Comparator
+      .<Long>comparingInt(userId -> -scores.getOrDefault(userId, 0))
+      .thenComparingLong(userId -> answerMillis.getOrDefault(userId, 0L))
+      .thenComparing(Comparator.naturalOrder());
+
+    SessionState(String sessionId, Long quizId, String quizName, Long hostUserId, String hostLogin) {
       this.sessionId = sessionId;
       this.quizId = quizId;
       this.quizName = quizName;
       this.hostUserId = hostUserId;
-      this.status = "WAITING";
       this.createdAt = Instant.now();
-      this.participants = new HashMap<>();
-      this.userAttempts = new HashMap<>();
-      this.participants.put(hostUserId, new ParticipantInfo(hostUserId, createdAt));
+      this.statusChangedMillis = createdAt.toEpochMilli();
+      this.participants.put(hostUserId, new ParticipantInfo(hostUserId, hostLogin, createdAt, joinSequence++));
+      rebuildRoster();
+    }
+
+    Status status() {
+      return status.get();
+    }
+
+    /**
+     * Переводит сессию из from в to.
+     *
+     * @return false, если сессия уже не в состоянии from
+     */
+    boolean transition(Status from, Status to) {
+      if (!from.canMoveTo(to)) {
+        throw new IllegalStateException("Illegal session transition " + from + " -> " + to);
+      }
+      if (!status.compareAndSet(from, to)) {
+        return false;
+      }
+      statusChangedMillis = System.currentTimeMillis();
+      return true;
+    }
+
+    /**
+     * Отменяет сессию из любого незавершенного состояния.
+     *
+     * @return false, если сессия уже завершена или отменена
+     */
+    boolean cancel() {
+      Status current;
+      do {
+        current = status.get();
+        if (!current.canMoveTo(Status.CANCELLED)) {
+          return false;
+        }
+      } while (!status.compareAndSet(current, Status.CANCELLED));
+      statusChangedMillis = System.currentTimeMillis();
+      return true;
+    }
+
+    /**
+     * @return false, если пользователь уже участвует в сессии
+     */
+    boolean join(Long userId, String login, Instant joinedAt) {
+      if (status() != Status.WAITING) {
+        throw new IllegalStateException("Session is not in WAITING state. Current status: " + status());
+      }
+      if (participants.putIfAbsent(userId, new ParticipantInfo(userId, login, joinedAt, joinSequence++)) != null) {
+        return false;
+      }
+      rosterVersion++;
+      // Порядок подключения монотонен: новый участник всегда последний, пересортировка не нужна
+      List<ParticipantDTO> list = new ArrayList<>(roster.participants().size() + 1);
+      list.addAll(roster.participants());
+      list.add(new ParticipantDTO(userId, login, LocalDateTime.ofInstant(joinedAt, ZoneOffset.UTC)));
+      publishRoster(list);
+      return true;
+    }
+
+    boolean leave(Long userId) {
+      if (participants.remove(userId) == null) {
+        return false;
+      }
+      rosterVersion++;
+      List<ParticipantDTO> list = new ArrayList<>(roster.participants().size());
+      for (ParticipantDTO participant : roster.participants()) {
+        if (!participant.userId().equals(userId)) {
+          list.add(participant);
+        }
+      }
+      publishRoster(list);
+      return true;
+    }
+
+    void initScoreboard(Collection<Long> userIds) {
+      for (Long userId : userIds) {
+        scores.put(userId, 0);
+        answerMillis.put(userId, 0L);
+      }
+      ranking = new ArrayList<>(userIds);
+      ranking.sort(rankOrder);
+    }
+
+    /**
+     * Учитывает ответ и перемещает участника на новое место: O(log n) на поиск
+     * и сдвиг части списка вместо полной сортировки.
+     */
+    void recordScore(Long userId, boolean correct, long spentMillis) {
+      int index = Collections.binarySearch(ranking, userId, rankOrder);
+      if (index >= 0) {
+        ranking.remove(index);
+      }
+      if (correct) {
+        scores.merge(userId, 1, Integer::sum);
+      }
+      answerMillis.merge(userId, spentMillis, Long::sum);
+      int insertAt = Collections.binarySearch(ranking, userId, rankOrder);
+      ranking.add(insertAt >= 0 ? insertAt : -insertAt - 1, userId);
+    }
+
+    /**
+     * Фиксирует текущие места как опубликованные и возвращает участников,
+     * у которых место или счет изменились с прошлой публикации.
+     */
+    List<ScoreEntryDTO> publishScoreboard() {
+      List<ScoreEntryDTO> changes = new ArrayList<>();
+      for (int i = 0; i < ranking.size(); i++) {
+        Long userId = ranking.get(i);
+        ParticipantInfo participant = participants.get(userId);
+        ScoreEntryDTO entry = new ScoreEntryDTO(userId, participant != null ? participant.login : "Unknown",
+          i + 1, scores.getOrDefault(userId, 0), answerMillis.getOrDefault(userId, 0L));
+        ScoreEntryDTO previous = published.put(userId, entry);
+        if (previous == null || !previous.position().equals(entry.position()) || !previous.score().equals(entry.score())) {
+          changes.add(entry);
+        }
+      }
+      rebuildScoreboard();
+      return changes;
+    }
+
+    /**
+     * Полная таблица для читателей строится из опубликованных мест, поэтому ответы
+     * текущего раунда не видны до его закрытия.
+     */
+    private void rebuildScoreboard() {
+      List<ScoreEntryDTO> entries = new ArrayList<>(published.values());
+      entries.sort(Comparator.comparing(ScoreEntryDTO::position));
+      scoreboard = List.copyOf(entries);
+    }
+
+    boolean hasParticipant(Long userId) {
+      return participants.containsKey(userId);
+    }
+
+    /**
+     * Строит неизменяемый список участников по порядку подключения: при создании и чтении
+     * сессии из хранилища. Читатели видят список целиком через volatile-поле
+     * и не обходят participants, которые может менять update.
+     */
+    private void rebuildRoster() {
+      List<ParticipantInfo> ordered = orderedParticipants();
+      List<ParticipantDTO> list = new ArrayList<>(ordered.size());
+      for (ParticipantInfo participant : ordered) {
+        list.add(new ParticipantDTO(
+          participant.userId,
+          participant.login,
+          LocalDateTime.ofInstant(participant.joinedAt, ZoneOffset.UTC)
+        ));
+      }
+      publishRoster(list);
+    }
+
+    private void publishRoster(List<ParticipantDTO> list) {
+      roster = new ParticipantsDTO(sessionId, List.copyOf(list), list.size(), rosterVersion);
+    }
+
+    private List<ParticipantInfo> orderedParticipants() {
+      List<ParticipantInfo> ordered = new ArrayList<>(participants.values());
+      ordered.sort(Comparator.comparingLong(participant -> participant.order));
+      return ordered;
+    }
+
+    long estimateBytes() {
+      return 216 + 240L * participants.size() + 64L * userAttempts.size()
+        + 64L * scores.size() + 48L * answeredThisRound.size();
+    }
+
+    static final StateCodec<SessionState> CODEC = new StateCodec<>() {
+      @Override
+      public void write(SessionState session, DataOutputStream out) throws IOException {
+        out.writeByte(FORMAT_VERSION);
+        out.writeUTF(session.sessionId);
+        out.writeLong(session.quizId);
+        out.writeUTF(session.quizName != null ? session.quizName : "");
+        out.writeLong(session.hostUserId);
+        out.writeUTF(session.status().name());
+        out.writeLong(session.statusChangedMillis);
+        writeInstant(out, session.createdAt);
+        writeInstant(out, session.startedAt);
+        writeInstant(out, session.finishedAt);
+        List<ParticipantInfo> participants = session.orderedParticipants();
+        out.writeInt(participants.size());
+        for (ParticipantInfo participant : participants) {
+          out.writeLong(participant.userId);
+          out.writeUTF(participant.login);
+          writeInstant(out, participant.joinedAt);
+        }
+        out.writeLong(session.rosterVersion);
+        out.writeInt(session.userAttempts.size());
+        for (Map.Entry<Long, Long> entry : session.userAttempts.entrySet()) {
+          out.writeLong(entry.getKey());
+          out.writeLong(entry.getValue());
+        }
+        out.writeBoolean(session.timedRounds);
+        out.writeInt(session.round);
+        out.writeInt(session.roundCount);
+        out.writeLong(session.roundOpenedMillis);
+        out.writeLong(session.roundDeadlineMillis);
+        out.writeInt(session.scores.size());
+        for (Map.Entry<Long, Integer> entry : session.scores.entrySet()) {
+          out.writeLong(entry.getKey());
+          out.writeInt(entry.getValue());
+        }
+        out.writeInt(session.answeredThisRound.size());
+        for (Long userId : session.answeredThisRound) {
+          out.writeLong(userId);
+        }
+        out.writeInt(session.answerMillis.size());
+        for (Map.Entry<Long, Long> entry : session.answerMillis.entrySet()) {
+          out.writeLong(entry.getKey());
+          out.writeLong(entry.getValue());
+        }
+        out.writeInt(session.published.size());
+        for (ScoreEntryDTO entry : session.published.values()) {
+          out.writeLong(entry.userId());
+          out.writeUTF(entry.username());
+          out.writeInt(entry.position());
+          out.writeInt(entry.score());
+          out.writeLong(entry.timeSpentMillis());
+        }
+      }
+
+      @Override
+      public SessionState read(DataInputStream in) throws IOException {
+        int format = in.readByte();
+        if (format != FORMAT_VERSION) {
+          throw new IOException("Unsupported session state format: " + format);
+        }
+        SessionState session = new SessionState(in.readUTF(), in.readLong(), in.readUTF(), in.readLong(), "");
+        session.status.set(Status.valueOf(in.readUTF()));
+        session.statusChangedMillis = in.readLong();
+        session.createdAt = readInstant(in);
+        session.startedAt = readInstant(in);
+        session.finishedAt = readInstant(in);
+        session.participants.clear();
+        session.joinSequence = 0;
+        int participantCount = in.readInt();
+        for (int i = 0; i < participantCount; i++) {
+          long userId = in.readLong();
+          String login = in.readUTF();
+          session.participants.put(userId,
+            new ParticipantInfo(userId, login, readInstant(in), session.joinSequence++));
+        }
+        session.rosterVersion = in.readLong();
+        session.rebuildRoster();
+        int attemptCount = in.readInt();
+        for (int i = 0; i < attemptCount; i++) {
+          session.userAttempts.put(in.readLong(), in.readLong());
+        }
+        session.timedRounds = in.readBoolean();
+        session.round = in.readInt();
+        session.roundCount = in.readInt();
+        session.roundOpenedMillis = in.readLong();
+        session.roundDeadlineMillis = in.readLong();
+        int scoreCount = in.readInt();
+        for (int i = 0; i < scoreCount; i++) {
+          session.scores.put(in.readLong(), in.readInt());
+        }
+        int answeredCount = in.readInt();
+        for (int i = 0; i < answeredCount; i++) {
+          session.answeredThisRound.add(in.readLong());
+        }
+        int millisCount = in.readInt();
+        for (int i = 0; i < millisCount; i++) {
+          session.answerMillis.put(in.readLong(), in.readLong());
+        }
+        int publishedCount = in.readInt();
+        for (int i = 0; i < publishedCount; i++) {
+          long userId = in.readLong();
+          session.published.put(userId,
+            new ScoreEntryDTO(userId, in.readUTF(), in.readInt(), in.readInt(), in.readLong()));
+        }
+        session.ranking = new ArrayList<>(session.scores.keySet());
+        session.ranking.sort(session.rankOrder);
+        session.rebuildScoreboard();
+        return session;
+      }
+    };
+
+    private static void writeInstant(DataOutputStream out, Instant instant) throws IOException {
+      out.writeLong(instant != null ? instant.toEpochMilli() : Long.MIN_VALUE);
+    }
+
+    private static Instant readInstant(DataInputStream in) throws IOException {
+      long millis = in.readLong();
+      return millis != Long.MIN_VALUE ? Instant.ofEpochMilli(millis) : null;
     }
   }
 
@@ -63,29 +525,34 @@ public class MultiplayerService {
    * Информация об участнике сессии
    */
   private static class ParticipantInfo {
-    Long userId;
-    Instant joinedAt;
+    final Long userId;
+    final String login;
+    final Instant joinedAt;
+    // Порядковый номер подключения: участники в списке идут в порядке подключения
+    final long order;
 
-    ParticipantInfo(Long userId, Instant joinedAt) {
+    ParticipantInfo(Long userId, String login, Instant joinedAt, long order) {
       this.userId = userId;
+      this.login = login;
       this.joinedAt = joinedAt;
+      this.order = order;
     }
   }
 
   /**
    * Создает новую сессию для совместного прохождения квиза.
-   * Генерирует уникальный идентификатор сессии.
+   * Генерирует идентификатор сессии; уникальность проверяется при добавлении в хранилище.
    */
   public MultiplayerSessionDTO createMultiplayerSession(CreateMultiplayerRequest request) {
     Long userId = request.userId();
     Long quizId = request.quizId();
 
-    User user = getUserById(userId);
+    User user = userDao.findById(userId);
     if (user == null) {
       throw new RuntimeException("User not found: " + userId);
     }
 
-    Quiz quiz = getQuizById(quizId);
+    Quiz quiz = quizDao.findById(quizId);
     if (quiz == null) {
       throw new RuntimeException("Quiz not found: " + quizId);
     }
@@ -94,22 +561,45 @@ public class MultiplayerService {
       throw new RuntimeException("Quiz is private and not accessible");
     }
 
-    String sessionId = generateSessionId();
-
-    SessionState session = new SessionState(sessionId, quizId, quiz.getName(), userId);
-    sessions.put(sessionId, session);
+    // Сначала атомарно занимается место в общем лимите, затем в лимите хоста;
+    // нулевой лимит означает отсутствие ограничения
+    if (!reserveSessionSlot()) {
+      rejectedCapacity.incrementAndGet();
+      throw new RejectedExecutionException("Session capacity exhausted: " + maxSessions);
+    }
+    boolean hostSlotTaken = false;
+    SessionState session;
+    try {
+      activeByHost.compute(userId, (host, count) -> {
+        int active = count != null ? count : 0;
+        if (maxSessionsPerHost > 0 && active >= maxSessionsPerHost) {
+          rejectedHostLimit.incrementAndGet();
+          throw new RejectedExecutionException("Too many active sessions of host " + host + ": " + active);
+        }
+        return active + 1;
+      });
+      hostSlotTaken = true;
+      do {
+        session = new SessionState(generateSessionId(), quizId, quiz.getName(), userId, user.getLogin());
+      } while (!sessions.putIfAbsent(session.sessionId, session));
+    } catch (RuntimeException e) {
+      liveSessions.decrementAndGet();
+      if (hostSlotTaken) {
+        releaseHostSlot(userId);
+      }
+      throw e;
+    }
+    String sessionId = session.sessionId;
 
     String joinLink = "/multiplayer/join/" + sessionId;
 
-    List<ParticipantDTO> participants = getParticipantsList(session);
-
     return new MultiplayerSessionDTO(
       sessionId,
       quiz.getName(),
       userId,
       joinLink,
-      participants,
-      session.status,
+      session.roster.participants(),
+      session.status().name(),
       LocalDateTime.ofInstant(session.createdAt, ZoneOffset.UTC)
     );
   }
@@ -120,22 +610,28 @@ public class MultiplayerService {
   public MultiplayerSessionDTO getMultiplayerSession(String sessionId) {
     SessionState session = sessions.get(sessionId);
     if (session == null) {
-      throw new RuntimeException("Session not found: " + sessionId);
+      throw new IllegalArgumentException("Session not found: " + sessionId);
     }
 
-    List<ParticipantDTO> participants = getParticipantsList(session);
-
     return new MultiplayerSessionDTO(
       session.sessionId,
       session.quizName,
       session.hostUserId,
       "/multiplayer/join/" + sessionId,
-      participants,
-      session.status,
+      session.roster.participants(),
+      session.status().name(),
       LocalDateTime.ofInstant(session.createdAt, ZoneOffset.UTC)
     );
   }
 
+  /**
+   * Подписывает клиента на события сессии. Первым событием приходит текущее состояние сессии,
+   * прочитанное после регистрации подписчика.
+   */
+  public SseEmitter subscribeToSession(String sessionId) {
+    return eventHub.subscribe(sessionId, "session", () -> getMultiplayerSession(sessionId));
+  }
+
   /**
    * Подключает пользователя к сессии.
    */
@@ -148,21 +644,69 @@ public class MultiplayerService {
       throw new RuntimeException("Session not found: " + sessionId);
     }
 
-    if (!"WAITING".equals(session.status)) {
-      throw new IllegalStateException("Session is not in WAITING state. Current status: " + session.status);
+    if (session.status() != Status.WAITING) {
+      throw new IllegalStateException("Session is not in WAITING state. Current status: " + session.status());
+    }
+
+    if (session.hasParticipant(userId)) {
+      return true;
     }
 
-    User user = getUserById(userId);
+    User user = userDao.findById(userId);
     if (user == null) {
       throw new RuntimeException("User not found: " + userId);
     }
 
-    if (session.participants.containsKey(userId)) {
-      return true;
+    Instant joinedAt = Instant.now();
+    Integer participantCount = sessions.update(sessionId, current -> {
+      if (maxParticipants > 0 && current.participants.size() >= maxParticipants
+        && !current.participants.containsKey(userId)) {
+        return SESSION_FULL;
+      }
+      return current.join(userId, user.getLogin(), joinedAt) ? current.participants.size() : -1;
+    });
+    if (participantCount != null && participantCount == SESSION_FULL) {
+      rejectedFull.incrementAndGet();
+      throw new IllegalStateException("Session is full: " + maxParticipants + " participants");
     }
 
-    session.participants.put(userId, new ParticipantInfo(userId, Instant.now()));
+    if (participantCount != null && participantCount > 0) {
+      ParticipantDTO participant = new ParticipantDTO(
+        userId, user.getLogin(), LocalDateTime.ofInstant(joinedAt, ZoneOffset.UTC));
+      eventHub.publish(sessionId, "join",
+        new SessionEventDTO("join", sessionId, Status.WAITING.name(), participant, userId, participantCount));
+    }
+
+    return true;
+  }
+
+  /**
+   * Отключает участника от сессии, пока она не запущена. Хост не может выйти из сессии,
+   * он может только отменить ее.
+   */
+  public boolean leaveMultiplayerSession(LeaveMultiplayerRequest request) {
+    Long userId = request.userId();
+    String sessionId = request.sessionId();
+
+    Integer participantCount = sessions.update(sessionId, current -> {
+      if (current.hostUserId.equals(userId)) {
+        throw new IllegalStateException("Host cannot leave the session");
+      }
+      if (current.status() != Status.WAITING) {
+        throw new IllegalStateException("Session is not in WAITING state. Current status: " + current.status());
+      }
+      return current.leave(userId) ? current.participants.size() : -1;
+    });
+
+    if (participantCount == null) {
+      throw new RuntimeException("Session not found: " + sessionId);
+    }
+    if (participantCount < 0) {
+      return false;
+    }
 
+    eventHub.publish(sessionId, "leave",
+      new SessionEventDTO("leave", sessionId, Status.WAITING.name(), null, userId, participantCount));
     return true;
   }
 
@@ -172,16 +716,38 @@ public class MultiplayerService {
   public ParticipantsDTO getSessionParticipants(String sessionId) {
     SessionState session = sessions.get(sessionId);
     if (session == null) {
-      throw new RuntimeException("Session not found: " + sessionId);
+      throw new IllegalArgumentException("Session not found: " + sessionId);
     }
 
-    List<ParticipantDTO> participants = getParticipantsList(session);
+    return session.roster;
+  }
 
-    return new ParticipantsDTO(
-      sessionId,
-      participants,
-      participants.size()
-    );
+  /**
+   * Таблица счета сессии: в игре по раундам — после последнего закрытого раунда,
+   * без раундов — после последнего ответа.
+   */
+  public ScoreboardDTO getScoreboard(String sessionId) {
+    SessionState session = sessions.get(sessionId);
+    if (session == null) {
+      throw new IllegalArgumentException("Session not found: " + sessionId);
+    }
+
+    return new ScoreboardDTO(sessionId, session.round, session.scoreboard, false);
+  }
+
+  /**
+   * ID попытки участника в запущенной сессии: в игре без раундов участник отвечает через нее.
+   */
+  public Long getSessionAttempt(String sessionId, Long userId) {
+    SessionState session = sessions.get(sessionId);
+    if (session == null) {
+      throw new IllegalArgumentException("Session not found: " + sessionId);
+    }
+    Long attemptId = session.userAttempts.get(userId);
+    if (attemptId == null) {
+      throw new IllegalStateException("User is not a participant of the game");
+    }
+    return attemptId;
   }
 
   /**
@@ -201,26 +767,70 @@ public class MultiplayerService {
       throw new RuntimeException("Access denied: Only host can start the session");
     }
 
-    if (!"WAITING".equals(session.status)) {
-      throw new IllegalStateException("Session cannot be started. Current status: " + session.status);
+    if (session.status() != Status.WAITING) {
+      throw new IllegalStateException("Session cannot be started. Current status: " + session.status());
     }
 
-    if (session.participants.size() < 1) {
-      throw new IllegalStateException("Not enough participants to start session. Minimum: 1");
+    boolean timedRounds = Boolean.TRUE.equals(request.timedRounds());
+    QuizSnapshot quiz = quizSnapshotCache.get(session.quizId);
+    if (quiz == null || quiz.getQuestions().isEmpty()) {
+      throw new IllegalStateException("Quiz has no questions");
     }
+    int totalRounds = timedRounds ? quiz.getQuestions().size() : 0;
 
+    // Состав фиксируется переходом в STARTING: подключение, пришедшее после снимка списка
+    // участников, будет отклонено, а не останется без попытки
+    Boolean claimed = sessions.update(sessionId, current -> current.transition(Status.WAITING, Status.STARTING));
+    if (claimed == null) {
+      throw new RuntimeException("Session not found: " + sessionId);
+    }
+    if (!claimed) {
+      throw new IllegalStateException("Session cannot be started. Current status: " + currentStatus(sessionId));
+    }
+    List<ParticipantDTO> participants = sessions.get(sessionId).roster.participants();
+
+    // Попытки всех участников создаются одним оператором: при ошибке сессия возвращается в WAITING
     Instant startTime = Instant.now();
-    for (Long userId : session.participants.keySet()) {
-      try {
-        Long attemptId = createAttempt(userId, session.quizId, startTime);
-        session.userAttempts.put(userId, attemptId);
-      } catch (Exception e) {
-        System.err.println("Error creating attempt for user " + userId + ": " + e.getMessage());
+    List<Long> userIds = new ArrayList<>(participants.size());
+    Map<Long, String> logins = new HashMap<>();
+    for (ParticipantDTO participant : participants) {
+      userIds.add(participant.userId());
+      logins.put(participant.userId(), participant.username());
+    }
+    Map<Long, Long> userAttempts;
+    try {
+      userAttempts = attemptDao.createForUsers(userIds, session.quizId, startTime);
+    } catch (RuntimeException e) {
+      sessions.update(sessionId, current -> current.transition(Status.STARTING, Status.WAITING));
+      throw e;
+    }
+
+    sessions.update(sessionId, current -> {
+      if (!current.transition(Status.STARTING, Status.STARTED)) {
+        throw new IllegalStateException("Session was cancelled while starting");
       }
+      current.userAttempts.putAll(userAttempts);
+      current.startedAt = startTime;
+      current.timedRounds = timedRounds;
+      current.round = 0;
+      current.roundCount = totalRounds;
+      current.initScoreboard(userAttempts.keySet());
+      return true;
+    });
+
+    // Без раундов участники проходят квиз как обычные попытки, ответы обновляют таблицу счета сессии
+    if (!timedRounds) {
+      attemptService.startSessionAttempts(sessionId, quiz, userAttempts, logins, startTime);
     }
 
-    session.status = "STARTED";
-    session.startedAt = startTime;
+    eventHub.publish(sessionId, "start",
+      new SessionEventDTO("start", sessionId, Status.STARTED.name(), null, null, participants.size()));
+
+    // Первый вопрос открывается после короткой паузы, чтобы клиенты успели получить событие start
+    if (timedRounds) {
+      scheduleAfterCommit("opening round 0 of " + sessionId,
+        () -> openRound(sessionId, 0), TimeUnit.SECONDS.toMillis(roundPauseSeconds));
+    }
 
     return true;
   }
@@ -234,19 +844,40 @@ public class MultiplayerService {
       throw new RuntimeException("Session not found: " + sessionId);
     }
 
-    if (!"FINISHED".equals(session.status)) {
-      throw new IllegalStateException("Session is not finished yet. Current status: " + session.status);
+    if (session.status() != Status.FINISHED) {
+      throw new IllegalStateException("Session is not finished yet. Current status: " + session.status());
     }
 
-    List<PlayerResult> results = new ArrayList<>();
-    for (Map.Entry<Long, Long> entry : session.userAttempts.entrySet()) {
-      Long userId = entry.getKey();
-      Long attemptId = entry.getValue();
+    // Итоги игры в раундах берутся из таблицы счета сессии без обращений к БД
+    if (session.timedRounds) {
+      List<PlayerResult> results = new ArrayList<>();
+      for (ScoreEntryDTO entry : session.scoreboard) {
+        results.add(new PlayerResult(
+          entry.position(),
+          entry.username(),
+          entry.score(),
+          TimeUnit.MILLISECONDS.toSeconds(entry.timeSpentMillis())
+        ));
+      }
+      return new MultiplayerResultsDTO(
+        sessionId,
+        results,
+        results.isEmpty() ? null : 1,
+        session.quizName,
+        session.finishedAt != null ? LocalDateTime.ofInstant(session.finishedAt, ZoneOffset.UTC) : null
+      );
+    }
+
+    Map<Long, String> usernames = new HashMap<>();
+    for (ParticipantDTO participant : session.roster.participants()) {
+      usernames.put(participant.userId(), participant.username());
+    }
 
-      UserQuizAttempt attempt = getAttemptById(attemptId);
-      if (attempt != null && attempt.isCompleted()) {
-        User user = getUserById(userId);
-        String username = user != null ? user.getLogin() : "Unknown";
+    // Попытки всех участников читаются одним запросом
+    List<PlayerResult> results = new ArrayList<>();
+    for (UserQuizAttempt attempt : attemptDao.findByIds(session.userAttempts.values())) {
+      if (attempt.isCompleted()) {
+        String username = usernames.getOrDefault(attempt.getUser().getId(), "Unknown");
 
         long timeSpent = 0;
         if (attempt.getStartTime() != null && attempt.getFinishTime() != null) {
@@ -308,12 +939,16 @@ public class MultiplayerService {
       throw new RuntimeException("Access denied: Only host can cancel the session");
     }
 
-    if ("CANCELLED".equals(session.status) || "FINISHED".equals(session.status)) {
+    Boolean cancelled = sessions.update(sessionId, SessionState::cancel);
+
+    if (!Boolean.TRUE.equals(cancelled)) {
       return false;
     }
+    releaseHostSlot(session.hostUserId);
 
-    session.status = "CANCELLED";
-
+    eventHub.publish(sessionId, "cancel",
+      new SessionEventDTO("cancel", sessionId, Status.CANCELLED.name(), null, null, session.roster.totalCount()));
+    eventHub.close(sessionId);
     return true;
   }
 
@@ -321,168 +956,366 @@ public class MultiplayerService {
    * Помечает сессию как завершенную (вызывается после завершения всех попыток).
    */
   public void markSessionAsFinished(String sessionId) {
+    Instant finishedAt = Instant.now();
+    Integer participantCount = sessions.update(sessionId, session -> {
+      if (!session.transition(Status.STARTED, Status.FINISHED)) {
+        return -1;
+      }
+      session.finishedAt = finishedAt;
+      return session.participants.size();
+    });
+
+    if (participantCount != null && participantCount >= 0) {
+      SessionState session = sessions.get(sessionId);
+      if (session != null) {
+        releaseHostSlot(session.hostUserId);
+      }
+      eventHub.publish(sessionId, "finish",
+        new SessionEventDTO("finish", sessionId, Status.FINISHED.name(), null, null, participantCount));
+      eventHub.close(sessionId);
+    }
+  }
+
+  /**
+   * Принимает ответ участника на открытый вопрос раунда. Правильный ответ раскрывается
+   * всем участникам при закрытии раунда; раунд закрывается досрочно, когда ответили все.
+   *
+   * @return false, если пользователь уже ответил в этом раунде
+   */
+  public boolean submitRoundAnswer(RoundAnswerRequest request) {
+    String sessionId = request.sessionId();
+    Long userId = request.userId();
+
     SessionState session = sessions.get(sessionId);
-    if (session != null && "STARTED".equals(session.status)) {
-      session.status = "FINISHED";
-      session.finishedAt = Instant.now();
+    if (session == null) {
+      throw new RuntimeException("Session not found: " + sessionId);
+    }
+    if (!session.timedRounds) {
+      throw new IllegalStateException("Session is not played in timed rounds");
+    }
+
+    QuizSnapshot quiz = quizSnapshotCache.get(session.quizId);
+    if (quiz == null) {
+      throw new RuntimeException("Quiz not found: " + session.quizId);
+    }
+
+    long now = System.currentTimeMillis();
+    RoundAnswer answer = sessions.update(sessionId, current -> {
+      if (current.status() != Status.STARTED || current.roundOpenedMillis == 0 || now > current.roundDeadlineMillis) {
+        throw new IllegalStateException("No open question in session");
+      }
+      if (current.round >= quiz.getQuestions().size()) {
+        // Вопросы квиза удалили во время игры
+        return QUESTION_MISSING;
+      }
+      QuizSnapshot.QuestionSnapshot question = quiz.getQuestions().get(current.round);
+      if (!question.id().equals(request.questionId())) {
+        throw new IllegalStateException("Question ID does not match current question");
+      }
+      Long attemptId = current.userAttempts.get(userId);
+      if (attemptId == null) {
+        throw new IllegalStateException("User is not a participant of the game");
+      }
+      if (!current.answeredThisRound.add(userId)) {
+        return new RoundAnswer(false, attemptId, false, current.round, false);
+      }
+      boolean correct = question.correctOptionId() != null && question.correctOptionId().equals(request.answerOptionId());
+      current.recordScore(userId, correct, now - current.roundOpenedMillis);
+      boolean everyoneAnswered = current.answeredThisRound.size() >= current.userAttempts.size();
+      return new RoundAnswer(true, attemptId, correct, current.round, everyoneAnswered);
+    });
+    if (answer == null) {
+      throw new RuntimeException("Session not found: " + sessionId);
+    }
+    if (answer == QUESTION_MISSING) {
+      // Запрос завершится ошибкой и транзакция откатится, поэтому завершение планируется сразу
+      roundTimer.schedule("finishing " + sessionId, () -> finishTimedSession(sessionId), 0);
+      throw new IllegalStateException("No open question in session");
+    }
+    if (!answer.accepted()) {
+      return false;
+    }
+
+    answerWriteBehind.enqueue(new AttemptAnswerDao.AnswerRecord(
+      answer.attemptId(), request.questionId(), request.answerOptionId(), answer.correct(), Instant.ofEpochMilli(now)));
+
+    if (answer.everyoneAnswered()) {
+      int round = answer.round();
+      scheduleAfterCommit("closing round " + round + " of " + sessionId, () -> closeRound(sessionId, round), 0);
+    }
+    return true;
+  }
+
+  /**
+   * Учитывает ответ участника игры без раундов и рассылает изменившиеся места.
+   * Вызывается из AttemptService после ответа в попытке сессии; время ответа
+   * отсчитывается от начала игры.
+   */
+  private void recordUntimedAnswer(String sessionId, long userId, boolean correct, long answeredAtMillis) {
+    List<ScoreEntryDTO> changes = sessions.update(sessionId, current -> {
+      if (current.status() != Status.STARTED || current.timedRounds || !current.userAttempts.containsKey(userId)) {
+        return null;
+      }
+      long elapsed = answeredAtMillis - current.startedAt.toEpochMilli();
+      current.recordScore(userId, correct, Math.max(0, elapsed - current.answerMillis.getOrDefault(userId, 0L)));
+      return current.publishScoreboard();
+    });
+    if (changes != null && !changes.isEmpty()) {
+      eventHub.publish(sessionId, "scoreboard", new ScoreboardDTO(sessionId, 0, changes, true));
     }
   }
 
-  // Вспомогательные методы
+  private static final int SESSION_FULL = -2;
+
+  private record RoundClose(int roundCount, List<ScoreEntryDTO> changes) {}
+
+  private record RoundAnswer(boolean accepted, Long attemptId, boolean correct, int round, boolean everyoneAnswered) {}
+
+  private static final RoundAnswer QUESTION_MISSING = new RoundAnswer(false, null, false, -1, false);
 
   /**
-   * Генерирует уникальный идентификатор сессии.
+   * Открывает вопрос раунда всем участникам и планирует его закрытие.
+   * Вызывается таймером; повторный или устаревший вызов ничего не меняет.
    */
-  private String generateSessionId() {
-    String sessionId;
-    do {
-      sessionId = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    } while (sessions.containsKey(sessionId));
-    return sessionId;
+  void openRound(String sessionId, int round) {
+    SessionState session = sessions.get(sessionId);
+    if (session == null) {
+      return;
+    }
+    QuizSnapshot quiz = quizSnapshotCache.get(session.quizId);
+    if (quiz == null || round >= quiz.getQuestions().size()) {
+      scheduleFinish(sessionId);
+      return;
+    }
+    long roundMillis = TimeUnit.SECONDS.toMillis(
+      quiz.getTimeLimitSeconds() != null ? quiz.getTimeLimitSeconds() : defaultRoundSeconds);
+
+    long now = System.currentTimeMillis();
+    Long deadline = sessions.update(sessionId, current -> {
+      if (current.status() != Status.STARTED || current.round != round || current.roundOpenedMillis != 0) {
+        return null;
+      }
+      current.roundOpenedMillis = now;
+      current.roundDeadlineMillis = now + roundMillis;
+      current.answeredThisRound.clear();
+      return current.roundDeadlineMillis;
+    });
+    if (deadline == null) {
+      return;
+    }
+
+    eventHub.publish(sessionId, "question", new RoundEventDTO("question", sessionId, round, session.roundCount,
+      quiz.getQuestions().get(round).dto(), deadline, null, null));
+    scheduleAfterCommit("closing round " + round + " of " + sessionId, () -> closeRound(sessionId, round), roundMillis);
   }
 
   /**
-   * Получает список участников в формате DTO.
+   * Закрывает раунд, раскрывает правильный ответ и планирует следующий раунд или завершение.
+   * Срабатывает по таймеру или досрочно, когда ответили все участники; второй вызов ничего не меняет.
    */
-  private List<ParticipantDTO> getParticipantsList(SessionState session) {
-    return session.participants.values().stream()
-      .map(participant -> {
-        User user = getUserById(participant.userId);
-        String username = user != null ? user.getLogin() : "Unknown";
-        return new ParticipantDTO(
-          participant.userId,
-          username,
-          LocalDateTime.ofInstant(participant.joinedAt, ZoneOffset.UTC)
-        );
-      })
-      .sorted(Comparator.comparing(ParticipantDTO::joinedAt))
-      .collect(Collectors.toList());
-  }
-
-  // Операции с базой данных
-
-  private User getUserById(Long userId) {
-    String sql = "SELECT id, login, password FROM users WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, userId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          User user = new User();
-          user.setId(rs.getLong("id"));
-          user.setLogin(rs.getString("login"));
-          user.setPassword(rs.getString("password"));
-          return user;
-        }
+  void closeRound(String sessionId, int round) {
+    RoundClose closed = sessions.update(sessionId, current -> {
+      if (current.status() != Status.STARTED || current.round != round || current.roundOpenedMillis == 0) {
+        return null;
       }
-    } catch (SQLException e) {
-      System.err.println("Error fetching user: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private Quiz getQuizById(Long quizId) {
-    String sql = "SELECT q.id, q.name, q.prompt, q.created_by, q.has_material, q.material_url, " +
-      "q.question_number, q.time_per_question_seconds, q.is_private, q.is_static, q.created_at, " +
-      "u.id as user_id, u.login " +
-      "FROM quizzes q " +
-      "LEFT JOIN users u ON q.created_by = u.id " +
-      "WHERE q.id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("id"));
-          quiz.setName(rs.getString("name"));
-          quiz.setPrompt(rs.getString("prompt"));
-          User creator = new User();
-          creator.setId(rs.getLong("user_id"));
-          creator.setLogin(rs.getString("login"));
-          quiz.setCreatedBy(creator);
-          quiz.setHasMaterial(rs.getBoolean("has_material"));
-          quiz.setMaterialUrl(rs.getString("material_url"));
-          quiz.setQuestionNumber(rs.getObject("question_number", Integer.class));
-
-          Integer seconds = rs.getObject("time_per_question_seconds", Integer.class);
-          if (seconds != null) {
-            quiz.setTimePerQuestion(java.time.Duration.ofSeconds(seconds));
-          }
+      current.round++;
+      current.roundOpenedMillis = 0;
+      current.roundDeadlineMillis = 0;
+      current.answeredThisRound.clear();
+      return new RoundClose(current.roundCount, current.publishScoreboard());
+    });
+    if (closed == null) {
+      return;
+    }
+    int roundCount = closed.roundCount();
+
+    SessionState session = sessions.get(sessionId);
+    QuizSnapshot quiz = session != null ? quizSnapshotCache.get(session.quizId) : null;
+    if (quiz != null && round < quiz.getQuestions().size()) {
+      QuizSnapshot.QuestionSnapshot question = quiz.getQuestions().get(round);
+      eventHub.publish(sessionId, "round-end", new RoundEventDTO("round-end", sessionId, round, roundCount,
+        null, null, question.correctOptionId(), question.explanation()));
+    }
+    if (!closed.changes().isEmpty()) {
+      eventHub.publish(sessionId, "scoreboard", new ScoreboardDTO(sessionId, round, closed.changes(), true));
+    }
+
+    int next = round + 1;
+    if (next < roundCount) {
+      scheduleAfterCommit("opening round " + next + " of " + sessionId,
+        () -> openRound(sessionId, next), TimeUnit.SECONDS.toMillis(roundPauseSeconds));
+    } else {
+      scheduleFinish(sessionId);
+    }
+  }
+
+  /**
+   * Завершает попытки всех участников с набранным счетом и переводит сессию в FINISHED.
+   * Запись ответов участников ожидается вне транзакции, завершение выполняется одной транзакцией.
+   */
+  private void finishTimedSession(String sessionId) {
+    SessionState session = sessions.get(sessionId);
+    if (session == null || session.status() != Status.STARTED) {
+      return;
+    }
+    if (!answerWriteBehind.flush(session.userAttempts.values())) {
+      System.err.println("Answers of session " + sessionId + " are still pending after flush timeout");
+    }
+    Map<Long, Long> attemptScores = new HashMap<>();
+    for (Map.Entry<Long, Long> entry : session.userAttempts.entrySet()) {
+      attemptScores.put(entry.getValue(), (long) session.scores.getOrDefault(entry.getKey(), 0));
+    }
+    transactionTemplate.executeWithoutResult(status -> {
+      attemptDao.finishAll(attemptScores, Instant.now());
+      markSessionAsFinished(sessionId);
+    });
+  }
 
-          quiz.setPrivate(rs.getBoolean("is_private"));
-          quiz.setStatic(rs.getBoolean("is_static"));
+  /**
+   * Планирует завершение сессии после коммита текущей транзакции.
+   */
+  private void scheduleFinish(String sessionId) {
+    afterCommit(() -> roundTimer.schedule("finishing " + sessionId, () -> finishTimedSession(sessionId), 0));
+  }
 
-          java.time.OffsetDateTime odt = rs.getObject("created_at", java.time.OffsetDateTime.class);
-          quiz.setCreatedAt(odt != null ? odt.toInstant() : null);
+  /**
+   * Планирует задачу таймера после коммита текущей транзакции, чтобы задача
+   * увидела уже записанное состояние сессии. Задача выполняется в собственной транзакции:
+   * ее изменения фиксируются вместе, а события публикуются после коммита.
+   */
+  private void scheduleAfterCommit(String description, Runnable task, long delayMillis) {
+    Runnable transactional = inTransaction(task);
+    afterCommit(() -> roundTimer.schedule(description, transactional, delayMillis));
+  }
 
-          return quiz;
+  private void afterCommit(Runnable action) {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          action.run();
         }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching quiz: " + e.getMessage());
+      });
+    } else {
+      action.run();
     }
-    return null;
   }
 
-  private Long createAttempt(Long userId, Long quizId, Instant startTime) {
-    String sql = "INSERT INTO \"UserQuizAttempt\" (user_id, quiz_id, start_time, finish_time, score, is_completed) " +
-      "VALUES (?, ?, ?, ?, ?, ?) RETURNING id";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, userId);
-      statement.setLong(2, quizId);
-      statement.setTimestamp(3, Timestamp.from(startTime));
-      statement.setTimestamp(4, Timestamp.from(startTime));
-      statement.setLong(5, 0L);
-      statement.setBoolean(6, false);
+  private Runnable inTransaction(Runnable task) {
+    return () -> transactionTemplate.executeWithoutResult(status -> task.run());
+  }
 
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          return rs.getLong("id");
+  /**
+   * Удаляет сессии, пробывшие в текущем состоянии дольше срока для него, и пересчитывает
+   * число сессий по состояниям и по хостам. Незавершенная игра при удалении отменяется:
+   * подписчики получают событие cancel, попытки участников фиксируются как незавершенные.
+   * Игра без раундов переводится в FINISHED, когда все участники завершили свои попытки.
+   */
+  void reap() {
+    try {
+      long now = System.currentTimeMillis();
+      Map<Status, Integer> counts = new EnumMap<>(Status.class);
+      Map<Long, Integer> hosts = new ConcurrentHashMap<>();
+      Map<String, Collection<Long>> untimed = new HashMap<>();
+      List<SessionState> removed = sessions.removeIf(session -> {
+        Status status = session.status();
+        if (now - session.statusChangedMillis > ttlMillis(status)) {
+          return true;
+        }
+        counts.merge(status, 1, Integer::sum);
+        if (status == Status.WAITING || status == Status.STARTING || status == Status.STARTED) {
+          hosts.merge(session.hostUserId, 1, Integer::sum);
+        }
+        if (status == Status.STARTED && !session.timedRounds) {
+          untimed.put(session.sessionId, List.copyOf(session.userAttempts.values()));
+        }
+        return false;
+      });
+      statusCounts = counts;
+      activeByHost = hosts;
+      liveSessions.set(counts.values().stream().mapToInt(Integer::intValue).sum());
+
+      for (Map.Entry<String, Collection<Long>> entry : untimed.entrySet()) {
+        try {
+          if (attemptDao.countIncomplete(entry.getValue()) == 0) {
+            inTransaction(() -> markSessionAsFinished(entry.getKey())).run();
+          }
+        } catch (RuntimeException e) {
+          System.err.println("Error checking attempts of session " + entry.getKey() + ": " + e.getMessage());
         }
       }
-    } catch (SQLException e) {
-      System.err.println("Error creating attempt: " + e.getMessage());
-      throw new RuntimeException("Failed to create attempt", e);
-    }
-    return null;
-  }
-
-  private UserQuizAttempt getAttemptById(Long attemptId) {
-    String sql = "SELECT id, user_id, quiz_id, start_time, finish_time, score, is_completed " +
-      "FROM user_quiz_attempts WHERE id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, attemptId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          UserQuizAttempt attempt = new UserQuizAttempt();
-          attempt.setId(rs.getLong("id"));
-          User user = new User();
-          user.setId(rs.getLong("user_id"));
-          attempt.setUser(user);
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("quiz_id"));
-          attempt.setQuiz(quiz);
-          attempt.setStartTime(rs.getTimestamp("start_time").toInstant());
-          Timestamp finishTime = rs.getTimestamp("finish_time");
-          attempt.setFinishTime(finishTime != null ? finishTime.toInstant() : null);
-          attempt.setScore(rs.getLong("score"));
-          attempt.setCompleted(rs.getBoolean("is_completed"));
-          return attempt;
+
+      for (SessionState session : removed) {
+        reaped.incrementAndGet();
+        Status status = session.status();
+        if (status == Status.STARTED) {
+          finalizeAbandoned(session);
+        }
+        if (status != Status.FINISHED && status != Status.CANCELLED) {
+          eventHub.publish(session.sessionId, "cancel", new SessionEventDTO("cancel", session.sessionId,
+            Status.CANCELLED.name(), null, null, session.roster.totalCount()));
         }
+        eventHub.close(session.sessionId);
+      }
+    } catch (RuntimeException e) {
+      System.err.println("Error reaping multiplayer sessions: " + e.getMessage());
+    }
+  }
+
+  private long ttlMillis(Status status) {
+    long minutes = switch (status) {
+      case WAITING, STARTING -> waitingTtlMinutes;
+      case STARTED -> startedTtlMinutes;
+      case FINISHED -> finishedTtlMinutes;
+      case CANCELLED -> cancelledTtlMinutes;
+    };
+    return TimeUnit.MINUTES.toMillis(minutes);
+  }
+
+  /**
+   * Фиксирует попытки брошенной игры в БД как незавершенные с набранным счетом.
+   * Попытки, которые участники успели завершить сами, не меняются.
+   */
+  private void finalizeAbandoned(SessionState session) {
+    Instant finishTime = Instant.now();
+    for (Map.Entry<Long, Long> entry : session.userAttempts.entrySet()) {
+      try {
+        attemptDao.updateIfIncomplete(entry.getValue(), finishTime, (long) session.scores.getOrDefault(entry.getKey(), 0));
+      } catch (RuntimeException e) {
+        System.err.println("Error finalizing abandoned attempt " + entry.getValue() + ": " + e.getMessage());
       }
-    } catch (SQLException e) {
-      System.err.println("Error fetching attempt: " + e.getMessage());
     }
-    return null;
   }
 
-  private Connection getConnection() throws SQLException {
-    String url = "jdbc:postgresql://localhost:5432/quizarena";
-    String username = "quizuser";
-    String password = "quizpass";
-    return DriverManager.getConnection(url, username, password);
+  /**
+   * Занимает место под новую сессию, если общий лимит не исчерпан.
+   */
+  private boolean reserveSessionSlot() {
+    int live;
+    do {
+      live = liveSessions.get();
+      if (maxSessions > 0 && live >= maxSessions) {
+        return false;
+      }
+    } while (!liveSessions.compareAndSet(live, live + 1));
+    return true;
+  }
+
+  private void releaseHostSlot(Long hostUserId) {
+    activeByHost.computeIfPresent(hostUserId, (host, count) -> count > 1 ? count - 1 : null);
+  }
+
+  // Вспомогательные методы
+
+  private String currentStatus(String sessionId) {
+    SessionState session = sessions.get(sessionId);
+    return session != null ? session.status().name() : "REMOVED";
+  }
+
+  /**
+   * Генерирует идентификатор сессии; уникальность проверяется при добавлении в хранилище.
+   */
+  private String generateSessionId() {
+    return UUID.randomUUID().toString().substring(0, 8).toUpperCase();
   }
 }
@@ -0,0 +1,366 @@
+package org.example.service;
+
+import org.example.dao.SharedStateDao;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.*;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Общее для всех экземпляров приложения хранилище состояния в таблице shared_state.
+ * Перед таблицей стоит ближний кеш декодированных значений: при чтении сверяется версия,
+ * содержимое передается и декодируется заново, только если запись изменил другой экземпляр.
+ * Чтение не блокирует строку; время обращения отмечается пакетно вне транзакций вызывающего
+ * кода (flushTouches). Ближний кеш пополняется только после фиксации транзакции, чтобы
+ * откат не оставил в нем версию, которой нет в таблице. Изменения выполняются как
+ * compare-and-set по версии с повтором при конфликте.
+ */
+public class PostgresStateStore<K, V> implements StateStore<K, V> {
+  private static final int MAX_UPDATE_ATTEMPTS = 10;
+  private static final long NO_VERSION = -1;
+  // Лимит по числу записей проверяется не чаще раза в секунду: запрос сортирует всю область
+  private static final long TRIM_INTERVAL_MILLIS = 1000;
+  private static final int TOUCH_BATCH_SIZE = 1000;
+
+  private record Cached<V>(long version, byte[] payload, V value) {}
+
+  private final SharedStateDao sharedStateDao;
+  private final String namespace;
+  private final StateCodec<V> codec;
+  private final int nearCacheSize;
+
+  private final AtomicLong nearHits = new AtomicLong();
+  private final AtomicLong nearMisses = new AtomicLong();
+  private final AtomicLong conflicts = new AtomicLong();
+  private final AtomicLong lastTrimMillis = new AtomicLong();
+
+  private final LinkedHashMap<String, Cached<V>> nearCache;
+  private final Set<String> touched = ConcurrentHashMap.newKeySet();
+
+  public PostgresStateStore(SharedStateDao sharedStateDao, String namespace, StateCodec<V> codec, int nearCacheSize) {
+    this.sharedStateDao = sharedStateDao;
+    this.namespace = namespace;
+    this.codec = codec;
+    this.nearCacheSize = nearCacheSize;
+    this.nearCache = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Cached<V>> eldest) {
+        return size() > PostgresStateStore.this.nearCacheSize;
+      }
+    };
+  }
+
+  @Override
+  public V get(K key) {
+    Cached<V> cached = load(String.valueOf(key));
+    return cached != null ? cached.value : null;
+  }
+
+  @Override
+  public void put(K key, V value) {
+    String stateKey = String.valueOf(key);
+    byte[] payload = encode(value);
+    long version = sharedStateDao.upsert(namespace, stateKey, payload);
+    cacheAfterCommit(stateKey, new Cached<>(version, payload, value));
+  }
+
+  @Override
+  public boolean putIfAbsent(K key, V value) {
+    String stateKey = String.valueOf(key);
+    byte[] payload = encode(value);
+    long version = sharedStateDao.insertIfAbsent(namespace, stateKey, payload);
+    if (version == NO_VERSION) {
+      return false;
+    }
+    cacheAfterCommit(stateKey, new Cached<>(version, payload, value));
+    return true;
+  }
+
+  @Override
+  public <R> R update(K key, Function<V, R> mutation) {
+    String stateKey = String.valueOf(key);
+    Cached<V> base = cached(stateKey);
+    for (int attempt = 0; attempt < MAX_UPDATE_ATTEMPTS; attempt++) {
+      if (base == null) {
+        base = load(stateKey);
+        if (base == null) {
+          return null;
+        }
+      }
+      // Изменение применяется к копии, чтобы при конфликте кешированное значение осталось нетронутым
+      V copy = decode(base.payload);
+      if (copy == null) {
+        remove(key);
+        return null;
+      }
+      R result = mutation.apply(copy);
+      byte[] payload = encode(copy);
+      long version = sharedStateDao.compareAndSet(namespace, stateKey, base.version, payload);
+      if (version != NO_VERSION) {
+        cacheAfterCommit(stateKey, new Cached<>(version, payload, copy));
+        return result;
+      }
+      conflicts.incrementAndGet();
+      evict(stateKey);
+      base = null;
+    }
+    throw new IllegalStateException("Too many concurrent updates of " + namespace + " " + stateKey);
+  }
+
+  @Override
+  public boolean remove(K key) {
+    String stateKey = String.valueOf(key);
+    evict(stateKey);
+    return sharedStateDao.delete(namespace, stateKey);
+  }
+
+  @Override
+  public List<V> removeExpired(Duration idleTtl, Duration absoluteTtl) {
+    return evicted(sharedStateDao.deleteExpired(namespace, idleTtl, absoluteTtl));
+  }
+
+  @Override
+  public List<V> removeIf(Predicate<V> condition) {
+    List<V> removed = new ArrayList<>();
+    for (SharedStateDao.KeyedStateRow row : sharedStateDao.findAll(namespace)) {
+      V value;
+      try {
+        value = decode(row.payload());
+      } catch (UncheckedIOException e) {
+        value = null;
+      }
+      if (value == null) {
+        // Запись в устаревшем или поврежденном формате никто не сможет прочитать
+        sharedStateDao.deleteVersion(namespace, row.key(), row.version());
+        evict(row.key());
+        continue;
+      }
+      if (!condition.test(value)) {
+        continue;
+      }
+      // Удаление по версии: запись, измененная после чтения, остается до следующего обхода
+      if (sharedStateDao.deleteVersion(namespace, row.key(), row.version())) {
+        evict(row.key());
+        removed.add(value);
+      }
+    }
+    return removed;
+  }
+
+  @Override
+  public List<V> trimTo(int maxEntries) {
+    long now = System.currentTimeMillis();
+    long last = lastTrimMillis.get();
+    if (now - last < TRIM_INTERVAL_MILLIS || !lastTrimMillis.compareAndSet(last, now)) {
+      return List.of();
+    }
+    return evicted(sharedStateDao.deleteOldest(namespace, maxEntries));
+  }
+
+  @Override
+  public int size() {
+    return sharedStateDao.count(namespace);
+  }
+
+  @Override
+  public long estimatedBytes() {
+    return sharedStateDao.totalBytes(namespace);
+  }
+
+  public long nearHits() {
+    return nearHits.get();
+  }
+
+  public long nearMisses() {
+    return nearMisses.get();
+  }
+
+  public long conflicts() {
+    return conflicts.get();
+  }
+
+  public int nearCacheSize() {
+    synchronized (nearCache) {
+      return nearCache.size();
+    }
+  }
+
+  /**
+   * Отмечает в таблице обращения, накопленные с прошлого вызова.
+   * Вызывается по расписанию из StateStoreFactory, каждый пакет — отдельный короткий запрос.
+   */
+  public void flushTouches() {
+    if (touched.isEmpty()) {
+      return;
+    }
+    List<String> batch = new ArrayList<>(Math.min(touched.size(), TOUCH_BATCH_SIZE));
+    Iterator<String> iterator = touched.iterator();
+    while (iterator.hasNext()) {
+      batch.add(iterator.next());
+      iterator.remove();
+      if (batch.size() == TOUCH_BATCH_SIZE || !iterator.hasNext()) {
+        sharedStateDao.touchAll(namespace, batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Читает запись из таблицы, используя кешированное значение, если его версия актуальна.
+   */
+  private Cached<V> load(String stateKey) {
+    Cached<V> cached = cached(stateKey);
+    SharedStateDao.StateRow row = sharedStateDao.read(namespace, stateKey,
+      cached != null ? cached.version : NO_VERSION);
+    if (row == null) {
+      evict(stateKey);
+      return null;
+    }
+    touched.add(stateKey);
+    if (cached != null && row.payload() == null) {
+      nearHits.incrementAndGet();
+      return cached;
+    }
+    nearMisses.incrementAndGet();
+    V value = decode(row.payload());
+    if (value == null) {
+      evict(stateKey);
+      sharedStateDao.delete(namespace, stateKey);
+      return null;
+    }
+    Cached<V> loaded = new Cached<>(row.version(), row.payload(), value);
+    cacheAfterCommit(stateKey, loaded);
+    return loaded;
+  }
+
+  private List<V> evicted(List<byte[]> payloads) {
+    List<V> values = new ArrayList<>(payloads.size());
+    for (byte[] payload : payloads) {
+      V value = decode(payload);
+      if (value != null) {
+        values.add(value);
+      }
+    }
+    // Ключи удаленных записей неизвестны без декодирования, поэтому ближний кеш сбрасывается целиком;
+    // при следующем чтении версия все равно сверяется с таблицей
+    if (!payloads.isEmpty()) {
+      Map<String, Cached<V>> pending = pending(false);
+      if (pending != null) {
+        pending.clear();
+      }
+      synchronized (nearCache) {
+        nearCache.clear();
+      }
+    }
+    return values;
+  }
+
+  private Cached<V> cached(String stateKey) {
+    Map<String, Cached<V>> pending = pending(false);
+    if (pending != null && pending.containsKey(stateKey)) {
+      return pending.get(stateKey);
+    }
+    synchronized (nearCache) {
+      return nearCache.get(stateKey);
+    }
+  }
+
+  private void cache(String stateKey, Cached<V> entry) {
+    synchronized (nearCache) {
+      Cached<V> current = nearCache.get(stateKey);
+      // Не заменяем более свежую версию, записанную параллельным потоком
+      if (current == null || current.version <= entry.version) {
+        nearCache.put(stateKey, entry);
+      }
+    }
+  }
+
+  /**
+   * Внутри транзакции значение может оказаться незафиксированным: до фиксации оно видно
+   * только этой транзакции, в ближний кеш попадает после фиксации, при откате отбрасывается.
+   */
+  private void cacheAfterCommit(String stateKey, Cached<V> entry) {
+    Map<String, Cached<V>> pending = pending(true);
+    if (pending != null) {
+      pending.put(stateKey, entry);
+    } else {
+      cache(stateKey, entry);
+    }
+  }
+
+  /**
+   * Значения, прочитанные и записанные текущей транзакцией.
+   *
+   * @return null вне транзакции
+   */
+  @SuppressWarnings("unchecked")
+  private Map<String, Cached<V>> pending(boolean create) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return null;
+    }
+    Map<String, Cached<V>> pending = (Map<String, Cached<V>>) TransactionSynchronizationManager.getResource(this);
+    if (pending != null || !create) {
+      return pending;
+    }
+    Map<String, Cached<V>> created = new HashMap<>();
+    TransactionSynchronizationManager.bindResource(this, created);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void suspend() {
+        TransactionSynchronizationManager.unbindResourceIfPossible(PostgresStateStore.this);
+      }
+
+      @Override
+      public void resume() {
+        TransactionSynchronizationManager.bindResource(PostgresStateStore.this, created);
+      }
+
+      @Override
+      public void afterCommit() {
+        created.forEach(PostgresStateStore.this::cache);
+      }
+
+      @Override
+      public void afterCompletion(int status) {
+        TransactionSynchronizationManager.unbindResourceIfPossible(PostgresStateStore.this);
+      }
+    });
+    return created;
+  }
+
+  private void evict(String stateKey) {
+    Map<String, Cached<V>> pending = pending(false);
+    if (pending != null) {
+      pending.remove(stateKey);
+    }
+    synchronized (nearCache) {
+      nearCache.remove(stateKey);
+    }
+  }
+
+  private byte[] encode(V value) {
+    try {
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+      DataOutputStream out = new DataOutputStream(bytes);
+      codec.write(value, out);
+      out.flush();
+      return bytes.toByteArray();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error encoding " + namespace + " state", e);
+    }
+  }
+
+  private V decode(byte[] payload) {
+    try {
+      return codec.read(new DataInputStream(new ByteArrayInputStream(payload)));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error decoding " + namespace + " state", e);
+    }
+  }
+}
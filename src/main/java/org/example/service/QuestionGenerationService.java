@@ -1,50 +1,90 @@
 package org.example.service;
 
+import org.example.dao.QuizDao;
 import org.example.dto.common.*;
 import org.example.dto.request.generation.QuestionGenerationRequest;
 import org.example.dto.response.generation.*;
 import org.example.dto.response.quiz.QuestionDTO;
+import org.example.dto.response.quiz.QuizReadinessDTO;
 import org.example.model.*;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Сервис для генерации вопросов для квизов с использованием ИИ.
  * Позволяет генерировать, валидировать, дедуплицировать и получать вопросы.
+ * Генерация выполняется фоновой задачей: запрос сразу получает идентификатор набора,
+ * а статус и счетчики набора обновляются по ходу генерации.
  */
 @Service
 @Transactional
 public class QuestionGenerationService {
   private final DatabaseService databaseService;
+  private final QuizDao quizDao;
+  private final GenerationJobExecutor generationJobExecutor;
+  private final LlmClient llmClient;
+  private final QuizSnapshotCache quizSnapshotCache;
+  private final GenerationCache generationCache;
+
+  @Value("${generation.quiz.ready-questions:3}")
+  private int readyQuestions;
+
+  @Value("${generation.quiz.batch-size:5}")
+  private int quizBatchSize;
+
+  private static final long ARRIVAL_POLL_MILLIS = 200;
+  // Сколько хранятся завершенные наборы вопросов и ход заполнения квиза;
+  // после этого готовность квиза берется из БД
+  private static final long FINISHED_RETENTION_MILLIS = TimeUnit.MINUTES.toMillis(10);
 
   private final Map<Long, QuestionSetState> questionSets = new ConcurrentHashMap<>();
+  private final Map<Long, QuizGenerationState> quizGenerations = new ConcurrentHashMap<>();
   private long nextQuestionSetId = 1;
 
-  public QuestionGenerationService(DatabaseService databaseService) {
+  public QuestionGenerationService(DatabaseService databaseService,
+                                   QuizDao quizDao,
+                                   GenerationJobExecutor generationJobExecutor,
+                                   LlmClient llmClient,
+                                   QuizSnapshotCache quizSnapshotCache,
+                                   GenerationCache generationCache) {
     this.databaseService = databaseService;
+    this.quizDao = quizDao;
+    this.generationJobExecutor = generationJobExecutor;
+    this.llmClient = llmClient;
+    this.quizSnapshotCache = quizSnapshotCache;
+    this.generationCache = generationCache;
   }
 
   /**
-   * Внутренний класс для хранения состояния набора вопросов в памяти
+   * Внутренний класс для хранения состояния набора вопросов в памяти.
+   * Статус и счетчики пишет фоновая задача, а читают потоки запросов, поэтому поля volatile;
+   * список вопросов публикуется целиком после валидации и дедупликации.
+   * Статусы: QUEUED, RUNNING, COMPLETED, FAILED.
    */
   private static class QuestionSetState {
     Long questionSetId;
     Long quizId;
     String prompt;
-    List<GeneratedQuestion> questions;
+    volatile List<GeneratedQuestion> questions;
     Instant createdAt;
-    String status;
-    Integer generatedCount;
-    Integer validCount;
-    Integer duplicateCount;
+    volatile String status;
+    volatile Integer generatedCount;
+    volatile Integer validCount;
+    volatile Integer duplicateCount;
+    volatile Integer finalCount;
+    volatile long finishedAtMillis;
 
     QuestionSetState(Long questionSetId, Long quizId, String prompt) {
       this.questionSetId = questionSetId;
@@ -52,10 +92,37 @@ public class QuestionGenerationService {
       this.prompt = prompt;
       this.questions = new ArrayList<>();
       this.createdAt = Instant.now();
-      this.status = "GENERATED";
+      this.status = "QUEUED";
       this.generatedCount = 0;
       this.validCount = 0;
       this.duplicateCount = 0;
+      this.finalCount = 0;
+    }
+
+    QuestionGenerationResponse progress() {
+      return new QuestionGenerationResponse(questionSetId, status, generatedCount, validCount, duplicateCount, finalCount);
+    }
+  }
+
+  /**
+   * Ход заполнения квиза вопросами. Пишет фоновая задача, читают потоки запросов.
+   * Статусы: QUEUED, GENERATING, PLAYABLE, COMPLETED, FAILED.
+   */
+  private static class QuizGenerationState {
+    final Long quizId;
+    final int plannedCount;
+    volatile String status = "QUEUED";
+    volatile int generatedCount;
+    volatile int persistedCount;
+    volatile long finishedAtMillis;
+
+    QuizGenerationState(Long quizId, int plannedCount) {
+      this.quizId = quizId;
+      this.plannedCount = plannedCount;
+    }
+
+    QuizReadinessDTO readiness() {
+      return new QuizReadinessDTO(quizId, status, plannedCount, generatedCount, persistedCount, persistedCount > 0);
     }
   }
 
@@ -98,46 +165,239 @@ public class QuestionGenerationService {
   }
 
   /**
-   * Генерирует вопросы для квиза с использованием ИИ.
-   * Включает валидацию и удаление дубликатов.
+   * Ставит генерацию вопросов для квиза в очередь и сразу возвращает набор в статусе QUEUED.
+   * Генерация включает валидацию и удаление дубликатов.
+   *
+   * @throws java.util.concurrent.RejectedExecutionException если очередь генерации заполнена
    */
   public QuestionGenerationResponse generateQuizQuestions(QuestionGenerationRequest request) {
     Long quizId = request.quizId();
     String prompt = request.prompt();
     Integer questionCount = request.questionCount() != null ? request.questionCount() : 10;
+    boolean useCache = !Boolean.FALSE.equals(request.useCache());
 
-    Quiz quiz = getQuizById(quizId);
+    Quiz quiz = quizDao.findById(quizId);
     if (quiz == null) {
-      throw new RuntimeException("Quiz not found: " + quizId);
+      throw new IllegalArgumentException("Quiz not found: " + quizId);
     }
 
+    long expiredBefore = System.currentTimeMillis() - FINISHED_RETENTION_MILLIS;
+    questionSets.values().removeIf(s -> s.finishedAtMillis > 0 && s.finishedAtMillis < expiredBefore);
+
     Long questionSetId = generateQuestionSetId();
     QuestionSetState questionSet = new QuestionSetState(questionSetId, quizId, prompt);
     questionSets.put(questionSetId, questionSet);
 
-    List<GeneratedQuestion> generatedQuestions = generateQuestionsWithAI(prompt, questionCount, request.materials());
-    questionSet.questions = generatedQuestions;
-    questionSet.generatedCount = generatedQuestions.size();
+    List<QuizMaterial> materials = request.materials();
+    try {
+      generationJobExecutor.submit("generating question set " + questionSetId,
+        () -> runGeneration(questionSet, questionCount, materials, useCache));
+    } catch (RuntimeException e) {
+      questionSets.remove(questionSetId);
+      throw e;
+    }
 
-    List<ValidationError> validationErrors = validateQuestions(generatedQuestions);
-    int validCount = (int) generatedQuestions.stream().filter(q -> q.isValid).count();
-    questionSet.validCount = validCount;
+    return questionSet.progress();
+  }
 
-    List<DuplicatePair> duplicates = findDuplicates(generatedQuestions);
-    removeDuplicates(generatedQuestions, duplicates);
-    int finalCount = (int) generatedQuestions.stream().filter(q -> !q.isDuplicate).count();
-    questionSet.duplicateCount = duplicates.size();
+  /**
+   * Возвращает статус генерации набора и счетчики сгенерированных, валидных и повторяющихся вопросов.
+   */
+  public QuestionGenerationResponse getGenerationStatus(Long questionSetId) {
+    QuestionSetState questionSet = questionSets.get(questionSetId);
+    if (questionSet == null) {
+      throw new IllegalArgumentException("Question set not found: " + questionSetId);
+    }
 
-    questionSet.status = "COMPLETED";
+    return questionSet.progress();
+  }
 
-    return new QuestionGenerationResponse(
-      questionSetId,
-      questionSet.status,
-      questionSet.generatedCount,
-      questionSet.validCount,
-      questionSet.duplicateCount,
-      finalCount
-    );
+  /**
+   * Ставит в очередь заполнение квиза вопросами. Вопросы разбираются по мере ответа сервиса ИИ,
+   * проверяются и сохраняются пачками: первая пачка из generation.quiz.ready-questions вопросов
+   * делает квиз доступным для прохождения, остальные догружаются в фоне.
+   * Внутри транзакции задача ставится после коммита, чтобы соединение задачи уже видело квиз.
+   * Если очередь генерации заполнена, квиз остается без вопросов со статусом FAILED.
+   * Квиз отмечается генерируемым в транзакции вызывающего кода; отметка снимается,
+   * когда генерация заканчивается, или при следующем старте, если ее прервала остановка.
+   */
+  public void populateQuiz(Long quizId, String prompt, int questionCount, List<QuizMaterial> materials) {
+    long expiredBefore = System.currentTimeMillis() - FINISHED_RETENTION_MILLIS;
+    quizGenerations.values().removeIf(g -> g.finishedAtMillis > 0 && g.finishedAtMillis < expiredBefore);
+    quizDao.markGenerating(quizId);
+    QuizGenerationState generation = new QuizGenerationState(quizId, questionCount);
+    quizGenerations.put(quizId, generation);
+
+    Runnable submit = () -> {
+      try {
+        generationJobExecutor.submit("quiz " + quizId,
+          () -> runQuizGeneration(generation, prompt, materials));
+      } catch (RejectedExecutionException e) {
+        generation.status = "FAILED";
+        generation.finishedAtMillis = System.currentTimeMillis();
+        System.err.println("Question generation for quiz " + quizId + " rejected: " + e.getMessage());
+        finishGenerating(generation);
+      }
+    };
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          submit.run();
+        }
+      });
+    } else {
+      submit.run();
+    }
+  }
+
+  /**
+   * Ход заполнения квиза вопросами или null, если этот экземпляр не генерировал вопросы квиза.
+   */
+  public QuizReadinessDTO getQuizReadiness(Long quizId) {
+    QuizGenerationState generation = quizGenerations.get(quizId);
+    return generation != null ? generation.readiness() : null;
+  }
+
+  /**
+   * Фоновая задача заполнения квиза. Каждый полученный вопрос сразу проверяется
+   * и сравнивается с уже принятыми; принятые копятся в пачку и сохраняются одной вставкой.
+   * Сохраненные до ошибки вопросы остаются в квизе.
+   */
+  private void runQuizGeneration(QuizGenerationState generation, String prompt, List<QuizMaterial> materials) {
+    generation.status = "GENERATING";
+    List<GeneratedQuestion> accepted = new ArrayList<>();
+    List<GeneratedQuestion> batch = new ArrayList<>();
+    try {
+      generateQuestionsWithAI(prompt, generation.plannedCount, materials, true, question -> {
+        generation.generatedCount++;
+        if (accepted.size() >= generation.plannedCount || !acceptQuestion(question, accepted)) {
+          return;
+        }
+        batch.add(question);
+        // Первая пачка — минимум для начала прохождения, дальше пачки по batch-size
+        int batchSize = generation.persistedCount == 0
+          ? Math.min(readyQuestions, generation.plannedCount) : quizBatchSize;
+        if (batch.size() >= batchSize) {
+          persistBatch(generation, batch);
+        }
+      });
+      persistBatch(generation, batch);
+      generation.status = "COMPLETED";
+    } catch (RuntimeException e) {
+      try {
+        persistBatch(generation, batch);
+      } catch (RuntimeException persistError) {
+        e.addSuppressed(persistError);
+      }
+      generation.status = "FAILED";
+      throw e;
+    } finally {
+      generation.finishedAtMillis = System.currentTimeMillis();
+      finishGenerating(generation);
+    }
+  }
+
+  /**
+   * Снимает с квиза отметку генерации. Если генерация закончилась, не набрав запланированного
+   * числа вопросов (ошибка, отклоненные или повторяющиеся вопросы), число вопросов квиза
+   * приводится к сохраненному. Так идущие попытки на всех экземплярах видят, что квиз
+   * больше не растет, и перестают ждать вопросов.
+   */
+  private void finishGenerating(QuizGenerationState generation) {
+    try {
+      quizDao.finishGenerating(generation.quizId, generation.persistedCount);
+      quizSnapshotCache.invalidate(generation.quizId);
+    } catch (RuntimeException e) {
+      System.err.println("Error finishing generation of quiz " + generation.quizId + ": " + e.getMessage());
+    }
+  }
+
+  /**
+   * Принимает вопрос, если он проходит валидацию и не повторяет уже принятый.
+   */
+  private boolean acceptQuestion(GeneratedQuestion question, List<GeneratedQuestion> accepted) {
+    validateQuestions(List.of(question));
+    if (!question.isValid) {
+      return false;
+    }
+    for (GeneratedQuestion other : accepted) {
+      if (calculateSimilarity(other.text, question.text) > 0.8) {
+        question.isDuplicate = true;
+        return false;
+      }
+    }
+    accepted.add(question);
+    return true;
+  }
+
+  /**
+   * Сохраняет пачку вопросов в квиз и сбрасывает его снимок, чтобы новые и идущие попытки
+   * увидели добавленные вопросы.
+   */
+  private void persistBatch(QuizGenerationState generation, List<GeneratedQuestion> batch) {
+    if (batch.isEmpty()) {
+      return;
+    }
+    List<QuestionParser.ParsedQuestion> parsed = new ArrayList<>(batch.size());
+    for (GeneratedQuestion source : batch) {
+      QuestionParser.ParsedQuestion pq = new QuestionParser.ParsedQuestion();
+      pq.question = new Question();
+      pq.question.setText(source.text);
+      pq.question.setType(source.type);
+      pq.question.setExplanation(source.explanation);
+      pq.answerOptions = new ArrayList<>(source.answerOptions.size());
+      for (GeneratedAnswerOption sourceOption : source.answerOptions) {
+        org.example.model.AnswerOption option = new org.example.model.AnswerOption();
+        option.setText(sourceOption.text);
+        option.setCorrect(sourceOption.isCorrect);
+        option.setNaOption(sourceOption.isNaOption);
+        pq.answerOptions.add(option);
+      }
+      parsed.add(pq);
+    }
+
+    try {
+      databaseService.saveQuestionsWithAnswers(parsed, generation.quizId);
+    } catch (SQLException e) {
+      throw new IllegalStateException("Error saving questions of quiz " + generation.quizId, e);
+    }
+    batch.clear();
+    generation.persistedCount += parsed.size();
+    if ("GENERATING".equals(generation.status)) {
+      generation.status = "PLAYABLE";
+    }
+    quizSnapshotCache.invalidate(generation.quizId);
+  }
+
+  /**
+   * Фоновая задача генерации: счетчики набора обновляются после каждого этапа.
+   */
+  private void runGeneration(QuestionSetState questionSet, int questionCount, List<QuizMaterial> materials,
+                             boolean useCache) {
+    questionSet.status = "RUNNING";
+    try {
+      // Счетчик растет по мере получения вопросов, статус показывает ход генерации до ее окончания
+      List<GeneratedQuestion> generatedQuestions = generateQuestionsWithAI(questionSet.prompt, questionCount, materials,
+        useCache, question -> questionSet.generatedCount++);
+      questionSet.generatedCount = generatedQuestions.size();
+
+      validateQuestions(generatedQuestions);
+      questionSet.validCount = (int) generatedQuestions.stream().filter(q -> q.isValid).count();
+
+      List<DuplicatePair> duplicates = findDuplicates(generatedQuestions);
+      removeDuplicates(generatedQuestions, duplicates);
+      questionSet.duplicateCount = duplicates.size();
+      questionSet.finalCount = (int) generatedQuestions.stream().filter(q -> !q.isDuplicate).count();
+
+      questionSet.questions = generatedQuestions;
+      questionSet.status = "COMPLETED";
+    } catch (RuntimeException e) {
+      questionSet.status = "FAILED";
+      throw e;
+    } finally {
+      questionSet.finishedAtMillis = System.currentTimeMillis();
+    }
   }
 
   /**
@@ -146,8 +406,9 @@ public class QuestionGenerationService {
   public ValidationResponse validateGeneratedQuestions(Long questionSetId) {
     QuestionSetState questionSet = questionSets.get(questionSetId);
     if (questionSet == null) {
-      throw new RuntimeException("Question set not found: " + questionSetId);
+      throw new IllegalArgumentException("Question set not found: " + questionSetId);
     }
+    requireCompleted(questionSet);
 
     List<ValidationError> errors = validateQuestions(questionSet.questions);
     int validCount = (int) questionSet.questions.stream().filter(q -> q.isValid).count();
@@ -167,14 +428,16 @@ public class QuestionGenerationService {
   public DeduplicationResponse removeDuplicateQuestions(Long questionSetId) {
     QuestionSetState questionSet = questionSets.get(questionSetId);
     if (questionSet == null) {
-      throw new RuntimeException("Question set not found: " + questionSetId);
+      throw new IllegalArgumentException("Question set not found: " + questionSetId);
     }
+    requireCompleted(questionSet);
 
     int initialCount = questionSet.questions.size();
     List<DuplicatePair> duplicates = findDuplicates(questionSet.questions);
     removeDuplicates(questionSet.questions, duplicates);
     int finalCount = (int) questionSet.questions.stream().filter(q -> !q.isDuplicate).count();
     questionSet.duplicateCount = duplicates.size();
+    questionSet.finalCount = finalCount;
 
     return new DeduplicationResponse(
       questionSetId,
@@ -190,7 +453,7 @@ public class QuestionGenerationService {
   public GeneratedQuestionsDTO getGeneratedQuestions(Long questionSetId) {
     QuestionSetState questionSet = questionSets.get(questionSetId);
     if (questionSet == null) {
-      throw new RuntimeException("Question set not found: " + questionSetId);
+      throw new IllegalArgumentException("Question set not found: " + questionSetId);
     }
 
     List<QuestionDTO> questionDTOs = questionSet.questions.stream()
@@ -206,6 +469,7 @@ public class QuestionGenerationService {
 
     return new GeneratedQuestionsDTO(
       questionSetId,
+      questionSet.status,
       questionDTOs,
       metadata
     );
@@ -213,6 +477,12 @@ public class QuestionGenerationService {
 
   // Вспомогательные методы
 
+  private void requireCompleted(QuestionSetState questionSet) {
+    if (!"COMPLETED".equals(questionSet.status)) {
+      throw new IllegalStateException("Question set is not generated yet. Current status: " + questionSet.status);
+    }
+  }
+
   /**
    * Генерирует уникальный идентификатор набора вопросов.
    */
@@ -221,31 +491,74 @@ public class QuestionGenerationService {
   }
 
   /**
-   * Генерирует вопросы с использованием ИИ (заглушка).
-   * В реальной реализации здесь будет вызов AI сервиса.
+   * Генерирует вопросы через сервис ИИ, разбирая его ответ по мере поступления:
+   * onQuestion вызывается в текущем потоке для каждого вопроса, как только он получен целиком.
+   * Поток HttpClient только передает разобранные вопросы в очередь, поэтому проверка
+   * и запись в БД выполняются потоком фоновой задачи и не задерживают чтение ответа.
+   * Срок ожидания ограничен общим сроком запроса LlmClient.
+   *
+   * Результат берется из GenerationCache, если там есть ответ на те же тему, число вопросов и материалы.
+   * При useCache = false кеш не читается, но полученный ответ заменяет запись в нем.
+   * В кеш попадает только ответ, в котором не меньше count вопросов.
    */
-  private List<GeneratedQuestion> generateQuestionsWithAI(String prompt, int count, List<QuizMaterial> materials) {
+  private List<GeneratedQuestion> generateQuestionsWithAI(String prompt, int count, List<QuizMaterial> materials,
+                                                          boolean useCache, Consumer<GeneratedQuestion> onQuestion) {
+    String cacheKey = GenerationCache.key(prompt, count, materials);
     List<GeneratedQuestion> questions = new ArrayList<>();
+    long baseId = System.currentTimeMillis();
+
+    List<QuestionParser.ParsedQuestion> cached = useCache ? generationCache.get(cacheKey) : null;
+    if (cached != null) {
+      for (QuestionParser.ParsedQuestion parsed : cached) {
+        GeneratedQuestion question = toGenerated(parsed, baseId + questions.size());
+        questions.add(question);
+        onQuestion.accept(question);
+      }
+      return questions;
+    }
 
-    for (int i = 0; i < count; i++) {
-      long questionId = System.currentTimeMillis() + i;
-      String questionText = "Generated question " + (i + 1) + " based on: " + prompt;
-      QuestionType type = QuestionType.SINGLE_CHOICE;
-      String explanation = "Explanation for question " + (i + 1);
-
-      GeneratedQuestion question = new GeneratedQuestion(questionId, questionText, type, explanation);
-
-      question.answerOptions.add(new GeneratedAnswerOption("Option A", true, false));
-      question.answerOptions.add(new GeneratedAnswerOption("Option B", false, false));
-      question.answerOptions.add(new GeneratedAnswerOption("Option C", false, false));
-      question.answerOptions.add(new GeneratedAnswerOption("Option D", false, false));
-
-      questions.add(question);
+    BlockingQueue<QuestionParser.ParsedQuestion> arrived = new LinkedBlockingQueue<>();
+    CompletableFuture<Integer> stream = llmClient.streamQuestions(prompt, count, arrived::add);
+    List<QuestionParser.ParsedQuestion> received = new ArrayList<>();
+    try {
+      while (true) {
+        QuestionParser.ParsedQuestion parsed = arrived.poll(ARRIVAL_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (parsed == null) {
+          // Вопросы передаются в очередь до завершения future, поэтому после него очередь уже полна
+          if (stream.isDone() && arrived.isEmpty()) {
+            break;
+          }
+          continue;
+        }
+        received.add(parsed);
+        GeneratedQuestion question = toGenerated(parsed, baseId + questions.size());
+        questions.add(question);
+        onQuestion.accept(question);
+      }
+      stream.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Question generation interrupted", e);
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause() != null ? e.getCause() : e;
+      throw new IllegalStateException("Error generating questions: " + cause.getMessage(), cause);
     }
 
+    if (received.size() >= count) {
+      generationCache.put(cacheKey, received);
+    }
     return questions;
   }
 
+  private GeneratedQuestion toGenerated(QuestionParser.ParsedQuestion parsed, long id) {
+    Question source = parsed.question;
+    GeneratedQuestion question = new GeneratedQuestion(id, source.getText(), source.getType(), source.getExplanation());
+    for (org.example.model.AnswerOption option : parsed.answerOptions) {
+      question.answerOptions.add(new GeneratedAnswerOption(option.getText(), option.isCorrect(), option.isNaOption()));
+    }
+    return question;
+  }
+
   /**
    * Валидирует вопросы на соответствие требованиям.
    */
@@ -387,56 +700,4 @@ public class QuestionGenerationService {
       LocalDateTime.ofInstant(Instant.now(), ZoneOffset.UTC)
     );
   }
-
-  // Операции с базой данных
-
-  private Quiz getQuizById(Long quizId) {
-    String sql = "SELECT q.id, q.name, q.prompt, q.create_by, q.has_material, q.material_url, " +
-      "q.time_per_question_seconds, q.is_private, q.is_static, q.created_at, " +
-      "u.id as user_id, u.login " +
-      "FROM \"Quiz\" q " +
-      "LEFT JOIN \"User\" u ON q.create_by = u.id " +
-      "WHERE q.id = ?";
-    try (Connection connection = getConnection();
-         PreparedStatement statement = connection.prepareStatement(sql)) {
-      statement.setLong(1, quizId);
-      try (ResultSet rs = statement.executeQuery()) {
-        if (rs.next()) {
-          Quiz quiz = new Quiz();
-          quiz.setId(rs.getLong("id"));
-          quiz.setName(rs.getString("name"));
-          quiz.setPrompt(rs.getString("prompt"));
-          User creator = new User();
-          creator.setId(rs.getLong("user_id"));
-          creator.setLogin(rs.getString("login"));
-          quiz.setCreatedBy(creator);
-          quiz.setHasMaterial(rs.getBoolean("has_material"));
-          quiz.setMaterialUrl(rs.getString("material_url"));
-
-          Integer seconds = rs.getObject("time_per_question_seconds", Integer.class);
-          if (seconds != null) {
-            quiz.setTimePerQuestion(java.time.Duration.ofSeconds(seconds));
-          }
-
-          quiz.setPrivate(rs.getBoolean("is_private"));
-          quiz.setStatic(rs.getBoolean("is_static"));
-
-          java.time.OffsetDateTime odt = rs.getObject("created_at", java.time.OffsetDateTime.class);
-          quiz.setCreatedAt(odt != null ? odt.toInstant() : null);
-
-          return quiz;
-        }
-      }
-    } catch (SQLException e) {
-      System.err.println("Error fetching quiz: " + e.getMessage());
-    }
-    return null;
-  }
-
-  private Connection getConnection() throws SQLException {
-    String url = "jdbc:postgresql://localhost:5432/quizarena";
-    String username = "quizuser";
-    String password = "quizpass";
-    return DriverManager.getConnection(url, username, password);
-  }
 }
@@ -0,0 +1,58 @@
+package org.example.service;
+
+import org.example.dao.QuestionImageDao;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Переносит изображения из старого столбца questions.image в хранилище изображений
+ * и удаляет столбец. Выполняется при старте приложения, пока столбец существует.
+ * Изображения читаются по одному, чтобы не держать все байты в памяти.
+ */
+@Component
+public class QuestionImageMigrationJob implements ApplicationRunner {
+  private final QuestionImageDao questionImageDao;
+  private final QuestionImageService questionImageService;
+
+  public QuestionImageMigrationJob(QuestionImageDao questionImageDao, QuestionImageService questionImageService) {
+    this.questionImageDao = questionImageDao;
+    this.questionImageService = questionImageService;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      if (questionImageDao.hasLegacyColumn()) {
+        migrate();
+      }
+    } catch (RuntimeException e) {
+      System.err.println("Error migrating question images: " + e.getMessage());
+    }
+  }
+
+  private void migrate() {
+    List<Long> questionIds = questionImageDao.findQuestionIdsWithLegacyImage();
+    int failed = 0;
+    for (Long questionId : questionIds) {
+      try {
+        byte[] image = questionImageDao.findLegacyImage(questionId);
+        if (image != null) {
+          questionImageService.storeForQuestion(questionId, image);
+        }
+        questionImageDao.clearLegacyImage(questionId);
+      } catch (Exception e) {
+        failed++;
+        System.err.println("Error migrating image of question " + questionId + ": " + e.getMessage());
+      }
+    }
+
+    // Столбец удаляется только когда все изображения перенесены
+    if (failed == 0) {
+      questionImageDao.dropLegacyColumn();
+    }
+    System.out.println("Question images migrated: " + (questionIds.size() - failed) + ", failed: " + failed);
+  }
+}
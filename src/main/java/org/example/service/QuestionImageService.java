@@ -0,0 +1,325 @@
+package org.example.service;
+
+import org.example.dao.QuestionDao;
+import org.example.dao.QuestionImageDao;
+import org.example.dao.QuestionImageDao.ImageInfo;
+import org.example.model.Question;
+import org.example.repository.QuizRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Сервис изображений вопросов. Байты хранятся в файловом хранилище под file.upload-dir,
+ * адресуемом по SHA-256 содержимого (одинаковые изображения хранятся один раз),
+ * метаданные — в таблице question_images. Строки questions изображений не содержат,
+ * поэтому запросы вопросов никогда не читают их байты.
+ * Файлы, на которые больше не ссылается ни один вопрос, удаляет периодическая очистка:
+ * при замене и удалении изображений, а также при каскадном удалении вопросов и квизов.
+ */
+@Service
+public class QuestionImageService {
+
+    private static final long MAX_IMAGE_SIZE = 5 * 1024 * 1024; // 5 МБ
+    private static final int SWEEP_BATCH_SIZE = 1000;
+
+    private final QuestionImageDao questionImageDao;
+    private final QuestionDao questionDao;
+    private final QuizRepository quizRepository;
+    private final QuizSnapshotCache quizSnapshotCache;
+
+    @Value("${file.upload-dir:uploads}")
+    private String uploadDir;
+
+    @Value("${question-images.sweep-interval-minutes:60}")
+    private long sweepIntervalMinutes;
+
+    @Value("${question-images.grace-minutes:60}")
+    private long graceMinutes;
+
+    private ScheduledExecutorService sweeper;
+
+    public QuestionImageService(QuestionImageDao questionImageDao,
+                                QuestionDao questionDao,
+                                QuizRepository quizRepository,
+                                QuizSnapshotCache quizSnapshotCache) {
+        this.questionImageDao = questionImageDao;
+        this.questionDao = questionDao;
+        this.quizRepository = quizRepository;
+        this.quizSnapshotCache = quizSnapshotCache;
+    }
+
+    @PostConstruct
+    void start() {
+        sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "question-image-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepIntervalMinutes, sweepIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void stop() {
+        sweeper.shutdownNow();
+    }
+
+    /**
+     * Возвращает метаданные изображения вопроса с проверкой доступа к квизу.
+     *
+     * @return метаданные или null, если у вопроса нет изображения
+     * @throws IllegalArgumentException если вопрос не найден
+     * @throws SecurityException если квиз приватный, а пользователь не его создатель
+     */
+    public ImageInfo getImage(Long questionId, Long userId) {
+        Question question = questionDao.findById(questionId);
+        if (question == null) {
+            throw new IllegalArgumentException("Вопрос не найден");
+        }
+
+        Long quizId = question.getQuiz().getId();
+        QuizSnapshot quiz = quizSnapshotCache.get(quizId);
+        if (quiz != null && quiz.isPrivate() && (userId == null || !quizRepository.isCreator(quizId, userId))) {
+            throw new SecurityException("Доступ к приватному квизу запрещен");
+        }
+
+        return questionImageDao.findByQuestionId(questionId);
+    }
+
+    /**
+     * Путь к файлу изображения в хранилище.
+     */
+    public Path resolve(String sha256) {
+        return imagesDir().resolve(sha256.substring(0, 2)).resolve(sha256);
+    }
+
+    /**
+     * Загружает изображение вопроса. Доступно только создателю квиза.
+     */
+    public ImageInfo saveImage(Long questionId, Long userId, MultipartFile file) throws IOException {
+        Question question = questionDao.findById(questionId);
+        if (question == null) {
+            throw new IllegalArgumentException("Вопрос не найден");
+        }
+        if (userId == null || !quizRepository.isCreator(question.getQuiz().getId(), userId)) {
+            throw new SecurityException("Только создатель может изменять изображения вопросов");
+        }
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("Файл не загружен");
+        }
+        if (file.getSize() > MAX_IMAGE_SIZE) {
+            throw new IllegalArgumentException("Размер изображения не должен превышать 5 МБ");
+        }
+
+        return storeForQuestion(questionId, file.getBytes());
+    }
+
+    /**
+     * Сохраняет байты изображения в хранилище и привязывает их к вопросу.
+     * Используется также при переносе изображений из старого столбца questions.image.
+     */
+    public ImageInfo storeForQuestion(Long questionId, byte[] bytes) throws IOException {
+        String contentType = detectContentType(bytes);
+        if (contentType == null) {
+            throw new IllegalArgumentException("Неподдерживаемый формат изображения. Разрешенные форматы: png, jpeg, gif, webp");
+        }
+
+        String sha256 = store(bytes);
+        Instant createdAt = Instant.now();
+        questionImageDao.save(questionId, sha256, contentType, bytes.length, createdAt);
+        return new ImageInfo(questionId, sha256, contentType, bytes.length, createdAt);
+    }
+
+    /**
+     * Удаляет изображение вопроса. Доступно только создателю квиза.
+     */
+    public void deleteImage(Long questionId, Long userId) throws IOException {
+        Question question = questionDao.findById(questionId);
+        if (question == null) {
+            throw new IllegalArgumentException("Вопрос не найден");
+        }
+        if (userId == null || !quizRepository.isCreator(question.getQuiz().getId(), userId)) {
+            throw new SecurityException("Только создатель может изменять изображения вопросов");
+        }
+
+        questionImageDao.delete(questionId);
+    }
+
+    /**
+     * Записывает содержимое в хранилище, если такого файла еще нет.
+     * Запись идет через временный файл с атомарным переименованием,
+     * поэтому читатели никогда не видят недописанный файл.
+     *
+     * @return SHA-256 содержимого в шестнадцатеричном виде
+     */
+    private String store(byte[] bytes) throws IOException {
+        String sha256 = sha256(bytes);
+        Path target = resolve(sha256);
+        if (Files.exists(target)) {
+            // Файл снова используется: очистка не тронет его, пока не истечет grace-minutes
+            try {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+                return sha256;
+            } catch (NoSuchFileException e) {
+                // Файл удалила очистка, записываем заново
+            }
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), sha256, ".tmp");
+        try {
+            Files.write(temp, bytes);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (FileAlreadyExistsException e) {
+            // Тот же файл параллельно записал другой запрос
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return sha256;
+    }
+
+    /**
+     * Сверяет файлы хранилища с question_images и удаляет файлы без ссылок, а также
+     * оставшиеся от прерванной записи временные файлы. Файлы моложе grace-minutes
+     * пропускаются: их строка в question_images может быть еще не зафиксирована.
+     */
+    void sweep() {
+        Path dir = imagesDir();
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(graceMinutes));
+        int deleted = 0;
+        try (Stream<Path> files = Files.walk(dir, 2)) {
+            List<Path> batch = new ArrayList<>(SWEEP_BATCH_SIZE);
+            Iterator<Path> iterator = files.filter(Files::isRegularFile).iterator();
+            while (iterator.hasNext()) {
+                Path file = iterator.next();
+                if (!isOlderThan(file, cutoff)) {
+                    continue;
+                }
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    deleted += delete(file) ? 1 : 0;
+                    continue;
+                }
+                batch.add(file);
+                if (batch.size() == SWEEP_BATCH_SIZE) {
+                    deleted += deleteUnreferenced(batch, cutoff);
+                    batch.clear();
+                }
+            }
+            deleted += deleteUnreferenced(batch, cutoff);
+        } catch (IOException | UncheckedIOException | DataAccessException e) {
+            System.err.println("Ошибка при очистке изображений: " + e.getMessage());
+        }
+        if (deleted > 0) {
+            System.out.println("Удалено изображений без ссылок: " + deleted);
+        }
+    }
+
+    private int deleteUnreferenced(List<Path> files, Instant cutoff) {
+        if (files.isEmpty()) {
+            return 0;
+        }
+        Set<String> names = new HashSet<>();
+        for (Path file : files) {
+            names.add(file.getFileName().toString());
+        }
+        Set<String> referenced = questionImageDao.findReferenced(names);
+        int deleted = 0;
+        for (Path file : files) {
+            // Время изменения проверяется повторно: store() могла снова использовать файл
+            if (!referenced.contains(file.getFileName().toString()) && isOlderThan(file, cutoff) && delete(file)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private static boolean isOlderThan(Path file, Instant cutoff) {
+        try {
+            return Files.getLastModifiedTime(file).toInstant().isBefore(cutoff);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private static boolean delete(Path file) {
+        try {
+            return Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Ошибка при удалении изображения: " + file + " - " + e.getMessage());
+            return false;
+        }
+    }
+
+    private Path imagesDir() {
+        return Paths.get(uploadDir, "question-images");
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 недоступен", e);
+        }
+    }
+
+    /**
+     * Определяет тип изображения по сигнатуре файла, не доверяя заявленному клиентом типу.
+     */
+    static String detectContentType(byte[] bytes) {
+        if (startsWith(bytes, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(bytes, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(bytes, 0, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(bytes, 0, 'R', 'I', 'F', 'F') && startsWith(bytes, 8, 'W', 'E', 'B', 'P')) {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, int... signature) {
+        if (bytes.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((bytes[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
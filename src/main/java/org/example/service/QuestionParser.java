@@ -2,84 +2,267 @@ package org.example.service;
 
 import org.example.model.Question;
 import org.example.model.AnswerOption;
+import org.example.model.QuestionType;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.function.Consumer;
 
+/**
+ * Потоковый разбор ответа сервиса генерации вопросов.
+ * Текст подается частями по мере поступления; каждый вопрос передается получателю,
+ * как только закрывается его блок *объяснение* (маркером *Следующий вопрос*,
+ * началом нового вопроса или концом ответа). Разбор построчный, без регулярных выражений.
+ * Экземпляр не потокобезопасен: части одного ответа подаются последовательно.
+ *
+ * Формат вопроса: *Вопрос*, строка "1)" с текстом вопроса, строки "2)".."5)" с вариантами,
+ * *правильный ответ* с номером варианта и *объяснение*. Текст может переноситься на следующие строки.
+ */
 public class QuestionParser {
     public static class ParsedQuestion {
         public Question question;
         public List<AnswerOption> answerOptions;
     }
 
+    private static final String QUESTION_MARKER = "*Вопрос*";
+    private static final String CORRECT_MARKER = "*правильный ответ*";
+    private static final String EXPLANATION_MARKER = "*объяснение*";
+    private static final String NEXT_MARKER = "*Следующий вопрос*";
+
+    private enum Section { NONE, OPTIONS, CORRECT, EXPLANATION }
+
+    private static final class Option {
+        final int number;
+        final StringBuilder text;
+
+        Option(int number, String text) {
+            this.number = number;
+            this.text = new StringBuilder(text);
+        }
+    }
+
+    private final Consumer<ParsedQuestion> sink;
+    private final StringBuilder line = new StringBuilder();
+
+    private Section section = Section.NONE;
+    private StringBuilder questionText;
+    private final List<Option> options = new ArrayList<>();
+    private int correctNumber = -1;
+    private StringBuilder explanation;
+    private int parsedCount;
+
+    public QuestionParser(Consumer<ParsedQuestion> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Разбирает ответ целиком. Ответ GET-эндпоинта приходит JSON-строкой,
+     * поэтому внешние кавычки снимаются, а экранированные переводы строк восстанавливаются.
+     */
     public static List<ParsedQuestion> parse(String data) {
-        List<ParsedQuestion> result = new ArrayList<>();
         String cleaned = data.trim();
         if (cleaned.startsWith("\"") && cleaned.endsWith("\"")) {
             cleaned = cleaned.substring(1, cleaned.length() - 1);
         }
         cleaned = cleaned.replace("\\n", "\n");
-        String[] questions = cleaned.split("\\*Следующий вопрос\\*");
-        
-        for (String qText : questions) {
-            if (qText.trim().isEmpty()) continue;
-            
-            ParsedQuestion pq = new ParsedQuestion();
-            pq.answerOptions = new ArrayList<>();
-            
-            Pattern questionPattern = Pattern.compile("\\*Вопрос\\*\\s*\n1\\)\\s*(.+?)(?=\\n2\\))", Pattern.DOTALL);
-            Pattern answerPattern = Pattern.compile("(\\d+)\\)\\s*(.+?)(?=\\n\\d+\\)|\\n\\*правильный)", Pattern.DOTALL);
-            Pattern correctPattern = Pattern.compile("\\*правильный ответ\\*\\s*\n(\\d+)");
-            Pattern explanationPattern = Pattern.compile("\\*объяснение\\*\\s*\n(.+?)(?=\\n\\*Следующий|$)", Pattern.DOTALL);
-            
-            Matcher qMatcher = questionPattern.matcher(qText);
-            if (qMatcher.find()) {
-                Question question = new Question();
-                question.setText(qMatcher.group(1).trim());
-                question.setType("multiple_choice");
-                question.setImageUrl("");
-                
-                Matcher expMatcher = explanationPattern.matcher(qText);
-                if (expMatcher.find()) {
-                    question.setExplanation(expMatcher.group(1).trim());
-                }
-                
-                pq.question = question;
-                
-                Matcher ansMatcher = answerPattern.matcher(qText);
-                while (ansMatcher.find()) {
-                    String optionText = ansMatcher.group(2).trim();
-                    
-                    AnswerOption option = new AnswerOption();
-                    option.setText(optionText);
-                    option.setIsNaOption(false);
-                    option.setIsCorrect(false);
-                    pq.answerOptions.add(option);
-                }
-                
-                Matcher correctMatcher = correctPattern.matcher(qText);
-                if (correctMatcher.find()) {
-                    int correctNum = Integer.parseInt(correctMatcher.group(1));
-                    int correctIndex = correctNum - 2;
-                    if (correctIndex >= 0 && correctIndex < pq.answerOptions.size()) {
-                        pq.answerOptions.get(correctIndex).setIsCorrect(true);
-                        for (int i = 0; i < pq.answerOptions.size(); i++) {
-                            if (i != correctIndex) {
-                                pq.answerOptions.get(i).setIsCorrect(false);
-                            }
-                        }
+
+        List<ParsedQuestion> result = new ArrayList<>();
+        try {
+            parse(new StringReader(cleaned), result::add);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return result;
+    }
+
+    /**
+     * Читает ответ из потока символов и передает вопросы получателю по мере разбора.
+     *
+     * @return число разобранных вопросов
+     */
+    public static int parse(Reader reader, Consumer<ParsedQuestion> sink) throws IOException {
+        QuestionParser parser = new QuestionParser(sink);
+        char[] buffer = new char[4096];
+        int read;
+        while ((read = reader.read(buffer)) != -1) {
+            parser.feed(buffer, 0, read);
+        }
+        parser.finish();
+        return parser.parsedCount();
+    }
+
+    /**
+     * Подает очередную часть ответа. Строка разбирается, когда получен ее перевод строки.
+     */
+    public void feed(CharSequence chunk) {
+        for (int i = 0; i < chunk.length(); i++) {
+            accept(chunk.charAt(i));
+        }
+    }
+
+    public void feed(char[] chunk, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            accept(chunk[i]);
+        }
+    }
+
+    /**
+     * Завершает разбор: последняя строка и последний вопрос разбираются без завершающего маркера.
+     */
+    public void finish() {
+        if (line.length() > 0) {
+            processLine(line.toString());
+            line.setLength(0);
+        }
+        complete();
+    }
+
+    public int parsedCount() {
+        return parsedCount;
+    }
+
+    private void accept(char c) {
+        if (c == '\n') {
+            processLine(line.toString());
+            line.setLength(0);
+        } else if (c != '\r') {
+            line.append(c);
+        }
+    }
+
+    private void processLine(String text) {
+        int next = text.indexOf(NEXT_MARKER);
+        if (next >= 0) {
+            processContent(text.substring(0, next));
+            complete();
+            processLine(text.substring(next + NEXT_MARKER.length()));
+            return;
+        }
+        processContent(text);
+    }
+
+    private void processContent(String text) {
+        int marker = text.indexOf(QUESTION_MARKER);
+        if (marker >= 0) {
+            // Новый вопрос без разделителя закрывает предыдущий
+            complete();
+            section = Section.OPTIONS;
+            processContent(text.substring(marker + QUESTION_MARKER.length()));
+            return;
+        }
+        if (section == Section.NONE) {
+            return;
+        }
+        marker = text.indexOf(CORRECT_MARKER);
+        if (marker >= 0) {
+            section = Section.CORRECT;
+            processContent(text.substring(marker + CORRECT_MARKER.length()));
+            return;
+        }
+        marker = text.indexOf(EXPLANATION_MARKER);
+        if (marker >= 0) {
+            section = Section.EXPLANATION;
+            processContent(text.substring(marker + EXPLANATION_MARKER.length()));
+            return;
+        }
+
+        switch (section) {
+            case OPTIONS -> processOption(text);
+            case CORRECT -> processCorrect(text);
+            case EXPLANATION -> {
+                if (explanation == null) {
+                    if (text.isBlank()) {
+                        return;
                     }
+                    explanation = new StringBuilder();
                 }
+                explanation.append(text).append('\n');
             }
-            
-            if (pq.question != null) {
-                result.add(pq);
+            default -> {
+            }
+        }
+    }
+
+    private void processOption(String text) {
+        int start = skipWhitespace(text, 0);
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end))) {
+            end++;
+        }
+        if (end > start && end < text.length() && text.charAt(end) == ')' && end - start <= 9) {
+            int number = Integer.parseInt(text, start, end, 10);
+            String content = text.substring(end + 1);
+            // Первая пронумерованная строка — текст вопроса, остальные — варианты ответа
+            if (questionText == null) {
+                questionText = new StringBuilder(content);
+            } else {
+                options.add(new Option(number, content));
+            }
+        } else if (!text.isBlank()) {
+            StringBuilder target = options.isEmpty() ? questionText : options.get(options.size() - 1).text;
+            if (target != null) {
+                target.append('\n').append(text);
             }
         }
-        
-        return result;
     }
-}
 
+    private void processCorrect(String text) {
+        if (correctNumber >= 0) {
+            return;
+        }
+        int start = skipWhitespace(text, 0);
+        int end = start;
+        while (end < text.length() && Character.isDigit(text.charAt(end)) && end - start < 9) {
+            end++;
+        }
+        if (end > start) {
+            correctNumber = Integer.parseInt(text, start, end, 10);
+        }
+    }
+
+    /**
+     * Передает собранный вопрос получателю и сбрасывает состояние.
+     * Вопрос без текста или без вариантов ответа пропускается.
+     */
+    private void complete() {
+        if (questionText != null && !questionText.toString().isBlank() && !options.isEmpty()) {
+            Question question = new Question();
+            question.setText(questionText.toString().trim());
+            question.setType(QuestionType.SINGLE_CHOICE);
+            if (explanation != null) {
+                question.setExplanation(explanation.toString().trim());
+            }
+
+            ParsedQuestion pq = new ParsedQuestion();
+            pq.question = question;
+            pq.answerOptions = new ArrayList<>(options.size());
+            for (Option source : options) {
+                AnswerOption option = new AnswerOption();
+                option.setText(source.text.toString().trim());
+                option.setNaOption(false);
+                option.setCorrect(source.number == correctNumber);
+                pq.answerOptions.add(option);
+            }
+            parsedCount++;
+            sink.accept(pq);
+        }
+
+        section = Section.NONE;
+        questionText = null;
+        options.clear();
+        correctNumber = -1;
+        explanation = null;
+    }
+
+    private static int skipWhitespace(String text, int from) {
+        int i = from;
+        while (i < text.length() && Character.isWhitespace(text.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+}
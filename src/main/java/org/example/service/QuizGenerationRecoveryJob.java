@@ -0,0 +1,41 @@
+package org.example.service;
+
+import org.example.dao.QuizDao;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * При старте добавляет столбец quizzes.is_generating, если база создана до его появления,
+ * и снимает отметки генерации, прерванной остановкой приложения. Число вопросов таких
+ * квизов приводится к сохраненному, чтобы попытки не ждали вопросов, которых не будет.
+ */
+@Component
+public class QuizGenerationRecoveryJob implements ApplicationRunner {
+  private final QuizDao quizDao;
+  private final QuizSnapshotCache quizSnapshotCache;
+
+  public QuizGenerationRecoveryJob(QuizDao quizDao, QuizSnapshotCache quizSnapshotCache) {
+    this.quizDao = quizDao;
+    this.quizSnapshotCache = quizSnapshotCache;
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    try {
+      if (!quizDao.hasGeneratingColumn()) {
+        quizDao.addGeneratingColumn();
+        return;
+      }
+      List<Long> quizIds = quizDao.finishAbandonedGenerations();
+      quizIds.forEach(quizSnapshotCache::invalidate);
+      if (!quizIds.isEmpty()) {
+        System.out.println("Interrupted quiz generations finished: " + quizIds.size());
+      }
+    } catch (RuntimeException e) {
+      System.err.println("Error recovering quiz generations: " + e.getMessage());
+    }
+  }
+}
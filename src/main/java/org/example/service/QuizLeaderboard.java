@@ -0,0 +1,197 @@
+package org.example.service;
+
+import org.example.dao.BestResultDao.BestResult;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Рейтинг одного квиза в памяти: лучшие результаты пользователей в декартовом дереве
+ * (treap) с размерами поддеревьев. Позиция пользователя и первые N мест вычисляются
+ * за O(log n) (плюс N для выдачи топа) без обращения к БД.
+ * Порядок совпадает с quiz_best_results: счет по убыванию, при равенстве — более раннее
+ * время завершения. Все методы синхронизированы на экземпляре.
+ */
+public final class QuizLeaderboard {
+  private static final Comparator<BestResult> ORDER = Comparator
+    .comparingLong((BestResult r) -> -r.score())
+    .thenComparing(BestResult::finishTime)
+    .thenComparing(BestResult::userId);
+
+  private static final class Node {
+    final BestResult value;
+    final int priority;
+    int size = 1;
+    Node left;
+    Node right;
+
+    Node(BestResult value, int priority) {
+      this.value = value;
+      this.priority = priority;
+    }
+  }
+
+  private final Map<Long, BestResult> byUser = new HashMap<>();
+  private Node root;
+
+  public QuizLeaderboard(Collection<BestResult> results) {
+    for (BestResult result : results) {
+      offer(result);
+    }
+  }
+
+  /**
+   * Учитывает результат пользователя. Как и в quiz_best_results, прежний лучший
+   * результат заменяется только строго большим счетом.
+   *
+   * @return true если лучший результат пользователя изменился
+   */
+  public synchronized boolean offer(BestResult result) {
+    BestResult current = byUser.get(result.userId());
+    if (current != null) {
+      if (result.score() <= current.score()) {
+        return false;
+      }
+      root = delete(root, current);
+    }
+    byUser.put(result.userId(), result);
+    root = insert(root, new Node(result, ThreadLocalRandom.current().nextInt()));
+    return true;
+  }
+
+  /**
+   * Позиция (с 1), которую займет пользователь, если учесть новый результат,
+   * не изменяя рейтинг. Используется на экране результата до коммита транзакции.
+   */
+  public synchronized int positionWith(Long userId, long score, Instant finishTime) {
+    BestResult current = byUser.get(userId);
+    if (current != null && current.score() >= score) {
+      return countAhead(current.score(), current.finishTime()) + 1;
+    }
+    return countAhead(score, finishTime) + 1;
+  }
+
+  /**
+   * Позиция пользователя (с 1) или -1, если у него нет результата.
+   */
+  public synchronized int positionOf(Long userId) {
+    BestResult current = byUser.get(userId);
+    return current != null ? countAhead(current.score(), current.finishTime()) + 1 : -1;
+  }
+
+  public synchronized BestResult get(Long userId) {
+    return byUser.get(userId);
+  }
+
+  /**
+   * Возвращает первые limit мест рейтинга.
+   */
+  public synchronized List<BestResult> top(int limit) {
+    List<BestResult> result = new ArrayList<>(Math.min(limit, size(root)));
+    collect(root, limit, result);
+    return result;
+  }
+
+  public synchronized int size() {
+    return size(root);
+  }
+
+  /**
+   * Количество результатов строго выше (score, finishTime): больший счет или
+   * тот же счет с более ранним завершением. Совпадает с подсчетом в BestResultDao.findPosition.
+   */
+  private int countAhead(long score, Instant finishTime) {
+    int count = 0;
+    Node node = root;
+    while (node != null) {
+      BestResult value = node.value;
+      boolean ahead = value.score() > score ||
+        (value.score() == score && value.finishTime().isBefore(finishTime));
+      if (ahead) {
+        count += size(node.left) + 1;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return count;
+  }
+
+  private static void collect(Node node, int limit, List<BestResult> out) {
+    if (node == null || out.size() >= limit) {
+      return;
+    }
+    collect(node.left, limit, out);
+    if (out.size() < limit) {
+      out.add(node.value);
+      collect(node.right, limit, out);
+    }
+  }
+
+  private static Node insert(Node node, Node added) {
+    Node[] parts = split(node, added.value);
+    return merge(merge(parts[0], added), parts[1]);
+  }
+
+  private static Node delete(Node node, BestResult value) {
+    if (node == null) {
+      return null;
+    }
+    int cmp = ORDER.compare(value, node.value);
+    if (cmp == 0) {
+      return merge(node.left, node.right);
+    }
+    if (cmp < 0) {
+      node.left = delete(node.left, value);
+    } else {
+      node.right = delete(node.right, value);
+    }
+    update(node);
+    return node;
+  }
+
+  /**
+   * Разделяет дерево на ключи меньше value и ключи больше либо равные value.
+   */
+  private static Node[] split(Node node, BestResult value) {
+    if (node == null) {
+      return new Node[] {null, null};
+    }
+    if (ORDER.compare(node.value, value) < 0) {
+      Node[] parts = split(node.right, value);
+      node.right = parts[0];
+      update(node);
+      return new Node[] {node, parts[1]};
+    }
+    Node[] parts = split(node.left, value);
+    node.left = parts[1];
+    update(node);
+    return new Node[] {parts[0], node};
+  }
+
+  private static Node merge(Node left, Node right) {
+    if (left == null) {
+      return right;
+    }
+    if (right == null) {
+      return left;
+    }
+    if (left.priority > right.priority) {
+      left.right = merge(left.right, right);
+      update(left);
+      return left;
+    }
+    right.left = merge(left, right.left);
+    update(right);
+    return right;
+  }
+
+  private static void update(Node node) {
+    node.size = size(node.left) + size(node.right) + 1;
+  }
+
+  private static int size(Node node) {
+    return node != null ? node.size : 0;
+  }
+}
@@ -4,18 +4,16 @@ import org.example.dto.request.quiz.*;
 import org.example.dto.response.quiz.*;
 import org.example.dto.common.LeaderboardEntry;
 import org.example.dto.common.QuizMaterial;
+import org.example.dao.BestResultDao;
+import org.example.dao.QuizDao;
+import org.example.util.PageCursor;
 import org.example.model.Quiz;
 import org.example.model.User;
 import org.example.service.FileStorageService;
 import org.example.repository.AnswerOptionRepository;
 import org.example.repository.QuestionRepository;
 import org.example.repository.QuizRepository;
-import org.example.repository.UserQuizAttemptRepository;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -24,6 +22,7 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
@@ -37,23 +36,32 @@ public class QuizService {
     private final QuizRepository quizRepository;
     private final QuestionRepository questionRepository;
     private final AnswerOptionRepository answerOptionRepository;
-    private final UserQuizAttemptRepository attemptRepository;
+    private final LeaderboardCache leaderboardCache;
     private final org.example.repository.UserRepository userRepository;
     private final FileStorageService fileStorageService;
+    private final QuizSnapshotCache quizSnapshotCache;
+    private final QuizDao quizDao;
+    private final QuestionGenerationService questionGenerationService;
 
     @Autowired
     public QuizService(QuizRepository quizRepository,
                       QuestionRepository questionRepository,
                       AnswerOptionRepository answerOptionRepository,
-                      UserQuizAttemptRepository attemptRepository,
+                      LeaderboardCache leaderboardCache,
                       org.example.repository.UserRepository userRepository,
-                      FileStorageService fileStorageService) {
+                      FileStorageService fileStorageService,
+                      QuizSnapshotCache quizSnapshotCache,
+                      QuizDao quizDao,
+                      QuestionGenerationService questionGenerationService) {
         this.quizRepository = quizRepository;
         this.questionRepository = questionRepository;
         this.answerOptionRepository = answerOptionRepository;
-        this.attemptRepository = attemptRepository;
+        this.leaderboardCache = leaderboardCache;
         this.userRepository = userRepository;
         this.fileStorageService = fileStorageService;
+        this.quizSnapshotCache = quizSnapshotCache;
+        this.quizDao = quizDao;
+        this.questionGenerationService = questionGenerationService;
     }
 
     public QuizResponseDTO createQuiz(CreateQuizRequest request) {
@@ -75,55 +83,110 @@ public class QuizService {
 
         quiz = quizRepository.save(quiz);
 
-        // TODO: Генерация вопросов через ИИ
-        // Пока возвращаем успешный ответ без вопросов
+        // Вопросы генерируются в фоне после коммита; квиз можно проходить,
+        // как только сохранена первая пачка вопросов
+        boolean generating = request.prompt() != null && !request.prompt().isBlank()
+                && request.questionNumber() != null && request.questionNumber() > 0;
+        if (generating) {
+            questionGenerationService.populateQuiz(quiz.getId(), request.prompt(), request.questionNumber(),
+                    request.materials() != null ? request.materials() : List.of());
+        }
 
         return new QuizResponseDTO(
                 quiz.getId(),
                 quiz.getName(),
-                "created",
+                generating ? "generating" : "created",
                 toLocalDateTime(quiz.getCreatedAt()),
                 String.valueOf(quiz.getId())
         );
     }
 
+    /**
+     * Готовность квиза к прохождению, пока его вопросы генерируются. Если этот экземпляр
+     * не генерировал вопросы квиза, готовность определяется по сохраненным вопросам.
+     */
+    public QuizReadinessDTO getQuizReadiness(Long quizId) {
+        QuizReadinessDTO readiness = questionGenerationService.getQuizReadiness(quizId);
+        if (readiness != null) {
+            return readiness;
+        }
+
+        Quiz quiz = quizRepository.findById(quizId)
+                .orElseThrow(() -> new IllegalArgumentException("Квиз не найден"));
+        int persisted = (int) questionRepository.countByQuizId(quizId);
+        return new QuizReadinessDTO(quizId, "IDLE", quiz.getQuestionNumber(), null, persisted, persisted > 0);
+    }
+
     public QuizSearchResponse searchPublicQuizzes(QuizSearchRequest request) {
-        Pageable pageable = createPageable(request.page(), request.size(), request.sortBy(), request.ascending());
-        
-        Page<Quiz> page;
-        if (request.query() == null || request.query().trim().isEmpty()) {
-            page = quizRepository.findByIsPrivateFalse(pageable);
-        } else {
-            String query = request.query().trim();
+        int pageNum = request.page() != null && request.page() >= 0 ? request.page() : 0;
+        int pageSize = request.size() != null && request.size() > 0 ? request.size() : 20;
+        boolean includeTotal = request.includeTotal() == null || request.includeTotal();
+        String query = request.query() != null ? request.query().trim() : "";
+
+        if (!query.isEmpty()) {
             // Проверяем, является ли запрос числом (ID квиза)
             try {
                 Long quizId = Long.parseLong(query);
-                Optional<Quiz> quizById = quizRepository.findById(quizId);
+                Optional<Quiz> quizById = quizRepository.findWithCreatorById(quizId);
                 if (quizById.isPresent() && !quizById.get().isPrivate()) {
                     // Если найден публичный квиз по ID, возвращаем его
-                    List<QuizDTO> content = List.of(toQuizDTO(quizById.get()));
-                    return new QuizSearchResponse(content, 0, 1, 1L);
+                    List<QuizDTO> content = toQuizDTOs(List.of(quizById.get()));
+                    return new QuizSearchResponse(content, 0, 1, 1L, null);
                 }
             } catch (NumberFormatException e) {
                 // Не число, продолжаем обычный поиск
             }
-            page = quizRepository.searchPublicQuizzes(query, pageable);
         }
 
-        List<QuizDTO> content = page.getContent().stream()
-                .map(this::toQuizDTO)
-                .collect(Collectors.toList());
+        QuizDao.SearchSort sort = toSearchSort(request.sortBy(), !query.isEmpty());
+        boolean ascending = sort != QuizDao.SearchSort.RELEVANCE
+                && request.ascending() != null && request.ascending();
+        String sortName = sort.name() + (ascending ? "_ASC" : "_DESC");
+        PageCursor after = PageCursor.decode(request.cursor(), sortName);
+        // С курсором страница выбирается по ключу, номер страницы нужен только старым клиентам
+        long offset = after == null ? (long) pageNum * pageSize : 0;
+
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<QuizDao.SearchHit> hits;
+        Long total = null;
+        if (query.isEmpty()) {
+            hits = quizDao.listPublic(sort, ascending, after, pageSize + 1, offset).stream()
+                    .map(quiz -> new QuizDao.SearchHit(quiz, 0))
+                    .collect(Collectors.toList());
+            if (includeTotal) {
+                total = quizDao.estimatePublic();
+            }
+        } else {
+            // Полнотекстовый и триграммный поиск по индексам
+            hits = quizDao.searchPublic(query, sort, ascending, after, pageSize + 1, offset);
+            if (includeTotal) {
+                total = quizDao.estimatePublicMatches(query);
+            }
+        }
+
+        String nextCursor = null;
+        if (hits.size() > pageSize) {
+            hits = hits.subList(0, pageSize);
+            QuizDao.SearchHit last = hits.get(pageSize - 1);
+            nextCursor = new PageCursor(sortName, sort.keyOf(last.quiz(), last.relevance()),
+                    last.quiz().getId()).encode();
+        }
+
+        List<QuizDTO> content = toQuizDTOs(hits.stream()
+                .map(QuizDao.SearchHit::quiz)
+                .collect(Collectors.toList()));
 
         return new QuizSearchResponse(
                 content,
-                page.getNumber(),
-                page.getTotalPages(),
-                page.getTotalElements()
+                pageNum,
+                total != null ? (int) ((total + pageSize - 1) / pageSize) : null,
+                total,
+                nextCursor
         );
     }
 
     public QuizDetailsDTO getQuiz(Long quizId, Long userId) {
-        Quiz quiz = quizRepository.findById(quizId)
+        Quiz quiz = quizRepository.findWithCreatorById(quizId)
                 .orElseThrow(() -> new IllegalArgumentException("Квиз не найден"));
 
         // Если квиз приватный, проверяем доступ: разрешаем доступ создателю или если пользователь знает ID
@@ -137,7 +200,7 @@ public class QuizService {
             }
         }
 
-        List<QuestionDTO> questions = questionRepository.findByQuizId(quizId).stream()
+        List<QuestionDTO> questions = questionRepository.findWithAnswerOptionsByQuizId(quizId).stream()
                 .map(this::toQuestionDTO)
                 .collect(Collectors.toList());
 
@@ -171,6 +234,8 @@ public class QuizService {
         }
 
         quizRepository.deleteById(request.quizId());
+        quizSnapshotCache.invalidate(request.quizId());
+        leaderboardCache.invalidate(request.quizId());
         return true;
     }
 
@@ -190,6 +255,7 @@ public class QuizService {
         }
 
         quiz = quizRepository.save(quiz);
+        quizSnapshotCache.invalidate(quiz.getId());
 
         return new QuizResponseDTO(
                 quiz.getId(),
@@ -210,6 +276,7 @@ public class QuizService {
         quiz.setMaterialUrl(materialUrl);
         quiz.setHasMaterial(true);
         quizRepository.save(quiz);
+        quizSnapshotCache.invalidate(quizId);
     }
 
     public boolean removeQuestionFromQuiz(RemoveQuestionRequest request) {
@@ -225,6 +292,7 @@ public class QuizService {
                 .orElseThrow(() -> new IllegalArgumentException("Вопрос не найден"));
 
         questionRepository.delete(question);
+        quizSnapshotCache.invalidate(request.quizId());
         return true;
     }
 
@@ -233,35 +301,31 @@ public class QuizService {
             throw new IllegalArgumentException("Квиз не найден");
         }
 
-        Pageable pageable = PageRequest.of(0, 100);
-        // Используем метод, который возвращает только лучший результат каждого пользователя
-        Page<org.example.model.UserQuizAttempt> attempts = attemptRepository.findBestAttemptsByQuizId(quizId, pageable);
-
-        List<LeaderboardEntry> entries = new ArrayList<>();
-        int userPosition = -1;
-        Long userScore = null;
-
-        for (int i = 0; i < attempts.getContent().size(); i++) {
-            org.example.model.UserQuizAttempt attempt = attempts.getContent().get(i);
-            long timeSpent = 0;
-            if (attempt.getStartTime() != null && attempt.getFinishTime() != null) {
-                timeSpent = java.time.Duration.between(attempt.getStartTime(), attempt.getFinishTime()).getSeconds();
-            }
+        // Рейтинг в памяти хранит только лучший результат каждого пользователя
+        QuizLeaderboard leaderboard = leaderboardCache.get(quizId);
+        List<BestResultDao.BestResult> top = leaderboard.top(100);
 
+        List<LeaderboardEntry> entries = new ArrayList<>(top.size());
+        for (int i = 0; i < top.size(); i++) {
+            BestResultDao.BestResult result = top.get(i);
             entries.add(new LeaderboardEntry(
                     i + 1,
-                    attempt.getUser().getLogin(),
-                    attempt.getScore() != null ? attempt.getScore().intValue() : 0,
-                    timeSpent
+                    result.login(),
+                    (int) result.score(),
+                    result.timeSpentSeconds()
             ));
+        }
 
-            if (attempt.getUser().getId().equals(userId)) {
-                userPosition = i + 1;
-                userScore = attempt.getScore() != null ? attempt.getScore().intValue() : 0L;
-            }
+        // Позиция пользователя известна, даже если он не попал в топ
+        int userPosition = -1;
+        Integer userScore = null;
+        BestResultDao.BestResult own = userId != null ? leaderboard.get(userId) : null;
+        if (own != null) {
+            userPosition = leaderboard.positionOf(userId);
+            userScore = (int) own.score();
         }
 
-        return new LeaderboardDTO(entries, userPosition, userScore != null ? userScore.intValue() : null);
+        return new LeaderboardDTO(entries, userPosition, userScore);
     }
 
     /**
@@ -304,7 +368,7 @@ public class QuizService {
      * Получает квиз по ID, включая приватные (для доступа по ID).
      */
     public QuizDetailsDTO getQuizById(Long quizId, Long userId) {
-        Quiz quiz = quizRepository.findById(quizId)
+        Quiz quiz = quizRepository.findWithCreatorById(quizId)
                 .orElseThrow(() -> new IllegalArgumentException("Квиз не найден"));
 
         // Если квиз приватный, проверяем доступ
@@ -313,7 +377,7 @@ public class QuizService {
             // В данном случае разрешаем доступ, так как пользователь знает ID
         }
 
-        List<QuestionDTO> questions = questionRepository.findByQuizId(quizId).stream()
+        List<QuestionDTO> questions = questionRepository.findWithAnswerOptionsByQuizId(quizId).stream()
                 .map(this::toQuestionDTO)
                 .collect(Collectors.toList());
 
@@ -338,9 +402,21 @@ public class QuizService {
     }
 
     // Вспомогательные методы
-    private QuizDTO toQuizDTO(Quiz quiz) {
-        // Считаем реальное количество вопросов в БД
-        int actualQuestionCount = (int) questionRepository.countByQuizId(quiz.getId());
+
+    /**
+     * Преобразует страницу квизов в DTO. Количество вопросов считается одним
+     * сгруппированным запросом на всю страницу.
+     */
+    private List<QuizDTO> toQuizDTOs(List<Quiz> quizzes) {
+        Map<Long, Long> questionCounts = questionRepository.countByQuizIds(
+                quizzes.stream().map(Quiz::getId).collect(Collectors.toList()));
+        return quizzes.stream()
+                .map(quiz -> toQuizDTO(quiz, questionCounts.getOrDefault(quiz.getId(), 0L)))
+                .collect(Collectors.toList());
+    }
+
+    private QuizDTO toQuizDTO(Quiz quiz, long questionCountInDb) {
+        int actualQuestionCount = (int) questionCountInDb;
         // Если вопросов еще нет, но есть запланированное количество, показываем его
         // Иначе показываем реальное количество
         int questionCount = actualQuestionCount > 0 ? actualQuestionCount : 
@@ -358,8 +434,7 @@ public class QuizService {
     }
 
     private QuestionDTO toQuestionDTO(org.example.model.Question question) {
-        List<org.example.model.AnswerOption> options = answerOptionRepository.findByQuestionId(question.getId());
-        List<org.example.dto.common.AnswerOption> dtoOptions = options.stream()
+        List<org.example.dto.common.AnswerOption> dtoOptions = question.getAnswerOptions().stream()
                 .map(opt -> new org.example.dto.common.AnswerOption(
                         opt.getId(),
                         opt.getText()
@@ -385,35 +460,26 @@ public class QuizService {
         return instant != null ? LocalDateTime.ofInstant(instant, ZoneId.systemDefault()) : null;
     }
 
-    private Pageable createPageable(Integer page, Integer size, String sortBy, Boolean ascending) {
-        int pageNum = page != null && page >= 0 ? page : 0;
-        int pageSize = size != null && size > 0 ? size : 20;
-
-        Sort.Direction direction = (ascending != null && ascending) ? 
-                Sort.Direction.ASC : Sort.Direction.DESC;
-
-        Sort sort;
-        if (sortBy != null) {
-            switch (sortBy.toLowerCase()) {
-                case "name":
-                    sort = Sort.by(direction, "name");
-                    break;
-                case "created":
-                case "created_at":
-                    sort = Sort.by(direction, "createdAt");
-                    break;
-                case "popularity":
-                    // TODO: Сортировка по популярности (количество прохождений)
-                    sort = Sort.by(direction, "createdAt");
-                    break;
-                default:
-                    sort = Sort.by(direction, "createdAt");
-            }
-        } else {
-            sort = Sort.by(direction, "createdAt");
+    /**
+     * Порядок выдачи поиска: по умолчанию — по релевантности, без запроса — по дате создания.
+     */
+    private QuizDao.SearchSort toSearchSort(String sortBy, boolean hasQuery) {
+        if (sortBy == null) {
+            return hasQuery ? QuizDao.SearchSort.RELEVANCE : QuizDao.SearchSort.CREATED_AT;
+        }
+        switch (sortBy.toLowerCase()) {
+            case "relevance":
+                return hasQuery ? QuizDao.SearchSort.RELEVANCE : QuizDao.SearchSort.CREATED_AT;
+            case "name":
+                return QuizDao.SearchSort.NAME;
+            case "created":
+            case "created_at":
+            case "popularity":
+                // TODO: Сортировка по популярности (количество прохождений)
+                return QuizDao.SearchSort.CREATED_AT;
+            default:
+                return QuizDao.SearchSort.CREATED_AT;
         }
-
-        return PageRequest.of(pageNum, pageSize, sort);
     }
 }
 
@@ -0,0 +1,77 @@
+package org.example.service;
+
+import lombok.Getter;
+import org.example.dto.common.AnswerOption;
+import org.example.dto.response.quiz.QuestionDTO;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок квиза для прохождения: метаданные, упорядоченные вопросы,
+ * варианты ответов и заранее вычисленные идентификаторы правильных ответов.
+ * Снимок безопасно разделяется между потоками и попытками.
+ */
+@Getter
+public final class QuizSnapshot {
+  private final Long quizId;
+  private final String name;
+  private final String materialUrl;
+  private final Duration timePerQuestion;
+  private final boolean isPrivate;
+  private final boolean isStatic;
+  private final Instant createdAt;
+  private final List<QuestionSnapshot> questions;
+  /** Вопросы квиза еще генерируются, и следующие снимки могут содержать больше вопросов. */
+  private final boolean generating;
+  @Getter(lombok.AccessLevel.NONE)
+  private final Map<Long, Integer> questionIndex;
+
+  /**
+   * Снимок одного вопроса. Готовый QuestionDTO строится один раз при загрузке снимка.
+   */
+  public record QuestionSnapshot(
+    Long id,
+    String explanation,
+    AnswerOption correctOption,
+    QuestionDTO dto
+  ) {
+    public Long correctOptionId() {
+      return correctOption != null ? correctOption.id() : null;
+    }
+  }
+
+  public QuizSnapshot(Long quizId, String name, String materialUrl, Duration timePerQuestion,
+                      boolean isPrivate, boolean isStatic, Instant createdAt, List<QuestionSnapshot> questions,
+                      boolean generating) {
+    this.quizId = quizId;
+    this.name = name;
+    this.materialUrl = materialUrl;
+    this.timePerQuestion = timePerQuestion;
+    this.isPrivate = isPrivate;
+    this.isStatic = isStatic;
+    this.createdAt = createdAt;
+    this.questions = List.copyOf(questions);
+    this.generating = generating;
+    Map<Long, Integer> index = new HashMap<>();
+    for (int i = 0; i < this.questions.size(); i++) {
+      index.put(this.questions.get(i).id(), i);
+    }
+    this.questionIndex = Map.copyOf(index);
+  }
+
+  /**
+   * Возвращает вопрос по его идентификатору или null, если вопроса нет в снимке.
+   */
+  public QuestionSnapshot getQuestion(Long questionId) {
+    Integer index = questionIndex.get(questionId);
+    return index != null ? questions.get(index) : null;
+  }
+
+  public Integer getTimeLimitSeconds() {
+    return timePerQuestion != null ? (int) timePerQuestion.getSeconds() : null;
+  }
+}
@@ -0,0 +1,223 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import org.example.dao.AnswerOptionDao;
+import org.example.dao.QuestionDao;
+import org.example.dao.QuizDao;
+import org.example.dto.common.AnswerOption;
+import org.example.dto.response.quiz.QuestionDTO;
+import org.example.model.Question;
+import org.example.model.Quiz;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ограниченный по размеру LRU-кеш неизменяемых снимков квизов.
+ * Загрузка снимка выполняется одним потоком (single-flight): одновременные запросы
+ * одного и того же квиза ждут результата первой загрузки вместо повторных обращений к БД.
+ * Снимок, загрузка которого пересеклась со сбросом кеша, отдается ожидающим, но в кеше не остается.
+ */
+@Service
+public class QuizSnapshotCache {
+  private final QuizDao quizDao;
+  private final QuestionDao questionDao;
+  private final AnswerOptionDao answerOptionDao;
+  private final MetricsService metricsService;
+
+  @Value("${quiz.snapshot-cache.max-size:1000}")
+  private int maxSize;
+
+  private final AtomicLong hits = new AtomicLong();
+  private final AtomicLong misses = new AtomicLong();
+  private final AtomicLong evictions = new AtomicLong();
+  // Номер сброса кеша; общий для всех квизов, лишний сброс стоит только повторной загрузки
+  private final AtomicLong invalidations = new AtomicLong();
+
+  private final LinkedHashMap<Long, CompletableFuture<QuizSnapshot>> entries =
+    new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Long, CompletableFuture<QuizSnapshot>> eldest) {
+        if (size() > maxSize) {
+          evictions.incrementAndGet();
+          return true;
+        }
+        return false;
+      }
+    };
+
+  public QuizSnapshotCache(QuizDao quizDao,
+                           QuestionDao questionDao,
+                           AnswerOptionDao answerOptionDao,
+                           MetricsService metricsService) {
+    this.quizDao = quizDao;
+    this.questionDao = questionDao;
+    this.answerOptionDao = answerOptionDao;
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void registerGauges() {
+    metricsService.registerGauge("quiz.snapshot.size", this::size);
+    metricsService.registerGauge("quiz.snapshot.hits", hits::get);
+    metricsService.registerGauge("quiz.snapshot.misses", misses::get);
+    metricsService.registerGauge("quiz.snapshot.evictions", evictions::get);
+  }
+
+  /**
+   * Возвращает снимок квиза, загружая его из БД при отсутствии в кеше.
+   *
+   * @param quizId ID квиза
+   * @return снимок или null, если квиз не найден
+   */
+  public QuizSnapshot get(Long quizId) {
+    CompletableFuture<QuizSnapshot> future;
+    boolean loader = false;
+    long generation;
+    synchronized (entries) {
+      generation = invalidations.get();
+      future = entries.get(quizId);
+      if (future == null) {
+        future = new CompletableFuture<>();
+        entries.put(quizId, future);
+        loader = true;
+      }
+    }
+
+    if (!loader) {
+      hits.incrementAndGet();
+      return await(future);
+    }
+
+    misses.incrementAndGet();
+    try {
+      QuizSnapshot snapshot = load(quizId);
+      // Несуществующие квизы не кешируем. Если во время загрузки кеш сбрасывался,
+      // снимок мог прочитать данные до коммита изменения и не должен остаться в кеше
+      if (snapshot == null || invalidations.get() != generation) {
+        remove(quizId, future);
+      }
+      future.complete(snapshot);
+      return snapshot;
+    } catch (RuntimeException e) {
+      remove(quizId, future);
+      future.completeExceptionally(e);
+      throw e;
+    }
+  }
+
+  /**
+   * Удаляет снимок квиза из кеша. Если вызов выполняется внутри транзакции,
+   * снимок дополнительно удаляется после коммита, чтобы параллельная загрузка
+   * не успела закешировать незакоммиченное состояние.
+   */
+  public void invalidate(Long quizId) {
+    evict(quizId);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          evict(quizId);
+        }
+      });
+    }
+  }
+
+  private void evict(Long quizId) {
+    synchronized (entries) {
+      invalidations.incrementAndGet();
+      entries.remove(quizId);
+    }
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  private void remove(Long quizId, CompletableFuture<QuizSnapshot> future) {
+    synchronized (entries) {
+      entries.remove(quizId, future);
+    }
+  }
+
+  private QuizSnapshot await(CompletableFuture<QuizSnapshot> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Загружает снимок тремя запросами: квиз, его вопросы и все варианты ответов.
+   */
+  private QuizSnapshot load(Long quizId) {
+    Quiz quiz = quizDao.findById(quizId);
+    if (quiz == null) {
+      return null;
+    }
+
+    List<Question> questions = questionDao.findByQuizId(quizId);
+    Map<Long, List<org.example.model.AnswerOption>> optionsByQuestion = new HashMap<>();
+    for (org.example.model.AnswerOption option : answerOptionDao.findByQuizId(quizId)) {
+      optionsByQuestion.computeIfAbsent(option.getQuestion().getId(), id -> new ArrayList<>()).add(option);
+    }
+
+    Integer timeLimit = quiz.getTimePerQuestion() != null ? (int) quiz.getTimePerQuestion().getSeconds() : null;
+    LocalDateTime createdAt = quiz.getCreatedAt() != null ?
+      LocalDateTime.ofInstant(quiz.getCreatedAt(), ZoneOffset.UTC) : null;
+
+    List<QuizSnapshot.QuestionSnapshot> questionSnapshots = new ArrayList<>(questions.size());
+    for (Question question : questions) {
+      List<AnswerOption> optionDTOs = new ArrayList<>();
+      AnswerOption correctOption = null;
+      for (org.example.model.AnswerOption option : optionsByQuestion.getOrDefault(question.getId(), List.of())) {
+        AnswerOption dto = new AnswerOption(option.getId(), option.getText());
+        optionDTOs.add(dto);
+        if (option.isCorrect() && correctOption == null) {
+          correctOption = dto;
+        }
+      }
+
+      QuestionDTO questionDTO = new QuestionDTO(
+        question.getId(),
+        question.getText(),
+        List.copyOf(optionDTOs),
+        timeLimit,
+        quiz.getMaterialUrl(),
+        question.getExplanation(),
+        null,
+        null,
+        null,
+        createdAt
+      );
+      questionSnapshots.add(new QuizSnapshot.QuestionSnapshot(
+        question.getId(), question.getExplanation(), correctOption, questionDTO));
+    }
+
+    return new QuizSnapshot(
+      quiz.getId(),
+      quiz.getName(),
+      quiz.getMaterialUrl(),
+      quiz.getTimePerQuestion(),
+      quiz.isPrivate(),
+      quiz.isStatic(),
+      quiz.getCreatedAt(),
+      questionSnapshots,
+      quiz.isGenerating()
+    );
+  }
+}
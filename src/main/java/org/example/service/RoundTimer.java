@@ -0,0 +1,69 @@
+package org.example.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.example.util.TimingWheel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Сроки раундов многопользовательских сессий на одном колесе таймеров.
+ * Колесо обслуживается одним потоком независимо от числа сессий;
+ * сработавшие задачи выполняются небольшим пулом multiplayer-round-*.
+ */
+@Component
+public class RoundTimer {
+  private final MetricsService metricsService;
+
+  @Value("${multiplayer.rounds.tick-millis:100}")
+  private long tickMillis;
+
+  @Value("${multiplayer.rounds.wheel-size:512}")
+  private int wheelSize;
+
+  @Value("${multiplayer.rounds.worker-threads:2}")
+  private int workerThreads;
+
+  private ExecutorService workers;
+  private TimingWheel wheel;
+
+  public RoundTimer(MetricsService metricsService) {
+    this.metricsService = metricsService;
+  }
+
+  @PostConstruct
+  void start() {
+    AtomicInteger threadNumber = new AtomicInteger();
+    workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+      Thread thread = new Thread(runnable, "multiplayer-round-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+    wheel = new TimingWheel("multiplayer-round-timer", tickMillis, wheelSize, workers);
+    metricsService.registerGauge("multiplayer.rounds.pending-timers", wheel::pendingCount);
+  }
+
+  @PreDestroy
+  void stop() {
+    wheel.stop();
+    workers.shutdownNow();
+  }
+
+  /**
+   * Выполняет задачу через delayMillis. Ошибка задачи только логируется.
+   */
+  public TimingWheel.Timeout schedule(String description, Runnable task, long delayMillis) {
+    return wheel.schedule(() -> {
+      try {
+        task.run();
+      } catch (RuntimeException e) {
+        System.err.println("Error in " + description + ": " + e.getMessage());
+      }
+    }, delayMillis, TimeUnit.MILLISECONDS);
+  }
+}
@@ -0,0 +1,53 @@
+package org.example.service;
+
+/**
+ * Псевдослучайная перестановка чисел [0, n), заданная seed, без хранения самой перестановки.
+ * Используется сеть Фейстеля на ближайшей сверху степени двойки с четным числом бит
+ * и «cycle walking»: значения вне [0, n) прогоняются через сеть повторно.
+ * Так как сеть Фейстеля — биекция, результат тоже биекция на [0, n).
+ * Размер области не больше 4n, поэтому в среднем нужно не более четырех проходов.
+ */
+final class SeededPermutation {
+  private static final int ROUNDS = 4;
+
+  private SeededPermutation() {
+  }
+
+  static int apply(long seed, int n, int index) {
+    if (index < 0 || index >= n) {
+      throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + n);
+    }
+    if (n <= 1) {
+      return index;
+    }
+
+    int bits = 32 - Integer.numberOfLeadingZeros(n - 1);
+    int halfBits = (bits + 1) / 2;
+    int value = index;
+    do {
+      value = feistel(seed, value, halfBits);
+    } while (value >= n);
+    return value;
+  }
+
+  private static int feistel(long seed, int value, int halfBits) {
+    int mask = (1 << halfBits) - 1;
+    int left = value >>> halfBits;
+    int right = value & mask;
+    for (int round = 0; round < ROUNDS; round++) {
+      int next = left ^ (int) (mix(seed + round * 0x9E3779B97F4A7C15L + right) & mask);
+      left = right;
+      right = next;
+    }
+    return (left << halfBits) | right;
+  }
+
+  /**
+   * Финализатор SplitMix64.
+   */
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
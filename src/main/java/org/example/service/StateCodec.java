@@ -0,0 +1,18 @@
+package org.example.service;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * Двоичное представление состояния для общего хранилища.
+ */
+public interface StateCodec<V> {
+
+  void write(V value, DataOutputStream out) throws IOException;
+
+  /**
+   * @return значение или null, если его больше нельзя восстановить (например, квиз удален)
+   */
+  V read(DataInputStream in) throws IOException;
+}
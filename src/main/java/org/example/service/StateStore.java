@@ -0,0 +1,75 @@
+package org.example.service;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Хранилище изменяемого состояния (попыток, сессий) по ключу.
+ * Значение, полученное через get, используется только для чтения:
+ * любые изменения выполняются через update, который применяет их атомарно
+ * и делает видимыми для других экземпляров приложения при общем хранилище.
+ * Хранилище само отслеживает время создания и последнего обращения к записи.
+ */
+public interface StateStore<K, V> {
+
+  /**
+   * Возвращает значение и отмечает обращение к записи.
+   *
+   * @return значение или null, если записи нет
+   */
+  V get(K key);
+
+  void put(K key, V value);
+
+  /**
+   * @return true, если запись добавлена; false, если ключ уже занят
+   */
+  boolean putIfAbsent(K key, V value);
+
+  /**
+   * Атомарно применяет изменение к значению. При конфликте с другим экземпляром
+   * изменение может быть применено повторно к свежему значению, поэтому оно
+   * не должно иметь внешних побочных эффектов.
+   *
+   * @return результат mutation или null, если записи нет
+   */
+  <R> R update(K key, Function<V, R> mutation);
+
+  boolean remove(K key);
+
+  /**
+   * Удаляет записи, к которым не обращались дольше idleTtl или созданные раньше чем absoluteTtl назад.
+   * Каждая запись возвращается ровно одному вызывающему, даже если очистку выполняют несколько экземпляров.
+   *
+   * @param idleTtl предел простоя или null без ограничения
+   * @param absoluteTtl предел времени жизни или null без ограничения
+   * @return удаленные значения
+   */
+  List<V> removeExpired(Duration idleTtl, Duration absoluteTtl);
+
+  /**
+   * Удаляет записи, значения которых удовлетворяют condition. Обходит все записи хранилища,
+   * поэтому предназначен для фоновой очистки небольших областей, а не для запросов.
+   * condition вызывается для каждого значения один раз. Запись, измененная во время обхода,
+   * не удаляется и будет проверена при следующем обходе.
+   *
+   * @return удаленные значения
+   */
+  List<V> removeIf(Predicate<V> condition);
+
+  /**
+   * Удаляет давно не использованные записи сверх maxEntries.
+   *
+   * @return удаленные значения
+   */
+  List<V> trimTo(int maxEntries);
+
+  int size();
+
+  /**
+   * Приблизительный объем памяти (или хранимых данных), занимаемый записями.
+   */
+  long estimatedBytes();
+}
@@ -0,0 +1,96 @@
+package org.example.service;
+
+import jakarta.annotation.PreDestroy;
+import org.example.dao.SharedStateDao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Создает хранилища состояния выбранного типа (state.store.type):
+ * memory — в памяти экземпляра, как раньше; postgres — общее для всех экземпляров
+ * хранилище в таблице shared_state с ближним кешем, позволяющее обслуживать одну попытку
+ * или сессию любым экземпляром за балансировщиком без привязки клиента.
+ * Общими становятся только эти хранилища: кеши снимков квизов и рейтингов, а также
+ * индекс сессий по ведущему, остаются локальными и сбрасываются только на своем экземпляре.
+ */
+@Component
+public class StateStoreFactory {
+  private final SharedStateDao sharedStateDao;
+  private final MetricsService metricsService;
+
+  @Value("${state.store.type:memory}")
+  private String type;
+
+  @Value("${state.store.near-cache-size:10000}")
+  private int nearCacheSize;
+
+  @Value("${state.store.touch-interval-millis:1000}")
+  private long touchIntervalMillis;
+
+  private final List<PostgresStateStore<?, ?>> postgresStores = new CopyOnWriteArrayList<>();
+
+  private ScheduledExecutorService toucher;
+
+  public StateStoreFactory(SharedStateDao sharedStateDao, MetricsService metricsService) {
+    this.sharedStateDao = sharedStateDao;
+    this.metricsService = metricsService;
+  }
+
+  /**
+   * @param namespace имя области ключей в общем хранилище и префикс метрик
+   * @param codec двоичное представление значения для общего хранилища
+   * @param sizer оценка размера значения в памяти для хранилища в памяти
+   */
+  public <K, V> StateStore<K, V> create(String namespace, StateCodec<V> codec, ToLongFunction<V> sizer) {
+    if ("memory".equalsIgnoreCase(type)) {
+      return new InMemoryStateStore<>(sizer);
+    }
+    if (!"postgres".equalsIgnoreCase(type)) {
+      throw new IllegalStateException("Unknown state.store.type: " + type);
+    }
+    PostgresStateStore<K, V> store = new PostgresStateStore<>(sharedStateDao, namespace, codec, nearCacheSize);
+    metricsService.registerGauge(namespace + ".near-cache.size", store::nearCacheSize);
+    metricsService.registerGauge(namespace + ".near-cache.hits", store::nearHits);
+    metricsService.registerGauge(namespace + ".near-cache.misses", store::nearMisses);
+    metricsService.registerGauge(namespace + ".conflicts", store::conflicts);
+    postgresStores.add(store);
+    startToucher();
+    return store;
+  }
+
+  @PreDestroy
+  synchronized void stop() {
+    if (toucher != null) {
+      toucher.shutdownNow();
+    }
+  }
+
+  private synchronized void startToucher() {
+    if (toucher != null) {
+      return;
+    }
+    toucher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "shared-state-toucher");
+      thread.setDaemon(true);
+      return thread;
+    });
+    toucher.scheduleWithFixedDelay(this::flushTouches, touchIntervalMillis, touchIntervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  private void flushTouches() {
+    for (PostgresStateStore<?, ?> store : postgresStores) {
+      try {
+        store.flushTouches();
+      } catch (RuntimeException e) {
+        System.err.println("Error touching shared state: " + e.getMessage());
+      }
+    }
+  }
+}
@@ -1,26 +1,28 @@
 package org.example.service;
 
+import org.example.dao.AttemptDao;
+import org.example.dao.QuizDao;
 import org.example.dto.request.auth.UpdateProfileRequest;
 import org.example.dto.response.auth.UserProfileDTO;
 import org.example.dto.response.history.UserHistoryDTO;
+import org.example.dto.response.quiz.CreatedQuizzesDTO;
 import org.example.dto.response.quiz.QuizDTO;
 import org.example.dto.common.AttemptSummary;
 import org.example.dto.common.Statistics;
 import org.example.model.User;
-import org.example.model.UserQuizAttempt;
 import org.example.repository.QuizRepository;
 import org.example.repository.UserQuizAttemptRepository;
 import org.example.repository.UserRepository;
 import org.example.repository.QuestionRepository;
+import org.example.util.PageCursor;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -29,21 +31,32 @@ import java.util.stream.Collectors;
 @Service
 @Transactional
 public class UserService {
+    private static final String HISTORY_SORT = "HISTORY";
+    private static final String CREATED_SORT = "CREATED";
+    private static final int HISTORY_PAGE_SIZE = 100;
+    private static final int CREATED_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 100;
 
     private final UserRepository userRepository;
     private final QuizRepository quizRepository;
     private final UserQuizAttemptRepository attemptRepository;
     private final QuestionRepository questionRepository;
+    private final AttemptDao attemptDao;
+    private final QuizDao quizDao;
 
     @Autowired
     public UserService(UserRepository userRepository,
                       QuizRepository quizRepository,
                       UserQuizAttemptRepository attemptRepository,
-                      QuestionRepository questionRepository) {
+                      QuestionRepository questionRepository,
+                      AttemptDao attemptDao,
+                      QuizDao quizDao) {
         this.userRepository = userRepository;
         this.quizRepository = quizRepository;
         this.attemptRepository = attemptRepository;
         this.questionRepository = questionRepository;
+        this.attemptDao = attemptDao;
+        this.quizDao = quizDao;
     }
 
     public UserProfileDTO updateUserProfile(UpdateProfileRequest request) {
@@ -94,42 +107,47 @@ public class UserService {
     }
 
     public UserHistoryDTO getUserHistory(Long userId) {
+        return getUserHistory(userId, null, null);
+    }
+
+    /**
+     * Возвращает страницу истории попыток пользователя.
+     * Страницы выбираются по ключу (start_time, id) после курсора, поэтому
+     * стоимость запроса не зависит от глубины страницы.
+     *
+     * @param cursor курсор из предыдущей страницы или null для первой
+     * @param limit размер страницы (по умолчанию 100)
+     */
+    public UserHistoryDTO getUserHistory(Long userId, String cursor, Integer limit) {
         if (!userRepository.existsById(userId)) {
             throw new IllegalArgumentException("Пользователь не найден");
         }
 
-        List<UserQuizAttempt> attempts = attemptRepository.findByUserId(userId, 
-                PageRequest.of(0, 100, Sort.by(Sort.Direction.DESC, "startTime"))).getContent();
+        int pageSize = pageSize(limit, HISTORY_PAGE_SIZE);
+        PageCursor after = PageCursor.decode(cursor, HISTORY_SORT);
+
+        // Запрашиваем на одну запись больше, чтобы узнать, есть ли следующая страница
+        List<AttemptDao.HistoryEntry> entries = attemptDao.findCompletedByUserId(userId, after, pageSize + 1);
+        String nextCursor = null;
+        if (entries.size() > pageSize) {
+            entries = entries.subList(0, pageSize);
+            AttemptDao.HistoryEntry last = entries.get(pageSize - 1);
+            nextCursor = new PageCursor(HISTORY_SORT, last.startTime().toString(), last.attemptId()).encode();
+        }
 
-        List<AttemptSummary> summaries = attempts.stream()
-                .filter(UserQuizAttempt::isCompleted)
-                .map(attempt -> new AttemptSummary(
-                        attempt.getId(),
-                        attempt.getQuiz().getName(),
-                        attempt.getScore() != null ? attempt.getScore().intValue() : 0,
-                        toLocalDateTime(attempt.getFinishTime())
+        List<AttemptSummary> summaries = entries.stream()
+                .map(entry -> new AttemptSummary(
+                        entry.attemptId(),
+                        entry.quizName(),
+                        (int) entry.score(),
+                        toLocalDateTime(entry.finishTime())
                 ))
                 .collect(Collectors.toList());
 
-        long totalAttempts = attemptRepository.countByUserId(userId);
-        double avgScore = attempts.stream()
-                .filter(a -> a.getScore() != null && a.isCompleted())
-                .mapToLong(a -> a.getScore())
-                .average()
-                .orElse(0.0);
-        long bestScore = attempts.stream()
-                .filter(a -> a.getScore() != null && a.isCompleted())
-                .mapToLong(a -> a.getScore())
-                .max()
-                .orElse(0L);
-
-        Statistics stats = new Statistics(
-                (int) totalAttempts,
-                avgScore,
-                (int) bestScore
-        );
+        // Статистика нужна только на первой странице
+        Statistics stats = after == null ? attemptDao.findStatistics(userId) : null;
 
-        return new UserHistoryDTO(summaries, stats);
+        return new UserHistoryDTO(summaries, stats, nextCursor);
     }
 
     public List<QuizDTO> getCreatedQuizzes(Long userId) {
@@ -137,14 +155,58 @@ public class UserService {
             throw new IllegalArgumentException("Пользователь не найден");
         }
 
-        return quizRepository.findByCreatedById(userId).stream()
-                .map(this::toQuizDTO)
+        return toQuizDTOs(quizRepository.findByCreatedById(userId));
+    }
+
+    /**
+     * Возвращает страницу квизов пользователя от новых к старым.
+     *
+     * @param cursor курсор из предыдущей страницы или null для первой
+     * @param limit размер страницы (по умолчанию 50)
+     * @param includeTotal вернуть оценку общего количества
+     */
+    public CreatedQuizzesDTO getCreatedQuizzes(Long userId, String cursor, Integer limit, boolean includeTotal) {
+        if (!userRepository.existsById(userId)) {
+            throw new IllegalArgumentException("Пользователь не найден");
+        }
+
+        int pageSize = pageSize(limit, CREATED_PAGE_SIZE);
+        PageCursor after = PageCursor.decode(cursor, CREATED_SORT);
+
+        List<org.example.model.Quiz> quizzes = quizDao.findByCreator(userId, after, pageSize + 1);
+        String nextCursor = null;
+        if (quizzes.size() > pageSize) {
+            quizzes = quizzes.subList(0, pageSize);
+            org.example.model.Quiz last = quizzes.get(pageSize - 1);
+            nextCursor = new PageCursor(CREATED_SORT, last.getCreatedAt().toString(), last.getId()).encode();
+        }
+
+        return new CreatedQuizzesDTO(
+                toQuizDTOs(quizzes),
+                nextCursor,
+                includeTotal ? quizDao.estimateByCreator(userId) : null
+        );
+    }
+
+    private List<QuizDTO> toQuizDTOs(List<org.example.model.Quiz> quizzes) {
+        // Количество вопросов для всех квизов считаем одним сгруппированным запросом
+        Map<Long, Long> questionCounts = questionRepository.countByQuizIds(
+                quizzes.stream().map(org.example.model.Quiz::getId).collect(Collectors.toList()));
+
+        return quizzes.stream()
+                .map(quiz -> toQuizDTO(quiz, questionCounts.getOrDefault(quiz.getId(), 0L)))
                 .collect(Collectors.toList());
     }
 
-    private QuizDTO toQuizDTO(org.example.model.Quiz quiz) {
-        // Считаем реальное количество вопросов в БД
-        int actualQuestionCount = (int) questionRepository.countByQuizId(quiz.getId());
+    private int pageSize(Integer limit, int defaultSize) {
+        if (limit == null || limit <= 0) {
+            return defaultSize;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
+    }
+
+    private QuizDTO toQuizDTO(org.example.model.Quiz quiz, long questionCountInDb) {
+        int actualQuestionCount = (int) questionCountInDb;
         // Если вопросов еще нет, но есть запланированное количество, показываем его
         // Иначе показываем реальное количество
         int questionCount = actualQuestionCount > 0 ? actualQuestionCount : 
@@ -0,0 +1,74 @@
+package org.example.util;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Автомат защиты внешнего сервиса. После failureThreshold ошибок подряд размыкается
+ * на openMillis: все вызовы сразу отклоняются, не нагружая упавший сервис.
+ * По истечении этого времени пропускается один пробный вызов: успех замыкает автомат,
+ * ошибка снова размыкает его.
+ */
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+    private final AtomicInteger consecutiveFailures = new AtomicInteger();
+    private final AtomicLong openedCount = new AtomicLong();
+    private volatile long openedAtMillis;
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return true, если вызов можно выполнить; после true нужно сообщить результат
+     * через onSuccess или onFailure
+     */
+    public boolean tryAcquire() {
+        State current = state.get();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMillis) {
+            // Пробный вызов получает только поток, переключивший автомат
+            return state.compareAndSet(State.OPEN, State.HALF_OPEN);
+        }
+        return false;
+    }
+
+    public void onSuccess() {
+        consecutiveFailures.set(0);
+        state.set(State.CLOSED);
+    }
+
+    public void onFailure() {
+        if (state.get() == State.HALF_OPEN || consecutiveFailures.incrementAndGet() >= failureThreshold) {
+            open();
+        }
+    }
+
+    public State state() {
+        return state.get();
+    }
+
+    /**
+     * Сколько раз автомат размыкался.
+     */
+    public long openedCount() {
+        return openedCount.get();
+    }
+
+    private void open() {
+        openedAtMillis = System.currentTimeMillis();
+        consecutiveFailures.set(0);
+        if (state.getAndSet(State.OPEN) != State.OPEN) {
+            openedCount.incrementAndGet();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package org.example.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Непрозрачный курсор для постраничной выдачи по ключу (keyset pagination).
+ * Хранит значение ключа сортировки и ID последней записи страницы, а также
+ * название сортировки, чтобы курсор нельзя было применить к другому порядку выдачи.
+ *
+ * @param sort название сортировки, для которой выдан курсор
+ * @param key значение ключа сортировки последней записи
+ * @param id ID последней записи
+ */
+public record PageCursor(String sort, String key, long id) {
+
+    public String encode() {
+        String raw = sort + "\n" + id + "\n" + key;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Разбирает курсор, выданный для указанной сортировки.
+     *
+     * @param cursor строка курсора или null
+     * @param expectedSort сортировка текущего запроса
+     * @return курсор или null, если строка пустая
+     * @throws IllegalArgumentException если курсор поврежден или выдан для другой сортировки
+     */
+    public static PageCursor decode(String cursor, String expectedSort) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String[] parts;
+        long id;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            parts = raw.split("\n", 3);
+            id = parts.length == 3 ? Long.parseLong(parts[1]) : 0;
+        } catch (IllegalArgumentException e) {
+            // Ошибки Base64 и NumberFormatException
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+        if (parts.length != 3 || !parts[0].equals(expectedSort)) {
+            throw new IllegalArgumentException("Некорректный курсор");
+        }
+        return new PageCursor(parts[0], parts[2], id);
+    }
+
+    /**
+     * Ключ сортировки как момент времени (для сортировок по дате).
+     *
+     * @throws IllegalArgumentException если ключ не является датой в формате ISO-8601
+     */
+    public Instant instantKey() {
+        try {
+            return Instant.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Некорректный курсор", e);
+        }
+    }
+}
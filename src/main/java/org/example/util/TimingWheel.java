@@ -0,0 +1,168 @@
+package org.example.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Хешированное колесо таймеров: один поток обслуживает любое число отложенных задач.
+ * Колесо делится на ticksPerWheel ячеек длиной tickMillis; задача попадает в ячейку
+ * по времени срабатывания и хранит число оставшихся полных оборотов. Добавление и отмена
+ * стоят O(1), на каждом такте просматривается только одна ячейка.
+ * Точность срабатывания — один такт. Задачи выполняются в переданном executor,
+ * чтобы долгая задача не задерживала такты.
+ */
+public class TimingWheel {
+
+    /**
+     * Отложенная задача. Отмена только помечает задачу, из ячейки она удаляется на ближайшем такте.
+     */
+    public static final class Timeout {
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * @return false, если задача уже выполнена или отменена
+         */
+        public boolean cancel() {
+            return state.compareAndSet(PENDING, CANCELLED);
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+    }
+
+    private final long tickMillis;
+    private final List<LinkedList<Timeout>> buckets;
+    private final int mask;
+    private final Executor executor;
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Thread worker;
+    private final long startNanos;
+    private volatile boolean running = true;
+    private long tick;
+
+    /**
+     * @param ticksPerWheel число ячеек, округляется вверх до степени двойки
+     */
+    public TimingWheel(String name, long tickMillis, int ticksPerWheel, Executor executor) {
+        this.tickMillis = tickMillis;
+        int size = Integer.highestOneBit(Math.max(ticksPerWheel - 1, 1)) << 1;
+        this.mask = size - 1;
+        this.buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new LinkedList<>());
+        }
+        this.executor = executor;
+        this.startNanos = System.nanoTime();
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Планирует выполнение задачи через delay.
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        long deadlineMillis = elapsedMillis + Math.max(unit.toMillis(delay), 0);
+        // Округление вверх: задача не срабатывает раньше срока
+        Timeout timeout = new Timeout(task, (deadlineMillis + tickMillis - 1) / tickMillis);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Число запланированных и еще не выполненных или не удаленных после отмены задач.
+     */
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    public void stop() {
+        running = false;
+        worker.interrupt();
+    }
+
+    private void run() {
+        while (running) {
+            long nextTickNanos = startNanos + TimeUnit.MILLISECONDS.toNanos((tick + 1) * tickMillis);
+            long sleepNanos = nextTickNanos - System.nanoTime();
+            if (sleepNanos > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(sleepNanos);
+                } catch (InterruptedException e) {
+                    if (!running) {
+                        return;
+                    }
+                    continue;
+                }
+            }
+            tick++;
+            transferAdded();
+            expire(buckets.get((int) (tick & mask)));
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.isCancelled()) {
+                pending.decrementAndGet();
+                continue;
+            }
+            // Просроченная к моменту переноса задача выполняется на текущем такте
+            long targetTick = Math.max(timeout.deadlineTick, tick);
+            timeout.remainingRounds = (targetTick - tick) / buckets.size();
+            buckets.get((int) (targetTick & mask)).add(timeout);
+        }
+    }
+
+    private void expire(LinkedList<Timeout> bucket) {
+        Iterator<Timeout> iterator = bucket.iterator();
+        while (iterator.hasNext()) {
+            Timeout timeout = iterator.next();
+            if (timeout.isCancelled()) {
+                iterator.remove();
+                pending.decrementAndGet();
+            } else if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+            } else {
+                iterator.remove();
+                pending.decrementAndGet();
+                if (timeout.state.compareAndSet(Timeout.PENDING, Timeout.EXPIRED)) {
+                    execute(timeout.task);
+                }
+            }
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            System.err.println("Error dispatching timer task: " + e.getMessage());
+        }
+    }
+}
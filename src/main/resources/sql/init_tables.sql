@@ -12,6 +12,7 @@ CREATE TABLE quizzes(
     has_material BOOLEAN NOT NULL,
     material_url VARCHAR(255),
     question_number INTEGER,
+    is_generating BOOLEAN NOT NULL DEFAULT FALSE,
     time_per_question_seconds INTEGER,
     is_private BOOLEAN NOT NULL,
     is_static BOOLEAN NOT NULL,
@@ -25,7 +26,6 @@ CREATE TABLE questions(
     text TEXT NOT NULL,
     type VARCHAR(32) NOT NULL,
     explanation TEXT NOT NULL,
-    image BYTEA,
     CONSTRAINT questions_quiz_id_fk FOREIGN KEY(quiz_id) REFERENCES quizzes(id) ON DELETE CASCADE
 );
 
@@ -49,3 +49,74 @@ CREATE TABLE user_quiz_attempts(
     CONSTRAINT user_quiz_attempts_user_id_fk FOREIGN KEY(user_id) REFERENCES users(id) ON DELETE SET NULL,
     CONSTRAINT user_quiz_attempts_quiz_id_fk FOREIGN KEY(quiz_id) REFERENCES quizzes(id)
 );
+
+CREATE TABLE quiz_best_results(
+    quiz_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    attempt_id BIGINT NOT NULL,
+    score BIGINT NOT NULL,
+    time_spent_seconds BIGINT NOT NULL,
+    finish_time TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT quiz_best_results_pk PRIMARY KEY(quiz_id, user_id),
+    CONSTRAINT quiz_best_results_quiz_id_fk FOREIGN KEY(quiz_id) REFERENCES quizzes(id) ON DELETE CASCADE,
+    CONSTRAINT quiz_best_results_user_id_fk FOREIGN KEY(user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+CREATE INDEX quiz_best_results_ranking_idx ON quiz_best_results(quiz_id, score DESC, finish_time ASC);
+CREATE INDEX user_quiz_attempts_quiz_user_idx ON user_quiz_attempts(quiz_id, user_id) WHERE is_completed;
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE quizzes ADD COLUMN search_vector TSVECTOR
+    GENERATED ALWAYS AS (to_tsvector('russian', name)) STORED;
+
+CREATE INDEX quizzes_search_vector_idx ON quizzes USING GIN(search_vector) WHERE NOT is_private;
+CREATE INDEX quizzes_name_trgm_idx ON quizzes USING GIN(lower(name) gin_trgm_ops) WHERE NOT is_private;
+CREATE INDEX users_login_trgm_idx ON users USING GIN(lower(login) gin_trgm_ops);
+
+CREATE INDEX quizzes_public_created_idx ON quizzes(created_at, id) WHERE NOT is_private;
+CREATE INDEX quizzes_public_name_idx ON quizzes(name, id) WHERE NOT is_private;
+CREATE INDEX quizzes_created_by_idx ON quizzes(created_by, created_at, id);
+CREATE INDEX user_quiz_attempts_history_idx ON user_quiz_attempts(user_id, start_time, id) WHERE is_completed;
+
+CREATE TABLE question_images(
+    question_id BIGINT PRIMARY KEY,
+    sha256 CHAR(64) NOT NULL,
+    content_type VARCHAR(64) NOT NULL,
+    size_bytes BIGINT NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT question_images_question_id_fk FOREIGN KEY(question_id) REFERENCES questions(id) ON DELETE CASCADE
+);
+
+CREATE INDEX question_images_sha256_idx ON question_images(sha256);
+
+CREATE TABLE attempt_answers(
+    attempt_id BIGINT NOT NULL,
+    question_id BIGINT NOT NULL,
+    answer_option_id BIGINT,
+    is_correct BOOLEAN NOT NULL,
+    answered_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    CONSTRAINT attempt_answers_pk PRIMARY KEY(attempt_id, question_id),
+    CONSTRAINT attempt_answers_attempt_id_fk FOREIGN KEY(attempt_id) REFERENCES user_quiz_attempts(id) ON DELETE CASCADE,
+    CONSTRAINT attempt_answers_question_id_fk FOREIGN KEY(question_id) REFERENCES questions(id) ON DELETE CASCADE
+);
+
+CREATE UNLOGGED TABLE shared_state(
+    namespace VARCHAR(32) NOT NULL,
+    state_key VARCHAR(64) NOT NULL,
+    version BIGINT NOT NULL DEFAULT (extract(epoch FROM clock_timestamp()) * 1000000)::BIGINT,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    touched_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT shared_state_pk PRIMARY KEY(namespace, state_key)
+) WITH (fillfactor = 70);
+
+CREATE TABLE generation_cache(
+    cache_key CHAR(64) NOT NULL,
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    used_at TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT generation_cache_pk PRIMARY KEY(cache_key)
+);
+
+CREATE INDEX generation_cache_used_at_idx ON generation_cache(used_at);
@@ -0,0 +1,107 @@
+package org.example;
+
+import org.example.dto.common.AnswerOption;
+import org.example.service.AttemptState;
+import org.example.service.QuizSnapshot;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ручной замер памяти состояния попыток: прежний вид (список ID вопросов и две HashMap
+ * с ответами) против компактного AttemptState. Не требует БД.
+ * Для стабильных цифр запускать с фиксированной кучей, например -Xms2g -Xmx2g.
+ */
+public class AttemptStateFootprint {
+    private static final int ATTEMPTS = 100_000;
+    private static final int QUESTIONS = 20;
+
+    /** Прежнее представление состояния попытки. */
+    private static final class LegacyState {
+        final Long attemptId;
+        final Long userId;
+        final String login;
+        final QuizSnapshot snapshot;
+        final List<Long> questionIds;
+        final Map<Long, Long> answers = new HashMap<>();
+        final Map<Long, Boolean> answerResults = new HashMap<>();
+        final Instant startTime;
+        int currentQuestionIndex;
+        int score;
+        long lastAccessMillis;
+
+        LegacyState(Long attemptId, Long userId, String login, QuizSnapshot snapshot,
+                    List<Long> questionIds, Instant startTime) {
+            this.attemptId = attemptId;
+            this.userId = userId;
+            this.login = login;
+            this.snapshot = snapshot;
+            this.questionIds = questionIds;
+            this.startTime = startTime;
+        }
+    }
+
+    public static void main(String[] args) {
+        QuizSnapshot snapshot = syntheticQuiz();
+        String login = "footprint";
+
+        long base = usedHeap();
+        List<LegacyState> legacy = new ArrayList<>(ATTEMPTS);
+        for (int i = 0; i < ATTEMPTS; i++) {
+            List<Long> questionIds = new ArrayList<>();
+            for (QuizSnapshot.QuestionSnapshot question : snapshot.getQuestions()) {
+                questionIds.add(question.id());
+            }
+            Collections.shuffle(questionIds);
+            LegacyState state = new LegacyState((long) i, (long) i, login, snapshot, questionIds, Instant.now());
+            for (Long questionId : questionIds) {
+                state.answers.put(questionId, questionId * 4);
+                state.answerResults.put(questionId, ThreadLocalRandom.current().nextBoolean());
+            }
+            legacy.add(state);
+        }
+        long legacyBytes = usedHeap() - base;
+        int legacyCount = legacy.size();
+        legacy = null;
+
+        base = usedHeap();
+        List<AttemptState> compact = new ArrayList<>(ATTEMPTS);
+        for (int i = 0; i < ATTEMPTS; i++) {
+            compact.add(new AttemptState(i, i, login, snapshot,
+                    ThreadLocalRandom.current().nextLong(), System.currentTimeMillis()));
+        }
+        long compactBytes = usedHeap() - base;
+
+        System.out.printf("%-10s %12s %16s%n", "layout", "attempts", "bytes/attempt");
+        System.out.printf("%-10s %12d %16.1f%n", "legacy", legacyCount, (double) legacyBytes / legacyCount);
+        System.out.printf("%-10s %12d %16.1f%n", "compact", compact.size(), (double) compactBytes / compact.size());
+        System.out.printf("estimateBytes() for %d questions: %d%n", QUESTIONS, compact.get(0).estimateBytes());
+    }
+
+    private static QuizSnapshot syntheticQuiz() {
+        List<QuizSnapshot.QuestionSnapshot> questions = new ArrayList<>();
+        for (long id = 1; id <= QUESTIONS; id++) {
+            AnswerOption correct = new AnswerOption(id * 4, "A");
+            questions.add(new QuizSnapshot.QuestionSnapshot(id, "", correct, null));
+        }
+        return new QuizSnapshot(1L, "Footprint", null, null, false, false, Instant.now(), questions, false);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,75 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.model.AnswerOption;
+import org.example.model.Question;
+import org.example.model.QuestionType;
+import org.example.service.DatabaseService;
+import org.example.service.QuestionParser;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ручной замер пропускной способности пакетной вставки сгенерированных вопросов.
+ * Запускается из тестового classpath (как Main) против локальной БД из docker-compose.
+ * Создает временного пользователя и квиз, после замера удаляет их.
+ */
+public class BulkInsertBenchmark {
+    private static final int[] SET_SIZES = {10, 100, 1000};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        HikariDataSource dataSource = Main.createDataSource();
+        DatabaseService dbService = new DatabaseService(dataSource);
+
+        Long userId = dbService.createUser("bench_" + System.currentTimeMillis() % 1_000_000_000L, "bench");
+        Long quizId = dbService.createQuiz("Bulk insert benchmark", "benchmark", userId, 0);
+        try {
+            System.out.printf("%10s %12s %16s%n", "questions", "avg ms/set", "questions/sec");
+            for (int size : SET_SIZES) {
+                List<QuestionParser.ParsedQuestion> set = generateSet(size);
+                for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                    dbService.saveQuestionsWithAnswers(set, quizId);
+                }
+
+                long start = System.nanoTime();
+                for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                    dbService.saveQuestionsWithAnswers(set, quizId);
+                }
+                long elapsed = System.nanoTime() - start;
+
+                double avgMillis = elapsed / 1_000_000.0 / MEASURED_ROUNDS;
+                double throughput = (double) size * MEASURED_ROUNDS / (elapsed / 1_000_000_000.0);
+                System.out.printf("%10d %12.2f %16.0f%n", size, avgMillis, throughput);
+            }
+        } finally {
+            dbService.deleteQuiz(quizId);
+            dbService.deleteUser(userId);
+            dataSource.close();
+        }
+    }
+
+    private static List<QuestionParser.ParsedQuestion> generateSet(int size) {
+        List<QuestionParser.ParsedQuestion> set = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            QuestionParser.ParsedQuestion pq = new QuestionParser.ParsedQuestion();
+            Question question = new Question();
+            question.setText("Вопрос " + (i + 1));
+            question.setType(QuestionType.SINGLE_CHOICE);
+            question.setExplanation("Объяснение к вопросу " + (i + 1));
+            pq.question = question;
+            pq.answerOptions = new ArrayList<>();
+            for (int j = 0; j < 4; j++) {
+                AnswerOption option = new AnswerOption();
+                option.setText("Вариант " + (j + 1));
+                option.setCorrect(j == 0);
+                option.setNaOption(false);
+                pq.answerOptions.add(option);
+            }
+            set.add(pq);
+        }
+        return set;
+    }
+}
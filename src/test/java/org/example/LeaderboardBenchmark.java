@@ -0,0 +1,93 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.dao.BestResultDao;
+import org.example.service.DatabaseService;
+import org.example.service.QuizLeaderboard;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Ручной замер запросов рейтинга: COUNT(*) по quiz_best_results против рейтинга в памяти.
+ * Запускается из тестового classpath (как Main) против локальной БД из docker-compose.
+ * Создает временный квиз и пользователей с результатами, после замера удаляет их.
+ */
+public class LeaderboardBenchmark {
+    private static final int[] RESULT_COUNTS = {1_000, 10_000, 100_000};
+    private static final int WARMUP_QUERIES = 200;
+    private static final int MEASURED_QUERIES = 2_000;
+    private static final int TOP_SIZE = 100;
+
+    public static void main(String[] args) throws Exception {
+        HikariDataSource dataSource = Main.createDataSource();
+        DatabaseService dbService = new DatabaseService(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        BestResultDao bestResultDao = new BestResultDao(jdbcTemplate);
+
+        String prefix = "lb" + System.currentTimeMillis() % 1_000_000_000L + "_";
+        Long ownerId = dbService.createUser(prefix + "owner", "bench");
+        Long quizId = dbService.createQuiz("Leaderboard benchmark", "benchmark", ownerId, 0);
+        try {
+            System.out.printf("%10s %14s %14s %14s %14s %10s%n",
+                    "results", "sql rank us", "memory rank us", "sql top us", "memory top us", "load ms");
+            int loaded = 0;
+            for (int count : RESULT_COUNTS) {
+                insertResults(jdbcTemplate, prefix, quizId, loaded, count);
+                loaded = count;
+                List<Long> userIds = jdbcTemplate.queryForList(
+                        "SELECT user_id FROM quiz_best_results WHERE quiz_id = ?", Long.class, quizId);
+
+                long loadStart = System.nanoTime();
+                QuizLeaderboard leaderboard = new QuizLeaderboard(bestResultDao.findAllByQuizId(quizId));
+                double loadMillis = (System.nanoTime() - loadStart) / 1_000_000.0;
+
+                double sqlRank = measure(() -> bestResultDao.findPosition(quizId, randomUser(userIds)));
+                double memoryRank = measure(() -> leaderboard.positionOf(randomUser(userIds)));
+                double sqlTop = measure(() -> bestResultDao.findTop(quizId, TOP_SIZE));
+                double memoryTop = measure(() -> leaderboard.top(TOP_SIZE));
+
+                System.out.printf("%10d %14.1f %14.2f %14.1f %14.2f %10.1f%n",
+                        count, sqlRank, memoryRank, sqlTop, memoryTop, loadMillis);
+            }
+        } finally {
+            dbService.deleteQuiz(quizId);
+            jdbcTemplate.update("DELETE FROM users WHERE login LIKE ?", prefix + "%");
+            dataSource.close();
+        }
+    }
+
+    /**
+     * Добавляет пользователей с номерами [from, to) и их лучшие результаты со случайным счетом.
+     */
+    private static void insertResults(JdbcTemplate jdbcTemplate, String prefix, Long quizId, int from, int to) {
+        jdbcTemplate.update("INSERT INTO users (login, password) " +
+                "SELECT ? || n, 'bench' FROM generate_series(?, ?) n", prefix, from, to - 1);
+        jdbcTemplate.update("INSERT INTO quiz_best_results " +
+                "(quiz_id, user_id, attempt_id, score, time_spent_seconds, finish_time) " +
+                "SELECT ?, u.id, 0, (random() * 1000)::BIGINT, (random() * 600)::BIGINT, " +
+                "now() - random() * INTERVAL '30 days' " +
+                "FROM users u WHERE u.login LIKE ? AND u.login <> ? " +
+                "ON CONFLICT (quiz_id, user_id) DO NOTHING", quizId, prefix + "%", prefix + "owner");
+        jdbcTemplate.execute("ANALYZE quiz_best_results");
+    }
+
+    private static Long randomUser(List<Long> userIds) {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    /**
+     * Среднее время одного вызова в микросекундах.
+     */
+    private static double measure(Runnable query) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1_000.0 / MEASURED_QUERIES;
+    }
+}
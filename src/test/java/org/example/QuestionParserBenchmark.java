@@ -0,0 +1,175 @@
+package org.example;
+
+import org.example.model.AnswerOption;
+import org.example.model.Question;
+import org.example.model.QuestionType;
+import org.example.service.QuestionParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Ручной замер разбора ответа сервиса генерации: прежний разбор регулярными выражениями
+ * (скопирован ниже как эталон) против потокового QuestionParser.
+ * Для каждого размера ответа печатает среднее время разбора целого ответа и долю ответа,
+ * после получения которой потоковый парсер отдает первый вопрос (прежнему нужен весь ответ).
+ * БД и сервис генерации не нужны.
+ */
+public class QuestionParserBenchmark {
+    private static final int[] RESPONSE_SIZES = {10, 100, 1000};
+    private static final int CHUNK_CHARS = 16;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURE_NANOS = 3_000_000_000L;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%10s %14s %14s %18s%n", "questions", "regex ms", "stream ms", "first question at");
+        for (int size : RESPONSE_SIZES) {
+            String response = generateResponse(size);
+
+            int legacyCount = legacyParse(response).size();
+            int streamingCount = QuestionParser.parse(response).size();
+            if (legacyCount != size || streamingCount != size) {
+                throw new IllegalStateException("Parsed " + legacyCount + "/" + streamingCount + " of " + size);
+            }
+
+            double legacyMillis = measure(() -> sink += legacyParse(response).size());
+            double streamingMillis = measure(() -> sink += QuestionParser.parse(response).size());
+            System.out.printf("%10d %14.3f %14.3f %17.1f%%%n",
+                size, legacyMillis, streamingMillis, firstQuestionShare(response) * 100);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    /**
+     * Среднее время одного прогона в миллисекундах после прогрева.
+     */
+    private static double measure(Runnable run) {
+        long warmupEnd = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < warmupEnd) {
+            run.run();
+        }
+        long start = System.nanoTime();
+        long runs = 0;
+        long elapsed;
+        do {
+            run.run();
+            runs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < MEASURE_NANOS);
+        return elapsed / 1_000_000.0 / runs;
+    }
+
+    /**
+     * Доля ответа, поданная потоковому парсеру частями по CHUNK_CHARS символов к моменту первого вопроса.
+     */
+    private static double firstQuestionShare(String response) {
+        int[] fed = {0, -1};
+        QuestionParser parser = new QuestionParser(question -> {
+            if (fed[1] < 0) {
+                fed[1] = fed[0];
+            }
+        });
+        for (int i = 0; i < response.length() && fed[1] < 0; i += CHUNK_CHARS) {
+            int end = Math.min(i + CHUNK_CHARS, response.length());
+            fed[0] = end;
+            parser.feed(response.subSequence(i, end));
+        }
+        parser.finish();
+        return (double) (fed[1] < 0 ? response.length() : fed[1]) / response.length();
+    }
+
+    private static String generateResponse(int size) {
+        StringBuilder response = new StringBuilder();
+        for (int i = 1; i <= size; i++) {
+            response.append("*Вопрос*\n")
+                .append("1) Какое утверждение о теме номер ").append(i).append(" верно?\n");
+            for (int option = 2; option <= 5; option++) {
+                response.append(option).append(") Вариант ответа ").append(option - 1)
+                    .append(" к вопросу ").append(i).append('\n');
+            }
+            response.append("*правильный ответ*\n").append(2 + i % 4).append('\n')
+                .append("*объяснение*\n")
+                .append("Объяснение к вопросу ").append(i).append(", достаточно длинное, как в ответах модели.\n");
+            if (i < size) {
+                response.append("*Следующий вопрос*\n");
+            }
+        }
+        return response.toString();
+    }
+
+    /**
+     * Прежняя реализация QuestionParser.parse без изменений.
+     */
+    private static List<QuestionParser.ParsedQuestion> legacyParse(String data) {
+        List<QuestionParser.ParsedQuestion> result = new ArrayList<>();
+        String cleaned = data.trim();
+        if (cleaned.startsWith("\"") && cleaned.endsWith("\"")) {
+            cleaned = cleaned.substring(1, cleaned.length() - 1);
+        }
+        cleaned = cleaned.replace("\\n", "\n");
+        String[] questions = cleaned.split("\\*Следующий вопрос\\*");
+
+        for (String qText : questions) {
+            if (qText.trim().isEmpty()) continue;
+
+            QuestionParser.ParsedQuestion pq = new QuestionParser.ParsedQuestion();
+            pq.answerOptions = new ArrayList<>();
+
+            Pattern questionPattern = Pattern.compile("\\*Вопрос\\*\\s*\n1\\)\\s*(.+?)(?=\\n2\\))", Pattern.DOTALL);
+            Pattern answerPattern = Pattern.compile("(\\d+)\\)\\s*(.+?)(?=\\n\\d+\\)|\\n\\*правильный)", Pattern.DOTALL);
+            Pattern correctPattern = Pattern.compile("\\*правильный ответ\\*\\s*\n(\\d+)");
+            Pattern explanationPattern = Pattern.compile("\\*объяснение\\*\\s*\n(.+?)(?=\\n\\*Следующий|$)", Pattern.DOTALL);
+
+            Matcher qMatcher = questionPattern.matcher(qText);
+            if (qMatcher.find()) {
+                Question question = new Question();
+                question.setText(qMatcher.group(1).trim());
+                question.setType(QuestionType.SINGLE_CHOICE);
+
+                Matcher expMatcher = explanationPattern.matcher(qText);
+                if (expMatcher.find()) {
+                    question.setExplanation(expMatcher.group(1).trim());
+                }
+
+                pq.question = question;
+
+                Matcher ansMatcher = answerPattern.matcher(qText);
+                while (ansMatcher.find()) {
+                    String optionText = ansMatcher.group(2).trim();
+
+                    AnswerOption option = new AnswerOption();
+                    option.setText(optionText);
+                    option.setNaOption(false);
+                    option.setCorrect(false);
+                    pq.answerOptions.add(option);
+                }
+
+                Matcher correctMatcher = correctPattern.matcher(qText);
+                if (correctMatcher.find()) {
+                    int correctNum = Integer.parseInt(correctMatcher.group(1));
+                    int correctIndex = correctNum - 2;
+                    if (correctIndex >= 0 && correctIndex < pq.answerOptions.size()) {
+                        pq.answerOptions.get(correctIndex).setCorrect(true);
+                        for (int i = 0; i < pq.answerOptions.size(); i++) {
+                            if (i != correctIndex) {
+                                pq.answerOptions.get(i).setCorrect(false);
+                            }
+                        }
+                    }
+                }
+            }
+
+            if (pq.question != null) {
+                result.add(pq);
+            }
+        }
+
+        return result;
+    }
+}
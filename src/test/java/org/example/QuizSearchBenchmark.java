@@ -0,0 +1,102 @@
+package org.example;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.example.dao.QuizDao;
+import org.example.service.DatabaseService;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Ручной замер поиска публичных квизов: прежний LIKE '%term%' против индексного поиска.
+ * Запускается из тестового classpath (как Main) против локальной БД из docker-compose.
+ * Создает временного пользователя и 1 000 000 квизов, после замера удаляет их.
+ */
+public class QuizSearchBenchmark {
+    private static final int QUIZ_COUNT = 1_000_000;
+    private static final int CHUNK_SIZE = 100_000;
+    private static final int WARMUP_QUERIES = 5;
+    private static final int MEASURED_QUERIES = 20;
+    private static final int PAGE_SIZE = 20;
+
+    private static final String[] TERMS = {
+            "история",   // точное слово
+            "истории",   // другая словоформа
+            "истрия",    // опечатка
+            "физ",       // начало слова
+            "bench"      // логин создателя
+    };
+
+    private static final String WORDS = "ARRAY['История', 'Физика', 'Химия', 'Биология', 'География', " +
+            "'Литература', 'Математика', 'Информатика', 'Музыка', 'Кино', 'Космос', 'Животные', " +
+            "'России', 'Европы', 'древнего', 'мира', 'для', 'начинающих', 'экспертов', 'школьников']";
+
+    public static void main(String[] args) throws Exception {
+        HikariDataSource dataSource = Main.createDataSource();
+        DatabaseService dbService = new DatabaseService(dataSource);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        QuizDao quizDao = new QuizDao(jdbcTemplate);
+
+        Long userId = dbService.createUser("bench_" + System.currentTimeMillis() % 1_000_000_000L, "bench");
+        try {
+            long loadStart = System.nanoTime();
+            for (int from = 0; from < QUIZ_COUNT; from += CHUNK_SIZE) {
+                insertQuizzes(jdbcTemplate, userId, from, Math.min(from + CHUNK_SIZE, QUIZ_COUNT));
+            }
+            jdbcTemplate.execute("ANALYZE quizzes");
+            System.out.printf("Inserted %d quizzes in %.1f s%n", QUIZ_COUNT, (System.nanoTime() - loadStart) / 1e9);
+
+            System.out.printf("%12s %12s %12s %10s %10s%n", "term", "like ms", "indexed ms", "like hits", "hits");
+            for (String term : TERMS) {
+                double likeMillis = measure(() -> likeSearch(jdbcTemplate, term));
+                double indexedMillis = measure(() -> {
+                    quizDao.searchPublic(term, QuizDao.SearchSort.RELEVANCE, false, null, PAGE_SIZE, 0);
+                    quizDao.estimatePublicMatches(term);
+                });
+                System.out.printf("%12s %12.1f %12.1f %10d %10d%n", term, likeMillis, indexedMillis,
+                        likeCount(jdbcTemplate, term), quizDao.countPublicMatches(term));
+            }
+        } finally {
+            dbService.deleteUser(userId);
+            dataSource.close();
+        }
+    }
+
+    private static void insertQuizzes(JdbcTemplate jdbcTemplate, Long userId, int from, int to) {
+        jdbcTemplate.update("INSERT INTO quizzes (name, prompt, created_by, has_material, is_private, is_static) " +
+                "SELECT w[1 + (n * 7) % 20] || ' ' || w[1 + (n * 13 / 20) % 20] || ' ' || w[1 + (n / 400) % 20] || ' ' || n, " +
+                "'benchmark', ?, false, n % 10 = 0, false " +
+                "FROM generate_series(?, ?) n, (SELECT " + WORDS + " AS w) words",
+                userId, from, to - 1);
+    }
+
+    /**
+     * Прежний запрос поиска: страница и количество по LIKE без индекса.
+     */
+    private static void likeSearch(JdbcTemplate jdbcTemplate, String term) {
+        jdbcTemplate.queryForList("SELECT q.id FROM quizzes q JOIN users u ON q.created_by = u.id " +
+                "WHERE NOT q.is_private AND (LOWER(q.name) LIKE LOWER(CONCAT('%', ?, '%')) " +
+                "OR LOWER(u.login) LIKE LOWER(CONCAT('%', ?, '%'))) " +
+                "ORDER BY q.created_at DESC LIMIT ?", Long.class, term, term, PAGE_SIZE);
+        likeCount(jdbcTemplate, term);
+    }
+
+    private static long likeCount(JdbcTemplate jdbcTemplate, String term) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM quizzes q JOIN users u ON q.created_by = u.id " +
+                "WHERE NOT q.is_private AND (LOWER(q.name) LIKE LOWER(CONCAT('%', ?, '%')) " +
+                "OR LOWER(u.login) LIKE LOWER(CONCAT('%', ?, '%')))", Long.class, term, term);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Среднее время одного вызова в миллисекундах.
+     */
+    private static double measure(Runnable query) {
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            query.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_QUERIES;
+    }
+}
@@ -0,0 +1,151 @@
+package org.example.service;
+
+import org.example.dto.common.AnswerOption;
+import org.example.dto.response.quiz.QuestionDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttemptStateTest {
+
+  @Test
+  void staticQuizKeepsQuestionOrder() {
+    AttemptState state = new AttemptState(1, 2, "user", snapshot(5, true, false), 99, 0);
+
+    for (int i = 0; i < 5; i++) {
+      assertEquals(i + 1L, state.questionAt(i).id());
+    }
+  }
+
+  @Test
+  void shuffledQuizVisitsEveryQuestionOnce() {
+    AttemptState state = new AttemptState(1, 2, "user", snapshot(20, false, false), 99, 0);
+
+    Set<Long> ids = new HashSet<>();
+    for (int i = 0; i < state.questionCount(); i++) {
+      ids.add(state.questionAt(i).id());
+    }
+    assertEquals(20, ids.size());
+  }
+
+  @Test
+  void codecRestoresProgress() throws IOException {
+    QuizSnapshot quiz = snapshot(10, false, false);
+    AttemptState state = new AttemptState(7, 3, "user", quiz, 12345, 1_000);
+    state.recordAnswer(0, 11L, true);
+    state.recordAnswer(1, null, false);
+    state.recordAnswer(2, 31L, true);
+    state.currentQuestionIndex = 3;
+    state.score = 2;
+    state.sessionId = "ABCD1234";
+
+    AttemptState restored = roundTrip(state, quiz);
+
+    assertNotNull(restored);
+    assertEquals(7, restored.attemptId);
+    assertEquals(3, restored.userId);
+    assertEquals("user", restored.login);
+    assertEquals(1_000, restored.startTimeMillis);
+    assertEquals(3, restored.currentQuestionIndex);
+    assertEquals(2, restored.score);
+    assertEquals("ABCD1234", restored.sessionId);
+    assertEquals(2, restored.correctCount());
+    assertEquals(state.estimateBytes(), restored.estimateBytes());
+    for (int i = 0; i < state.questionCount(); i++) {
+      assertEquals(state.questionAt(i).id(), restored.questionAt(i).id());
+    }
+  }
+
+  @Test
+  void codecDropsAttemptWhenQuestionsWereRemoved() throws IOException {
+    AttemptState state = new AttemptState(7, 3, "user", snapshot(10, false, false), 1, 0);
+
+    assertNull(roundTrip(state, snapshot(9, false, true)));
+    assertNull(roundTrip(state, null));
+  }
+
+  @Test
+  void extendedAttemptKeepsOrderOfEarlierQuestions() throws IOException {
+    AttemptState state = new AttemptState(7, 3, "user", snapshot(3, false, true), 42, 0);
+    List<Long> before = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      before.add(state.questionAt(i).id());
+    }
+
+    QuizSnapshot grown = snapshot(6, false, false);
+    assertTrue(state.extendTo(grown));
+    assertFalse(state.extendTo(snapshot(5, false, true)));
+
+    assertEquals(6, state.questionCount());
+    for (int i = 0; i < 3; i++) {
+      assertEquals(before.get(i), state.questionAt(i).id());
+    }
+    assertEquals(List.of(4L, 5L, 6L), List.of(state.questionAt(3).id(), state.questionAt(4).id(), state.questionAt(5).id()));
+
+    AttemptState restored = roundTrip(state, grown);
+    assertNotNull(restored);
+    for (int i = 0; i < 6; i++) {
+      assertEquals(state.questionAt(i).id(), restored.questionAt(i).id());
+    }
+  }
+
+  @Test
+  void stopsGrowingWhenGenerationEnds() {
+    AttemptState state = new AttemptState(7, 3, "user", snapshot(3, false, true), 42, 0);
+    assertTrue(state.mayGrow());
+
+    assertTrue(state.extendTo(snapshot(5, false, true)));
+    assertTrue(state.mayGrow());
+
+    assertFalse(state.extendTo(snapshot(5, false, false)));
+    assertFalse(state.mayGrow());
+    assertEquals(5, state.questionCount());
+  }
+
+  @Test
+  void stopsGrowingWhenQuestionsWereRemoved() {
+    AttemptState state = new AttemptState(7, 3, "user", snapshot(5, false, true), 42, 0);
+
+    // Вопрос удален после окончания генерации: перейти на снимок нельзя, но ждать больше нечего
+    assertFalse(state.extendTo(snapshot(4, false, false)));
+    assertFalse(state.mayGrow());
+    assertEquals(5, state.questionCount());
+  }
+
+  @Test
+  void rejectsSecondAnswerToSamePosition() {
+    AttemptState state = new AttemptState(7, 3, "user", snapshot(3, false, false), 42, 0);
+    state.recordAnswer(2, 31L, true);
+
+    assertThrows(IllegalStateException.class, () -> state.recordAnswer(2, 32L, false));
+    assertThrows(IllegalStateException.class, () -> state.recordAnswer(2, null, false));
+    assertEquals(1, state.correctCount());
+  }
+
+  private static AttemptState roundTrip(AttemptState state, QuizSnapshot current) throws IOException {
+    StateCodec<AttemptState> codec = AttemptState.codec(quizId -> current);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    codec.write(state, out);
+    out.flush();
+    return codec.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+  }
+
+  static QuizSnapshot snapshot(int questionCount, boolean isStatic, boolean generating) {
+    List<QuizSnapshot.QuestionSnapshot> questions = new ArrayList<>();
+    for (long id = 1; id <= questionCount; id++) {
+      AnswerOption correct = new AnswerOption(id * 10 + 1, "Верно");
+      QuestionDTO dto = new QuestionDTO(id, "Вопрос " + id, List.of(correct, new AnswerOption(id * 10 + 2, "Неверно")),
+        null, null, null, null, null, (int) id, null);
+      questions.add(new QuizSnapshot.QuestionSnapshot(id, "Объяснение " + id, correct, dto));
+    }
+    return new QuizSnapshot(100L, "Квиз", null, null, false, isStatic, Instant.EPOCH, questions, generating);
+  }
+}
@@ -0,0 +1,186 @@
+package org.example.service;
+
+import org.example.dao.GenerationCacheDao;
+import org.example.dto.common.QuizMaterial;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerationCacheTest {
+  private static final String RESPONSE = "*Вопрос*\n1) Столица Франции?\n2) Берлин\n3) Париж\n" +
+    "*правильный ответ*\n3\n*объяснение*\nПариж — столица Франции.\n" +
+    "*Следующий вопрос*\n*Вопрос*\n1) 2 + 2?\n2) 4\n3) 5\n*правильный ответ*\n2\n";
+
+  private final Map<String, byte[]> table = new HashMap<>();
+  private final List<String> touchedKeys = new ArrayList<>();
+  private boolean tableDown;
+  private GenerationCache cache;
+
+  @BeforeEach
+  void setUp() {
+    GenerationCacheDao dao = new GenerationCacheDao(null) {
+      @Override
+      public byte[] touch(String key, Duration maxAge) {
+        if (tableDown) {
+          throw new DataAccessResourceFailureException("down");
+        }
+        return table.get(key);
+      }
+
+      @Override
+      public void upsert(String key, byte[] payload) {
+        if (tableDown) {
+          throw new DataAccessResourceFailureException("down");
+        }
+        table.put(key, payload);
+      }
+
+      @Override
+      public void touchAll(Collection<String> keys) {
+        touchedKeys.addAll(keys);
+      }
+
+      @Override
+      public int deleteExpired(Duration maxAge) {
+        return 0;
+      }
+
+      @Override
+      public int deleteOldest(int keep) {
+        return 0;
+      }
+    };
+    cache = new GenerationCache(dao, new MetricsService());
+    ReflectionTestUtils.setField(cache, "enabled", true);
+    ReflectionTestUtils.setField(cache, "ttlHours", 24L);
+    ReflectionTestUtils.setField(cache, "memoryMaxEntries", 2);
+  }
+
+  @Test
+  void keyIgnoresCaseSpacingAndMaterialOrder() {
+    QuizMaterial a = new QuizMaterial("a.pdf", "/files/a.pdf", "pdf", 10L);
+    QuizMaterial b = new QuizMaterial("b.txt", "/files/b.txt", "txt", 20L);
+
+    String key = GenerationCache.key("  Математика \t ОГЭ ", 5, List.of(a, b));
+
+    assertEquals(64, key.length());
+    assertEquals(key, GenerationCache.key("математика огэ", 5, List.of(b, a)));
+    assertNotEquals(key, GenerationCache.key("математика огэ", 6, List.of(a, b)));
+    assertNotEquals(key, GenerationCache.key("математика огэ", 5, List.of(a)));
+    assertNotEquals(key, GenerationCache.key("физика огэ", 5, List.of(a, b)));
+    assertEquals(GenerationCache.key(null, 5, null), GenerationCache.key("", 5, List.of()));
+  }
+
+  @Test
+  void returnsStoredQuestions() {
+    List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse(RESPONSE);
+    assertNull(cache.get("k"));
+
+    cache.put("k", questions);
+    List<QuestionParser.ParsedQuestion> cached = cache.get("k");
+
+    assertEquals(2, cached.size());
+    for (int i = 0; i < questions.size(); i++) {
+      QuestionParser.ParsedQuestion expected = questions.get(i);
+      QuestionParser.ParsedQuestion actual = cached.get(i);
+      assertNotSame(expected.question, actual.question);
+      assertEquals(expected.question.getText(), actual.question.getText());
+      assertEquals(expected.question.getType(), actual.question.getType());
+      assertEquals(expected.question.getExplanation(), actual.question.getExplanation());
+      assertEquals(expected.answerOptions.size(), actual.answerOptions.size());
+      for (int j = 0; j < expected.answerOptions.size(); j++) {
+        assertEquals(expected.answerOptions.get(j).getText(), actual.answerOptions.get(j).getText());
+        assertEquals(expected.answerOptions.get(j).isCorrect(), actual.answerOptions.get(j).isCorrect());
+        assertEquals(expected.answerOptions.get(j).isNaOption(), actual.answerOptions.get(j).isNaOption());
+      }
+    }
+    assertNull(cached.get(1).question.getExplanation());
+  }
+
+  @Test
+  void fallsBackToTableAfterMemoryEviction() {
+    List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse(RESPONSE);
+    cache.put("k", questions);
+    cache.put("x", questions);
+    cache.put("y", questions);
+
+    assertNotNull(cache.get("k"));
+    assertEquals(1L, gauge("persistentHits"));
+    assertNotNull(cache.get("k"));
+    assertEquals(1L, gauge("memoryHits"));
+  }
+
+  @Test
+  void storesTextLongerThan64Kb() {
+    List<QuestionParser.ParsedQuestion> questions = QuestionParser.parse(RESPONSE);
+    String explanation = "Париж. ".repeat(20_000);
+    questions.get(0).question.setExplanation(explanation);
+
+    cache.put("k", questions);
+    table.clear();
+
+    assertEquals(explanation, cache.get("k").get(0).question.getExplanation());
+    assertEquals(0L, gauge("errors"));
+  }
+
+  @Test
+  void memoryHitsAreTouchedInTableOnSweep() {
+    cache.put("k", QuestionParser.parse(RESPONSE));
+    cache.get("k");
+    cache.get("k");
+    assertTrue(touchedKeys.isEmpty());
+
+    ReflectionTestUtils.invokeMethod(cache, "sweep");
+
+    assertEquals(List.of("k"), touchedKeys);
+    ReflectionTestUtils.invokeMethod(cache, "sweep");
+    assertEquals(1, touchedKeys.size());
+  }
+
+  @Test
+  void expiredEntryIsMiss() throws InterruptedException {
+    cache.put("k", QuestionParser.parse(RESPONSE));
+    table.clear();
+    ReflectionTestUtils.setField(cache, "ttlHours", 0L);
+    Thread.sleep(5);
+
+    assertNull(cache.get("k"));
+  }
+
+  @Test
+  void damagedOrUnavailableTableIsMiss() {
+    table.put("k", new byte[] {42, 1, 2});
+    assertNull(cache.get("k"));
+
+    tableDown = true;
+    cache.put("x", QuestionParser.parse(RESPONSE));
+    assertNull(cache.get("y"));
+    assertNotNull(cache.get("x"));
+    assertEquals(2L, gauge("errors"));
+  }
+
+  @Test
+  void disabledCacheStoresNothing() {
+    ReflectionTestUtils.setField(cache, "enabled", false);
+
+    cache.put("k", QuestionParser.parse(RESPONSE));
+
+    assertNull(cache.get("k"));
+    assertTrue(table.isEmpty());
+  }
+
+  private long gauge(String counter) {
+    return ((AtomicLong) ReflectionTestUtils.getField(cache, counter)).get();
+  }
+}
@@ -0,0 +1,205 @@
+package org.example.service;
+
+import org.example.dao.AttemptDao;
+import org.example.dao.QuizDao;
+import org.example.dao.UserDao;
+import org.example.dto.common.ParticipantDTO;
+import org.example.dto.request.multiplayer.CancelMultiplayerRequest;
+import org.example.dto.request.multiplayer.CreateMultiplayerRequest;
+import org.example.dto.request.multiplayer.JoinMultiplayerRequest;
+import org.example.dto.request.multiplayer.StartMultiplayerRequest;
+import org.example.dto.response.multiplayer.MultiplayerSessionDTO;
+import org.example.dto.response.multiplayer.ParticipantsDTO;
+import org.example.model.Quiz;
+import org.example.model.User;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToLongFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Нагрузочная проверка сессий: много потоков одновременно подключают участников,
+ * запускают и отменяют сессии, после чего проверяются инварианты состояния.
+ * DAO заменены заглушками, состояние хранится в памяти.
+ */
+class MultiplayerJoinStressTest {
+  private static final int SESSIONS = 40;
+  private static final int USERS_PER_SESSION = 100;
+  private static final int THREADS = 16;
+  // Каждая пятая сессия отменяется хостом параллельно с подключениями и запуском
+  private static final int CANCEL_EVERY = 5;
+
+  @Test
+  void concurrentJoinsStartsAndCancelsKeepSessionsConsistent() throws Exception {
+    Map<Long, List<Map<Long, Long>>> createdAttempts = new ConcurrentHashMap<>();
+    MultiplayerService service = stubbedService(createdAttempts);
+
+    List<String> sessionIds = new ArrayList<>();
+    for (int s = 0; s < SESSIONS; s++) {
+      sessionIds.add(service.createMultiplayerSession(new CreateMultiplayerRequest(hostId(s), (long) s)).sessionId());
+    }
+
+    Map<String, Set<Long>> joined = new ConcurrentHashMap<>();
+    AtomicInteger unexpectedErrors = new AtomicInteger();
+    List<Runnable> tasks = new ArrayList<>();
+    for (int s = 0; s < SESSIONS; s++) {
+      String sessionId = sessionIds.get(s);
+      Long hostId = hostId(s);
+      joined.put(sessionId, ConcurrentHashMap.newKeySet());
+      for (int u = 1; u <= USERS_PER_SESSION; u++) {
+        Long userId = hostId + u;
+        tasks.add(() -> {
+          try {
+            if (service.joinMultiplayerSession(new JoinMultiplayerRequest(userId, sessionId))) {
+              joined.get(sessionId).add(userId);
+            }
+          } catch (IllegalStateException e) {
+            // Сессия уже запущена или отменена
+          }
+        });
+      }
+      tasks.add(() -> {
+        try {
+          service.startMultiplayerSession(new StartMultiplayerRequest(sessionId, hostId, false));
+        } catch (IllegalStateException e) {
+          // Сессия отменена раньше или во время запуска
+        } catch (RuntimeException e) {
+          unexpectedErrors.incrementAndGet();
+        }
+      });
+      if (s % CANCEL_EVERY == 0) {
+        tasks.add(() -> service.cancelMultiplayerSession(new CancelMultiplayerRequest(sessionId, hostId)));
+      }
+    }
+    Collections.shuffle(tasks, new Random(42));
+
+    ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    CountDownLatch gate = new CountDownLatch(1);
+    for (Runnable task : tasks) {
+      executor.execute(() -> {
+        try {
+          gate.await();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return;
+        }
+        task.run();
+      });
+    }
+    gate.countDown();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Stress tasks did not finish in time");
+    assertEquals(0, unexpectedErrors.get(), "unexpected errors on start");
+
+    List<String> violations = new ArrayList<>();
+    for (int s = 0; s < SESSIONS; s++) {
+      String sessionId = sessionIds.get(s);
+      MultiplayerSessionDTO session = service.getMultiplayerSession(sessionId);
+      ParticipantsDTO roster = service.getSessionParticipants(sessionId);
+
+      Set<Long> rosterIds = new HashSet<>();
+      for (ParticipantDTO participant : roster.participants()) {
+        if (!rosterIds.add(participant.userId())) {
+          violations.add(sessionId + ": duplicate participant " + participant.userId());
+        }
+      }
+      if (roster.totalCount() != roster.participants().size()) {
+        violations.add(sessionId + ": totalCount " + roster.totalCount() + " != " + roster.participants().size());
+      }
+      // Без выходов версия состава равна числу подключений
+      if (roster.version() != roster.participants().size() - 1) {
+        violations.add(sessionId + ": roster version " + roster.version() + " for " + rosterIds.size() + " participants");
+      }
+      for (Long userId : joined.get(sessionId)) {
+        if (!rosterIds.contains(userId)) {
+          violations.add(sessionId + ": lost participant " + userId);
+        }
+      }
+
+      List<Map<Long, Long>> attempts = createdAttempts.getOrDefault((long) s, List.of());
+      if ("STARTED".equals(session.status())) {
+        if (attempts.size() != 1) {
+          violations.add(sessionId + ": attempts created " + attempts.size() + " times");
+        } else if (!attempts.get(0).keySet().equals(rosterIds)) {
+          violations.add(sessionId + ": attempts " + attempts.get(0).size() + " for " + rosterIds.size() + " participants");
+        }
+      } else if (!"CANCELLED".equals(session.status())) {
+        violations.add(sessionId + ": unexpected status " + session.status());
+      } else if (s % CANCEL_EVERY != 0) {
+        violations.add(sessionId + ": cancelled without cancel request");
+      }
+    }
+    assertEquals(List.of(), violations);
+  }
+
+  private static Long hostId(int session) {
+    return session * 1_000_000L;
+  }
+
+  private static MultiplayerService stubbedService(Map<Long, List<Map<Long, Long>>> createdAttempts) {
+    MetricsService metricsService = new MetricsService();
+    UserDao userDao = new UserDao(null) {
+      @Override
+      public User findById(Long userId) {
+        return new User(userId, "user" + userId, "");
+      }
+    };
+    QuizDao quizDao = new QuizDao(null) {
+      @Override
+      public Quiz findById(Long quizId) {
+        Quiz quiz = new Quiz();
+        quiz.setId(quizId);
+        quiz.setName("Quiz " + quizId);
+        return quiz;
+      }
+    };
+    AtomicLong attemptIds = new AtomicLong();
+    AttemptDao attemptDao = new AttemptDao(null) {
+      @Override
+      public Map<Long, Long> createForUsers(List<Long> userIds, Long quizId, Instant startTime) {
+        Map<Long, Long> attempts = new HashMap<>();
+        for (Long userId : userIds) {
+          attempts.put(userId, attemptIds.incrementAndGet());
+        }
+        createdAttempts.computeIfAbsent(quizId, id -> new CopyOnWriteArrayList<>()).add(attempts);
+        return attempts;
+      }
+    };
+    StateStoreFactory stateStoreFactory = new StateStoreFactory(null, metricsService) {
+      @Override
+      public <K, V> StateStore<K, V> create(String namespace, StateCodec<V> codec, ToLongFunction<V> sizer) {
+        return new InMemoryStateStore<>(sizer);
+      }
+    };
+    MultiplayerEventHub eventHub = new MultiplayerEventHub(null, metricsService) {
+      @Override
+      public void publish(String sessionId, String event, Object payload) {
+      }
+
+      @Override
+      public void close(String sessionId) {
+      }
+    };
+    QuizSnapshotCache quizSnapshotCache = new QuizSnapshotCache(quizDao, null, null, metricsService) {
+      @Override
+      public QuizSnapshot get(Long quizId) {
+        return AttemptStateTest.snapshot(3, false, false);
+      }
+    };
+    AttemptService attemptService = new AttemptService(null, null, null, null, null, null, null, null) {
+      @Override
+      public void startSessionAttempts(String sessionId, QuizSnapshot quiz, Map<Long, Long> userAttempts,
+                                       Map<Long, String> logins, Instant startTime) {
+      }
+    };
+    return new MultiplayerService(attemptService, userDao, quizDao, attemptDao, stateStoreFactory,
+      eventHub, quizSnapshotCache, null, null, metricsService, null);
+  }
+}
@@ -0,0 +1,135 @@
+package org.example.service;
+
+import org.example.model.AnswerOption;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuestionParserTest {
+    private static final String FIRST = "*Вопрос*\n" +
+            "1) Столица Франции?\n" +
+            "2) Берлин\n" +
+            "3) Париж\n" +
+            "4) Мадрид\n" +
+            "5) Рим\n" +
+            "*правильный ответ*\n" +
+            "3\n" +
+            "*объяснение*\n" +
+            "Париж — столица Франции.\n";
+
+    private static final String SECOND = "*Вопрос*\n" +
+            "1) Сколько будет 2 + 2?\n" +
+            "2) 4\n" +
+            "3) 5\n" +
+            "*правильный ответ*\n" +
+            "2\n" +
+            "*объяснение*\n" +
+            "Сложение.\n";
+
+    @Test
+    void parsesQuestionOptionsAndExplanation() {
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(FIRST + "*Следующий вопрос*\n" + SECOND);
+
+        assertEquals(2, parsed.size());
+        QuestionParser.ParsedQuestion first = parsed.get(0);
+        assertEquals("Столица Франции?", first.question.getText());
+        assertEquals("Париж — столица Франции.", first.question.getExplanation());
+        // Строка "1)" — текст вопроса, а не вариант ответа
+        assertEquals(List.of("Берлин", "Париж", "Мадрид", "Рим"), texts(first.answerOptions));
+    }
+
+    @Test
+    void marksOptionWithCorrectNumber() {
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(FIRST + "*Следующий вопрос*\n" + SECOND);
+
+        // Номер правильного ответа — номер строки варианта: "3)" — это "Париж"
+        assertEquals(List.of(false, true, false, false), correctness(parsed.get(0).answerOptions));
+        assertEquals(List.of(true, false), correctness(parsed.get(1).answerOptions));
+    }
+
+    @Test
+    void unwrapsQuotedResponseWithEscapedNewlines() {
+        String quoted = "\"" + FIRST.replace("\n", "\\n") + "\"";
+
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(quoted);
+
+        assertEquals(1, parsed.size());
+        assertEquals("Столица Франции?", parsed.get(0).question.getText());
+        assertEquals(4, parsed.get(0).answerOptions.size());
+    }
+
+    @Test
+    void emitsQuestionAsSoonAsItsBlockIsClosed() {
+        List<QuestionParser.ParsedQuestion> emitted = new ArrayList<>();
+        QuestionParser parser = new QuestionParser(emitted::add);
+        String response = FIRST + "*Следующий вопрос*\n" + SECOND;
+        int secondStart = response.indexOf(SECOND);
+
+        for (int i = 0; i < secondStart; i += 7) {
+            parser.feed(response.substring(i, Math.min(i + 7, secondStart)));
+        }
+        assertEquals(1, emitted.size());
+
+        parser.feed(response.substring(secondStart));
+        assertEquals(1, emitted.size());
+        parser.finish();
+        assertEquals(2, emitted.size());
+        assertEquals(2, parser.parsedCount());
+    }
+
+    @Test
+    void newQuestionMarkerClosesPreviousQuestionWithoutSeparator() {
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(FIRST + SECOND);
+
+        assertEquals(2, parsed.size());
+        assertEquals("Сколько будет 2 + 2?", parsed.get(1).question.getText());
+    }
+
+    @Test
+    void joinsWrappedLines() {
+        String response = "*Вопрос*\r\n" +
+                "1) Длинный вопрос,\r\n" +
+                "перенесенный на вторую строку\r\n" +
+                "2) Вариант\r\n" +
+                "с продолжением\r\n" +
+                "3) Другой\r\n" +
+                "*правильный ответ*\r\n" +
+                "2\r\n" +
+                "*объяснение*\r\n" +
+                "Первая строка.\r\n" +
+                "Вторая строка.\r\n";
+
+        QuestionParser.ParsedQuestion parsed = QuestionParser.parse(response).get(0);
+
+        assertEquals("Длинный вопрос,\nперенесенный на вторую строку", parsed.question.getText());
+        assertEquals(List.of("Вариант\nс продолжением", "Другой"), texts(parsed.answerOptions));
+        assertEquals("Первая строка.\nВторая строка.", parsed.question.getExplanation());
+    }
+
+    @Test
+    void skipsQuestionWithoutOptions() {
+        String response = "*Вопрос*\n1) Вопрос без вариантов\n*правильный ответ*\n2\n*Следующий вопрос*\n" + SECOND;
+
+        List<QuestionParser.ParsedQuestion> parsed = QuestionParser.parse(response);
+
+        assertEquals(1, parsed.size());
+        assertEquals("Сколько будет 2 + 2?", parsed.get(0).question.getText());
+    }
+
+    @Test
+    void ignoresTextBeforeFirstQuestion() {
+        assertEquals(1, QuestionParser.parse("Вот ваши вопросы:\n2) не вариант\n" + FIRST).size());
+        assertTrue(QuestionParser.parse("").isEmpty());
+    }
+
+    private static List<String> texts(List<AnswerOption> options) {
+        return options.stream().map(AnswerOption::getText).toList();
+    }
+
+    private static List<Boolean> correctness(List<AnswerOption> options) {
+        return options.stream().map(AnswerOption::isCorrect).toList();
+    }
+}
@@ -0,0 +1,84 @@
+package org.example.service;
+
+import org.example.dao.BestResultDao.BestResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizLeaderboardTest {
+  private static final Instant T0 = Instant.parse("2024-01-01T00:00:00Z");
+
+  @Test
+  void ordersByScoreThenEarlierFinish() {
+    QuizLeaderboard leaderboard = new QuizLeaderboard(List.of(
+      result(1, 5, 30), result(2, 8, 50), result(3, 5, 10), result(4, 1, 0)));
+
+    assertEquals(List.of(2L, 3L, 1L, 4L), userIds(leaderboard.top(10)));
+    assertEquals(List.of(2L, 3L), userIds(leaderboard.top(2)));
+    assertEquals(1, leaderboard.positionOf(2L));
+    assertEquals(3, leaderboard.positionOf(1L));
+    assertEquals(-1, leaderboard.positionOf(99L));
+  }
+
+  @Test
+  void keepsBestResultUnlessNewScoreIsHigher() {
+    QuizLeaderboard leaderboard = new QuizLeaderboard(List.of(result(1, 5, 10), result(2, 6, 10)));
+
+    assertFalse(leaderboard.offer(result(1, 5, 0)));
+    assertFalse(leaderboard.offer(result(1, 3, 0)));
+    assertEquals(2, leaderboard.positionOf(1L));
+
+    assertTrue(leaderboard.offer(result(1, 7, 20)));
+    assertEquals(1, leaderboard.positionOf(1L));
+    assertEquals(2, leaderboard.size());
+    assertEquals(7, leaderboard.get(1L).score());
+  }
+
+  @Test
+  void positionWithDoesNotChangeRanking() {
+    QuizLeaderboard leaderboard = new QuizLeaderboard(List.of(result(1, 5, 10), result(2, 8, 10)));
+
+    assertEquals(1, leaderboard.positionWith(3L, 9, T0));
+    assertEquals(2, leaderboard.positionWith(1L, 3, T0));
+    assertEquals(2, leaderboard.size());
+    assertEquals(-1, leaderboard.positionOf(3L));
+  }
+
+  @Test
+  void matchesSortedListOnRandomResults() {
+    Random random = new Random(7);
+    QuizLeaderboard leaderboard = new QuizLeaderboard(List.of());
+    Map<Long, BestResult> best = new HashMap<>();
+    for (int i = 0; i < 5_000; i++) {
+      BestResult offered = result(random.nextInt(500), random.nextInt(20), random.nextInt(1_000));
+      BestResult current = best.get(offered.userId());
+      boolean improves = current == null || offered.score() > current.score();
+      if (improves) {
+        best.put(offered.userId(), offered);
+      }
+      assertEquals(improves, leaderboard.offer(offered));
+    }
+
+    List<BestResult> expected = new ArrayList<>(best.values());
+    expected.sort(Comparator.comparingLong((BestResult r) -> -r.score())
+      .thenComparing(BestResult::finishTime)
+      .thenComparing(BestResult::userId));
+    assertEquals(expected, leaderboard.top(expected.size()));
+    for (BestResult result : expected) {
+      int ahead = (int) expected.stream().filter(other -> other.score() > result.score()
+        || other.score() == result.score() && other.finishTime().isBefore(result.finishTime())).count();
+      assertEquals(ahead + 1, leaderboard.positionOf(result.userId()));
+    }
+  }
+
+  private static BestResult result(long userId, long score, long finishSeconds) {
+    return new BestResult(userId, "user" + userId, userId * 100, score, 60, T0.plusSeconds(finishSeconds));
+  }
+
+  private static List<Long> userIds(List<BestResult> results) {
+    return results.stream().map(BestResult::userId).toList();
+  }
+}
@@ -0,0 +1,89 @@
+package org.example.service;
+
+import org.example.dao.AnswerOptionDao;
+import org.example.dao.QuestionDao;
+import org.example.dao.QuizDao;
+import org.example.model.AnswerOption;
+import org.example.model.Question;
+import org.example.model.Quiz;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuizSnapshotCacheTest {
+  private final AtomicInteger loads = new AtomicInteger();
+  private Runnable duringLoad = () -> {};
+  private QuizSnapshotCache cache;
+
+  @BeforeEach
+  void setUp() {
+    QuizDao quizDao = new QuizDao(null) {
+      @Override
+      public Quiz findById(Long quizId) {
+        loads.incrementAndGet();
+        duringLoad.run();
+        if (quizId != 1L) {
+          return null;
+        }
+        Quiz quiz = new Quiz();
+        quiz.setId(quizId);
+        quiz.setName("Квиз " + loads.get());
+        return quiz;
+      }
+    };
+    QuestionDao questionDao = new QuestionDao(null) {
+      @Override
+      public List<Question> findByQuizId(Long quizId) {
+        return List.of();
+      }
+    };
+    AnswerOptionDao answerOptionDao = new AnswerOptionDao(null) {
+      @Override
+      public List<AnswerOption> findByQuizId(Long quizId) {
+        return List.of();
+      }
+    };
+    cache = new QuizSnapshotCache(quizDao, questionDao, answerOptionDao, new MetricsService());
+    ReflectionTestUtils.setField(cache, "maxSize", 10);
+  }
+
+  @Test
+  void cachesLoadedSnapshot() {
+    QuizSnapshot first = cache.get(1L);
+
+    assertSame(first, cache.get(1L));
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  void doesNotCacheMissingQuiz() {
+    assertNull(cache.get(2L));
+    assertNull(cache.get(2L));
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  void reloadsAfterInvalidation() {
+    cache.get(1L);
+    cache.invalidate(1L);
+
+    assertEquals("Квиз 2", cache.get(1L).getName());
+  }
+
+  @Test
+  void dropsSnapshotLoadedWhileInvalidated() {
+    // Изменение квиза фиксируется, пока снимок загружается
+    duringLoad = () -> cache.invalidate(1L);
+    QuizSnapshot stale = cache.get(1L);
+    duringLoad = () -> {};
+
+    assertEquals("Квиз 1", stale.getName());
+    assertEquals("Квиз 2", cache.get(1L).getName());
+    assertEquals(1, cache.size());
+  }
+}
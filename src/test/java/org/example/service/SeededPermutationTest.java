@@ -0,0 +1,52 @@
+package org.example.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeededPermutationTest {
+
+  @Test
+  void isBijectionForAnySize() {
+    for (int n : new int[] {1, 2, 3, 5, 7, 16, 17, 100, 1000, 4097}) {
+      for (long seed : new long[] {0, 1, -7, 0x5DEECE66DL}) {
+        BitSet seen = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+          int value = SeededPermutation.apply(seed, n, i);
+          assertTrue(value >= 0 && value < n, "value " + value + " out of [0, " + n + ")");
+          assertFalse(seen.get(value), "value " + value + " repeated for n = " + n);
+          seen.set(value);
+        }
+      }
+    }
+  }
+
+  @Test
+  void sameSeedGivesSameOrder() {
+    assertEquals(order(12345, 50), order(12345, 50));
+  }
+
+  @Test
+  void differentSeedsGiveDifferentOrders() {
+    assertNotEquals(order(1, 50), order(2, 50));
+    assertNotEquals(order(1, 50), order(0, 50).stream().sorted().toList());
+  }
+
+  @Test
+  void rejectsIndexOutOfRange() {
+    assertThrows(IndexOutOfBoundsException.class, () -> SeededPermutation.apply(1, 10, 10));
+    assertThrows(IndexOutOfBoundsException.class, () -> SeededPermutation.apply(1, 10, -1));
+  }
+
+  private static List<Integer> order(long seed, int n) {
+    List<Integer> order = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      order.add(SeededPermutation.apply(seed, n, i));
+    }
+    return order;
+  }
+}
@@ -0,0 +1,63 @@
+package org.example.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decodesEncodedCursor() {
+        PageCursor cursor = new PageCursor("newest", "2024-05-01T10:15:30Z", 42);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode(), "newest"));
+    }
+
+    @Test
+    void keepsKeyWithSeparators() {
+        PageCursor cursor = new PageCursor("name", "Первая\nвторая строка", 7);
+
+        assertEquals(cursor, PageCursor.decode(cursor.encode(), "name"));
+    }
+
+    @Test
+    void emptyCursorMeansFirstPage() {
+        assertNull(PageCursor.decode(null, "newest"));
+        assertNull(PageCursor.decode("", "newest"));
+    }
+
+    @Test
+    void rejectsCursorOfAnotherSort() {
+        String cursor = new PageCursor("popular", "10", 1).encode();
+
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(cursor, "newest"));
+    }
+
+    @Test
+    void rejectsDamagedCursor() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!", "newest"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(base64("newest\nx\nkey"), "newest"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(base64("newest"), "newest"));
+    }
+
+    @Test
+    void convertsDateKey() {
+        assertEquals(Instant.parse("2024-05-01T10:15:30Z"),
+                new PageCursor("newest", "2024-05-01T10:15:30Z", 1).instantKey());
+    }
+
+    @Test
+    void rejectsMalformedDateKey() {
+        PageCursor cursor = PageCursor.decode(base64("newest\n1\nyesterday"), "newest");
+
+        assertThrows(IllegalArgumentException.class, cursor::instantKey);
+    }
+
+    private static String base64(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
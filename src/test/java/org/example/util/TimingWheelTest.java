@@ -0,0 +1,71 @@
+package org.example.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimingWheelTest {
+    // 8 ячеек по 10 мс: полный оборот колеса — 80 мс
+    private final TimingWheel wheel = new TimingWheel("timing-wheel-test", 10, 8, Runnable::run);
+
+    @AfterEach
+    void stopWheel() {
+        wheel.stop();
+    }
+
+    @Test
+    void runsTaskNotEarlierThanDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        long start = System.nanoTime();
+
+        wheel.schedule(fired::countDown, 50, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+    }
+
+    @Test
+    void runsTasksLongerThanOneRotationInDeadlineOrder() throws InterruptedException {
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+
+        wheel.schedule(() -> { order.add(250); fired.countDown(); }, 250, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { order.add(20); fired.countDown(); }, 20, TimeUnit.MILLISECONDS);
+        wheel.schedule(() -> { order.add(100); fired.countDown(); }, 100, TimeUnit.MILLISECONDS);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(List.of(20, 100, 250), order);
+    }
+
+    @Test
+    void cancelledTaskDoesNotRun() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        TimingWheel.Timeout timeout = wheel.schedule(() -> ran.set(true), 30, TimeUnit.MILLISECONDS);
+        wheel.schedule(later::countDown, 80, TimeUnit.MILLISECONDS);
+        assertTrue(timeout.cancel());
+
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    void pendingCountDropsToZeroAfterExpiry() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(2);
+        wheel.schedule(fired::countDown, 10, TimeUnit.MILLISECONDS);
+        wheel.schedule(fired::countDown, 0, TimeUnit.MILLISECONDS);
+        assertEquals(2, wheel.pendingCount());
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertEquals(0, wheel.pendingCount());
+    }
+}